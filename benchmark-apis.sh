@@ -0,0 +1,298 @@
+#!/bin/bash
+
+# Safra Bank API Benchmark Script
+# Runs throughput scenarios against locally started service jars
+#
+# Prerequisites:
+#   mvn package -DskipTests
+#   PostgreSQL reachable with the default datasource settings (or DB_* variables)
+#   ApacheBench (ab) installed; psql for the cube scenario
+#
+# Usage:
+#   ./benchmark-apis.sh <scenario> [requests] [concurrency]
+#
+# Scenarios:
+#   logging        POST /Log/auth throughput with synchronous, asynchronous and asynchronous+sampled logging
+#   serialization  Throughput and heap allocation per request with and without pre-serialized responses/Blackbird
+#   reactive       MVC statistics-api vs WebFlux/R2DBC statistics-api-reactive on the same endpoints
+#   cube           Grouped statistics latency from the registration cube at growing registration counts
+#                  (CUBE_ROWS, default "100000 1000000 10000000"), against the same GROUP BY on the raw table.
+#                  Replaces the contents of device_registrations.
+#   hedging        POST /Log/auth latency over three device-registration-api instances, one of which
+#                  stalls 200 ms every second: round-robin vs power-of-two-choices vs p2c with hedging
+#   replay         Replays a traffic capture (CAPTURE_DIR, recorded with TRAFFIC_CAPTURE_ENABLED=true) against
+#                  the built statistics-api, and first against BASELINE_STATISTICS_JAR when set, then reports
+#                  per-route latency and error deltas. REPLAY_SPEED: 1 (captured pace, default), a factor, or max.
+#                  [requests] limits the replayed requests, [concurrency] the requests in flight.
+
+set -e
+
+SCENARIO="${1:-logging}"
+REQUESTS="${2:-20000}"
+CONCURRENCY="${3:-64}"
+CUBE_ROWS="${CUBE_ROWS:-100000 1000000 10000000}"
+
+JAVA="${JAVA_HOME:+$JAVA_HOME/bin/}java"
+STATISTICS_JAR=$(ls statistics-api/target/statistics-api-*.jar | grep -v original | head -1)
+DEVICE_JAR=$(ls device-registration-api/target/device-registration-api-*.jar | grep -v original | head -1)
+REACTIVE_JAR=$(ls statistics-api-reactive/target/statistics-api-reactive-*.jar 2>/dev/null | grep -v original | head -1)
+STATISTICS_API_URL="http://localhost:8080"
+REACTIVE_API_URL="http://localhost:8082"
+DEVICE_REG_API_URL="http://localhost:8081"
+WORK_DIR=$(mktemp -d)
+PIDS=()
+
+# Isolate the measured code path: no rate limiting or coalescing of the identical benchmark requests
+COMMON_ARGS="--statistics.ratelimit.enabled=false --statistics.login.coalescing.enabled=false \
+--statistics.bitmap.enabled=false --management.endpoint.health.probes.enabled=true"
+
+if ! command -v ab > /dev/null; then
+    echo "❌ ApacheBench (ab) is required"
+    exit 1
+fi
+
+stop_services() {
+    for pid in "${PIDS[@]}"; do
+        kill "$pid" 2>/dev/null || true
+        wait "$pid" 2>/dev/null || true
+    done
+    PIDS=()
+}
+trap 'stop_services; rm -rf "$WORK_DIR"' EXIT
+
+wait_ready() {
+    until curl -sf "$1/actuator/health/readiness" > /dev/null 2>&1; do
+        sleep 0.2
+    done
+}
+
+# Start both services with the given extra arguments, then wait for readiness
+start_services() {
+    "$JAVA" -jar "$DEVICE_JAR" $COMMON_ARGS "$@" > "$WORK_DIR/device.log" 2>&1 &
+    PIDS+=($!)
+    "$JAVA" -jar "$STATISTICS_JAR" $COMMON_ARGS "$@" > "$WORK_DIR/statistics.log" 2>&1 &
+    PIDS+=($!)
+    wait_ready "$DEVICE_REG_API_URL"
+    wait_ready "$STATISTICS_API_URL"
+}
+
+# Run ab against an endpoint after a warm-up pass; prints requests per second
+# With a body file the requests are POSTs, otherwise GETs
+run_load() {
+    local url="$1" body="$2"
+    local post_args=()
+    if [ -n "$body" ]; then
+        post_args=(-p "$body" -T application/json)
+    fi
+    ab -q -n $((REQUESTS / 5)) -c "$CONCURRENCY" "${post_args[@]}" "$url" > /dev/null
+    ab -q -n "$REQUESTS" -c "$CONCURRENCY" "${post_args[@]}" "$url" \
+        | awk '/Requests per second/ {print $4}'
+}
+
+# Bytes allocated on the heap so far, as reported by Micrometer (updated at each GC)
+allocated_bytes() {
+    curl -s "$1/actuator/metrics/jvm.gc.memory.allocated" \
+        | sed -n 's/.*"statistic":"COUNT","value":\([0-9.E]*\).*/\1/p'
+}
+
+scenario_logging() {
+    local body="$WORK_DIR/login.json"
+    echo '{"userKey":"benchmark-user","deviceType":"iOS"}' > "$body"
+
+    local -A modes=(
+        ["sync"]="--spring.profiles.active=sync-logging"
+        ["async"]=""
+        ["async+sampled"]="--logging.sampling.rates=com.safra.bank=100"
+    )
+
+    for mode in sync async async+sampled; do
+        start_services ${modes[$mode]}
+        rps=$(run_load "$STATISTICS_API_URL/Log/auth" "$body")
+        lines=$(cat "$WORK_DIR/statistics.log" "$WORK_DIR/device.log" | wc -l)
+        printf "   %-14s %10s req/s   (%d log lines)\n" "$mode" "$rps" "$lines"
+        stop_services
+    done
+}
+
+scenario_serialization() {
+    local body="$WORK_DIR/login.json"
+    echo '{"userKey":"benchmark-user","deviceType":"iOS"}' > "$body"
+
+    for enabled in false true; do
+        start_services --statistics.web.fast-json.enabled=$enabled --device.web.fast-json.enabled=$enabled
+        echo "   fast-json=$enabled"
+        for endpoint in "GET /Log/auth/statistics?deviceType=iOS" "POST /Log/auth"; do
+            local path="${endpoint#* }" payload=""
+            [ "${endpoint%% *}" = "POST" ] && payload="$body"
+            before=$(allocated_bytes "$STATISTICS_API_URL")
+            rps=$(run_load "$STATISTICS_API_URL$path" "$payload")
+            after=$(allocated_bytes "$STATISTICS_API_URL")
+            awk -v e="$endpoint" -v r="$rps" -v b="$before" -v a="$after" -v n="$((REQUESTS + REQUESTS / 5))" \
+                'BEGIN { printf "     %-40s %10s req/s %10.0f B/request (statistics-api heap)\n", e, r, (a - b) / n }'
+        done
+        stop_services
+    done
+}
+
+scenario_reactive() {
+    local body="$WORK_DIR/login.json"
+    echo '{"userKey":"benchmark-user","deviceType":"iOS"}' > "$body"
+
+    if [ -z "$REACTIVE_JAR" ]; then
+        echo "❌ statistics-api-reactive jar not found (mvn package -DskipTests)"
+        exit 1
+    fi
+
+    start_services
+    "$JAVA" -jar "$REACTIVE_JAR" --management.endpoint.health.probes.enabled=true > "$WORK_DIR/reactive.log" 2>&1 &
+    PIDS+=($!)
+    wait_ready "$REACTIVE_API_URL"
+
+    for endpoint in "GET /Log/auth/statistics?deviceType=iOS" "POST /Log/auth"; do
+        local path="${endpoint#* }" payload=""
+        [ "${endpoint%% *}" = "POST" ] && payload="$body"
+        mvc=$(run_load "$STATISTICS_API_URL$path" "$payload")
+        reactive=$(run_load "$REACTIVE_API_URL$path" "$payload")
+        printf "   %-40s mvc %10s req/s   reactive %10s req/s\n" "$endpoint" "$mvc" "$reactive"
+    done
+    stop_services
+}
+
+run_psql() {
+    PGPASSWORD="${DB_PASSWORD:-safra_password}" psql -h "${DB_HOST:-localhost}" -p "${DB_PORT:-5432}" \
+        -U "${DB_USERNAME:-safra_user}" -d "${DB_NAME:-safra_device_stats}" "$@"
+}
+
+# Synthetic registrations over 4 device types x 20 app versions x 15 OS versions x 10 regions;
+# the cube size stays at about 12000 cells however many rows are generated
+seed_registrations() {
+    run_psql -q -c "TRUNCATE device_registrations, registration_cube, registration_cube_deltas" -c "
+        INSERT INTO device_registrations (user_key, device_type, app_version, os_version, region, created_at, updated_at)
+        SELECT 'benchmark-' || g,
+               (ARRAY['iOS', 'Android', 'Watch', 'TV'])[1 + g % 4],
+               '5.' || (g / 4 % 20) || '.0',
+               (10 + g / 80 % 15)::text,
+               (ARRAY['BR-SP', 'BR-RJ', 'BR-MG', 'BR-RS', 'BR-PR', 'BR-BA', 'BR-PE', 'BR-CE', 'BR-DF', 'US'])[1 + g / 1200 % 10],
+               LOCALTIMESTAMP, LOCALTIMESTAMP
+        FROM generate_series(1, $1) g" -c "ANALYZE device_registrations"
+}
+
+scenario_cube() {
+    local query="groupBy=appVersion,region&deviceType=iOS"
+    local raw_sql="SELECT app_version, region, COUNT(*) FROM device_registrations WHERE device_type = 'iOS' GROUP BY 1, 2"
+
+    if ! command -v psql > /dev/null; then
+        echo "❌ psql is required for the cube scenario"
+        exit 1
+    fi
+    # Services validate the schema instead of recreating (and emptying) the tables
+    run_psql -q -f database/sql/schema.sql > /dev/null 2>&1 || true
+
+    printf "   %12s %8s %18s %18s %16s\n" "rows" "cells" "cube mean (ms)" "cube p99 (ms)" "raw GROUP BY (ms)"
+    for rows in $CUBE_ROWS; do
+        seed_registrations "$rows"
+        # device-registration-api builds the empty cube from device_registrations before it reports ready
+        start_services --spring.jpa.hibernate.ddl-auto=validate
+        cells=$(run_psql -tA -c "SELECT COUNT(*) FROM registration_cube")
+        raw=$(run_psql -c '\timing on' -c "$raw_sql" | awk '/^Time:/ {print $2}')
+        ab -q -n $((REQUESTS / 5)) -c "$CONCURRENCY" "$STATISTICS_API_URL/Log/auth/statistics/groups?$query" > /dev/null
+        ab -q -n "$REQUESTS" -c "$CONCURRENCY" "$STATISTICS_API_URL/Log/auth/statistics/groups?$query" > "$WORK_DIR/ab.txt"
+        mean=$(awk '/Time per request/ && /\(mean\)/ {print $4; exit}' "$WORK_DIR/ab.txt")
+        p99=$(awk '$1 == "99%" {print $2}' "$WORK_DIR/ab.txt")
+        printf "   %12s %8s %18s %18s %16s\n" "$rows" "$cells" "$mean" "$p99" "$raw"
+        stop_services
+    done
+}
+
+# Latency percentiles from an ab run: mean p50 p95 p99
+ab_latency() {
+    awk '/Time per request/ && /\(mean\)/ {mean = $4}
+         $1 == "50%" {p50 = $2} $1 == "95%" {p95 = $2} $1 == "99%" {p99 = $2}
+         END {printf "%10s %8s %8s %8s", mean, p50, p95, p99}' "$1"
+}
+
+scenario_hedging() {
+    local body="$WORK_DIR/login.json" ports=(8081 8083 8084)
+    echo '{"userKey":"benchmark-user","deviceType":"iOS"}' > "$body"
+
+    # The first instance creates the schema; the others use it as is
+    "$JAVA" -jar "$DEVICE_JAR" $COMMON_ARGS > "$WORK_DIR/device-8081.log" 2>&1 &
+    PIDS+=($!)
+    wait_ready "http://localhost:8081"
+    for port in "${ports[@]:1}"; do
+        "$JAVA" -jar "$DEVICE_JAR" $COMMON_ARGS --server.port=$port --spring.jpa.hibernate.ddl-auto=none \
+            > "$WORK_DIR/device-$port.log" 2>&1 &
+        PIDS+=($!)
+        wait_ready "http://localhost:$port"
+    done
+    # Stall the last instance like a pod in long GC pauses
+    local stalled=${PIDS[2]}
+    (while kill -STOP "$stalled" 2>/dev/null; do sleep 0.2; kill -CONT "$stalled"; sleep 1; done) &
+    local staller=$!
+
+    local endpoints="http://localhost:8081,http://localhost:8083,http://localhost:8084"
+    local -A modes=(
+        ["round-robin"]="--device.registration.api.load-balancing.strategy=round-robin"
+        ["p2c"]=""
+        ["p2c+hedging"]="--device.registration.api.hedging.enabled=true"
+    )
+    printf "   %-14s %10s %8s %8s %8s %8s\n" "mode" "mean (ms)" "p50" "p95" "p99" "hedges"
+    for mode in round-robin p2c p2c+hedging; do
+        "$JAVA" -jar "$STATISTICS_JAR" $COMMON_ARGS --device.registration.api.load-balancing.endpoints=$endpoints \
+            ${modes[$mode]} > "$WORK_DIR/statistics.log" 2>&1 &
+        local statistics=$!
+        wait_ready "$STATISTICS_API_URL"
+        ab -q -n $((REQUESTS / 5)) -c "$CONCURRENCY" -p "$body" -T application/json "$STATISTICS_API_URL/Log/auth" > /dev/null
+        ab -q -n "$REQUESTS" -c "$CONCURRENCY" -p "$body" -T application/json "$STATISTICS_API_URL/Log/auth" > "$WORK_DIR/ab.txt"
+        hedges=$(curl -s "$STATISTICS_API_URL/actuator/metrics/statistics.registration.attempts?tag=kind:hedge" \
+            | sed -n 's/.*"statistic":"COUNT","value":\([0-9.E]*\).*/\1/p')
+        printf "   %-14s %s %8s\n" "$mode" "$(ab_latency "$WORK_DIR/ab.txt")" "$hedges"
+        kill "$statistics"
+        wait "$statistics" 2>/dev/null || true
+    done
+    kill "$staller" 2>/dev/null || true
+    kill -CONT "$stalled" 2>/dev/null || true
+    stop_services
+}
+
+replay_capture() {
+    "$JAVA" -cp "$1" -Dloader.main=com.safra.bank.statistics.capture.TrafficReplay \
+        org.springframework.boot.loader.launch.PropertiesLauncher "${@:2}"
+}
+
+scenario_replay() {
+    if [ -z "$CAPTURE_DIR" ]; then
+        echo "❌ CAPTURE_DIR is required"
+        exit 1
+    fi
+    local jars=("$STATISTICS_JAR") baseline=()
+    if [ -n "$BASELINE_STATISTICS_JAR" ]; then
+        jars=("$BASELINE_STATISTICS_JAR" "$STATISTICS_JAR")
+    fi
+
+    local run=0
+    for jar in "${jars[@]}"; do
+        echo "   $jar"
+        STATISTICS_JAR="$jar" start_services
+        # The driver always comes from the new build; only the service under test changes
+        replay_capture "$STATISTICS_JAR" --input="$CAPTURE_DIR" --target="$STATISTICS_API_URL" \
+            --speed="${REPLAY_SPEED:-1}" --limit="$REQUESTS" --concurrency="$CONCURRENCY" \
+            --report="$WORK_DIR/replay-$run.tsv" "${baseline[@]}"
+        baseline=(--baseline="$WORK_DIR/replay-$run.tsv")
+        run=$((run + 1))
+        stop_services
+    done
+}
+
+echo "🏦 Safra Bank API Benchmark: $SCENARIO ($REQUESTS requests, concurrency $CONCURRENCY)"
+echo "============================================"
+
+case "$SCENARIO" in
+    logging) scenario_logging ;;
+    serialization) scenario_serialization ;;
+    reactive) scenario_reactive ;;
+    cube) scenario_cube ;;
+    hedging) scenario_hedging ;;
+    replay) scenario_replay ;;
+    *) echo "Unknown scenario: $SCENARIO"; exit 1 ;;
+esac
@@ -88,6 +88,8 @@ fi
 # Determine which services to build
 if [ "$1" = "statistics-api" ]; then
     build_and_push "statistics-api" "statistics-api/Dockerfile"
+elif [ "$1" = "statistics-api-reactive" ]; then
+    build_and_push "statistics-api-reactive" "statistics-api-reactive/Dockerfile"
 elif [ "$1" = "device-registration-api" ]; then
     build_and_push "device-registration-api" "device-registration-api/Dockerfile"
 elif [ "$1" = "all" ] || [ -z "$1" ]; then
@@ -96,9 +98,10 @@ elif [ "$1" = "all" ] || [ -z "$1" ]; then
 
     build_and_push "statistics-api" "statistics-api/Dockerfile"
     build_and_push "device-registration-api" "device-registration-api/Dockerfile"
+    build_and_push "statistics-api-reactive" "statistics-api-reactive/Dockerfile"
 else
     echo -e "${RED}✗ Unknown service: $1${NC}"
-    echo "Usage: $0 [statistics-api|device-registration-api|all]"
+    echo "Usage: $0 [statistics-api|statistics-api-reactive|device-registration-api|all]"
     exit 1
 fi
 
@@ -107,6 +110,7 @@ echo ""
 echo -e "${BLUE}📋 Images created:${NC}"
 echo "  • $DOCKERHUB_USERNAME/safra-statistics-api:$IMAGE_TAG"
 echo "  • $DOCKERHUB_USERNAME/safra-device-registration-api:$IMAGE_TAG"
+echo "  • $DOCKERHUB_USERNAME/safra-statistics-api-reactive:$IMAGE_TAG"
 echo ""
 echo -e "${BLUE}🚀 To deploy with these images:${NC}"
 echo "  export DOCKERHUB_USERNAME=$DOCKERHUB_USERNAME"
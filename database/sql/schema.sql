@@ -27,6 +27,98 @@ CREATE INDEX IF NOT EXISTS idx_device_type ON device_registrations(device_type);
 CREATE INDEX IF NOT EXISTS idx_user_key ON device_registrations(user_key);
 CREATE INDEX IF NOT EXISTS idx_created_at ON device_registrations(created_at);
 
+-- Optional statistics dimensions reported at login (latest values per registration)
+ALTER TABLE device_registrations ADD COLUMN IF NOT EXISTS app_version VARCHAR(32);
+ALTER TABLE device_registrations ADD COLUMN IF NOT EXISTS os_version VARCHAR(32);
+ALTER TABLE device_registrations ADD COLUMN IF NOT EXISTS region VARCHAR(32);
+
+-- Pre-aggregated registration counts per dimension combination (one cube per shard)
+-- Maintained by device-registration-api; unreported dimensions are stored as ''
+CREATE TABLE IF NOT EXISTS registration_cube (
+    device_type VARCHAR(50) NOT NULL,
+    app_version VARCHAR(32) NOT NULL,
+    os_version VARCHAR(32) NOT NULL,
+    region VARCHAR(32) NOT NULL,
+    registrations BIGINT NOT NULL,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (device_type, app_version, os_version, region)
+);
+
+-- Registration cube deltas not yet applied to registration_cube (one journal per shard)
+-- Inserted in the registration transaction; a periodic flush sums them into the cube and deletes them
+CREATE TABLE IF NOT EXISTS registration_cube_deltas (
+    id BIGSERIAL PRIMARY KEY,
+    device_type VARCHAR(50) NOT NULL,
+    app_version VARCHAR(32) NOT NULL,
+    os_version VARCHAR(32) NOT NULL,
+    region VARCHAR(32) NOT NULL,
+    delta INTEGER NOT NULL
+);
+
+-- Append-only log of every login (one row per POST /Device/register), partitioned by day
+-- device-registration-api creates the daily partitions ahead of time and drops expired ones
+CREATE TABLE IF NOT EXISTS login_events (
+    occurred_at TIMESTAMP NOT NULL,
+    -- Same for every attempt (hedge, retry) of one login; null for callers that never repeat
+    request_id UUID,
+    user_key VARCHAR(255) NOT NULL,
+    device_type VARCHAR(50) NOT NULL,
+    app_version VARCHAR(32),
+    os_version VARCHAR(32),
+    region VARCHAR(32),
+    new_registration BOOLEAN NOT NULL
+) PARTITION BY RANGE (occurred_at);
+
+-- Rows arrive in time order, so a BRIN index (a few pages per partition) serves time ranges
+CREATE INDEX IF NOT EXISTS idx_login_events_occurred_at ON login_events USING BRIN (occurred_at);
+
+-- Logs each login once; includes the partition key, as unique indexes on partitioned tables must
+CREATE UNIQUE INDEX IF NOT EXISTS uk_login_events_request ON login_events (request_id, occurred_at);
+
+-- Hourly login counts per device type (one rollup per shard)
+-- Maintained by device-registration-api in the transaction that appends the login events
+CREATE TABLE IF NOT EXISTS login_rollup (
+    bucket_start TIMESTAMP NOT NULL,
+    device_type VARCHAR(50) NOT NULL,
+    logins BIGINT NOT NULL,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (bucket_start, device_type)
+);
+
+-- Registration changes not yet delivered to every subscriber (one outbox per shard)
+-- Written by device-registration-api in the registration transaction; the relay deletes delivered rows
+CREATE TABLE IF NOT EXISTS registration_outbox (
+    id BIGSERIAL PRIMARY KEY,
+    event_type VARCHAR(32) NOT NULL,
+    user_key VARCHAR(255) NOT NULL,
+    device_type VARCHAR(50) NOT NULL,
+    app_version VARCHAR(32),
+    os_version VARCHAR(32),
+    region VARCHAR(32),
+    created_at TIMESTAMP NOT NULL,
+    attempts INTEGER NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NOT NULL,
+    -- Space-separated names of the subscribers that acknowledged the change
+    delivered_to VARCHAR(2000)
+);
+
+CREATE INDEX IF NOT EXISTS idx_registration_outbox_due ON registration_outbox(next_attempt_at, id);
+
+-- Changes a subscriber did not acknowledge after device.outbox.max-attempts deliveries
+CREATE TABLE IF NOT EXISTS registration_outbox_parked (
+    id BIGINT PRIMARY KEY,
+    event_type VARCHAR(32) NOT NULL,
+    user_key VARCHAR(255) NOT NULL,
+    device_type VARCHAR(50) NOT NULL,
+    app_version VARCHAR(32),
+    os_version VARCHAR(32),
+    region VARCHAR(32),
+    created_at TIMESTAMP NOT NULL,
+    attempts INTEGER NOT NULL,
+    failed_subscribers VARCHAR(2000) NOT NULL,
+    parked_at TIMESTAMP NOT NULL
+);
+
 -- Create unique constraint to prevent duplicate user-device combinations
 ALTER TABLE device_registrations 
 ADD CONSTRAINT uk_user_device UNIQUE (user_key, device_type);
@@ -35,7 +127,13 @@ ADD CONSTRAINT uk_user_device UNIQUE (user_key, device_type);
 CREATE OR REPLACE FUNCTION update_updated_at_column()
 RETURNS TRIGGER AS $$
 BEGIN
-    NEW.updated_at = CURRENT_TIMESTAMP;
+    -- Keep an updated_at the statement raised itself (last-seen flush), and every updated_at
+    -- written by a transaction that merges timestamps itself (backfill)
+    IF NEW.updated_at IS NULL
+       OR (NEW.updated_at <= OLD.updated_at
+           AND current_setting('safra.keep_updated_at', true) IS DISTINCT FROM 'on') THEN
+        NEW.updated_at = CURRENT_TIMESTAMP;
+    END IF;
     RETURN NEW;
 END;
 $$ language 'plpgsql';
@@ -59,4 +157,12 @@ ON CONFLICT (user_key, device_type) DO NOTHING;
 -- Grant permissions for application user (to be created in deployment)
 -- CREATE USER safra_app WITH PASSWORD 'secure_password';
 -- GRANT SELECT, INSERT, UPDATE ON device_registrations TO safra_app;
--- GRANT USAGE, SELECT ON SEQUENCE device_registrations_id_seq TO safra_app;
\ No newline at end of file
+-- GRANT SELECT, INSERT, UPDATE, DELETE ON registration_cube TO safra_app;
+-- GRANT SELECT, INSERT, DELETE ON registration_cube_deltas TO safra_app;
+-- GRANT SELECT, INSERT ON login_events TO safra_app;
+-- GRANT SELECT, INSERT, UPDATE, DELETE ON login_rollup TO safra_app;
+-- GRANT SELECT, INSERT, UPDATE, DELETE ON registration_outbox TO safra_app;
+-- GRANT SELECT, INSERT, DELETE ON registration_outbox_parked TO safra_app;
+-- Partition maintenance (CREATE TABLE ... PARTITION OF, DROP TABLE) needs ownership of login_events
+-- GRANT USAGE, SELECT ON SEQUENCE device_registrations_id_seq TO safra_app;
+-- GRANT USAGE, SELECT ON SEQUENCE registration_outbox_id_seq TO safra_app;
\ No newline at end of file
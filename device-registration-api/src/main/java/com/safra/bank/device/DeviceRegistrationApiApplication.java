@@ -4,6 +4,7 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Device Registration API Spring Boot Application
@@ -16,6 +17,7 @@ import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
  * - Entity scanning from shared models for microservice architecture
  * - JPA repositories for secure database operations
  * - Component scanning for proper dependency injection
+ * - Scheduling for background write-behind tasks (last-seen timestamps)
  * 
  * Architecture Notes:
  * - This API is internally accessible only (within cluster/network)
@@ -30,6 +32,7 @@ import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 })
 @EntityScan(basePackages = "com.safra.bank.shared.entity")
 @EnableJpaRepositories(basePackages = "com.safra.bank.device.repository")
+@EnableScheduling
 public class DeviceRegistrationApiApplication {
 
     public static void main(String[] args) {
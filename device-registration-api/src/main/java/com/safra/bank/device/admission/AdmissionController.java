@@ -0,0 +1,159 @@
+package com.safra.bank.device.admission;
+
+import com.safra.bank.shared.admission.PoolLoad;
+import com.safra.bank.shared.jdbc.HikariPools;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission control on connection pool saturation
+ * Rejects a request up front when it would wait longer for a database connection than its
+ * class allows, instead of letting it queue on Hikari until connection-timeout (20s) expires
+ *
+ * DevSecOps Features:
+ * - Overload is answered with 503 and Retry-After, so clients back off instead of retrying at once
+ * - Shedding is bounded to the configured request classes; actuator endpoints stay reachable
+ *
+ * Performance Notes:
+ * - Each class has its own maximum predicted wait: bulk exports are shed first, then
+ *   registrations, and lookups last, so cheap reads keep being served while writes back off
+ * - The admit decision reads live pool counters only; averages are sampled in the background
+ * - With sharded storage a request is judged by the most saturated shard, since the shard of a
+ *   request is not known before its body is read
+ */
+@Component
+public class AdmissionController {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdmissionController.class);
+
+    private static final long MAX_RETRY_AFTER_SECONDS = 30;
+
+    /**
+     * Request classes in shedding order (bulk first)
+     */
+    public enum RequestClass {
+        READ, WRITE, BULK
+    }
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${device.admission.enabled:true}")
+    private boolean enabled;
+
+    @Value("${device.admission.max-wait.read:2s}")
+    private Duration maxReadWait;
+
+    @Value("${device.admission.max-wait.write:1s}")
+    private Duration maxWriteWait;
+
+    @Value("${device.admission.max-wait.bulk:200ms}")
+    private Duration maxBulkWait;
+
+    private final Map<RequestClass, Long> maxWaitNanos = new EnumMap<>(RequestClass.class);
+
+    private final Map<RequestClass, Counter> admitted = new EnumMap<>(RequestClass.class);
+
+    private final Map<RequestClass, Counter> shed = new EnumMap<>(RequestClass.class);
+
+    private volatile List<PoolLoad> pools = List.of();
+
+    @PostConstruct
+    void init() {
+        maxWaitNanos.put(RequestClass.READ, maxReadWait.toNanos());
+        maxWaitNanos.put(RequestClass.WRITE, maxWriteWait.toNanos());
+        maxWaitNanos.put(RequestClass.BULK, maxBulkWait.toNanos());
+        for (RequestClass requestClass : RequestClass.values()) {
+            String tag = requestClass.name().toLowerCase(Locale.ROOT);
+            admitted.put(requestClass, Counter.builder("device.admission.requests")
+                .description("Requests admitted by pool-saturation admission control")
+                .tag("class", tag).tag("result", "admitted")
+                .register(meterRegistry));
+            shed.put(requestClass, Counter.builder("device.admission.requests")
+                .description("Requests rejected with 503 because the predicted connection wait was too long")
+                .tag("class", tag).tag("result", "shed")
+                .register(meterRegistry));
+        }
+        Gauge.builder("device.admission.predicted.wait", this, controller -> controller.predictedWaitNanos() / 1_000_000.0)
+            .description("Predicted connection wait in milliseconds for a request arriving now")
+            .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Collect the Hikari pools behind the DataSource beans (every shard pool when sharded)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void discoverPools() {
+        List<HikariDataSource> found = HikariPools.find(applicationContext);
+        List<PoolLoad> loads = new ArrayList<>(found.size());
+        found.forEach(pool -> loads.add(new PoolLoad(pool)));
+        pools = List.copyOf(loads);
+        logger.info("Admission control {} over {} connection pool(s) (max wait read {}, write {}, bulk {})",
+                    enabled ? "enabled" : "disabled", loads.size(), maxReadWait, maxWriteWait, maxBulkWait);
+    }
+
+    /**
+     * Refresh the connection hold and acquire averages of every pool
+     */
+    @Scheduled(fixedDelayString = "${device.admission.sample-interval-ms:250}")
+    public void sample() {
+        long now = System.nanoTime();
+        for (PoolLoad pool : pools) {
+            pool.sample(meterRegistry, now);
+        }
+    }
+
+    /**
+     * Decide whether a request may proceed
+     *
+     * @param requestClass class of the request
+     * @return 0 to admit, otherwise the Retry-After in seconds
+     */
+    public long tryAdmit(RequestClass requestClass) {
+        if (!enabled) {
+            return 0;
+        }
+        long predicted = predictedWaitNanos();
+        if (predicted <= maxWaitNanos.get(requestClass)) {
+            admitted.get(requestClass).increment();
+            return 0;
+        }
+        shed.get(requestClass).increment();
+        return Math.min(MAX_RETRY_AFTER_SECONDS, Math.max(1, TimeUnit.NANOSECONDS.toSeconds(predicted + 999_999_999L)));
+    }
+
+    private long predictedWaitNanos() {
+        long worst = 0;
+        for (PoolLoad pool : pools) {
+            worst = Math.max(worst, pool.predictedWaitNanos());
+        }
+        return worst;
+    }
+}
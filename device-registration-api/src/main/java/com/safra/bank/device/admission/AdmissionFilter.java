@@ -0,0 +1,72 @@
+package com.safra.bank.device.admission;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safra.bank.device.admission.AdmissionController.RequestClass;
+import com.safra.bank.shared.dto.DeviceRegistrationResponse;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Admission control for the database-backed /Device/** endpoints
+ * Registered ahead of the Spring Security filter chain so shed requests are rejected before
+ * body parsing or any connection is requested
+ *
+ * DevSecOps Features:
+ * - 503 Service Unavailable with Retry-After
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 20)
+public class AdmissionFilter extends OncePerRequestFilter {
+
+    @Autowired
+    private AdmissionController admissionController;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !admissionController.isEnabled() || classify(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        long retryAfterSeconds = admissionController.tryAdmit(classify(request));
+        if (retryAfterSeconds > 0) {
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            objectMapper.writeValue(response.getOutputStream(), DeviceRegistrationResponse.serviceUnavailable());
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private static RequestClass classify(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        if (path.equals("/Device/register")) {
+            return RequestClass.WRITE;
+        }
+        if (path.startsWith("/Device/lookup")) {
+            return RequestClass.READ;
+        }
+        if (path.equals("/Device/export")) {
+            // Holds a connection for the whole stream
+            return RequestClass.BULK;
+        }
+        return null;
+    }
+}
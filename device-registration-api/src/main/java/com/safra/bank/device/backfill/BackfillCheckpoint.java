@@ -0,0 +1,122 @@
+package com.safra.bank.device.backfill;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ * Restart point of a backfill run, stored next to the input as a small properties file
+ * Written after every committed chunk (temporary file + atomic move), so it never
+ * points past data that is not in the database
+ *
+ * The input's size and modification time are recorded; a checkpoint is only applied
+ * to the same, unchanged input file.
+ */
+public class BackfillCheckpoint {
+
+    private final String input;
+    private final long inputSize;
+    private final long inputModified;
+    private final long records;
+    private final long loaded;
+    private final long rejected;
+
+    public BackfillCheckpoint(String input, long inputSize, long inputModified,
+                              long records, long loaded, long rejected) {
+        this.input = input;
+        this.inputSize = inputSize;
+        this.inputModified = inputModified;
+        this.records = records;
+        this.loaded = loaded;
+        this.rejected = rejected;
+    }
+
+    /**
+     * Start a new checkpoint for an input file
+     */
+    public static BackfillCheckpoint start(Path input) throws IOException {
+        return new BackfillCheckpoint(input.toAbsolutePath().toString(), Files.size(input),
+            Files.getLastModifiedTime(input).toMillis(), 0, 0, 0);
+    }
+
+    /**
+     * Load the checkpoint for an input file, or start a new one if none exists
+     *
+     * @throws IllegalStateException if the checkpoint belongs to a different or modified input
+     */
+    public static BackfillCheckpoint loadOrStart(Path checkpointFile, Path input) throws IOException {
+        BackfillCheckpoint fresh = start(input);
+        if (!Files.exists(checkpointFile)) {
+            return fresh;
+        }
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(checkpointFile)) {
+            properties.load(in);
+        }
+        BackfillCheckpoint saved = new BackfillCheckpoint(
+            properties.getProperty("input"),
+            Long.parseLong(properties.getProperty("inputSize")),
+            Long.parseLong(properties.getProperty("inputModified")),
+            Long.parseLong(properties.getProperty("records")),
+            Long.parseLong(properties.getProperty("loaded")),
+            Long.parseLong(properties.getProperty("rejected")));
+        if (!fresh.input.equals(saved.input) || fresh.inputSize != saved.inputSize
+                || fresh.inputModified != saved.inputModified) {
+            throw new IllegalStateException("Checkpoint " + checkpointFile + " was written for a different or " +
+                "modified input; delete it to start over");
+        }
+        return saved;
+    }
+
+    /**
+     * @return a checkpoint advanced by one committed chunk
+     */
+    public BackfillCheckpoint advance(long chunkRecords, long chunkLoaded, long chunkRejected) {
+        return new BackfillCheckpoint(input, inputSize, inputModified,
+            records + chunkRecords, loaded + chunkLoaded, rejected + chunkRejected);
+    }
+
+    /**
+     * Atomically replace the checkpoint file
+     */
+    public void save(Path checkpointFile) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("input", input);
+        properties.setProperty("inputSize", Long.toString(inputSize));
+        properties.setProperty("inputModified", Long.toString(inputModified));
+        properties.setProperty("records", Long.toString(records));
+        properties.setProperty("loaded", Long.toString(loaded));
+        properties.setProperty("rejected", Long.toString(rejected));
+
+        Path temporary = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".partial");
+        try (OutputStream out = Files.newOutputStream(temporary)) {
+            properties.store(out, "device registration backfill checkpoint");
+        }
+        Files.move(temporary, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @return input records consumed (loaded or rejected) by committed chunks
+     */
+    public long getRecords() {
+        return records;
+    }
+
+    /**
+     * @return rows inserted or updated by committed chunks
+     */
+    public long getLoaded() {
+        return loaded;
+    }
+
+    /**
+     * @return malformed or invalid records skipped by committed chunks
+     */
+    public long getRejected() {
+        return rejected;
+    }
+}
@@ -0,0 +1,64 @@
+package com.safra.bank.device.backfill;
+
+/**
+ * Summary of a completed backfill run
+ * Used for progress logging and throughput reporting; counts cover this run only
+ */
+public class BackfillResult {
+
+    private final long records;
+    private final long loaded;
+    private final long rejected;
+    private final long resumedAt;
+    private final long elapsedMillis;
+
+    public BackfillResult(long records, long loaded, long rejected, long resumedAt, long elapsedMillis) {
+        this.records = records;
+        this.loaded = loaded;
+        this.rejected = rejected;
+        this.resumedAt = resumedAt;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public long getRecords() {
+        return records;
+    }
+
+    public long getLoaded() {
+        return loaded;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    /**
+     * @return records skipped because an earlier run had already committed them
+     */
+    public long getResumedAt() {
+        return resumedAt;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * @return load throughput in input records per second
+     */
+    public long getRowsPerSecond() {
+        return elapsedMillis > 0 ? records * 1000 / elapsedMillis : records;
+    }
+
+    @Override
+    public String toString() {
+        return "BackfillResult{" +
+                "records=" + records +
+                ", loaded=" + loaded +
+                ", rejected=" + rejected +
+                ", resumedAt=" + resumedAt +
+                ", elapsedMillis=" + elapsedMillis +
+                ", rowsPerSecond=" + getRowsPerSecond() +
+                '}';
+    }
+}
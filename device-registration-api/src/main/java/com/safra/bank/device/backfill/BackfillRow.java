@@ -0,0 +1,15 @@
+package com.safra.bank.device.backfill;
+
+import java.time.LocalDateTime;
+
+/**
+ * One registration read from a backfill file
+ * Ids from the source system are ignored; the target assigns its own
+ *
+ * @param userKey user identifier
+ * @param deviceType device type
+ * @param createdAt first registration time, or null to use the load time
+ * @param updatedAt last-seen time, or null to use createdAt
+ */
+public record BackfillRow(String userKey, String deviceType, LocalDateTime createdAt, LocalDateTime updatedAt) {
+}
@@ -0,0 +1,79 @@
+package com.safra.bank.device.backfill;
+
+import com.safra.bank.device.export.ExportFormat;
+import com.safra.bank.device.service.RegistrationBackfillService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+
+/**
+ * Command-line bulk backfill of device registrations
+ * Loads a CSV or NDJSON file (the registration export formats) and exits
+ *
+ * Usage:
+ *   java -jar device-registration-api.jar --spring.main.web-application-type=none \
+ *        --device.backfill.cli.input=/data/legacy-registrations.csv.gz \
+ *        [--device.backfill.cli.format=csv] [--device.backfill.cli.gzip=true] \
+ *        [--device.backfill.cli.checkpoint=/data/legacy-registrations.csv.gz.checkpoint] \
+ *        [--device.backfill.chunk-size=500000]
+ *
+ * Format and compression default from the file name (.csv / .ndjson, .gz). After a failure,
+ * running the same command again resumes after the last committed chunk.
+ */
+@Component
+@ConditionalOnProperty(prefix = "device.backfill.cli", name = "input")
+public class RegistrationBackfillRunner implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(RegistrationBackfillRunner.class);
+
+    @Autowired
+    private RegistrationBackfillService registrationBackfillService;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Value("${device.backfill.cli.input}")
+    private Path input;
+
+    @Value("${device.backfill.cli.format:#{null}}")
+    private String format;
+
+    @Value("${device.backfill.cli.gzip:#{null}}")
+    private Boolean gzip;
+
+    @Value("${device.backfill.cli.checkpoint:#{null}}")
+    private Path checkpoint;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        String fileName = input.getFileName().toString();
+        boolean compressed = gzip != null ? gzip : fileName.endsWith(".gz");
+        String baseName = compressed && fileName.endsWith(".gz") ? fileName.substring(0, fileName.length() - 3) : fileName;
+        Path checkpointFile = checkpoint != null ? checkpoint : input.resolveSibling(fileName + ".checkpoint");
+
+        int exitCode = 0;
+        try {
+            ExportFormat inputFormat = ExportFormat.fromValue(
+                format != null ? format : baseName.substring(baseName.lastIndexOf('.') + 1));
+            BackfillResult result = registrationBackfillService.backfill(input, inputFormat, compressed, checkpointFile);
+            logger.info("Backfill of {} finished: {} records, {} loaded, {} rejected, {} ms, {} rows/sec",
+                       input, result.getRecords(), result.getLoaded(), result.getRejected(),
+                       result.getElapsedMillis(), result.getRowsPerSecond());
+        } catch (Exception e) {
+            logger.error("Registration backfill failed (resume by running the same command): {}", e.getMessage(), e);
+            exitCode = 1;
+        }
+
+        int status = exitCode;
+        System.exit(SpringApplication.exit(applicationContext, () -> status));
+    }
+}
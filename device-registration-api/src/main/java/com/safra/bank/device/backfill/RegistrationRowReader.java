@@ -0,0 +1,313 @@
+package com.safra.bank.device.backfill;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.safra.bank.device.export.ExportFormat;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming reader for backfill files in the registration export formats
+ * Reads one record at a time, so memory use stays flat regardless of file size
+ *
+ * A record that cannot be turned into a row (missing field, malformed timestamp) is
+ * reported as a {@link RejectedRowException}; reading continues with the next record.
+ */
+public abstract class RegistrationRowReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 256 * 1024;
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    /**
+     * Create a row reader for the given format
+     *
+     * @param format input format (CSV input must start with a header line)
+     * @param in source stream (decompression, if any, is applied by the caller)
+     * @return row reader positioned at the first record
+     * @throws IOException if the header cannot be read
+     */
+    public static RegistrationRowReader create(ExportFormat format, InputStream in) throws IOException {
+        return switch (format) {
+            case NDJSON -> new NdjsonRowReader(in);
+            case CSV -> new CsvRowReader(in);
+        };
+    }
+
+    /**
+     * @return the next row, or null at end of input
+     * @throws RejectedRowException if the record is malformed; the reader stays usable
+     */
+    public abstract BackfillRow next() throws IOException;
+
+    /**
+     * Skip records without building rows (used to resume from a checkpoint)
+     *
+     * @return number of records actually skipped; less than requested only at end of input
+     */
+    public long skip(long records) throws IOException {
+        long skipped = 0;
+        while (skipped < records) {
+            try {
+                if (next() == null) {
+                    break;
+                }
+            } catch (RejectedRowException e) {
+                // Rejected records count as consumed, exactly as in the original run
+            }
+            skipped++;
+        }
+        return skipped;
+    }
+
+    /**
+     * Parse an ISO-8601 local timestamp as written by the export (yyyy-MM-ddTHH:mm[:ss[.fraction]])
+     * The common layouts are decoded by hand; anything else goes through LocalDateTime.parse
+     */
+    static LocalDateTime parseTimestamp(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            LocalDateTime parsed = parseIsoFast(value);
+            return parsed != null ? parsed : LocalDateTime.parse(value);
+        } catch (DateTimeException e) {
+            throw new RejectedRowException("malformed timestamp");
+        }
+    }
+
+    private static LocalDateTime parseIsoFast(String value) {
+        int length = value.length();
+        if (length < 16 || value.charAt(4) != '-' || value.charAt(7) != '-'
+                || value.charAt(10) != 'T' || value.charAt(13) != ':') {
+            return null;
+        }
+        int year = digits(value, 0, 4);
+        int month = digits(value, 5, 2);
+        int day = digits(value, 8, 2);
+        int hour = digits(value, 11, 2);
+        int minute = digits(value, 14, 2);
+        int second = 0;
+        int nano = 0;
+        if (length > 16) {
+            if (length < 19 || value.charAt(16) != ':') {
+                return null;
+            }
+            second = digits(value, 17, 2);
+            if (length > 19) {
+                int fractionDigits = length - 20;
+                if (value.charAt(19) != '.' || fractionDigits < 1 || fractionDigits > 9) {
+                    return null;
+                }
+                nano = digits(value, 20, fractionDigits);
+                for (int i = fractionDigits; i < 9; i++) {
+                    nano *= 10;
+                }
+            }
+        }
+        if ((year | month | day | hour | minute | second | nano) < 0) {
+            return null;
+        }
+        return LocalDateTime.of(year, month, day, hour, minute, second, nano);
+    }
+
+    /**
+     * @return the decimal value of the characters, or -1 if any is not a digit
+     */
+    private static int digits(String value, int offset, int count) {
+        int result = 0;
+        for (int i = offset; i < offset + count; i++) {
+            int digit = value.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            result = result * 10 + digit;
+        }
+        return result;
+    }
+
+    /**
+     * Signals a malformed record; the message never contains record content
+     */
+    public static class RejectedRowException extends RuntimeException {
+
+        public RejectedRowException(String reason) {
+            super(reason, null, false, false);
+        }
+    }
+
+    private static final class NdjsonRowReader extends RegistrationRowReader {
+
+        private final JsonParser parser;
+
+        NdjsonRowReader(InputStream in) throws IOException {
+            this.parser = JSON_FACTORY.createParser(in);
+        }
+
+        @Override
+        public BackfillRow next() throws IOException {
+            JsonToken token = parser.nextToken();
+            if (token == null) {
+                return null;
+            }
+            if (token != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                throw new RejectedRowException("record is not a JSON object");
+            }
+
+            String userKey = null;
+            String deviceType = null;
+            String createdAt = null;
+            String updatedAt = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (value == JsonToken.START_OBJECT || value == JsonToken.START_ARRAY) {
+                    parser.skipChildren();
+                    continue;
+                }
+                String text = value == JsonToken.VALUE_NULL ? null : parser.getText();
+                switch (field) {
+                    case "userKey" -> userKey = text;
+                    case "deviceType" -> deviceType = text;
+                    case "createdAt" -> createdAt = text;
+                    case "updatedAt" -> updatedAt = text;
+                    default -> { }
+                }
+            }
+            return new BackfillRow(userKey, deviceType, parseTimestamp(createdAt), parseTimestamp(updatedAt));
+        }
+
+        @Override
+        public void close() throws IOException {
+            parser.close();
+        }
+    }
+
+    private static final class CsvRowReader extends RegistrationRowReader {
+
+        private final Reader reader;
+
+        // Decoded characters are scanned from a local buffer; Reader.read() per character is synchronized
+        private final char[] buffer = new char[BUFFER_SIZE];
+        private int position;
+        private int limit;
+
+        private final int userKeyColumn;
+        private final int deviceTypeColumn;
+        private final int createdAtColumn;
+        private final int updatedAtColumn;
+
+        private final List<String> fields = new ArrayList<>(8);
+
+        private final StringBuilder field = new StringBuilder(64);
+
+        CsvRowReader(InputStream in) throws IOException {
+            this.reader = new InputStreamReader(in, StandardCharsets.UTF_8);
+            if (!readRecord()) {
+                throw new IOException("CSV input is empty; a header line is required");
+            }
+            List<String> header = List.copyOf(fields);
+            userKeyColumn = header.indexOf("userKey");
+            deviceTypeColumn = header.indexOf("deviceType");
+            createdAtColumn = header.indexOf("createdAt");
+            updatedAtColumn = header.indexOf("updatedAt");
+            if (userKeyColumn < 0 || deviceTypeColumn < 0) {
+                throw new IOException("CSV header must contain userKey and deviceType columns: " + header);
+            }
+        }
+
+        @Override
+        public BackfillRow next() throws IOException {
+            if (!readRecord()) {
+                return null;
+            }
+            if (fields.size() == 1 && fields.get(0).isEmpty()) {
+                throw new RejectedRowException("empty line");
+            }
+            return new BackfillRow(column(userKeyColumn), column(deviceTypeColumn),
+                parseTimestamp(column(createdAtColumn)), parseTimestamp(column(updatedAtColumn)));
+        }
+
+        private String column(int index) {
+            return index >= 0 && index < fields.size() ? fields.get(index) : null;
+        }
+
+        /**
+         * Read one RFC 4180 record into {@link #fields}; quoted fields may span lines
+         *
+         * @return false at end of input
+         */
+        private boolean readRecord() throws IOException {
+            fields.clear();
+            field.setLength(0);
+            int c = read();
+            if (c < 0) {
+                return false;
+            }
+            boolean quoted = false;
+            while (true) {
+                if (quoted) {
+                    if (c < 0) {
+                        throw new IOException("Unterminated quoted CSV field at end of input");
+                    }
+                    if (c == '"') {
+                        if (peek() == '"') {
+                            position++;
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                        }
+                    } else {
+                        field.append((char) c);
+                    }
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n' || c < 0) {
+                    break;
+                } else if (c == '"' && field.isEmpty()) {
+                    quoted = true;
+                } else if (c != '\r') {
+                    field.append((char) c);
+                }
+                c = read();
+            }
+            fields.add(field.toString());
+            return true;
+        }
+
+        private int read() throws IOException {
+            return position < limit || fill() ? buffer[position++] : -1;
+        }
+
+        private int peek() throws IOException {
+            return position < limit || fill() ? buffer[position] : -1;
+        }
+
+        private boolean fill() throws IOException {
+            int read;
+            do {
+                read = reader.read(buffer, 0, buffer.length);
+            } while (read == 0);
+            position = 0;
+            limit = Math.max(read, 0);
+            return read > 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+}
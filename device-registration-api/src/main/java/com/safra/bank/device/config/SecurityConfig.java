@@ -2,11 +2,13 @@ package com.safra.bank.device.config;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.expression.WebExpressionAuthorizationManager;
 import org.springframework.security.web.header.writers.ReferrerPolicyHeaderWriter;
 
 /**
@@ -22,11 +24,17 @@ import org.springframework.security.web.header.writers.ReferrerPolicyHeaderWrite
  * - Network-level isolation (Kubernetes NetworkPolicies)
  * - Input validation and sanitization
  * - Actuator endpoint protection
+ * - Diagnostic actuator endpoints (query profiler) are opt-in and answer loopback callers only;
+ *   so does resetting the latency histograms
  */
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
 
+    // e.g. kubectl port-forward; requests through a proxy or ingress arrive from another address
+    private static final WebExpressionAuthorizationManager LOOPBACK_ONLY =
+        new WebExpressionAuthorizationManager("hasIpAddress('127.0.0.0/8') or hasIpAddress('::1')");
+
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
         http
@@ -61,6 +69,10 @@ public class SecurityConfig {
                 
                 // Actuator endpoints - restrict access
                 .requestMatchers("/actuator/health").permitAll()
+                // SQL text, call sites and plans, and a DELETE that resets them
+                .requestMatchers("/actuator/queries", "/actuator/queries/**").access(LOOPBACK_ONLY)
+                // Reading latency percentiles is harmless; discarding them is not
+                .requestMatchers(HttpMethod.DELETE, "/actuator/latency", "/actuator/latency/**").access(LOOPBACK_ONLY)
                 .requestMatchers("/actuator/**").permitAll() // Should be restricted in production
                 
                 // OpenAPI documentation - internal use only
@@ -0,0 +1,137 @@
+package com.safra.bank.device.config;
+
+import com.safra.bank.device.sharding.ShardDefinition;
+import com.safra.bank.device.sharding.ShardRing;
+import com.safra.bank.device.sharding.ShardRoutingDataSource;
+import com.safra.bank.shared.jdbc.QueryProfiler;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Sharded registration storage configuration
+ * Replaces the single spring.datasource pool with one Hikari pool per shard behind a
+ * {@link ShardRoutingDataSource}; enabled with device.sharding.enabled=true
+ * The primary DataSource is always defined here and the property is read when it is created,
+ * not as a bean condition: a fast-startup (AOT) build fixes conditions at build time, which would
+ * silently run a sharding-enabled deployment against spring.datasource alone
+ *
+ * DevSecOps Features:
+ * - Each shard has its own credentials and pool limits (defaults from spring.datasource)
+ * - Refuses to start with a schema-generating ddl-auto, which would only reach the first shard
+ * - Pool metrics exported per shard (hikaricp_* with pool="device-shard-<id>")
+ */
+@Configuration
+public class ShardingConfig {
+
+    private static final Set<String> SHARD_SAFE_DDL_MODES = Set.of("none", "validate");
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private QueryProfiler queryProfiler;
+
+    @Value("${device.sharding.enabled:false}")
+    private boolean enabled;
+
+    @Value("${spring.datasource.username:}")
+    private String defaultUsername;
+
+    @Value("${spring.datasource.password:}")
+    private String defaultPassword;
+
+    @Value("${spring.jpa.hibernate.ddl-auto:none}")
+    private String ddlAuto;
+
+    /**
+     * Routing DataSource over all configured shards, or the single spring.datasource pool when not sharded
+     * Pools start lazily on first use, like the default single datasource
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(DataSourceProperties properties) {
+        if (!enabled) {
+            return singleDataSource(properties);
+        }
+        if (!SHARD_SAFE_DDL_MODES.contains(ddlAuto)) {
+            throw new IllegalStateException("Sharded storage needs database/sql/schema.sql applied to every shard; " +
+                "set JPA_DDL_AUTO to validate or none (was " + ddlAuto + ")");
+        }
+
+        Binder binder = Binder.get(environment);
+        List<ShardDefinition> definitions = binder
+            .bind("device.sharding.shards", Bindable.listOf(ShardDefinition.class))
+            .orElse(List.of());
+        if (definitions.isEmpty()) {
+            throw new IllegalStateException("device.sharding.enabled=true but no device.sharding.shards are configured");
+        }
+        HikariConfig base = binder.bind("spring.datasource.hikari", HikariConfig.class).orElseGet(HikariConfig::new);
+
+        Map<Integer, HikariDataSource> shards = new LinkedHashMap<>();
+        for (ShardDefinition definition : definitions) {
+            Integer id = definition.getId();
+            if (id == null || id < 0 || id > ShardRing.MAX_SHARD_ID) {
+                throw new IllegalStateException("Shard id must be between 0 and " + ShardRing.MAX_SHARD_ID + ": " + definition);
+            }
+            if (definition.getUrl() == null || definition.getUrl().isBlank()) {
+                throw new IllegalStateException("Shard url is required: " + definition);
+            }
+            if (shards.containsKey(id)) {
+                throw new IllegalStateException("Duplicate shard id: " + id);
+            }
+            shards.put(id, createPool(base, definition));
+        }
+        return new ShardRoutingDataSource(shards, pool -> queryProfiler.wrap(pool, pool.getPoolName()));
+    }
+
+    /**
+     * The pool DataSourceAutoConfiguration would create, which backs off for the bean above
+     */
+    private HikariDataSource singleDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(dataSource));
+        if (StringUtils.hasText(properties.getName())) {
+            dataSource.setPoolName(properties.getName());
+        }
+        return dataSource;
+    }
+
+    private HikariDataSource createPool(HikariConfig base, ShardDefinition definition) {
+        HikariDataSource pool = new HikariDataSource();
+        base.copyStateTo(pool);
+        pool.setPoolName("device-shard-" + definition.getId());
+        pool.setJdbcUrl(definition.getUrl());
+        pool.setUsername(definition.getUsername() != null ? definition.getUsername() : defaultUsername);
+        pool.setPassword(definition.getPassword() != null ? definition.getPassword() : defaultPassword);
+        if (definition.getMaximumPoolSize() != null) {
+            pool.setMaximumPoolSize(definition.getMaximumPoolSize());
+        }
+        if (definition.getMinimumIdle() != null) {
+            pool.setMinimumIdle(definition.getMinimumIdle());
+        }
+        pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        return pool;
+    }
+}
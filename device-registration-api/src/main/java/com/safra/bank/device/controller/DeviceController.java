@@ -56,7 +56,8 @@ public class DeviceController {
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Device registered successfully"),
         @ApiResponse(responseCode = "400", description = "Invalid request data"),
-        @ApiResponse(responseCode = "500", description = "Internal server error")
+        @ApiResponse(responseCode = "500", description = "Internal server error"),
+        @ApiResponse(responseCode = "503", description = "Database overloaded, retry after the given delay")
     })
     public ResponseEntity<DeviceRegistrationResponse> registerDevice(
             @Valid @RequestBody DeviceRegistrationRequest registrationRequest,
@@ -0,0 +1,101 @@
+package com.safra.bank.device.controller;
+
+import com.safra.bank.device.export.ExportFilter;
+import com.safra.bank.device.export.ExportFormat;
+import com.safra.bank.device.service.RegistrationExportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.constraints.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDateTime;
+
+/**
+ * REST Controller for bulk registration export
+ * Feeds the data warehouse without ad-hoc SQL against production
+ *
+ * DevSecOps Features:
+ * - Internal-only access (not publicly exposed)
+ * - Device type filter validated against the allowed enumeration
+ * - Streaming response with constant memory use
+ * - Audit logging of every export request
+ */
+@RestController
+@RequestMapping("/Device")
+@Validated
+@Tag(name = "Device Registration Export", description = "Internal API for bulk registration export")
+public class ExportController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExportController.class);
+
+    @Autowired
+    private RegistrationExportService registrationExportService;
+
+    /**
+     * Stream device registrations as NDJSON or CSV
+     * Endpoint: GET /Device/export
+     *
+     * @return streaming response body with one row per registration
+     */
+    @GetMapping("/export")
+    @Operation(
+        summary = "Export device registrations",
+        description = "Internal endpoint streaming registrations as NDJSON or CSV, optionally gzip-compressed"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Export streamed successfully"),
+        @ApiResponse(responseCode = "400", description = "Invalid export parameters"),
+        @ApiResponse(responseCode = "503", description = "Database overloaded, retry after the given delay")
+    })
+    public ResponseEntity<StreamingResponseBody> exportRegistrations(
+            @Parameter(description = "Output format (ndjson, csv)")
+            @RequestParam(value = "format", defaultValue = "ndjson") String format,
+            @Parameter(description = "Gzip-compress the output")
+            @RequestParam(value = "gzip", defaultValue = "false") boolean gzip,
+            @Parameter(description = "Device type (iOS, Android, Watch, TV)")
+            @RequestParam(value = "deviceType", required = false)
+            @Pattern(regexp = "^(iOS|Android|Watch|TV)$") String deviceType,
+            @RequestParam(value = "createdFrom", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdFrom,
+            @RequestParam(value = "createdTo", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdTo,
+            @RequestParam(value = "updatedFrom", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime updatedFrom,
+            @RequestParam(value = "updatedTo", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime updatedTo,
+            @RequestHeader(value = "X-Internal-Service", required = false) String internalService) {
+
+        ExportFormat exportFormat;
+        try {
+            exportFormat = ExportFormat.fromValue(format);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Export request with unsupported format: {}", format);
+            return ResponseEntity.badRequest().build();
+        }
+
+        logger.info("Received export request: format={}, gzip={}, deviceType={} from service: {}",
+                   exportFormat, gzip, deviceType, internalService);
+
+        ExportFilter filter = new ExportFilter(deviceType, createdFrom, createdTo, updatedFrom, updatedTo);
+        StreamingResponseBody body = out -> registrationExportService.export(filter, exportFormat, gzip, out);
+
+        String fileName = "device_registrations" + exportFormat.getFileExtension() + (gzip ? ".gz" : "");
+        String contentType = gzip ? "application/gzip" : exportFormat.getContentType();
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType(contentType))
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+            .body(body);
+    }
+}
@@ -0,0 +1,116 @@
+package com.safra.bank.device.controller;
+
+import com.safra.bank.device.service.UserDeviceLookupService;
+import com.safra.bank.shared.dto.UserDevice;
+import com.safra.bank.shared.dto.UserDevicesBatchRequest;
+import com.safra.bank.shared.dto.UserDevicesResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * REST Controller for per-user device lookups
+ * Serves support tooling and fraud scoring from a read-through cache
+ *
+ * DevSecOps Features:
+ * - Internal-only access (not publicly exposed)
+ * - Bean Validation on user keys and batch size
+ * - User keys are never written to logs
+ */
+@RestController
+@RequestMapping("/Device")
+@Validated
+@Tag(name = "Device Lookup API", description = "Internal API for per-user device lookups")
+public class UserLookupController {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserLookupController.class);
+
+    @Autowired
+    private UserDeviceLookupService userDeviceLookupService;
+
+    /**
+     * Look up the device types registered by a user
+     * Endpoint: GET /Device/lookup
+     *
+     * @param userKey the user identifier
+     * @return UserDevicesResponse with device types and last-seen times
+     */
+    @GetMapping("/lookup")
+    @Operation(
+        summary = "Look up user devices",
+        description = "Internal endpoint returning the device types a user has registered and when each was last seen"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Lookup completed successfully"),
+        @ApiResponse(responseCode = "400", description = "Invalid user key"),
+        @ApiResponse(responseCode = "500", description = "Internal server error"),
+        @ApiResponse(responseCode = "503", description = "Database overloaded, retry after the given delay")
+    })
+    public ResponseEntity<UserDevicesResponse> lookupUserDevices(
+            @Parameter(description = "User identifier", required = true)
+            @RequestParam("userKey") @NotBlank @Size(max = 255) String userKey) {
+
+        try {
+            List<UserDevice> devices = userDeviceLookupService.lookup(userKey);
+            return ResponseEntity.ok(new UserDevicesResponse(userKey, devices));
+        } catch (Exception e) {
+            logger.error("Unexpected error during user device lookup: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * Look up the device types registered by many users in one call
+     * Endpoint: POST /Device/lookup/batch
+     *
+     * @param batchRequest validated request containing up to 10000 user keys
+     * @return one UserDevicesResponse per distinct user key, in request order
+     */
+    @PostMapping("/lookup/batch")
+    @Operation(
+        summary = "Batch look up user devices",
+        description = "Internal endpoint resolving registered device types for many users with a single database query"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Lookup completed successfully"),
+        @ApiResponse(responseCode = "400", description = "Invalid request data"),
+        @ApiResponse(responseCode = "500", description = "Internal server error"),
+        @ApiResponse(responseCode = "503", description = "Database overloaded, retry after the given delay")
+    })
+    public ResponseEntity<List<UserDevicesResponse>> lookupUserDevicesBatch(
+            @Valid @RequestBody UserDevicesBatchRequest batchRequest) {
+
+        logger.info("Received batch device lookup for {} user keys", batchRequest.getUserKeys().size());
+
+        try {
+            Set<String> userKeys = new LinkedHashSet<>(batchRequest.getUserKeys());
+            Map<String, List<UserDevice>> devices = userDeviceLookupService.lookupAll(userKeys);
+
+            List<UserDevicesResponse> responses = new ArrayList<>(userKeys.size());
+            for (String userKey : userKeys) {
+                responses.add(new UserDevicesResponse(userKey, devices.getOrDefault(userKey, List.of())));
+            }
+            return ResponseEntity.ok(responses);
+        } catch (Exception e) {
+            logger.error("Unexpected error during batch device lookup: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+}
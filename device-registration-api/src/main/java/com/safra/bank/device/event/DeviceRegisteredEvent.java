@@ -0,0 +1,93 @@
+package com.safra.bank.device.event;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Application event published when a login registers (or re-registers) a device
+ * Published inside the registration transaction; listeners that maintain derived
+ * state should use {@code @TransactionalEventListener} so they only see committed work
+ */
+public class DeviceRegisteredEvent {
+
+    private final String userKey;
+    private final String deviceType;
+    private final boolean newRegistration;
+    private final RegistrationDimensions dimensions;
+    private final RegistrationDimensions previousDimensions;
+    private final LocalDateTime timestamp;
+    private final UUID requestId;
+    private final LocalDateTime loginTime;
+
+    public DeviceRegisteredEvent(String userKey, String deviceType, boolean newRegistration,
+                                 RegistrationDimensions dimensions, RegistrationDimensions previousDimensions,
+                                 LocalDateTime timestamp, UUID requestId, LocalDateTime loginTime) {
+        this.userKey = userKey;
+        this.deviceType = deviceType;
+        this.newRegistration = newRegistration;
+        this.dimensions = dimensions;
+        this.previousDimensions = previousDimensions;
+        this.timestamp = timestamp;
+        this.requestId = requestId;
+        this.loginTime = loginTime;
+    }
+
+    public String getUserKey() {
+        return userKey;
+    }
+
+    public String getDeviceType() {
+        return deviceType;
+    }
+
+    /**
+     * @return true if this login created the (userKey, deviceType) registration
+     */
+    public boolean isNewRegistration() {
+        return newRegistration;
+    }
+
+    /**
+     * @return statistics dimensions of the registration after this login
+     */
+    public RegistrationDimensions getDimensions() {
+        return dimensions;
+    }
+
+    /**
+     * @return dimensions before this login if it changed them on an existing registration, otherwise null
+     */
+    public RegistrationDimensions getPreviousDimensions() {
+        return previousDimensions;
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * @return id the caller sends with every attempt of the same login, or null
+     */
+    public UUID getRequestId() {
+        return requestId;
+    }
+
+    /**
+     * @return login time reported by the caller (same for every attempt), or null
+     */
+    public LocalDateTime getLoginTime() {
+        return loginTime;
+    }
+
+    @Override
+    public String toString() {
+        return "DeviceRegisteredEvent{" +
+                "deviceType='" + deviceType + '\'' +
+                ", newRegistration=" + newRegistration +
+                ", dimensions=" + dimensions +
+                ", previousDimensions=" + previousDimensions +
+                ", timestamp=" + timestamp +
+                ", requestId=" + requestId +
+                '}';
+    }
+}
@@ -0,0 +1,32 @@
+package com.safra.bank.device.event;
+
+import java.util.Set;
+
+/**
+ * Application event published when buffered last-seen timestamps have been written
+ * Published after the UPDATE of a flush has committed; with the buffer disabled it is published
+ * inside the registration transaction, so listeners should use
+ * {@code @TransactionalEventListener(fallbackExecution = true)}
+ */
+public class LastSeenWrittenEvent {
+
+    private final Set<String> userKeys;
+
+    public LastSeenWrittenEvent(Set<String> userKeys) {
+        this.userKeys = userKeys;
+    }
+
+    /**
+     * @return users whose registrations had their updated_at written
+     */
+    public Set<String> getUserKeys() {
+        return userKeys;
+    }
+
+    @Override
+    public String toString() {
+        return "LastSeenWrittenEvent{" +
+                "users=" + userKeys.size() +
+                '}';
+    }
+}
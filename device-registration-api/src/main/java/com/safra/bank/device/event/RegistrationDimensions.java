@@ -0,0 +1,25 @@
+package com.safra.bank.device.event;
+
+import com.safra.bank.shared.entity.DeviceRegistration;
+
+/**
+ * Statistics dimensions of a registration; null values were not reported by the client
+ */
+public record RegistrationDimensions(String appVersion, String osVersion, String region) {
+
+    public static RegistrationDimensions of(DeviceRegistration registration) {
+        return new RegistrationDimensions(
+            registration.getAppVersion(), registration.getOsVersion(), registration.getRegion());
+    }
+
+    /**
+     * @param update dimensions reported by a later login
+     * @return these dimensions with every value the update reported replaced
+     */
+    public RegistrationDimensions merge(RegistrationDimensions update) {
+        return new RegistrationDimensions(
+            update.appVersion != null ? update.appVersion : appVersion,
+            update.osVersion != null ? update.osVersion : osVersion,
+            update.region != null ? update.region : region);
+    }
+}
@@ -0,0 +1,79 @@
+package com.safra.bank.device.export;
+
+import java.time.LocalDateTime;
+
+/**
+ * Row filter for registration exports
+ * All bounds are optional; lower bounds are inclusive and upper bounds exclusive
+ */
+public class ExportFilter {
+
+    private String deviceType;
+    private LocalDateTime createdFrom;
+    private LocalDateTime createdTo;
+    private LocalDateTime updatedFrom;
+    private LocalDateTime updatedTo;
+
+    public ExportFilter() {}
+
+    public ExportFilter(String deviceType,
+                        LocalDateTime createdFrom, LocalDateTime createdTo,
+                        LocalDateTime updatedFrom, LocalDateTime updatedTo) {
+        this.deviceType = deviceType;
+        this.createdFrom = createdFrom;
+        this.createdTo = createdTo;
+        this.updatedFrom = updatedFrom;
+        this.updatedTo = updatedTo;
+    }
+
+    public String getDeviceType() {
+        return deviceType;
+    }
+
+    public void setDeviceType(String deviceType) {
+        this.deviceType = deviceType;
+    }
+
+    public LocalDateTime getCreatedFrom() {
+        return createdFrom;
+    }
+
+    public void setCreatedFrom(LocalDateTime createdFrom) {
+        this.createdFrom = createdFrom;
+    }
+
+    public LocalDateTime getCreatedTo() {
+        return createdTo;
+    }
+
+    public void setCreatedTo(LocalDateTime createdTo) {
+        this.createdTo = createdTo;
+    }
+
+    public LocalDateTime getUpdatedFrom() {
+        return updatedFrom;
+    }
+
+    public void setUpdatedFrom(LocalDateTime updatedFrom) {
+        this.updatedFrom = updatedFrom;
+    }
+
+    public LocalDateTime getUpdatedTo() {
+        return updatedTo;
+    }
+
+    public void setUpdatedTo(LocalDateTime updatedTo) {
+        this.updatedTo = updatedTo;
+    }
+
+    @Override
+    public String toString() {
+        return "ExportFilter{" +
+                "deviceType='" + deviceType + '\'' +
+                ", createdFrom=" + createdFrom +
+                ", createdTo=" + createdTo +
+                ", updatedFrom=" + updatedFrom +
+                ", updatedTo=" + updatedTo +
+                '}';
+    }
+}
@@ -0,0 +1,43 @@
+package com.safra.bank.device.export;
+
+/**
+ * Formats supported by the registration export and backfill
+ * Gzip compression is applied on top of either format when requested
+ */
+public enum ExportFormat {
+
+    NDJSON("application/x-ndjson", ".ndjson"),
+    CSV("text/csv", ".csv");
+
+    private final String contentType;
+    private final String fileExtension;
+
+    ExportFormat(String contentType, String fileExtension) {
+        this.contentType = contentType;
+        this.fileExtension = fileExtension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getFileExtension() {
+        return fileExtension;
+    }
+
+    /**
+     * Resolve a format from its request parameter value
+     *
+     * @param value format name (ndjson or csv, case-insensitive)
+     * @return the matching format
+     * @throws IllegalArgumentException if the value is not a supported format
+     */
+    public static ExportFormat fromValue(String value) {
+        for (ExportFormat format : values()) {
+            if (format.name().equalsIgnoreCase(value)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported export format: " + value);
+    }
+}
@@ -0,0 +1,40 @@
+package com.safra.bank.device.export;
+
+/**
+ * Summary of a completed registration export
+ * Used for progress logging and throughput reporting
+ */
+public class ExportResult {
+
+    private final long rows;
+    private final long elapsedMillis;
+
+    public ExportResult(long rows, long elapsedMillis) {
+        this.rows = rows;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * @return export throughput in rows per second
+     */
+    public long getRowsPerSecond() {
+        return elapsedMillis > 0 ? rows * 1000 / elapsedMillis : rows;
+    }
+
+    @Override
+    public String toString() {
+        return "ExportResult{" +
+                "rows=" + rows +
+                ", elapsedMillis=" + elapsedMillis +
+                ", rowsPerSecond=" + getRowsPerSecond() +
+                '}';
+    }
+}
@@ -0,0 +1,104 @@
+package com.safra.bank.device.export;
+
+import com.safra.bank.device.service.RegistrationExportService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+
+/**
+ * Command-line export of device registrations
+ * Runs the export once against the configured database and exits
+ *
+ * Usage:
+ *   java -jar device-registration-api.jar --spring.main.web-application-type=none \
+ *        --device.export.cli.output=/data/registrations.ndjson.gz \
+ *        --device.export.cli.format=ndjson --device.export.cli.gzip=true \
+ *        [--device.export.cli.device-type=iOS] \
+ *        [--device.export.cli.created-from=2025-01-01T00:00:00] [--device.export.cli.created-to=...] \
+ *        [--device.export.cli.updated-from=...] [--device.export.cli.updated-to=...]
+ *
+ * The file is written to a temporary sibling and moved into place only when complete.
+ */
+@Component
+@ConditionalOnProperty(prefix = "device.export.cli", name = "output")
+public class RegistrationExportRunner implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(RegistrationExportRunner.class);
+
+    private static final int FILE_BUFFER_SIZE = 256 * 1024;
+
+    @Autowired
+    private RegistrationExportService registrationExportService;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Value("${device.export.cli.output}")
+    private Path output;
+
+    @Value("${device.export.cli.format:ndjson}")
+    private String format;
+
+    @Value("${device.export.cli.gzip:false}")
+    private boolean gzip;
+
+    @Value("${device.export.cli.device-type:#{null}}")
+    private String deviceType;
+
+    @Value("${device.export.cli.created-from:#{null}}")
+    private String createdFrom;
+
+    @Value("${device.export.cli.created-to:#{null}}")
+    private String createdTo;
+
+    @Value("${device.export.cli.updated-from:#{null}}")
+    private String updatedFrom;
+
+    @Value("${device.export.cli.updated-to:#{null}}")
+    private String updatedTo;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        Path temporary = output.resolveSibling(output.getFileName() + ".partial");
+
+        int exitCode = 0;
+        try {
+            ExportFilter filter = new ExportFilter(deviceType,
+                parseTimestamp(createdFrom), parseTimestamp(createdTo),
+                parseTimestamp(updatedFrom), parseTimestamp(updatedTo));
+
+            ExportResult result;
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temporary), FILE_BUFFER_SIZE)) {
+                result = registrationExportService.export(filter, ExportFormat.fromValue(format), gzip, out);
+            }
+            Files.move(temporary, output, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.info("Export written to {}: {} rows, {} ms, {} rows/sec",
+                       output, result.getRows(), result.getElapsedMillis(), result.getRowsPerSecond());
+        } catch (Exception e) {
+            logger.error("Registration export failed: {}", e.getMessage(), e);
+            Files.deleteIfExists(temporary);
+            exitCode = 1;
+        }
+
+        int status = exitCode;
+        System.exit(SpringApplication.exit(applicationContext, () -> status));
+    }
+
+    private LocalDateTime parseTimestamp(String value) {
+        return value == null || value.isBlank() ? null : LocalDateTime.parse(value);
+    }
+}
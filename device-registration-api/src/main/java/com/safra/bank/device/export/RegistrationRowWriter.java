@@ -0,0 +1,160 @@
+package com.safra.bank.device.export;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+/**
+ * Streaming writer for exported registration rows
+ * Writes each row straight to the underlying stream without building entities or row lists,
+ * so memory use stays flat regardless of export size
+ */
+public abstract class RegistrationRowWriter implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    /**
+     * Create a row writer for the given format
+     *
+     * @param format output format
+     * @param out destination stream (compression, if any, is applied by the caller)
+     * @return row writer positioned after the format header
+     * @throws IOException if the header cannot be written
+     */
+    public static RegistrationRowWriter create(ExportFormat format, OutputStream out) throws IOException {
+        return switch (format) {
+            case NDJSON -> new NdjsonRowWriter(out);
+            case CSV -> new CsvRowWriter(out);
+        };
+    }
+
+    public abstract void writeRow(long id, String userKey, String deviceType,
+                                  LocalDateTime createdAt, LocalDateTime updatedAt,
+                                  String appVersion, String osVersion, String region) throws IOException;
+
+    public abstract void flush() throws IOException;
+
+    private static final class NdjsonRowWriter extends RegistrationRowWriter {
+
+        private final JsonGenerator generator;
+
+        NdjsonRowWriter(OutputStream out) throws IOException {
+            this.generator = JSON_FACTORY.createGenerator(out);
+            // Rows are newline-terminated explicitly; no separator before the next root value
+            this.generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void writeRow(long id, String userKey, String deviceType,
+                             LocalDateTime createdAt, LocalDateTime updatedAt,
+                             String appVersion, String osVersion, String region) throws IOException {
+            generator.writeStartObject();
+            generator.writeNumberField("id", id);
+            generator.writeStringField("userKey", userKey);
+            generator.writeStringField("deviceType", deviceType);
+            generator.writeStringField("createdAt", createdAt != null ? createdAt.toString() : null);
+            generator.writeStringField("updatedAt", updatedAt != null ? updatedAt.toString() : null);
+            generator.writeStringField("appVersion", appVersion);
+            generator.writeStringField("osVersion", osVersion);
+            generator.writeStringField("region", region);
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void flush() throws IOException {
+            generator.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            generator.close();
+        }
+    }
+
+    private static final class CsvRowWriter extends RegistrationRowWriter {
+
+        private final BufferedWriter writer;
+
+        CsvRowWriter(OutputStream out) throws IOException {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+            writer.write("id,userKey,deviceType,createdAt,updatedAt,appVersion,osVersion,region\n");
+        }
+
+        @Override
+        public void writeRow(long id, String userKey, String deviceType,
+                             LocalDateTime createdAt, LocalDateTime updatedAt,
+                             String appVersion, String osVersion, String region) throws IOException {
+            writer.write(Long.toString(id));
+            writer.write(',');
+            writeField(userKey);
+            writer.write(',');
+            writeField(deviceType);
+            writer.write(',');
+            if (createdAt != null) {
+                writer.write(createdAt.toString());
+            }
+            writer.write(',');
+            if (updatedAt != null) {
+                writer.write(updatedAt.toString());
+            }
+            writer.write(',');
+            writeField(appVersion);
+            writer.write(',');
+            writeField(osVersion);
+            writer.write(',');
+            writeField(region);
+            writer.write('\n');
+        }
+
+        /**
+         * Write a text field, quoting it per RFC 4180 only when it contains
+         * a delimiter, quote or line break
+         */
+        private void writeField(String value) throws IOException {
+            if (value == null) {
+                return;
+            }
+            boolean needsQuoting = false;
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                    needsQuoting = true;
+                    break;
+                }
+            }
+            if (!needsQuoting) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"') {
+                    writer.write('"');
+                }
+                writer.write(c);
+            }
+            writer.write('"');
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writer.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.close();
+        }
+    }
+}
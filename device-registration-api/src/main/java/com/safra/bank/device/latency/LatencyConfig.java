@@ -0,0 +1,18 @@
+package com.safra.bank.device.latency;
+
+import com.safra.bank.shared.latency.StageLatencyRecorder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Stage latency recording for the Device Registration API hot path
+ * Reported on /actuator/latency; settings under device.latency
+ */
+@Configuration
+public class LatencyConfig {
+
+    @Bean
+    public StageLatencyRecorder<Stage> stageLatencyRecorder() {
+        return new StageLatencyRecorder<>(Stage.class);
+    }
+}
@@ -0,0 +1,9 @@
+package com.safra.bank.device.latency;
+
+/**
+ * Hot-path stages of the Device Registration API recorded by the stage latency recorder
+ * Reported as validation and db_upsert
+ */
+public enum Stage {
+    VALIDATION, DB_UPSERT
+}
@@ -0,0 +1,66 @@
+package com.safra.bank.device.outbox;
+
+import com.safra.bank.shared.dto.RegistrationChange;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Delivers outbox batches as a JSON array in one POST per batch
+ * Any 2xx response acknowledges the batch; other statuses and I/O errors trigger a redelivery
+ */
+class HttpOutboxSubscriber implements OutboxSubscriber {
+
+    private final URI endpoint;
+
+    private final RestTemplate restTemplate;
+
+    private final String name;
+
+    HttpOutboxSubscriber(URI endpoint, RestTemplate restTemplate) {
+        this.endpoint = endpoint;
+        this.restTemplate = restTemplate;
+        this.name = name(endpoint);
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Host, port and raw path, plus a hash of the query string when there is one
+     * The query is not shown since it may carry credentials, but URLs differing only in their
+     * query must not share a name, or one would be recorded as delivered for the other
+     */
+    static String name(URI endpoint) {
+        String name = endpoint.getHost() + (endpoint.getPort() > 0 ? ":" + endpoint.getPort() : "")
+            + endpoint.getRawPath();
+        if (endpoint.getRawQuery() == null) {
+            return name;
+        }
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256")
+                .digest(endpoint.getRawQuery().getBytes(StandardCharsets.UTF_8));
+            return name + "#" + HexFormat.of().formatHex(hash, 0, 4);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 unavailable", e);
+        }
+    }
+
+    @Override
+    public void deliver(List<RegistrationChange> changes) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        // RestTemplate throws for 4xx/5xx
+        restTemplate.postForEntity(endpoint, new HttpEntity<>(changes, headers), Void.class);
+    }
+}
@@ -0,0 +1,317 @@
+package com.safra.bank.device.outbox;
+
+import com.safra.bank.device.sharding.ShardRouter;
+import com.safra.bank.shared.dto.RegistrationChange;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.URI;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Delivers the registration outbox (registration_outbox, written by {@link RegistrationOutbox})
+ * to the subscribers and deletes what was delivered
+ * Subscribers are the {@link OutboxSubscriber} beans of this application plus one
+ * {@link HttpOutboxSubscriber} per URL in device.outbox.http.subscribers
+ *
+ * DevSecOps Features:
+ * - At-least-once delivery: a row is deleted only after every subscriber acknowledged it.
+ *   Acknowledgements are recorded per subscriber, so a retry after an exponential backoff
+ *   (device.outbox.max-backoff) goes only to the subscribers that failed; subscribers still
+ *   deduplicate by id, since a relay can fail between delivering and recording
+ * - A change a subscriber has not acknowledged after device.outbox.max-attempts deliveries is
+ *   parked in registration_outbox_parked, so one broken subscriber cannot grow the outbox forever
+ * - A relay that dies mid-delivery loses nothing; its rows become claimable when the lease expires
+ * - HTTP subscribers have bounded connect and read timeouts
+ *
+ * Performance Notes:
+ * - Rows are claimed in batches with FOR UPDATE SKIP LOCKED by pushing next_attempt_at past a lease,
+ *   in a short transaction; replicas claim disjoint batches and delivery holds no connection or lock
+ * - Each poll drains a shard while full batches are claimed, then moves on to the next shard
+ * - Delivered rows are deleted, so the table holds only the backlog
+ */
+@Service
+public class OutboxRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private static final String CLAIM_SQL =
+        "UPDATE registration_outbox SET attempts = attempts + 1, " +
+        "next_attempt_at = LOCALTIMESTAMP + ? * INTERVAL '1 millisecond' " +
+        "WHERE id IN (SELECT id FROM registration_outbox WHERE next_attempt_at <= LOCALTIMESTAMP " +
+        "ORDER BY next_attempt_at, id LIMIT ? FOR UPDATE SKIP LOCKED) " +
+        "RETURNING id, event_type, user_key, device_type, app_version, os_version, region, created_at, attempts, " +
+        "delivered_to";
+
+    // Backoff doubles per attempt: initial, 2x initial, 4x initial, ... up to max-backoff
+    private static final String RETRY_SQL =
+        "UPDATE registration_outbox SET delivered_to = ?, next_attempt_at = LOCALTIMESTAMP + " +
+        "LEAST(? * power(2, LEAST(attempts - 1, 30)), ?) * INTERVAL '1 millisecond' WHERE id = ?";
+
+    private static final String PARK_SQL =
+        "INSERT INTO registration_outbox_parked (id, event_type, user_key, device_type, app_version, os_version, " +
+        "region, created_at, attempts, failed_subscribers, parked_at) " +
+        "SELECT id, event_type, user_key, device_type, app_version, os_version, region, created_at, attempts, ?, " +
+        "LOCALTIMESTAMP FROM registration_outbox WHERE id = ? ON CONFLICT (id) DO NOTHING";
+
+    private static final String DELETE_SQL_PREFIX = "DELETE FROM registration_outbox WHERE id IN ";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private RestTemplateBuilder restTemplateBuilder;
+
+    @Autowired(required = false)
+    private List<OutboxSubscriber> inProcessSubscribers = List.of();
+
+    @Value("${device.outbox.enabled:true}")
+    private boolean enabled;
+
+    @Value("${device.outbox.batch-size:500}")
+    private int batchSize;
+
+    @Value("${device.outbox.lease:30s}")
+    private Duration lease;
+
+    @Value("${device.outbox.initial-backoff:1s}")
+    private Duration initialBackoff;
+
+    @Value("${device.outbox.max-backoff:5m}")
+    private Duration maxBackoff;
+
+    @Value("${device.outbox.max-attempts:20}")
+    private int maxAttempts;
+
+    @Value("${device.outbox.http.subscribers:}")
+    private String[] httpSubscriberUrls;
+
+    @Value("${device.outbox.http.connect-timeout:2s}")
+    private Duration connectTimeout;
+
+    @Value("${device.outbox.http.read-timeout:5s}")
+    private Duration readTimeout;
+
+    private List<OutboxSubscriber> subscribers;
+
+    private final Map<String, Counter> delivered = new HashMap<>();
+
+    private final Map<String, Counter> failures = new HashMap<>();
+
+    private final Map<String, Counter> parked = new HashMap<>();
+
+    private Timer relayTimer;
+
+    private Timer lag;
+
+    @PostConstruct
+    void init() {
+        List<OutboxSubscriber> all = new ArrayList<>(inProcessSubscribers);
+        for (String url : httpSubscriberUrls) {
+            if (url.isBlank()) {
+                continue;
+            }
+            URI endpoint = URI.create(url.trim());
+            // Also rejects relative URLs, which would fail on every delivery
+            if (!"http".equals(endpoint.getScheme()) && !"https".equals(endpoint.getScheme())) {
+                throw new IllegalStateException("Outbox HTTP subscriber must be an http(s) URL: " + endpoint.getHost());
+            }
+            all.add(new HttpOutboxSubscriber(endpoint, restTemplateBuilder
+                .connectTimeout(connectTimeout)
+                .readTimeout(readTimeout)
+                .build()));
+        }
+        subscribers = Collections.unmodifiableList(all);
+
+        // The name records which subscribers acknowledged a change, so a shared name would mark both delivered
+        Set<String> names = new HashSet<>();
+        for (OutboxSubscriber subscriber : subscribers) {
+            if (!names.add(subscriber.name())) {
+                throw new IllegalStateException("Outbox subscriber names must be unique: " + subscriber.name());
+            }
+        }
+
+        for (OutboxSubscriber subscriber : subscribers) {
+            delivered.put(subscriber.name(), Counter.builder("device.outbox.delivered")
+                .description("Registration changes acknowledged by an outbox subscriber")
+                .tag("subscriber", subscriber.name())
+                .register(meterRegistry));
+            failures.put(subscriber.name(), Counter.builder("device.outbox.failures")
+                .description("Outbox batches an outbox subscriber failed to acknowledge")
+                .tag("subscriber", subscriber.name())
+                .register(meterRegistry));
+            parked.put(subscriber.name(), Counter.builder("device.outbox.parked")
+                .description("Registration changes parked after an outbox subscriber failed max-attempts times")
+                .tag("subscriber", subscriber.name())
+                .register(meterRegistry));
+        }
+        relayTimer = Timer.builder("device.outbox.relay")
+            .description("Time to claim, deliver and delete one outbox batch")
+            .register(meterRegistry);
+        lag = Timer.builder("device.outbox.lag")
+            .description("Time from registration commit to delivery to every subscriber")
+            .publishPercentiles(0.5, 0.99)
+            .register(meterRegistry);
+
+        if (enabled) {
+            logger.info("Registration outbox relay delivering to {} subscriber(s): {}", subscribers.size(),
+                subscribers.stream().map(OutboxSubscriber::name).toList());
+        }
+    }
+
+    /**
+     * Deliver the due rows of every shard
+     * Without subscribers the rows are deleted as delivered, so the outbox does not grow
+     */
+    @Scheduled(fixedDelayString = "${device.outbox.poll-interval-ms:500}")
+    public void relay() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            shardRouter.callOnEachShard(this::drainShard);
+        } catch (RuntimeException e) {
+            // Claimed rows become due again when their lease expires
+            logger.warn("Outbox relay failed: {}", e.getMessage());
+        }
+    }
+
+    private Integer drainShard() {
+        int relayed = 0;
+        int claimed;
+        do {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            List<Claimed> batch = transactionTemplate.execute(status -> claim());
+            claimed = batch.size();
+            if (claimed > 0) {
+                relayed += deliver(batch);
+                sample.stop(relayTimer);
+            }
+        } while (claimed == batchSize);
+        return relayed;
+    }
+
+    private List<Claimed> claim() {
+        List<Claimed> batch = new ArrayList<>(jdbcTemplate.query(CLAIM_SQL, (resultSet, rowNum) -> new Claimed(
+            new RegistrationChange(resultSet.getLong(1), resultSet.getString(2), resultSet.getString(3),
+                resultSet.getString(4), resultSet.getString(5), resultSet.getString(6), resultSet.getString(7),
+                resultSet.getTimestamp(8).toLocalDateTime().toString()),
+            resultSet.getTimestamp(8).toLocalDateTime(), resultSet.getInt(9), deliveredTo(resultSet.getString(10))),
+            lease.toMillis(), batchSize));
+        // RETURNING order is unspecified
+        batch.sort(Comparator.comparingLong(claimed -> claimed.change().getId()));
+        return batch;
+    }
+
+    /**
+     * Deliver each claimed row to the subscribers that have not acknowledged it yet, then delete
+     * the rows every subscriber acknowledged, park the rows out of attempts and reschedule the rest
+     *
+     * @return number of changes delivered to every subscriber
+     */
+    private int deliver(List<Claimed> batch) {
+        for (OutboxSubscriber subscriber : subscribers) {
+            List<Claimed> due = batch.stream()
+                .filter(claimed -> !claimed.deliveredTo().contains(subscriber.name()))
+                .toList();
+            if (due.isEmpty()) {
+                continue;
+            }
+            try {
+                subscriber.deliver(due.stream().map(Claimed::change).toList());
+                delivered.get(subscriber.name()).increment(due.size());
+                due.forEach(claimed -> claimed.deliveredTo().add(subscriber.name()));
+            } catch (Exception e) {
+                failures.get(subscriber.name()).increment();
+                int attempts = due.stream().mapToInt(Claimed::attempts).max().orElse(1);
+                logger.warn("Outbox subscriber {} failed on {} change(s) (attempt {}): {}",
+                    subscriber.name(), due.size(), attempts, e.getMessage());
+            }
+        }
+
+        List<Object> complete = new ArrayList<>();
+        List<Object[]> retries = new ArrayList<>();
+        List<Object[]> parks = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (Claimed claimed : batch) {
+            List<String> pending = subscribers.stream()
+                .map(OutboxSubscriber::name)
+                .filter(name -> !claimed.deliveredTo().contains(name))
+                .toList();
+            if (pending.isEmpty()) {
+                complete.add(claimed.change().getId());
+                lag.record(Duration.between(claimed.createdAt(), now));
+            } else if (claimed.attempts() >= maxAttempts) {
+                parks.add(new Object[]{String.join(" ", pending), claimed.change().getId()});
+                pending.forEach(name -> parked.get(name).increment());
+            } else {
+                retries.add(new Object[]{String.join(" ", claimed.deliveredTo()), initialBackoff.toMillis(),
+                    maxBackoff.toMillis(), claimed.change().getId()});
+            }
+        }
+
+        if (!retries.isEmpty()) {
+            jdbcTemplate.batchUpdate(RETRY_SQL, retries);
+        }
+        if (!parks.isEmpty()) {
+            List<Object> parkedIds = parks.stream().map(args -> args[1]).toList();
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate(PARK_SQL, parks);
+                jdbcTemplate.update(DELETE_SQL_PREFIX + placeholders(parkedIds.size()), parkedIds.toArray());
+            });
+            logger.warn("Parked {} outbox change(s) after {} delivery attempts", parks.size(), maxAttempts);
+        }
+        if (!complete.isEmpty()) {
+            jdbcTemplate.update(DELETE_SQL_PREFIX + placeholders(complete.size()), complete.toArray());
+        }
+        return complete.size();
+    }
+
+    private static Set<String> deliveredTo(String names) {
+        Set<String> deliveredTo = new LinkedHashSet<>();
+        if (names != null && !names.isBlank()) {
+            deliveredTo.addAll(Arrays.asList(names.trim().split(" ")));
+        }
+        return deliveredTo;
+    }
+
+    private static String placeholders(int count) {
+        return "(" + String.join(", ", Collections.nCopies(count, "?")) + ")";
+    }
+
+    /**
+     * @param deliveredTo names of the subscribers that acknowledged the change; updated during delivery
+     */
+    private record Claimed(RegistrationChange change, LocalDateTime createdAt, int attempts, Set<String> deliveredTo) {}
+}
@@ -0,0 +1,30 @@
+package com.safra.bank.device.outbox;
+
+import com.safra.bank.shared.dto.RegistrationChange;
+
+import java.util.List;
+
+/**
+ * Receiver of registration changes from the outbox relay
+ * Spring beans implementing this interface are subscribed in-process; HTTP endpoints are
+ * subscribed with device.outbox.http.subscribers
+ *
+ * Delivery is at least once and in id order within a batch, but batches of different shards
+ * and relays may interleave; implementations must be idempotent (deduplicate by id)
+ */
+public interface OutboxSubscriber {
+
+    /**
+     * @return name used in logs and metrics, and to record which subscribers acknowledged a change;
+     *         must be stable across restarts and contain no whitespace
+     */
+    String name();
+
+    /**
+     * Handle a batch of changes; returning normally acknowledges the whole batch
+     *
+     * @param changes committed changes in id order
+     * @throws Exception to have the batch delivered again after a backoff
+     */
+    void deliver(List<RegistrationChange> changes) throws Exception;
+}
@@ -0,0 +1,71 @@
+package com.safra.bank.device.outbox;
+
+import com.safra.bank.device.event.RegistrationDimensions;
+import com.safra.bank.shared.entity.RegistrationOutboxEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * Writes registration changes to the transactional outbox (registration_outbox,
+ * see {@link RegistrationOutboxEvent})
+ * Must be called inside the registration transaction, on the shard that holds the
+ * registration; the row commits or rolls back with it
+ *
+ * Performance Notes:
+ * - One single-row INSERT, only for new registrations and dimension changes;
+ *   returning users with unchanged dimensions write nothing
+ */
+@Service
+public class RegistrationOutbox {
+
+    private static final String INSERT_SQL =
+        "INSERT INTO registration_outbox (event_type, user_key, device_type, app_version, os_version, region, " +
+        "created_at, attempts, next_attempt_at) VALUES (?, ?, ?, ?, ?, ?, ?, 0, LOCALTIMESTAMP)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${device.outbox.enabled:true}")
+    private boolean enabled;
+
+    private Counter appended;
+
+    @PostConstruct
+    void init() {
+        appended = Counter.builder("device.outbox.appended")
+            .description("Registration changes written to the outbox")
+            .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Append a change in the caller's transaction
+     *
+     * @param eventType {@link RegistrationOutboxEvent#REGISTERED} or {@link RegistrationOutboxEvent#DIMENSIONS_CHANGED}
+     * @param userKey owner of the registration
+     * @param deviceType device type of the registration
+     * @param dimensions statistics dimensions after the change
+     */
+    public void append(String eventType, String userKey, String deviceType, RegistrationDimensions dimensions) {
+        if (!enabled) {
+            return;
+        }
+        jdbcTemplate.update(INSERT_SQL, eventType, userKey, deviceType,
+            dimensions.appVersion(), dimensions.osVersion(), dimensions.region(), Timestamp.valueOf(LocalDateTime.now()));
+        appended.increment();
+    }
+}
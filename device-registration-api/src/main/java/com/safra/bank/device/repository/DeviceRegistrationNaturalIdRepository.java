@@ -0,0 +1,42 @@
+package com.safra.bank.device.repository;
+
+import com.safra.bank.shared.entity.DeviceRegistration;
+
+import java.util.Optional;
+
+/**
+ * Natural-id lookups for DeviceRegistration
+ * Resolved through the Hibernate natural-id cache instead of derived queries
+ */
+public interface DeviceRegistrationNaturalIdRepository {
+
+    /**
+     * Find existing device registration for a user and device type
+     * Used to prevent duplicate registrations and support upsert operations
+     * The id comes from the natural-id cache; the row itself is read by primary key
+     * A cached id whose row no longer exists is evicted and the row is queried by natural key
+     * 
+     * @param userKey the user identifier
+     * @param deviceType the device type
+     * @return Optional containing the registration if it exists
+     */
+    Optional<DeviceRegistration> findByUserKeyAndDeviceType(String userKey, String deviceType);
+
+    /**
+     * Check if a registration already exists for user and device type
+     * Served from the natural-id cache for known registrations, without loading the entity
+     * 
+     * @param userKey the user identifier
+     * @param deviceType the device type
+     * @return true if registration exists, false otherwise
+     */
+    boolean existsByUserKeyAndDeviceType(String userKey, String deviceType);
+
+    /**
+     * Reload a registration from the database and lock its row until the transaction ends
+     * Used before changing mutable columns, so concurrent logins apply their changes one at a time
+     * 
+     * @param registration a registration loaded in the current transaction
+     */
+    void refreshForUpdate(DeviceRegistration registration);
+}
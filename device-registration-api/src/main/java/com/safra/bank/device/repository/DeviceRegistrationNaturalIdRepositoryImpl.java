@@ -0,0 +1,94 @@
+package com.safra.bank.device.repository;
+
+import com.safra.bank.shared.entity.DeviceRegistration;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.hibernate.cache.spi.access.NaturalIdDataAccess;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Natural-id lookups backed by Hibernate's byNaturalId API
+ *
+ * Performance Notes:
+ * - (userKey, deviceType) -> id resolutions come from the natural-id cache region
+ * - Entity state is not cached, so a found registration costs one primary key SELECT
+ *   and always reflects the committed row
+ * - A cached resolution whose row is gone (merged away by the shard rebalancer, possibly run
+ *   from another process) is evicted and the registration is re-read by its natural key;
+ *   a key that is not cached at all costs no extra query
+ */
+@Transactional(readOnly = true)
+public class DeviceRegistrationNaturalIdRepositoryImpl implements DeviceRegistrationNaturalIdRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Optional<DeviceRegistration> findByUserKeyAndDeviceType(String userKey, String deviceType) {
+        Session session = entityManager.unwrap(Session.class);
+        Optional<DeviceRegistration> registration = session
+            .byNaturalId(DeviceRegistration.class)
+            .using("userKey", userKey)
+            .using("deviceType", deviceType)
+            .loadOptional();
+        if (registration.isEmpty() && evictCachedResolution(session, userKey, deviceType)) {
+            // The session may hold the stale resolution too, so bypass byNaturalId; loading the row caches its id
+            registration = entityManager.createQuery(
+                    "SELECT d FROM DeviceRegistration d WHERE d.userKey = :userKey AND d.deviceType = :deviceType",
+                    DeviceRegistration.class)
+                .setParameter("userKey", userKey)
+                .setParameter("deviceType", deviceType)
+                .getResultStream()
+                .findFirst();
+        }
+        return registration;
+    }
+
+    @Override
+    public boolean existsByUserKeyAndDeviceType(String userKey, String deviceType) {
+        // getReference resolves the natural id to an id without initializing the entity
+        return entityManager.unwrap(Session.class)
+            .byNaturalId(DeviceRegistration.class)
+            .using("userKey", userKey)
+            .using("deviceType", deviceType)
+            .getReference() != null;
+    }
+
+    @Override
+    @Transactional
+    public void refreshForUpdate(DeviceRegistration registration) {
+        // SELECT ... FOR UPDATE, so concurrent changes to the same row are serialized
+        entityManager.refresh(registration, LockModeType.PESSIMISTIC_WRITE);
+    }
+
+    /**
+     * Evict the cached (userKey, deviceType) -> id resolution, if there is one
+     * Per-key eviction is only available through the natural-id cache SPI
+     *
+     * @return true if a resolution was cached
+     */
+    private boolean evictCachedResolution(Session session, String userKey, String deviceType) {
+        SessionImplementor sessionImplementor = session.unwrap(SessionImplementor.class);
+        EntityPersister persister = sessionImplementor.getFactory().getMappingMetamodel()
+            .getEntityDescriptor(DeviceRegistration.class);
+        NaturalIdDataAccess cacheAccess = persister.getNaturalIdCacheAccessStrategy();
+        if (cacheAccess == null) {
+            return false;
+        }
+        Object naturalId = persister.getNaturalIdMapping()
+            .normalizeInput(Map.of("userKey", userKey, "deviceType", deviceType));
+        Object cacheKey = cacheAccess.generateCacheKey(naturalId, persister, sessionImplementor);
+        if (cacheAccess.get(sessionImplementor, cacheKey) == null) {
+            return false;
+        }
+        cacheAccess.evict(cacheKey);
+        return true;
+    }
+}
@@ -1,10 +1,11 @@
 package com.safra.bank.device.repository;
 
 import com.safra.bank.shared.entity.DeviceRegistration;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
-import java.util.Optional;
+import java.util.List;
 
 /**
  * Repository interface for DeviceRegistration entity operations
@@ -13,28 +14,19 @@ import java.util.Optional;
  * DevSecOps Features:
  * - Transactional database operations for data integrity
  * - Optimized queries for duplicate prevention
+ * - Natural-id lookups resolved from the natural-id cache region (DeviceRegistrationNaturalIdRepository)
  * - Secure parameterized queries to prevent SQL injection
  */
 @Repository
-public interface DeviceRegistrationRepository extends JpaRepository<DeviceRegistration, Long> {
+public interface DeviceRegistrationRepository extends JpaRepository<DeviceRegistration, Long>,
+        DeviceRegistrationNaturalIdRepository {
 
     /**
-     * Find existing device registration for a user and device type
-     * Used to prevent duplicate registrations and support upsert operations
-     * 
-     * @param userKey the user identifier
-     * @param deviceType the device type
-     * @return Optional containing the registration if it exists
+     * Newest registrations first, read through the primary key index
+     * Used by the warm-up phase to fill the natural-id cache
+     *
+     * @param limit maximum number of registrations
+     * @return the newest registrations
      */
-    Optional<DeviceRegistration> findByUserKeyAndDeviceType(String userKey, String deviceType);
-
-    /**
-     * Check if a registration already exists for user and device type
-     * Optimized query for existence checking without fetching full entity
-     * 
-     * @param userKey the user identifier
-     * @param deviceType the device type
-     * @return true if registration exists, false otherwise
-     */
-    boolean existsByUserKeyAndDeviceType(String userKey, String deviceType);
-}
\ No newline at end of file
+    List<DeviceRegistration> findAllByOrderByIdDesc(Limit limit);
+}
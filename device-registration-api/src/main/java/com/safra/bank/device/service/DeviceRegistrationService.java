@@ -1,17 +1,28 @@
 package com.safra.bank.device.service;
 
+import com.safra.bank.device.event.DeviceRegisteredEvent;
+import com.safra.bank.device.event.RegistrationDimensions;
+import com.safra.bank.device.latency.Stage;
+import com.safra.bank.device.outbox.RegistrationOutbox;
 import com.safra.bank.device.repository.DeviceRegistrationRepository;
+import com.safra.bank.device.sharding.ShardRouter;
 import com.safra.bank.shared.dto.DeviceRegistrationRequest;
 import com.safra.bank.shared.dto.DeviceRegistrationResponse;
 import com.safra.bank.shared.entity.DeviceRegistration;
+import com.safra.bank.shared.entity.RegistrationOutboxEvent;
+import com.safra.bank.shared.latency.StageLatencyRecorder;
+import com.safra.bank.shared.latency.StageLatencyRecorder.Outcome;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
+import java.util.UUID;
 
 /**
  * Service layer for Device Registration API business logic
@@ -24,9 +35,25 @@ import java.util.Optional;
  * - Exception handling with proper error responses
  * - No sensitive data exposure in logs
  * - Duplicate prevention with upsert behavior
+ * - Each registration is written in one transaction on the shard owning its userKey
+ * - New registrations and dimension changes are written to the registration outbox in the same
+ *   transaction, so subscribers receive exactly the committed changes (at least once)
+ *
+ * Performance Notes:
+ * - Returning users do not rewrite their row; the login time goes to {@link LastSeenBuffer},
+ *   which coalesces updated_at writes per registration. The row is only updated when the
+ *   login reports different statistics dimensions (app version, OS version, region)
+ * - The natural id resolves from the natural-id cache region, and the row (never cached) is read
+ *   by primary key, so dimensions are compared against the committed state
+ * - {@link RegistrationCubeBuffer} listens to the registration event inside the registration
+ *   transaction and journals the cube deltas of new registrations and dimension changes there;
+ *   a journal failure fails the registration. The deltas are applied to the cube in batches
+ * - {@link LoginEventBuffer} (login_events log) and {@link UserDeviceLookupService} (lookup cache)
+ *   listen after commit, so rolled-back registrations never reach them and the upsert path gains
+ *   no statement for them
+ * - Validation and upsert latencies are recorded per device type and outcome
  */
 @Service
-@Transactional
 public class DeviceRegistrationService {
 
     private static final Logger logger = LoggerFactory.getLogger(DeviceRegistrationService.class);
@@ -34,6 +61,24 @@ public class DeviceRegistrationService {
     @Autowired
     private DeviceRegistrationRepository deviceRegistrationRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private LastSeenBuffer lastSeenBuffer;
+
+    @Autowired
+    private StageLatencyRecorder<Stage> stageLatency;
+
+    @Autowired
+    private RegistrationOutbox registrationOutbox;
+
     /**
      * Register a device for a user
      * Implements upsert behavior - creates new registration or updates existing one
@@ -42,59 +87,127 @@ public class DeviceRegistrationService {
      * @return DeviceRegistrationResponse indicating success or failure
      */
     public DeviceRegistrationResponse registerDevice(DeviceRegistrationRequest request) {
+        long upsertStart = 0;
         try {
             logger.info("Processing device registration for device type: {}", request.getDeviceType());
+            long validationStart = System.nanoTime();
             
             // Input validation (additional layer beyond controller validation)
             if (request.getUserKey() == null || request.getUserKey().trim().isEmpty()) {
                 logger.warn("Device registration attempt with empty user key");
+                stageLatency.record(Stage.VALIDATION, request.getDeviceType(), Outcome.REJECTED,
+                    System.nanoTime() - validationStart);
                 return DeviceRegistrationResponse.badRequest();
             }
             
             if (request.getDeviceType() == null || 
                 !isValidDeviceType(request.getDeviceType())) {
                 logger.warn("Device registration attempt with invalid device type: {}", request.getDeviceType());
+                stageLatency.record(Stage.VALIDATION, request.getDeviceType(), Outcome.REJECTED,
+                    System.nanoTime() - validationStart);
                 return DeviceRegistrationResponse.badRequest();
             }
+            stageLatency.record(Stage.VALIDATION, request.getDeviceType(), Outcome.SUCCESS,
+                System.nanoTime() - validationStart);
 
-            // Check if registration already exists
-            Optional<DeviceRegistration> existingRegistration = 
-                deviceRegistrationRepository.findByUserKeyAndDeviceType(
-                    request.getUserKey(), request.getDeviceType());
-
-            DeviceRegistration registration;
-            if (existingRegistration.isPresent()) {
-                // Update existing registration
-                registration = existingRegistration.get();
-                logger.debug("Updating existing registration for user and device type");
-            } else {
-                // Create new registration
-                registration = new DeviceRegistration(
-                    request.getUserKey(), 
-                    request.getDeviceType()
-                );
-                logger.debug("Creating new registration for user and device type");
-            }
-
-            // Save registration (insert or update)
-            DeviceRegistration savedRegistration = deviceRegistrationRepository.save(registration);
-            
-            logger.info("Successfully registered device. ID: {}, Device Type: {}", 
-                       savedRegistration.getId(), savedRegistration.getDeviceType());
-            
-            return DeviceRegistrationResponse.success();
+            // The shard is selected before the transaction binds its connection
+            upsertStart = System.nanoTime();
+            DeviceRegistrationResponse response = shardRouter.callOnShardFor(request.getUserKey(),
+                () -> transactionTemplate.execute(status -> upsertRegistration(request)));
+            stageLatency.record(Stage.DB_UPSERT, request.getDeviceType(), Outcome.SUCCESS,
+                System.nanoTime() - upsertStart);
+            return response;
             
         } catch (DataIntegrityViolationException e) {
             // Handle database constraint violations
             logger.warn("Data integrity violation during device registration: {}", e.getMessage());
+            recordUpsertFailure(request, Outcome.REJECTED, upsertStart);
             return DeviceRegistrationResponse.badRequest();
             
         } catch (Exception e) {
             logger.error("Error registering device: {}", e.getMessage(), e);
+            recordUpsertFailure(request, Outcome.ERROR, upsertStart);
             return DeviceRegistrationResponse.internalError();
         }
     }
 
+    private void recordUpsertFailure(DeviceRegistrationRequest request, Outcome outcome, long upsertStart) {
+        if (upsertStart != 0) {
+            stageLatency.record(Stage.DB_UPSERT, request.getDeviceType(), outcome, System.nanoTime() - upsertStart);
+        }
+    }
+
+    /**
+     * Insert or refresh the registration, append it to the outbox when it changed and publish
+     * the registration event
+     * Runs inside the caller's transaction on the selected shard
+     * 
+     * @param request validated device registration request
+     * @return success response
+     */
+    private DeviceRegistrationResponse upsertRegistration(DeviceRegistrationRequest request) {
+        // Check if registration already exists
+        Optional<DeviceRegistration> existingRegistration = 
+            deviceRegistrationRepository.findByUserKeyAndDeviceType(
+                request.getUserKey(), request.getDeviceType());
+
+        RegistrationDimensions reported = new RegistrationDimensions(
+            request.getAppVersion(), request.getOsVersion(), request.getRegion());
+        DeviceRegistration savedRegistration;
+        RegistrationDimensions dimensions;
+        RegistrationDimensions previousDimensions = null;
+        if (existingRegistration.isPresent()) {
+            // Returning user: only the last-seen time changes, written later in a batch
+            savedRegistration = existingRegistration.get();
+            RegistrationDimensions stored = RegistrationDimensions.of(savedRegistration);
+            dimensions = stored.merge(reported);
+            if (!dimensions.equals(stored)) {
+                // e.g. an app upgrade; re-read under a row lock so concurrent changes are counted once
+                deviceRegistrationRepository.refreshForUpdate(savedRegistration);
+                stored = RegistrationDimensions.of(savedRegistration);
+                dimensions = stored.merge(reported);
+            }
+            if (!dimensions.equals(stored)) {
+                // The managed entity is updated at commit
+                savedRegistration.setAppVersion(dimensions.appVersion());
+                savedRegistration.setOsVersion(dimensions.osVersion());
+                savedRegistration.setRegion(dimensions.region());
+                previousDimensions = stored;
+                registrationOutbox.append(RegistrationOutboxEvent.DIMENSIONS_CHANGED,
+                    savedRegistration.getUserKey(), savedRegistration.getDeviceType(), dimensions);
+                logger.debug("Updated statistics dimensions of existing registration");
+            } else {
+                lastSeenBuffer.record(savedRegistration.getId(), savedRegistration.getUserKey(), LocalDateTime.now());
+                logger.debug("Recorded last-seen time for existing registration");
+            }
+        } else {
+            // Create new registration
+            DeviceRegistration registration = new DeviceRegistration(
+                request.getUserKey(), 
+                request.getDeviceType()
+            );
+            registration.setAppVersion(reported.appVersion());
+            registration.setOsVersion(reported.osVersion());
+            registration.setRegion(reported.region());
+            savedRegistration = deviceRegistrationRepository.save(registration);
+            dimensions = reported;
+            registrationOutbox.append(RegistrationOutboxEvent.REGISTERED,
+                savedRegistration.getUserKey(), savedRegistration.getDeviceType(), dimensions);
+            logger.debug("Created new registration for user and device type");
+        }
+        
+        logger.info("Successfully registered device. ID: {}, Device Type: {}", 
+                   savedRegistration.getId(), savedRegistration.getDeviceType());
+
+        // The cube journal is written now, in this transaction; the login log and lookup cache act after commit
+        eventPublisher.publishEvent(new DeviceRegisteredEvent(
+            savedRegistration.getUserKey(), savedRegistration.getDeviceType(),
+            existingRegistration.isEmpty(), dimensions, previousDimensions, LocalDateTime.now(),
+            request.getRequestId() == null ? null : UUID.fromString(request.getRequestId()), request.getLoginTime()));
+        
+        return DeviceRegistrationResponse.success();
+    }
+
     /**
      * Validate device type against allowed values
      * Prevents injection attacks and ensures data integrity
@@ -0,0 +1,290 @@
+package com.safra.bank.device.service;
+
+import com.safra.bank.device.event.LastSeenWrittenEvent;
+import com.safra.bank.device.sharding.ShardRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Coalesces last-seen timestamp updates for returning users
+ * Logins for an existing registration only move its updated_at; instead of one row UPDATE
+ * (and one dead tuple) per login, the latest timestamp per registration is kept in memory
+ * and written periodically in batched UPDATE ... FROM unnest(...) statements
+ *
+ * DevSecOps Features:
+ * - Pending timestamps are flushed on shutdown and retained when a flush fails
+ * - The buffer is bounded; at the limit new registrations are dropped (counted) and a flush is
+ *   started on the scheduler, never on the registration thread
+ * - Updates never move updated_at backwards
+ * - Logins are buffered after their registration transaction commits; rolled-back ones are never written
+ *
+ * Performance Notes:
+ * - A registration is updated at most once per flush interval (the staleness bound),
+ *   however many times its user logs in
+ * - Rows are updated by primary key in id order, one statement per shard and batch
+ * - Each written shard batch publishes a {@link LastSeenWrittenEvent} once its UPDATE has committed,
+ *   so the per-user lookup cache is invalidated when the new value is readable, not at login
+ */
+@Service
+public class LastSeenBuffer {
+
+    private static final Logger logger = LoggerFactory.getLogger(LastSeenBuffer.class);
+
+    // One statement (and one server-side prepared statement) for every batch size
+    private static final String UPDATE_SQL =
+        "UPDATE device_registrations d SET updated_at = v.last_seen FROM unnest(?::bigint[], ?::timestamp[]) " +
+        "AS v(id, last_seen) WHERE d.id = v.id AND d.updated_at < v.last_seen";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private TaskScheduler taskScheduler;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${device.last-seen.buffer.enabled:true}")
+    private boolean enabled;
+
+    @Value("${device.last-seen.buffer.max-entries:100000}")
+    private int maxEntries;
+
+    @Value("${device.last-seen.buffer.batch-size:1000}")
+    private int batchSize;
+
+    // Registration id -> latest login not yet written
+    private final ConcurrentHashMap<Long, PendingUpdate> pending = new ConcurrentHashMap<>();
+
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    private Counter recorded;
+
+    private Counter written;
+
+    private Counter dropped;
+
+    private Timer flushTimer;
+
+    @PostConstruct
+    void init() {
+        recorded = Counter.builder("device.last.seen.recorded")
+            .description("Last-seen timestamps recorded for returning users")
+            .register(meterRegistry);
+        written = Counter.builder("device.last.seen.written")
+            .description("Registration rows whose updated_at was written by a flush")
+            .register(meterRegistry);
+        dropped = Counter.builder("device.last.seen.dropped")
+            .description("Last-seen timestamps discarded with the buffer full")
+            .register(meterRegistry);
+        flushTimer = Timer.builder("device.last.seen.flush")
+            .description("Time spent writing buffered last-seen timestamps")
+            .register(meterRegistry);
+        Gauge.builder("device.last.seen.pending", pending, Map::size)
+            .description("Registrations with a last-seen timestamp waiting to be written")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Record a login for an existing registration
+     * Inside a transaction the login is buffered once it commits, so a rolled-back registration
+     * never moves updated_at. With the buffer disabled the row is updated immediately, in the
+     * caller's transaction
+     *
+     * @param registrationId id of the existing registration
+     * @param userKey owner of the registration; selects the shard at flush time
+     * @param seenAt login time
+     */
+    public void record(long registrationId, String userKey, LocalDateTime seenAt) {
+        PendingUpdate update = new PendingUpdate(registrationId, userKey, seenAt);
+        if (!enabled) {
+            recorded.increment();
+            write(List.of(update));
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    buffer(update);
+                }
+            });
+        } else {
+            buffer(update);
+        }
+    }
+
+    private void buffer(PendingUpdate update) {
+        recorded.increment();
+        if (pending.size() >= maxEntries && !pending.containsKey(update.registrationId())) {
+            // The next login of this registration is recorded again
+            dropped.increment();
+            requestFlush();
+            return;
+        }
+        pending.merge(update.registrationId(), update, PendingUpdate::latest);
+    }
+
+    /**
+     * Start a flush on the scheduler as soon as possible; at most one is outstanding
+     * Never flushes on the calling thread, which may be bound to a registration transaction
+     * and its shard connection
+     */
+    private void requestFlush() {
+        if (flushRequested.compareAndSet(false, true)) {
+            taskScheduler.schedule(() -> {
+                flushRequested.set(false);
+                flush();
+            }, Instant.now());
+        }
+    }
+
+    /**
+     * Write every pending timestamp; runs once per staleness interval and on shutdown
+     */
+    @Scheduled(fixedDelayString = "${device.last-seen.buffer.max-staleness-ms:5000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            List<PendingUpdate> batch = drain();
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                flushTimer.record(() -> write(batch));
+                logger.debug("Flushed {} last-seen timestamps", batch.size());
+            } catch (RuntimeException e) {
+                logger.warn("Failed to flush {} last-seen timestamps; retrying next interval: {}",
+                           batch.size(), e.getMessage());
+                requeue(batch);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        flush();
+        if (!pending.isEmpty()) {
+            logger.warn("{} last-seen timestamps could not be written before shutdown", pending.size());
+        }
+    }
+
+    /**
+     * Remove pending entries one key at a time; a login arriving meanwhile starts a new entry
+     * for the next flush instead of being lost
+     */
+    private List<PendingUpdate> drain() {
+        List<PendingUpdate> batch = new ArrayList<>(pending.size());
+        for (Long registrationId : pending.keySet()) {
+            PendingUpdate update = pending.remove(registrationId);
+            if (update != null) {
+                batch.add(update);
+            }
+        }
+        return batch;
+    }
+
+    private void requeue(List<PendingUpdate> batch) {
+        for (PendingUpdate update : batch) {
+            if (pending.size() >= maxEntries && !pending.containsKey(update.registrationId())) {
+                dropped.increment();
+            } else {
+                pending.merge(update.registrationId(), update, PendingUpdate::latest);
+            }
+        }
+    }
+
+    private void write(List<PendingUpdate> updates) {
+        Map<Integer, List<PendingUpdate>> byShard = new LinkedHashMap<>();
+        for (PendingUpdate update : updates) {
+            int shardId = shardRouter.isEnabled() ? shardRouter.shardFor(update.userKey()) : 0;
+            byShard.computeIfAbsent(shardId, shard -> new ArrayList<>()).add(update);
+        }
+        byShard.forEach((shardId, shardUpdates) -> {
+            // Id order keeps row locks consistent between replicas flushing the same rows
+            shardUpdates.sort(Comparator.comparingLong(PendingUpdate::registrationId));
+            int rows = shardRouter.isEnabled()
+                ? shardRouter.callOnShard(shardId, () -> writeShard(shardUpdates))
+                : writeShard(shardUpdates);
+            if (rows > 0) {
+                // Statements auto-commit here; with the buffer disabled, listeners wait for the registration commit
+                Set<String> userKeys = new HashSet<>(shardUpdates.size() * 2);
+                for (PendingUpdate update : shardUpdates) {
+                    userKeys.add(update.userKey());
+                }
+                eventPublisher.publishEvent(new LastSeenWrittenEvent(userKeys));
+            }
+        });
+    }
+
+    private int writeShard(List<PendingUpdate> updates) {
+        int rows = 0;
+        for (int from = 0; from < updates.size(); from += batchSize) {
+            List<PendingUpdate> chunk = updates.subList(from, Math.min(from + batchSize, updates.size()));
+            Long[] ids = new Long[chunk.size()];
+            Timestamp[] seenAt = new Timestamp[chunk.size()];
+            for (int i = 0; i < chunk.size(); i++) {
+                ids[i] = chunk.get(i).registrationId();
+                seenAt[i] = Timestamp.valueOf(chunk.get(i).seenAt());
+            }
+            rows += jdbcTemplate.update(connection -> {
+                PreparedStatement statement = connection.prepareStatement(UPDATE_SQL);
+                statement.setArray(1, connection.createArrayOf("bigint", ids));
+                statement.setArray(2, connection.createArrayOf("timestamp", seenAt));
+                return statement;
+            });
+        }
+        written.increment(rows);
+        return rows;
+    }
+
+    private record PendingUpdate(long registrationId, String userKey, LocalDateTime seenAt) {
+
+        PendingUpdate latest(PendingUpdate other) {
+            return other.seenAt.isAfter(seenAt) ? other : this;
+        }
+    }
+}
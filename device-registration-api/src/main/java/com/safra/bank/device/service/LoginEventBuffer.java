@@ -0,0 +1,432 @@
+package com.safra.bank.device.service;
+
+import com.safra.bank.device.event.DeviceRegisteredEvent;
+import com.safra.bank.device.event.RegistrationDimensions;
+import com.safra.bank.device.sharding.ShardRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Appends every login to the login_events log and maintains its hourly rollup (login_rollup)
+ * Registrations are upserted, so device_registrations keeps one row per user and device type;
+ * the log keeps each login. Committed logins are queued in memory and written periodically
+ * as batched INSERT ... SELECT FROM unnest(...) statements, together with the rollup deltas they add, in one transaction
+ * per shard
+ *
+ * "Every login" holds for orderly shutdowns only: queued events are not durable, so a crash
+ * (or kill -9) loses the logins of the last flush interval (device.login-events.flush-interval-ms,
+ * 1s by default), and a full buffer drops events (counted in device.login.events.dropped)
+ *
+ * DevSecOps Features:
+ * - Pending events are flushed on shutdown and retained when a flush fails
+ * - Attempts of one login (hedges and retries from statistics-api) share a request id and login
+ *   time; the unique (request_id, occurred_at) index keeps one of them, even across replicas
+ * - The buffer is bounded; at the limit further events are dropped (counted) and a flush is
+ *   started on the scheduler, never on the committing thread
+ * - Rolled-back registrations (including warm-up) are never logged
+ *
+ * Performance Notes:
+ * - The registration path only enqueues after commit; no extra statement per login
+ * - One INSERT per batch-size events and one rollup upsert per (hour, device type) and flush,
+ *   so the rollup is never a per-login row-lock hot spot
+ * - Log rows and rollup deltas commit together, and the rollup counts only the rows the INSERT
+ *   actually added (RETURNING), so the rollup always matches the log
+ * - Rebuilt from login_events at startup when the rollup is empty but the log is not
+ */
+@Service
+public class LoginEventBuffer {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoginEventBuffer.class);
+
+    // Columns are bound as arrays, so every batch size shares one statement.
+    // Repeated attempts of a login conflict on uk_login_events_request and are skipped
+    private static final String INSERT_SQL =
+        "INSERT INTO login_events (occurred_at, request_id, user_key, device_type, app_version, os_version, region, " +
+        "new_registration) SELECT * FROM unnest(?::timestamp[], ?::uuid[], ?::varchar[], ?::varchar[], ?::varchar[], " +
+        "?::varchar[], ?::varchar[], ?::boolean[]) ON CONFLICT DO NOTHING RETURNING occurred_at, device_type";
+
+    private static final String ROLLUP_SQL =
+        "INSERT INTO login_rollup (bucket_start, device_type, logins, updated_at) " +
+        "SELECT v.bucket_start, v.device_type, v.logins, LOCALTIMESTAMP " +
+        "FROM unnest(?::timestamp[], ?::varchar[], ?::bigint[]) AS v(bucket_start, device_type, logins) " +
+        "ON CONFLICT (bucket_start, device_type) DO UPDATE SET " +
+        "logins = login_rollup.logins + EXCLUDED.logins, updated_at = EXCLUDED.updated_at";
+
+    // Blocks flushes (also from other replicas) until the rebuilt rollup commits; reads continue
+    private static final String LOCK_SQL = "LOCK TABLE login_rollup IN EXCLUSIVE MODE";
+
+    private static final String REBUILD_SQL =
+        "INSERT INTO login_rollup (bucket_start, device_type, logins, updated_at) " +
+        "SELECT date_trunc('hour', occurred_at), device_type, COUNT(*), LOCALTIMESTAMP FROM login_events GROUP BY 1, 2";
+
+    private static final String NEEDS_REBUILD_SQL =
+        "SELECT NOT EXISTS (SELECT 1 FROM login_rollup) AND EXISTS (SELECT 1 FROM login_events)";
+
+    // Raised by PostgreSQL when no partition accepts the row
+    private static final String NO_PARTITION_STATE = "23514";
+
+    private static final int UNSHARDED = -1;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private LoginEventPartitions loginEventPartitions;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private TaskScheduler taskScheduler;
+
+    @Value("${device.login-events.enabled:true}")
+    private boolean enabled;
+
+    @Value("${device.login-events.max-entries:100000}")
+    private int maxEntries;
+
+    @Value("${device.login-events.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${device.login-events.rebuild-rollup-if-empty:true}")
+    private boolean rebuildIfEmpty;
+
+    // Caller login times further from the local clock are clamped to about this distance
+    @Value("${device.login-events.max-clock-skew:1m}")
+    private Duration maxClockSkew;
+
+    private final ConcurrentLinkedQueue<LoginEvent> pending = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger pendingCount = new AtomicInteger();
+
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    private Counter recorded;
+
+    private Counter written;
+
+    private Counter dropped;
+
+    private Counter duplicates;
+
+    private Timer flushTimer;
+
+    @PostConstruct
+    void init() {
+        recorded = Counter.builder("device.login.events.recorded")
+            .description("Committed logins queued for the login event log")
+            .register(meterRegistry);
+        written = Counter.builder("device.login.events.written")
+            .description("Login events appended to login_events by a flush")
+            .register(meterRegistry);
+        dropped = Counter.builder("device.login.events.dropped")
+            .description("Login events discarded with the buffer full")
+            .register(meterRegistry);
+        duplicates = Counter.builder("device.login.events.duplicates")
+            .description("Login events skipped as repeated attempts of an already logged login")
+            .register(meterRegistry);
+        flushTimer = Timer.builder("device.login.events.flush")
+            .description("Time spent appending buffered login events and their rollup deltas")
+            .register(meterRegistry);
+        Gauge.builder("device.login.events.pending", pendingCount, AtomicInteger::get)
+            .description("Login events waiting to be written")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Queue a committed login
+     */
+    @TransactionalEventListener
+    public void onDeviceRegistered(DeviceRegisteredEvent event) {
+        if (!enabled) {
+            return;
+        }
+        recorded.increment();
+        if (pendingCount.get() >= maxEntries) {
+            dropped.increment();
+            requestFlush();
+            return;
+        }
+        add(new LoginEvent(shardRouter.isEnabled() ? shardRouter.shardFor(event.getUserKey()) : UNSHARDED,
+            event.getRequestId(), event.getUserKey(), event.getDeviceType(), event.getDimensions(),
+            event.isNewRegistration(), occurredAt(event)));
+    }
+
+    /**
+     * The caller's login time, so every attempt of a login has the same (request_id, occurred_at);
+     * a skewed clock must not place events outside the existing partitions, so it is clamped into
+     * a window of max-clock-skew around the arrival time. The window is aligned to a max-clock-skew
+     * grid rather than the arrival instant, so attempts arriving at different times (or replicas)
+     * within one grid step are clamped to the same value
+     */
+    private LocalDateTime occurredAt(DeviceRegisteredEvent event) {
+        LocalDateTime loginTime = event.getLoginTime();
+        LocalDateTime arrival = event.getTimestamp();
+        if (event.getRequestId() == null || loginTime == null) {
+            return arrival;
+        }
+        long stepMillis = Math.max(1, maxClockSkew.toMillis());
+        long arrivalMillis = arrival.toInstant(ZoneOffset.UTC).toEpochMilli();
+        LocalDateTime gridStart = arrival.minus(Duration.ofMillis(Math.floorMod(arrivalMillis, stepMillis)));
+        // Covers arrival +/- max-clock-skew for any arrival within the grid step
+        LocalDateTime earliest = gridStart.minus(maxClockSkew);
+        LocalDateTime latest = gridStart.plus(maxClockSkew.multipliedBy(2));
+        if (loginTime.isBefore(earliest)) {
+            return earliest;
+        }
+        return loginTime.isAfter(latest) ? latest : loginTime;
+    }
+
+    /**
+     * Start a flush on the scheduler as soon as possible; at most one is outstanding
+     * Never flushes on the calling thread, which may be bound to a registration transaction
+     * and its shard connection
+     */
+    private void requestFlush() {
+        if (flushRequested.compareAndSet(false, true)) {
+            taskScheduler.schedule(() -> {
+                flushRequested.set(false);
+                flush();
+            }, Instant.now());
+        }
+    }
+
+    /**
+     * Write every pending event; runs once per flush interval and on shutdown
+     */
+    @Scheduled(fixedDelayString = "${device.login-events.flush-interval-ms:1000}")
+    public void flush() {
+        if (pendingCount.get() == 0) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            Map<Integer, List<LoginEvent>> byShard = drain();
+            byShard.forEach((shardId, events) -> {
+                try {
+                    flushTimer.record(() -> onShard(shardId,
+                        () -> transactionTemplate.execute(status -> writeShard(events))));
+                } catch (RuntimeException e) {
+                    logger.warn("Failed to append {} login events (shard {}); retrying next interval: {}",
+                               events.size(), shardId, e.getMessage());
+                    if (isMissingPartition(e)) {
+                        loginEventPartitions.maintain();
+                    }
+                    requeue(events);
+                }
+            });
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Build the rollup of shards that have login events but no rollup yet (schema created by JPA);
+     * runs after the partitions exist, and a failure is logged and retried on the next start
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfEmpty() {
+        if (!enabled || !rebuildIfEmpty) {
+            return;
+        }
+        try {
+            flush();
+            List<Boolean> empty = shardRouter.callOnEachShard(
+                () -> jdbcTemplate.queryForObject(NEEDS_REBUILD_SQL, Boolean.class));
+            if (empty.contains(Boolean.TRUE)) {
+                long startNanos = System.nanoTime();
+                long cells = 0;
+                for (Integer count : shardRouter.callOnEachShard(this::rebuildShard)) {
+                    cells += count;
+                }
+                logger.info("Rebuilt login rollup from login_events: {} cells in {} ms",
+                            cells, (System.nanoTime() - startNanos) / 1_000_000);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Could not build the login rollup at startup: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        flush();
+        if (pendingCount.get() > 0) {
+            logger.warn("{} login events could not be written before shutdown", pendingCount.get());
+        }
+    }
+
+    private int rebuildShard() {
+        return transactionTemplate.execute(status -> {
+            jdbcTemplate.execute(LOCK_SQL);
+            jdbcTemplate.update("DELETE FROM login_rollup");
+            return jdbcTemplate.update(REBUILD_SQL);
+        });
+    }
+
+    private void add(LoginEvent event) {
+        pending.add(event);
+        pendingCount.incrementAndGet();
+    }
+
+    /**
+     * Poll the queued events; a login arriving meanwhile is left for the next flush
+     */
+    private Map<Integer, List<LoginEvent>> drain() {
+        Map<Integer, List<LoginEvent>> byShard = new LinkedHashMap<>();
+        for (int remaining = pendingCount.get(); remaining > 0; remaining--) {
+            LoginEvent event = pending.poll();
+            if (event == null) {
+                break;
+            }
+            pendingCount.decrementAndGet();
+            byShard.computeIfAbsent(event.shardId(), shard -> new ArrayList<>()).add(event);
+        }
+        return byShard;
+    }
+
+    private void requeue(List<LoginEvent> events) {
+        for (LoginEvent event : events) {
+            if (pendingCount.get() >= maxEntries) {
+                dropped.increment();
+            } else {
+                add(event);
+            }
+        }
+    }
+
+    private static boolean isMissingPartition(RuntimeException e) {
+        return NestedExceptionUtils.getMostSpecificCause(e) instanceof SQLException sqlException
+            && NO_PARTITION_STATE.equals(sqlException.getSQLState());
+    }
+
+    private <T> T onShard(int shardId, Supplier<T> call) {
+        return shardId == UNSHARDED ? call.get() : shardRouter.callOnShard(shardId, call);
+    }
+
+    /**
+     * Append the events and add the counts of the appended ones to the rollup; runs in the
+     * caller's transaction
+     */
+    private int writeShard(List<LoginEvent> events) {
+        TreeMap<RollupKey, Long> rollup = new TreeMap<>(RollupKey.ORDER);
+        int rows = 0;
+        for (int from = 0; from < events.size(); from += batchSize) {
+            List<LoginEvent> chunk = events.subList(from, Math.min(from + batchSize, events.size()));
+            int size = chunk.size();
+            Timestamp[] occurredAt = new Timestamp[size];
+            UUID[] requestIds = new UUID[size];
+            String[] userKeys = new String[size];
+            String[] deviceTypes = new String[size];
+            String[] appVersions = new String[size];
+            String[] osVersions = new String[size];
+            String[] regions = new String[size];
+            Boolean[] newRegistrations = new Boolean[size];
+            for (int i = 0; i < size; i++) {
+                LoginEvent event = chunk.get(i);
+                occurredAt[i] = Timestamp.valueOf(event.occurredAt());
+                requestIds[i] = event.requestId();
+                userKeys[i] = event.userKey();
+                deviceTypes[i] = event.deviceType();
+                appVersions[i] = event.dimensions().appVersion();
+                osVersions[i] = event.dimensions().osVersion();
+                regions[i] = event.dimensions().region();
+                newRegistrations[i] = event.newRegistration();
+            }
+            // Only the inserted rows: attempts already logged (here or by another replica) return nothing
+            List<RollupKey> appended = jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(INSERT_SQL);
+                statement.setArray(1, connection.createArrayOf("timestamp", occurredAt));
+                statement.setArray(2, connection.createArrayOf("uuid", requestIds));
+                statement.setArray(3, connection.createArrayOf("varchar", userKeys));
+                statement.setArray(4, connection.createArrayOf("varchar", deviceTypes));
+                statement.setArray(5, connection.createArrayOf("varchar", appVersions));
+                statement.setArray(6, connection.createArrayOf("varchar", osVersions));
+                statement.setArray(7, connection.createArrayOf("varchar", regions));
+                statement.setArray(8, connection.createArrayOf("boolean", newRegistrations));
+                return statement;
+            }, (resultSet, rowNum) -> new RollupKey(
+                resultSet.getTimestamp(1).toLocalDateTime().truncatedTo(ChronoUnit.HOURS), resultSet.getString(2)));
+            appended.forEach(key -> rollup.merge(key, 1L, Long::sum));
+            rows += appended.size();
+        }
+
+        // Key order keeps row locks consistent between replicas flushing the same cells
+        List<Map.Entry<RollupKey, Long>> cells = new ArrayList<>(rollup.entrySet());
+        for (int from = 0; from < cells.size(); from += batchSize) {
+            List<Map.Entry<RollupKey, Long>> chunk = cells.subList(from, Math.min(from + batchSize, cells.size()));
+            Timestamp[] bucketStarts = new Timestamp[chunk.size()];
+            String[] deviceTypes = new String[chunk.size()];
+            Long[] logins = new Long[chunk.size()];
+            for (int i = 0; i < chunk.size(); i++) {
+                bucketStarts[i] = Timestamp.valueOf(chunk.get(i).getKey().bucketStart());
+                deviceTypes[i] = chunk.get(i).getKey().deviceType();
+                logins[i] = chunk.get(i).getValue();
+            }
+            jdbcTemplate.update(connection -> {
+                PreparedStatement statement = connection.prepareStatement(ROLLUP_SQL);
+                statement.setArray(1, connection.createArrayOf("timestamp", bucketStarts));
+                statement.setArray(2, connection.createArrayOf("varchar", deviceTypes));
+                statement.setArray(3, connection.createArrayOf("bigint", logins));
+                return statement;
+            });
+        }
+        written.increment(rows);
+        duplicates.increment(events.size() - rows);
+        return rows;
+    }
+
+    private record LoginEvent(int shardId, UUID requestId, String userKey, String deviceType,
+                              RegistrationDimensions dimensions, boolean newRegistration, LocalDateTime occurredAt) {}
+
+    private record RollupKey(LocalDateTime bucketStart, String deviceType) {
+
+        static final Comparator<RollupKey> ORDER = Comparator.comparing(RollupKey::bucketStart)
+            .thenComparing(RollupKey::deviceType);
+    }
+}
@@ -0,0 +1,174 @@
+package com.safra.bank.device.service;
+
+import com.safra.bank.device.sharding.ShardRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Maintains the daily partitions of the login_events log on every shard
+ * login_events is range-partitioned on occurred_at and is not a JPA entity, so schema
+ * generation cannot create it; the partitioned parent, its BRIN index and the unique request
+ * index are created here when missing (same DDL as database/sql/schema.sql)
+ *
+ * DevSecOps Features:
+ * - Partition names are generated from dates only and matched against a fixed pattern before dropping
+ * - DDL runs under a transaction-scoped advisory lock, so replicas do not race on the same partition
+ * - Login events older than device.login-events.retention-days (0 keeps them) are removed by
+ *   dropping whole partitions
+ *
+ * Performance Notes:
+ * - Partitions are created days ahead, so inserts never wait on DDL
+ * - Dropping a day is a catalog operation: no DELETE, no dead tuples, no vacuum
+ */
+@Service
+public class LoginEventPartitions {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoginEventPartitions.class);
+
+    private static final String PARTITION_PREFIX = "login_events_p";
+
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private static final Pattern PARTITION_NAME = Pattern.compile("^" + PARTITION_PREFIX + "(\\d{8})$");
+
+    private static final String LOCK_SQL = "SELECT pg_advisory_xact_lock(hashtext('login_events_partitions'))";
+
+    private static final String CREATE_TABLE_SQL =
+        "CREATE TABLE IF NOT EXISTS login_events (" +
+        "occurred_at TIMESTAMP NOT NULL, request_id UUID, user_key VARCHAR(255) NOT NULL, device_type VARCHAR(50) NOT NULL, " +
+        "app_version VARCHAR(32), os_version VARCHAR(32), region VARCHAR(32), new_registration BOOLEAN NOT NULL" +
+        ") PARTITION BY RANGE (occurred_at)";
+
+    private static final String CREATE_INDEX_SQL =
+        "CREATE INDEX IF NOT EXISTS idx_login_events_occurred_at ON login_events USING BRIN (occurred_at)";
+
+    // Includes the partition key, as every unique index on a partitioned table must
+    private static final String CREATE_REQUEST_INDEX_SQL =
+        "CREATE UNIQUE INDEX IF NOT EXISTS uk_login_events_request ON login_events (request_id, occurred_at)";
+
+    private static final String LIST_PARTITIONS_SQL =
+        "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+        "JOIN pg_class p ON p.oid = i.inhparent WHERE p.relname = 'login_events'";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${device.login-events.enabled:true}")
+    private boolean enabled;
+
+    @Value("${device.login-events.partitions.manage:true}")
+    private boolean manage;
+
+    @Value("${device.login-events.partitions.days-ahead:3}")
+    private int daysAhead;
+
+    @Value("${device.login-events.retention-days:90}")
+    private int retentionDays;
+
+    private Counter created;
+
+    private Counter dropped;
+
+    @PostConstruct
+    void init() {
+        created = Counter.builder("device.login.events.partitions")
+            .description("Daily login_events partitions created")
+            .tag("action", "created")
+            .register(meterRegistry);
+        dropped = Counter.builder("device.login.events.partitions")
+            .description("Daily login_events partitions dropped after the retention period")
+            .tag("action", "dropped")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Create the log and the partitions of the coming days before traffic is accepted
+     * Ordered first so the rollup rebuild finds the log
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onReady() {
+        maintain();
+    }
+
+    /**
+     * Create missing partitions up to days-ahead and drop partitions past the retention period
+     * on every shard; a failure is logged and retried on the next run
+     */
+    @Scheduled(fixedDelayString = "${device.login-events.partitions.check-interval-ms:3600000}",
+               initialDelayString = "${device.login-events.partitions.check-interval-ms:3600000}")
+    public void maintain() {
+        if (!enabled || !manage) {
+            return;
+        }
+        try {
+            shardRouter.callOnEachShard(() -> transactionTemplate.execute(status -> maintainShard(LocalDate.now())));
+        } catch (RuntimeException e) {
+            logger.warn("Could not maintain login_events partitions: {}", e.getMessage());
+        }
+    }
+
+    private int maintainShard(LocalDate today) {
+        jdbcTemplate.execute(LOCK_SQL);
+        jdbcTemplate.execute(CREATE_TABLE_SQL);
+        jdbcTemplate.execute(CREATE_INDEX_SQL);
+        jdbcTemplate.execute(CREATE_REQUEST_INDEX_SQL);
+
+        List<String> existing = jdbcTemplate.queryForList(LIST_PARTITIONS_SQL, String.class);
+        int changes = 0;
+        // Yesterday too, for events buffered across midnight
+        for (LocalDate day = today.minusDays(1); !day.isAfter(today.plusDays(daysAhead)); day = day.plusDays(1)) {
+            String name = PARTITION_PREFIX + day.format(PARTITION_SUFFIX);
+            if (!existing.contains(name)) {
+                jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + name + " PARTITION OF login_events " +
+                    "FOR VALUES FROM ('" + day + "') TO ('" + day.plusDays(1) + "')");
+                created.increment();
+                changes++;
+                logger.info("Created login_events partition {}", name);
+            }
+        }
+
+        if (retentionDays <= 0) {
+            return changes;
+        }
+        LocalDate oldestKept = today.minusDays(retentionDays);
+        for (String name : existing) {
+            Matcher matcher = PARTITION_NAME.matcher(name);
+            if (matcher.matches() && LocalDate.parse(matcher.group(1), PARTITION_SUFFIX).isBefore(oldestKept)) {
+                jdbcTemplate.execute("DROP TABLE IF EXISTS " + name);
+                dropped.increment();
+                changes++;
+                logger.info("Dropped login_events partition {} (older than {} days)", name, retentionDays);
+            }
+        }
+        return changes;
+    }
+}
@@ -0,0 +1,362 @@
+package com.safra.bank.device.service;
+
+import com.safra.bank.device.backfill.BackfillCheckpoint;
+import com.safra.bank.device.backfill.BackfillResult;
+import com.safra.bank.device.backfill.BackfillRow;
+import com.safra.bank.device.backfill.RegistrationRowReader;
+import com.safra.bank.device.backfill.RegistrationRowReader.RejectedRowException;
+import com.safra.bank.device.export.ExportFormat;
+import com.safra.bank.device.sharding.ShardRouter;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Bulk backfill of device registrations from CSV/NDJSON files
+ * Streams rows through PostgreSQL COPY into a temporary staging table and merges each
+ * chunk into device_registrations with one set-based upsert
+ *
+ * Performance Notes:
+ * - No per-row statements or round trips; rows are streamed in COPY text format
+ * - Duplicates within a chunk are collapsed by GROUP BY before the upsert, which keeps
+ *   the earliest createdAt and latest updatedAt, exactly like repeated registrations
+ * - Heap use is bounded by the COPY buffer, independent of file and chunk size
+ * - Rows the file would not change are skipped, so re-loading a file rewrites nothing
+ * - The updated_at trigger is told to keep the merged value instead of the load time
+ * - With sharded storage every row is streamed to the shard owning its userKey
+ * - The registration cube is rebuilt once after the whole file has been loaded; the device
+ *   bitmap index of statistics-api applies the new rows itself once their chunk commits
+ *
+ * Safety Notes:
+ * - Rows are validated like POST /Device/register; invalid rows are counted and skipped
+ * - Each chunk commits on every shard before the checkpoint advances; re-loading a chunk
+ *   after a crash is harmless because the merge is idempotent
+ */
+@Service
+public class RegistrationBackfillService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RegistrationBackfillService.class);
+
+    private static final int INPUT_BUFFER_SIZE = 1024 * 1024;
+
+    private static final int COPY_BUFFER_SIZE = 256 * 1024;
+
+    private static final int MAX_USER_KEY_LENGTH = 255;
+
+    private static final int MAX_LOGGED_REJECTIONS = 20;
+
+    private static final int UNSHARDED = -1;
+
+    private static final String STAGING_DDL =
+        "CREATE TEMPORARY TABLE IF NOT EXISTS backfill_staging (" +
+        "user_key VARCHAR(255) NOT NULL, device_type VARCHAR(50) NOT NULL, " +
+        "created_at TIMESTAMP, updated_at TIMESTAMP) ON COMMIT DELETE ROWS";
+
+    private static final String COPY_SQL =
+        "COPY backfill_staging (user_key, device_type, created_at, updated_at) FROM STDIN";
+
+    private static final String MERGE_SQL =
+        "INSERT INTO device_registrations (user_key, device_type, created_at, updated_at) " +
+        "SELECT user_key, device_type, " +
+        "COALESCE(MIN(created_at), LOCALTIMESTAMP), " +
+        "COALESCE(MAX(COALESCE(updated_at, created_at)), LOCALTIMESTAMP) " +
+        "FROM backfill_staging GROUP BY user_key, device_type " +
+        "ON CONFLICT (user_key, device_type) DO UPDATE SET " +
+        "created_at = LEAST(device_registrations.created_at, EXCLUDED.created_at), " +
+        "updated_at = GREATEST(device_registrations.updated_at, EXCLUDED.updated_at) " +
+        "WHERE EXCLUDED.created_at < device_registrations.created_at " +
+        "OR EXCLUDED.updated_at > device_registrations.updated_at";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private RegistrationCubeBuffer registrationCubeBuffer;
+
+    @Value("${device.backfill.chunk-size:500000}")
+    private int chunkSize;
+
+    // Memory for the per-chunk GROUP BY on the server
+    @Value("${device.backfill.work-mem:256MB}")
+    private String workMem;
+
+    /**
+     * Load a backfill file, resuming from its checkpoint if one exists
+     * The checkpoint is removed once the whole file has been loaded
+     *
+     * @param input CSV (with header) or NDJSON file
+     * @param format input format
+     * @param gzip whether the file is gzip-compressed
+     * @param checkpointFile restart point of this input
+     * @return records, loaded and rejected rows of this run, with throughput
+     */
+    public BackfillResult backfill(Path input, ExportFormat format, boolean gzip, Path checkpointFile)
+            throws IOException, SQLException {
+        BackfillCheckpoint checkpoint = BackfillCheckpoint.loadOrStart(checkpointFile, input);
+        long resumedAt = checkpoint.getRecords();
+        logger.info("Starting registration backfill: input={}, format={}, gzip={}, chunkSize={}, resumeAt={}",
+                   input, format, gzip, chunkSize, resumedAt);
+
+        long startNanos = System.nanoTime();
+        long records = 0;
+        long loaded = 0;
+        long rejected = 0;
+
+        Map<Integer, ShardLoad> loads = new LinkedHashMap<>();
+        try (InputStream in = openInput(input, gzip);
+             RegistrationRowReader reader = RegistrationRowReader.create(format, in)) {
+
+            if (reader.skip(resumedAt) < resumedAt) {
+                throw new IllegalStateException("Input has fewer records than its checkpoint (" + resumedAt + ")");
+            }
+
+            boolean endOfInput = false;
+            while (!endOfInput) {
+                long chunkRecords = 0;
+                long chunkRejected = 0;
+                while (chunkRecords < chunkSize) {
+                    BackfillRow row;
+                    try {
+                        row = reader.next();
+                        if (row == null) {
+                            endOfInput = true;
+                            break;
+                        }
+                        validate(row);
+                    } catch (RejectedRowException e) {
+                        chunkRecords++;
+                        chunkRejected++;
+                        if (rejected + chunkRejected <= MAX_LOGGED_REJECTIONS) {
+                            logger.warn("Rejected backfill record {}: {}", resumedAt + records + chunkRecords, e.getMessage());
+                        }
+                        continue;
+                    }
+                    chunkRecords++;
+                    int target = shardRouter.isEnabled() ? shardRouter.shardFor(row.userKey()) : UNSHARDED;
+                    ShardLoad load = loads.get(target);
+                    if (load == null) {
+                        load = new ShardLoad(openConnection(target));
+                        loads.put(target, load);
+                    }
+                    load.write(row);
+                }
+                if (chunkRecords == 0) {
+                    break;
+                }
+
+                long chunkLoaded = 0;
+                for (ShardLoad load : loads.values()) {
+                    chunkLoaded += load.commitChunk();
+                }
+                checkpoint = checkpoint.advance(chunkRecords, chunkLoaded, chunkRejected);
+                checkpoint.save(checkpointFile);
+
+                records += chunkRecords;
+                loaded += chunkLoaded;
+                rejected += chunkRejected;
+                long elapsedMillis = Math.max(1, (System.nanoTime() - startNanos) / 1_000_000);
+                logger.info("Backfill progress: {} records ({} loaded, {} rejected), {} rows/sec",
+                           resumedAt + records, checkpoint.getLoaded(), checkpoint.getRejected(),
+                           records * 1000 / elapsedMillis);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            for (ShardLoad load : loads.values()) {
+                load.close();
+            }
+        }
+
+        Files.deleteIfExists(checkpointFile);
+        if (loaded > 0) {
+            // Merged rows bypass the registration path, so the cube is recomputed once.
+            // The bitmap index needs nothing: inserted rows get new ids, which it reads once
+            // committed, and updates only move timestamps it does not index
+            registrationCubeBuffer.rebuild();
+        }
+        BackfillResult result = new BackfillResult(
+            records, loaded, rejected, resumedAt, (System.nanoTime() - startNanos) / 1_000_000);
+        logger.info("Registration backfill completed: {}", result);
+        return result;
+    }
+
+    private InputStream openInput(Path input, boolean gzip) throws IOException {
+        InputStream in = Files.newInputStream(input);
+        return gzip ? new GZIPInputStream(in, INPUT_BUFFER_SIZE) : new BufferedInputStream(in, INPUT_BUFFER_SIZE);
+    }
+
+    private Connection openConnection(int target) {
+        if (target == UNSHARDED) {
+            try {
+                return dataSource.getConnection();
+            } catch (SQLException e) {
+                throw new IllegalStateException("Cannot connect to the registration database", e);
+            }
+        }
+        // The routing DataSource picks the shard when the connection is acquired
+        return shardRouter.callOnShard(target, () -> {
+            try {
+                return dataSource.getConnection();
+            } catch (SQLException e) {
+                throw new IllegalStateException("Cannot connect to shard " + target, e);
+            }
+        });
+    }
+
+    /**
+     * Same rules as POST /Device/register
+     */
+    private void validate(BackfillRow row) {
+        if (row.userKey() == null || row.userKey().trim().isEmpty()) {
+            throw new RejectedRowException("missing userKey");
+        }
+        if (row.userKey().length() > MAX_USER_KEY_LENGTH) {
+            throw new RejectedRowException("userKey longer than " + MAX_USER_KEY_LENGTH + " characters");
+        }
+        if (!isValidDeviceType(row.deviceType())) {
+            throw new RejectedRowException("invalid deviceType");
+        }
+    }
+
+    private boolean isValidDeviceType(String deviceType) {
+        return deviceType != null && 
+               (deviceType.equals("iOS") || 
+                deviceType.equals("Android") || 
+                deviceType.equals("Watch") || 
+                deviceType.equals("TV"));
+    }
+
+    /**
+     * Open COPY stream into the staging table of one database (or shard)
+     * The connection stays open across chunks; each chunk is one transaction
+     */
+    private final class ShardLoad {
+
+        private final Connection connection;
+
+        private PGCopyOutputStream copy;
+
+        private Writer writer;
+
+        ShardLoad(Connection connection) {
+            this.connection = connection;
+        }
+
+        void write(BackfillRow row) {
+            try {
+                if (writer == null) {
+                    begin();
+                }
+                writeText(row.userKey());
+                writer.write('\t');
+                writer.write(row.deviceType());
+                writer.write('\t');
+                writeTimestamp(row.createdAt());
+                writer.write('\t');
+                writeTimestamp(row.updatedAt());
+                writer.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (SQLException e) {
+                throw new IllegalStateException("Failed to start COPY: " + e.getMessage(), e);
+            }
+        }
+
+        /**
+         * Finish the chunk's COPY, merge the staging rows and commit
+         *
+         * @return rows inserted or changed; 0 if this database received no rows in the chunk
+         */
+        long commitChunk() throws IOException, SQLException {
+            if (writer == null) {
+                return 0;
+            }
+            writer.flush();
+            copy.endCopy();
+            writer = null;
+            copy = null;
+            try (Statement statement = connection.createStatement()) {
+                long merged = statement.executeLargeUpdate(MERGE_SQL);
+                connection.commit();
+                return merged;
+            }
+        }
+
+        private void begin() throws SQLException {
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(STAGING_DDL);
+                statement.execute("SET LOCAL work_mem = '" + workMem.replace("'", "") + "'");
+                // The merge decides updated_at; the trigger would otherwise stamp the load time
+                statement.execute("SET LOCAL safra.keep_updated_at = on");
+            }
+            copy = new PGCopyOutputStream(connection.unwrap(PGConnection.class), COPY_SQL, COPY_BUFFER_SIZE);
+            writer = new BufferedWriter(new OutputStreamWriter(copy, StandardCharsets.UTF_8), COPY_BUFFER_SIZE);
+        }
+
+        /**
+         * COPY text format: backslash, tab, newline and carriage return are escaped
+         */
+        private void writeText(String value) throws IOException {
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '\\' -> writer.write("\\\\");
+                    case '\t' -> writer.write("\\t");
+                    case '\n' -> writer.write("\\n");
+                    case '\r' -> writer.write("\\r");
+                    default -> writer.write(c);
+                }
+            }
+        }
+
+        private void writeTimestamp(LocalDateTime value) throws IOException {
+            writer.write(value != null ? value.toString() : "\\N");
+        }
+
+        void close() {
+            try {
+                if (copy != null && copy.isActive()) {
+                    copy.cancelCopy();
+                }
+                if (!connection.getAutoCommit()) {
+                    connection.rollback();
+                }
+            } catch (SQLException e) {
+                logger.debug("Error aborting backfill chunk: {}", e.getMessage());
+            } finally {
+                try {
+                    connection.close();
+                } catch (SQLException e) {
+                    logger.debug("Error closing backfill connection: {}", e.getMessage());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package com.safra.bank.device.service;
+
+import com.safra.bank.device.event.DeviceRegisteredEvent;
+import com.safra.bank.device.event.RegistrationDimensions;
+import com.safra.bank.device.sharding.ShardRouter;
+import com.safra.bank.shared.entity.RegistrationCubeCell;
+import com.safra.bank.shared.entity.RegistrationCubeDelta;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Maintains the pre-aggregated registration cube (registration_cube, see {@link RegistrationCubeCell})
+ * Committed registrations add +1 to their (deviceType, appVersion, osVersion, region) cell; a
+ * dimension change on an existing registration moves it from the old cell to the new one.
+ * Deltas are journaled in registration_cube_deltas (see {@link RegistrationCubeDelta}) inside the
+ * registration transaction and applied to the cube periodically as batched upserts
+ *
+ * DevSecOps Features:
+ * - A delta commits or rolls back with its registration, so a crash, a failed flush or a
+ *   backlog never loses counts or leaves the cube drifting from device_registrations
+ * - Unapplied deltas wait in the journal; a flush that fails is retried on the next interval
+ * - The cube holds counts only; user keys are used to pick the shard and never stored
+ *
+ * Performance Notes:
+ * - The registration path appends one journal row per delta (new registrations and dimension
+ *   changes only; returning users write nothing) and never touches a cube row
+ * - One write per cell and flush however many registrations hit the cell, so popular cells
+ *   (latest app version in a large region) do not become row-lock hot spots
+ * - A flush consumes the journal and upserts the summed cells in one statement; one replica
+ *   flushes a shard at a time, the others skip it
+ * - With sharded storage each shard holds the cube of its own rows; readers sum the shards
+ * - Rebuilt from device_registrations after bulk loads and rebalancing, which bypass the
+ *   registration path, and at startup when the cube is empty but registrations exist
+ */
+@Service
+public class RegistrationCubeBuffer {
+
+    private static final Logger logger = LoggerFactory.getLogger(RegistrationCubeBuffer.class);
+
+    private static final String JOURNAL_SQL =
+        "INSERT INTO registration_cube_deltas (device_type, app_version, os_version, region, delta) VALUES (?, ?, ?, ?, ?)";
+
+    // Consumes up to batch-size journal rows; returns the rows consumed and the cells written
+    private static final String APPLY_SQL =
+        "WITH applied AS (DELETE FROM registration_cube_deltas WHERE id IN " +
+        "(SELECT id FROM registration_cube_deltas ORDER BY id LIMIT ?) " +
+        "RETURNING device_type, app_version, os_version, region, delta), " +
+        "upserted AS (INSERT INTO registration_cube (device_type, app_version, os_version, region, registrations, updated_at) " +
+        "SELECT device_type, app_version, os_version, region, SUM(delta), LOCALTIMESTAMP FROM applied " +
+        "GROUP BY device_type, app_version, os_version, region HAVING SUM(delta) <> 0 " +
+        "ORDER BY device_type, app_version, os_version, region " +
+        "ON CONFLICT (device_type, app_version, os_version, region) DO UPDATE SET " +
+        "registrations = registration_cube.registrations + EXCLUDED.registrations, updated_at = EXCLUDED.updated_at " +
+        "RETURNING 1) " +
+        "SELECT (SELECT COUNT(*) FROM applied), (SELECT COUNT(*) FROM upserted)";
+
+    // Taken before the journal is read, so a flush never interleaves with a rebuild
+    private static final String FLUSH_LOCK_SQL = "LOCK TABLE registration_cube IN ROW EXCLUSIVE MODE";
+
+    // One flushing replica per shard; the others skip the shard for this interval
+    private static final String TRY_FLUSH_SQL =
+        "SELECT pg_try_advisory_xact_lock(hashtext('registration_cube_deltas'))";
+
+    // Blocks flushes (also from other replicas) until the rebuilt cube commits; reads continue
+    private static final String LOCK_SQL = "LOCK TABLE registration_cube IN EXCLUSIVE MODE";
+
+    private static final String REBUILD_SQL =
+        "INSERT INTO registration_cube (device_type, app_version, os_version, region, registrations, updated_at) " +
+        "SELECT device_type, COALESCE(app_version, ''), COALESCE(os_version, ''), COALESCE(region, ''), " +
+        "COUNT(*), LOCALTIMESTAMP FROM device_registrations GROUP BY 1, 2, 3, 4";
+
+    private static final String NEEDS_REBUILD_SQL =
+        "SELECT NOT EXISTS (SELECT 1 FROM registration_cube) AND EXISTS (SELECT 1 FROM device_registrations)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${device.cube.enabled:true}")
+    private boolean enabled;
+
+    @Value("${device.cube.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${device.cube.rebuild-if-empty:true}")
+    private boolean rebuildIfEmpty;
+
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    // Journal rows and the registrations they count are read from one snapshot
+    private TransactionTemplate repeatableReadTransaction;
+
+    private Counter recorded;
+
+    private Counter applied;
+
+    private Counter written;
+
+    private Timer flushTimer;
+
+    @PostConstruct
+    void init() {
+        repeatableReadTransaction = new TransactionTemplate(transactionManager);
+        repeatableReadTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        recorded = Counter.builder("device.cube.deltas.recorded")
+            .description("Registration cube increments and decrements journaled")
+            .register(meterRegistry);
+        applied = Counter.builder("device.cube.deltas.applied")
+            .description("Journaled registration cube deltas applied to the cube by a flush")
+            .register(meterRegistry);
+        written = Counter.builder("device.cube.cells.written")
+            .description("Registration cube cells upserted by a flush")
+            .register(meterRegistry);
+        flushTimer = Timer.builder("device.cube.flush")
+            .description("Time spent applying journaled registration cube deltas")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Journal the cube deltas of a registration; runs inside the registration transaction, so a
+     * failure here fails the registration
+     */
+    @EventListener
+    public void onDeviceRegistered(DeviceRegisteredEvent event) {
+        if (!enabled) {
+            return;
+        }
+        List<Object[]> deltas = new ArrayList<>(2);
+        if (event.isNewRegistration()) {
+            deltas.add(delta(event.getDeviceType(), event.getDimensions(), 1));
+        } else if (event.getPreviousDimensions() != null) {
+            deltas.add(delta(event.getDeviceType(), event.getPreviousDimensions(), -1));
+            deltas.add(delta(event.getDeviceType(), event.getDimensions(), 1));
+        }
+        if (!deltas.isEmpty()) {
+            jdbcTemplate.batchUpdate(JOURNAL_SQL, deltas);
+            recorded.increment(deltas.size());
+        }
+    }
+
+    private static Object[] delta(String deviceType, RegistrationDimensions dimensions, int delta) {
+        return new Object[]{
+            deviceType,
+            Objects.requireNonNullElse(dimensions.appVersion(), RegistrationCubeCell.UNKNOWN),
+            Objects.requireNonNullElse(dimensions.osVersion(), RegistrationCubeCell.UNKNOWN),
+            Objects.requireNonNullElse(dimensions.region(), RegistrationCubeCell.UNKNOWN),
+            delta};
+    }
+
+    /**
+     * Apply the journal of every shard to its cube; runs once per flush interval and on shutdown
+     */
+    @Scheduled(fixedDelayString = "${device.cube.flush-interval-ms:1000}")
+    public void flush() {
+        if (!enabled) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            shardRouter.callOnEachShard(() -> {
+                try {
+                    flushTimer.record(this::applyShard);
+                } catch (RuntimeException e) {
+                    logger.warn("Failed to apply registration cube deltas; retrying next interval: {}", e.getMessage());
+                }
+                return null;
+            });
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Recompute the cube of every shard from device_registrations
+     * Journaled deltas of the registrations the rebuild counts are discarded with the old cube;
+     * registrations committing meanwhile keep their deltas for the next flush, so nothing is
+     * counted twice. Needed after the registration rows changed in bulk (backfill, rebalance)
+     *
+     * @return cells written over all shards
+     */
+    public long rebuild() {
+        long startNanos = System.nanoTime();
+        long cells = 0;
+        for (Integer count : shardRouter.callOnEachShard(this::rebuildShard)) {
+            cells += count;
+        }
+        logger.info("Rebuilt registration cube: {} cells in {} ms", cells, (System.nanoTime() - startNanos) / 1_000_000);
+        return cells;
+    }
+
+    /**
+     * Build the cube of shards that have registrations but no cube yet (new deployment or
+     * schema created by JPA); a failure is logged and the cube is rebuilt on the next start
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfEmpty() {
+        if (!enabled || !rebuildIfEmpty) {
+            return;
+        }
+        try {
+            List<Boolean> empty = shardRouter.callOnEachShard(
+                () -> jdbcTemplate.queryForObject(NEEDS_REBUILD_SQL, Boolean.class));
+            if (empty.contains(Boolean.TRUE)) {
+                logger.info("Registration cube is empty; building it from device_registrations");
+                rebuild();
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Could not build the registration cube at startup: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        // Journaled deltas survive anyway; this only shortens the lag after a deploy
+        flush();
+    }
+
+    /**
+     * The table lock is the transaction's first statement, so its snapshot is taken after every
+     * flush has finished and sees exactly the journal rows of the registrations it counts
+     */
+    private int rebuildShard() {
+        return repeatableReadTransaction.execute(status -> {
+            jdbcTemplate.execute(LOCK_SQL);
+            jdbcTemplate.update("DELETE FROM registration_cube_deltas");
+            jdbcTemplate.update("DELETE FROM registration_cube");
+            return jdbcTemplate.update(REBUILD_SQL);
+        });
+    }
+
+    /**
+     * Apply the journal of the current shard in batches, each in its own transaction
+     */
+    private void applyShard() {
+        long rows;
+        do {
+            rows = transactionTemplate.execute(status -> {
+                jdbcTemplate.execute(FLUSH_LOCK_SQL);
+                if (!Boolean.TRUE.equals(jdbcTemplate.queryForObject(TRY_FLUSH_SQL, Boolean.class))) {
+                    // Another replica is flushing this shard
+                    return 0L;
+                }
+                long[] counts = jdbcTemplate.queryForObject(APPLY_SQL,
+                    (resultSet, rowNum) -> new long[]{resultSet.getLong(1), resultSet.getLong(2)}, batchSize);
+                applied.increment(counts[0]);
+                written.increment(counts[1]);
+                return counts[0];
+            });
+        } while (rows == batchSize);
+    }
+}
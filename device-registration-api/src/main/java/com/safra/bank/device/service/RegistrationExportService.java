@@ -0,0 +1,164 @@
+package com.safra.bank.device.service;
+
+import com.safra.bank.device.export.ExportFilter;
+import com.safra.bank.device.export.ExportFormat;
+import com.safra.bank.device.export.ExportResult;
+import com.safra.bank.device.export.RegistrationRowWriter;
+import com.safra.bank.device.sharding.ShardRouter;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Service for bulk export of device registrations
+ * Streams rows from a server-side cursor directly into the output stream
+ *
+ * Performance Notes:
+ * - Runs in a read-only transaction so the PostgreSQL driver uses a cursor
+ *   (autocommit off + forward-only statement + fetch size) instead of
+ *   buffering the whole result set in memory
+ * - With sharded storage, shards are streamed one after another, each in its own transaction
+ * - Reads plain JDBC columns; no entities enter the persistence context
+ * - Heap use is bounded by the fetch size, independent of the number of rows
+ */
+@Service
+public class RegistrationExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RegistrationExportService.class);
+
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Value("${device.export.fetch-size:5000}")
+    private int fetchSize;
+
+    @Value("${device.export.progress-interval:1000000}")
+    private long progressInterval;
+
+    private TransactionTemplate readOnlyTransaction;
+
+    @PostConstruct
+    void init() {
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Export registrations matching the filter to the given stream
+     * The gzip trailer is written and the stream flushed, but the stream itself is not closed
+     *
+     * @param filter row filter
+     * @param format output format
+     * @param gzip whether to gzip-compress the output
+     * @param out destination stream
+     * @return number of rows exported and elapsed time
+     */
+    public ExportResult export(ExportFilter filter, ExportFormat format, boolean gzip, OutputStream out)
+            throws IOException {
+        logger.info("Starting registration export: format={}, gzip={}, filter={}", format, gzip, filter);
+
+        List<Object> params = new ArrayList<>();
+        String sql = buildQuery(filter, params);
+
+        long startNanos = System.nanoTime();
+        long[] rows = {0};
+        // Closing the writer and gzip stream (also on failure) writes the gzip trailer and releases
+        // the native Deflater; the non-closing wrapper keeps the servlet stream open for the container
+        OutputStream target = StreamUtils.nonClosing(out);
+        try (OutputStream body = gzip ? new GZIPOutputStream(target, GZIP_BUFFER_SIZE) : target;
+             RegistrationRowWriter writer = RegistrationRowWriter.create(format, body)) {
+            // The shard is selected before each read-only transaction binds its connection
+            shardRouter.callOnEachShard(() -> readOnlyTransaction.execute(status -> {
+                jdbcTemplate.query(connection -> {
+                    PreparedStatement statement = connection.prepareStatement(
+                        sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                    statement.setFetchSize(fetchSize);
+                    for (int i = 0; i < params.size(); i++) {
+                        statement.setObject(i + 1, params.get(i));
+                    }
+                    return statement;
+                }, resultSet -> {
+                    try {
+                        writer.writeRow(
+                            resultSet.getLong(1),
+                            resultSet.getString(2),
+                            resultSet.getString(3),
+                            resultSet.getObject(4, LocalDateTime.class),
+                            resultSet.getObject(5, LocalDateTime.class),
+                            resultSet.getString(6),
+                            resultSet.getString(7),
+                            resultSet.getString(8));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    if (++rows[0] % progressInterval == 0) {
+                        logger.info("Export progress: {} rows", rows[0]);
+                    }
+                });
+                return null;
+            }));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        out.flush();
+
+        ExportResult result = new ExportResult(rows[0], (System.nanoTime() - startNanos) / 1_000_000);
+        logger.info("Registration export completed: {} rows in {} ms ({} rows/sec)",
+                   result.getRows(), result.getElapsedMillis(), result.getRowsPerSecond());
+        return result;
+    }
+
+    /**
+     * Build the export query with parameter placeholders for each configured bound
+     */
+    private String buildQuery(ExportFilter filter, List<Object> params) {
+        StringBuilder sql = new StringBuilder(
+            "SELECT id, user_key, device_type, created_at, updated_at, app_version, os_version, region " +
+            "FROM device_registrations WHERE 1=1");
+        if (filter.getDeviceType() != null) {
+            sql.append(" AND device_type = ?");
+            params.add(filter.getDeviceType());
+        }
+        appendRange(sql, params, "created_at", filter.getCreatedFrom(), filter.getCreatedTo());
+        appendRange(sql, params, "updated_at", filter.getUpdatedFrom(), filter.getUpdatedTo());
+        return sql.toString();
+    }
+
+    private void appendRange(StringBuilder sql, List<Object> params, String column,
+                             LocalDateTime from, LocalDateTime to) {
+        if (from != null) {
+            sql.append(" AND ").append(column).append(" >= ?");
+            params.add(Timestamp.valueOf(from));
+        }
+        if (to != null) {
+            sql.append(" AND ").append(column).append(" < ?");
+            params.add(Timestamp.valueOf(to));
+        }
+    }
+}
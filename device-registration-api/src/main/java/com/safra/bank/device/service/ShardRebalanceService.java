@@ -0,0 +1,193 @@
+package com.safra.bank.device.service;
+
+import com.safra.bank.device.sharding.RebalanceResult;
+import com.safra.bank.device.sharding.ShardRouter;
+import com.safra.bank.shared.entity.DeviceRegistration;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves registrations to the shard that owns them under the current shard configuration
+ * Run after adding shards: only the key ranges claimed by the new shards' ring positions move
+ *
+ * Safety Notes:
+ * - Rows are copied to the target (upsert on the natural key, keeping the id) before they are
+ *   deleted from the source, so an interrupted run never loses registrations
+ * - Every step is idempotent; re-running after a failure resumes the move
+ * - Until a run completes, a moved user may briefly exist on two shards and be counted twice
+ * - A moved row merged into a registration already on the target loses its id; once the delete
+ *   has committed the natural-id cache of this process is evicted. Other processes may still
+ *   resolve (userKey, deviceType) to the deleted id; their first lookup of such a key finds no
+ *   row, evicts the entry and re-reads the registration by its natural key
+ *
+ * Performance Notes:
+ * - Each shard is scanned by id keyset pages; no long-running transaction or cursor is held
+ * - Copies are batched per target shard, deletes are one {@code id = ANY(?)} statement per page
+ * - The registration cube of every shard is rebuilt once at the end when rows moved
+ */
+@Service
+public class ShardRebalanceService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardRebalanceService.class);
+
+    private static final String PAGE_SQL =
+        "SELECT id, user_key, device_type, created_at, updated_at, app_version, os_version, region " +
+        "FROM device_registrations " +
+        "WHERE id > ? ORDER BY id LIMIT ?";
+
+    // A registration made on the target since the shard was added is merged with the moved row;
+    // its (newer) statistics dimensions are kept
+    private static final String COPY_SQL =
+        "INSERT INTO device_registrations (id, user_key, device_type, created_at, updated_at, " +
+        "app_version, os_version, region) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, ?) ON CONFLICT (user_key, device_type) DO UPDATE SET " +
+        "created_at = LEAST(device_registrations.created_at, EXCLUDED.created_at), " +
+        "updated_at = GREATEST(device_registrations.updated_at, EXCLUDED.updated_at), " +
+        "app_version = COALESCE(device_registrations.app_version, EXCLUDED.app_version), " +
+        "os_version = COALESCE(device_registrations.os_version, EXCLUDED.os_version), " +
+        "region = COALESCE(device_registrations.region, EXCLUDED.region)";
+
+    private static final String DELETE_SQL = "DELETE FROM device_registrations WHERE id = ANY(?)";
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private RegistrationCubeBuffer registrationCubeBuffer;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Value("${device.sharding.rebalance.batch-size:5000}")
+    private int batchSize;
+
+    @Value("${device.sharding.rebalance.progress-interval:1000000}")
+    private long progressInterval;
+
+    /**
+     * Scan every shard and move rows whose userKey belongs to another shard
+     *
+     * @param dryRun only count the rows that would move
+     * @return rows scanned and moved, per source/target shard pair
+     */
+    public RebalanceResult rebalance(boolean dryRun) {
+        if (!shardRouter.isEnabled()) {
+            throw new IllegalStateException("Registration storage is not sharded (device.sharding.enabled=false)");
+        }
+        logger.info("Starting shard rebalance across shards {} (dryRun={})", shardRouter.getShardIds(), dryRun);
+
+        long startNanos = System.nanoTime();
+        long scanned = 0;
+        long moved = 0;
+        Map<String, Long> movedByRoute = new HashMap<>();
+
+        for (int source : shardRouter.getShardIds()) {
+            long lastId = 0;
+            while (true) {
+                long afterId = lastId;
+                List<Row> page = shardRouter.callOnShard(source,
+                    () -> jdbcTemplate.query(PAGE_SQL, (resultSet, rowNum) -> new Row(
+                        resultSet.getLong(1),
+                        resultSet.getString(2),
+                        resultSet.getString(3),
+                        resultSet.getObject(4, LocalDateTime.class),
+                        resultSet.getObject(5, LocalDateTime.class),
+                        resultSet.getString(6),
+                        resultSet.getString(7),
+                        resultSet.getString(8)), afterId, batchSize));
+                if (page.isEmpty()) {
+                    break;
+                }
+                lastId = page.get(page.size() - 1).id();
+
+                Map<Integer, List<Row>> movesByTarget = new LinkedHashMap<>();
+                for (Row row : page) {
+                    int target = shardRouter.shardFor(row.userKey());
+                    if (target != source) {
+                        movesByTarget.computeIfAbsent(target, shard -> new ArrayList<>()).add(row);
+                    }
+                }
+
+                if (!movesByTarget.isEmpty() && !dryRun) {
+                    movesByTarget.forEach(this::copy);
+                    delete(source, movesByTarget.values());
+                    // Cheaper than evicting each merged key; the region refills on demand
+                    entityManagerFactory.unwrap(SessionFactory.class).getCache()
+                        .evictNaturalIdData(DeviceRegistration.class);
+                }
+                for (Map.Entry<Integer, List<Row>> entry : movesByTarget.entrySet()) {
+                    movedByRoute.merge(source + "->" + entry.getKey(), (long) entry.getValue().size(), Long::sum);
+                    moved += entry.getValue().size();
+                }
+
+                long before = scanned;
+                scanned += page.size();
+                if (scanned / progressInterval != before / progressInterval) {
+                    logger.info("Rebalance progress: {} rows scanned, {} moved (shard {}, id {})",
+                               scanned, moved, source, lastId);
+                }
+            }
+        }
+
+        if (moved > 0 && !dryRun) {
+            // Per-shard cubes follow the moved rows; merged duplicates also lower the totals
+            registrationCubeBuffer.rebuild();
+        }
+
+        RebalanceResult result = new RebalanceResult(
+            scanned, moved, (System.nanoTime() - startNanos) / 1_000_000, dryRun, movedByRoute);
+        logger.info("Shard rebalance completed: {}", result);
+        return result;
+    }
+
+    private void copy(int target, List<Row> rows) {
+        shardRouter.callOnShard(target, () -> transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(
+            COPY_SQL, rows, rows.size(), (statement, row) -> {
+                statement.setLong(1, row.id());
+                statement.setString(2, row.userKey());
+                statement.setString(3, row.deviceType());
+                statement.setObject(4, row.createdAt());
+                statement.setObject(5, row.updatedAt());
+                statement.setString(6, row.appVersion());
+                statement.setString(7, row.osVersion());
+                statement.setString(8, row.region());
+            })));
+    }
+
+    private void delete(int source, Iterable<List<Row>> moves) {
+        List<Long> ids = new ArrayList<>();
+        moves.forEach(rows -> rows.forEach(row -> ids.add(row.id())));
+        shardRouter.callOnShard(source, () -> jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(DELETE_SQL);
+            Array array = connection.createArrayOf("bigint", ids.toArray());
+            statement.setArray(1, array);
+            return statement;
+        }));
+    }
+
+    private record Row(long id, String userKey, String deviceType,
+                       LocalDateTime createdAt, LocalDateTime updatedAt,
+                       String appVersion, String osVersion, String region) {}
+}
@@ -0,0 +1,241 @@
+package com.safra.bank.device.service;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.safra.bank.device.event.DeviceRegisteredEvent;
+import com.safra.bank.device.event.LastSeenWrittenEvent;
+import com.safra.bank.device.sharding.ShardRouter;
+import com.safra.bank.shared.dto.UserDevice;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Service for per-user device lookups
+ * Answers "which device types has this user registered, and when was each last seen"
+ *
+ * Performance Notes:
+ * - Bounded read-through cache in front of the idx_user_key index
+ * - Cache misses of a batch are resolved with a single {@code user_key = ANY(?)} query
+ *   (one per owning shard when storage is sharded)
+ * - Unknown users are cached as empty results so repeated misses stay off the database
+ * - Entries are invalidated after a new registration or dimension change commits, and after
+ *   {@link LastSeenBuffer} has written a returning user's updated_at (not at login, when the row is
+ *   still unchanged); expire-after-write bounds staleness for registrations handled by other replicas
+ * - Invalidation runs on its own thread: Caffeine blocks it while a load of the same hash bin is in
+ *   flight, and that load may be waiting for the connection the committing registration still holds.
+ *   Its queue is bounded; when it overflows the whole cache is invalidated instead
+ * - Batch loads are not atomic with invalidation, so every invalidation first bumps a per-user
+ *   version (striped); a batch result is only cached if its user's version did not change meanwhile
+ */
+@Service
+public class UserDeviceLookupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserDeviceLookupService.class);
+
+    private static final int VERSION_STRIPES = 4096;
+
+    private static final String LOOKUP_SQL =
+        "SELECT user_key, device_type, updated_at FROM device_registrations " +
+        "WHERE user_key = ANY(?) ORDER BY user_key, device_type";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Value("${device.lookup.cache.max-entries:100000}")
+    private long maxEntries;
+
+    @Value("${device.lookup.cache.expire-after-write:PT10M}")
+    private Duration expireAfterWrite;
+
+    @Value("${device.lookup.cache.invalidation-queue:10000}")
+    private int invalidationQueue;
+
+    private LoadingCache<String, List<UserDevice>> cache;
+
+    // Bumped before every invalidation of a user hashing to the stripe
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+
+    private final AtomicBoolean invalidateAllRequested = new AtomicBoolean();
+
+    private ThreadPoolExecutor invalidationExecutor;
+
+    @PostConstruct
+    void init() {
+        // Single-key loads run inside Caffeine's compute and are therefore atomic with invalidation
+        cache = Caffeine.newBuilder()
+            .maximumSize(maxEntries)
+            .expireAfterWrite(expireAfterWrite)
+            .recordStats()
+            .build(new CacheLoader<>() {
+                @Override
+                public List<UserDevice> load(String userKey) {
+                    return queryDevices(Set.of(userKey)).get(userKey);
+                }
+            });
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "userDeviceLookup");
+
+        invalidationExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(invalidationQueue), runnable -> {
+                Thread thread = new Thread(runnable, "device-lookup-invalidation");
+                thread.setDaemon(true);
+                return thread;
+            }, (runnable, executor) -> {
+                if (executor.isShutdown()) {
+                    throw new RejectedExecutionException("Lookup invalidation stopped");
+                }
+                // The queued invalidations still run and the first one clears the whole cache
+                invalidateAllRequested.set(true);
+            });
+    }
+
+    /**
+     * Look up the devices registered by a single user
+     *
+     * @param userKey the user identifier
+     * @return registered device types with last-seen time; empty if the user is unknown
+     */
+    public List<UserDevice> lookup(String userKey) {
+        return cache.get(userKey);
+    }
+
+    /**
+     * Look up the devices registered by many users
+     * Cached users are served from memory; all misses are loaded in one query
+     *
+     * @param userKeys the user identifiers
+     * @return devices per user key, containing every requested key
+     */
+    public Map<String, List<UserDevice>> lookupAll(Collection<String> userKeys) {
+        Map<String, List<UserDevice>> devices = new HashMap<>(cache.getAllPresent(userKeys));
+        Set<String> misses = new LinkedHashSet<>();
+        for (String userKey : userKeys) {
+            if (!devices.containsKey(userKey)) {
+                misses.add(userKey);
+            }
+        }
+        if (misses.isEmpty()) {
+            return devices;
+        }
+
+        Map<String, Long> loadVersions = new HashMap<>(misses.size() * 2);
+        for (String userKey : misses) {
+            loadVersions.put(userKey, versions.get(stripe(userKey)));
+        }
+        Map<String, List<UserDevice>> loaded = queryDevices(misses);
+        loaded.forEach((userKey, userDevices) -> {
+            devices.put(userKey, userDevices);
+            long loadVersion = loadVersions.get(userKey);
+            // Checked under the entry lock: an invalidation bumps the version before it removes the entry
+            cache.asMap().compute(userKey, (key, cached) ->
+                cached != null || versions.get(stripe(key)) != loadVersion ? cached : userDevices);
+        });
+        return devices;
+    }
+
+    /**
+     * Invalidate the cached devices of a user once its registration has committed
+     * Logins that only move the last-seen time are skipped: the row changes when the buffer is written
+     */
+    @TransactionalEventListener
+    public void onDeviceRegistered(DeviceRegisteredEvent event) {
+        if (!event.isNewRegistration() && event.getPreviousDimensions() == null) {
+            return;
+        }
+        invalidate(Set.of(event.getUserKey()));
+    }
+
+    /**
+     * Invalidate the cached devices of users whose last-seen time has been written
+     * Runs after the registration transaction commits when the buffer is disabled
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLastSeenWritten(LastSeenWrittenEvent event) {
+        invalidate(event.getUserKeys());
+    }
+
+    private void invalidate(Set<String> userKeys) {
+        for (String userKey : userKeys) {
+            versions.incrementAndGet(stripe(userKey));
+        }
+        invalidationExecutor.execute(() -> {
+            if (invalidateAllRequested.getAndSet(false)) {
+                logger.warn("Lookup invalidation queue overflowed, invalidating all cached users");
+                cache.invalidateAll();
+            } else {
+                cache.invalidateAll(userKeys);
+            }
+        });
+    }
+
+    private static int stripe(String userKey) {
+        int hash = userKey.hashCode();
+        return (hash ^ (hash >>> 16)) & (VERSION_STRIPES - 1);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        invalidationExecutor.shutdown();
+    }
+
+    private Map<String, List<UserDevice>> queryDevices(Set<? extends String> userKeys) {
+        logger.debug("Loading devices for {} user keys", userKeys.size());
+
+        Map<String, List<UserDevice>> devices = new HashMap<>(userKeys.size() * 2);
+        for (String userKey : userKeys) {
+            devices.put(userKey, new ArrayList<>(4));
+        }
+
+        shardRouter.callPerShard(userKeys, shardKeys -> {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(LOOKUP_SQL);
+                Array keys = connection.createArrayOf("varchar", shardKeys.toArray());
+                statement.setArray(1, keys);
+                return statement;
+            }, resultSet -> {
+                List<UserDevice> userDevices = devices.get(resultSet.getString(1));
+                if (userDevices != null) {
+                    userDevices.add(new UserDevice(
+                        resultSet.getString(2), resultSet.getObject(3, LocalDateTime.class)));
+                }
+            });
+            return null;
+        });
+
+        devices.replaceAll((userKey, list) -> List.copyOf(list));
+        return devices;
+    }
+}
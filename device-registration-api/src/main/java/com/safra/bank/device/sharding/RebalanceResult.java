@@ -0,0 +1,68 @@
+package com.safra.bank.device.sharding;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Summary of a shard rebalancing run
+ * Used for progress logging and throughput reporting
+ */
+public class RebalanceResult {
+
+    private final long scanned;
+    private final long moved;
+    private final long elapsedMillis;
+    private final boolean dryRun;
+    private final Map<String, Long> movedByRoute;
+
+    /**
+     * @param movedByRoute rows moved per "source->target" shard pair
+     */
+    public RebalanceResult(long scanned, long moved, long elapsedMillis, boolean dryRun,
+                           Map<String, Long> movedByRoute) {
+        this.scanned = scanned;
+        this.moved = moved;
+        this.elapsedMillis = elapsedMillis;
+        this.dryRun = dryRun;
+        this.movedByRoute = new TreeMap<>(movedByRoute);
+    }
+
+    public long getScanned() {
+        return scanned;
+    }
+
+    public long getMoved() {
+        return moved;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public boolean isDryRun() {
+        return dryRun;
+    }
+
+    public Map<String, Long> getMovedByRoute() {
+        return movedByRoute;
+    }
+
+    /**
+     * @return scan throughput in rows per second
+     */
+    public long getRowsPerSecond() {
+        return elapsedMillis > 0 ? scanned * 1000 / elapsedMillis : scanned;
+    }
+
+    @Override
+    public String toString() {
+        return "RebalanceResult{" +
+                "scanned=" + scanned +
+                ", moved=" + moved +
+                ", elapsedMillis=" + elapsedMillis +
+                ", rowsPerSecond=" + getRowsPerSecond() +
+                ", dryRun=" + dryRun +
+                ", movedByRoute=" + movedByRoute +
+                '}';
+    }
+}
@@ -0,0 +1,61 @@
+package com.safra.bank.device.sharding;
+
+import com.safra.bank.device.service.ShardRebalanceService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+
+/**
+ * Command-line shard rebalancing
+ * Moves registrations to their owning shard under the configured shard list, then exits
+ *
+ * Usage (after adding the new shard to device.sharding.shards and provisioning its schema):
+ *   java -jar device-registration-api.jar --spring.main.web-application-type=none \
+ *        --device.sharding.enabled=true --device.sharding.rebalance.run=true \
+ *        [--device.sharding.rebalance.dry-run=true] [--device.sharding.rebalance.batch-size=5000]
+ *
+ * Deploy the new shard list to the service before running, so new registrations already go to
+ * the new owner; the run is idempotent and can be repeated until it reports 0 moved rows.
+ * Running instances need no restart: a natural-id cache entry pointing at a merged-away id is
+ * evicted and re-resolved on its next lookup.
+ */
+@Component
+@ConditionalOnProperty(prefix = "device.sharding.rebalance", name = "run", havingValue = "true")
+public class ShardRebalanceRunner implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardRebalanceRunner.class);
+
+    @Autowired
+    private ShardRebalanceService shardRebalanceService;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Value("${device.sharding.rebalance.dry-run:false}")
+    private boolean dryRun;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        int exitCode = 0;
+        try {
+            RebalanceResult result = shardRebalanceService.rebalance(dryRun);
+            logger.info("Rebalance {}: {} rows scanned, {} {} {}, {} ms, {} rows/sec",
+                       dryRun ? "dry run" : "finished", result.getScanned(), result.getMoved(),
+                       dryRun ? "would move" : "moved", result.getMovedByRoute(),
+                       result.getElapsedMillis(), result.getRowsPerSecond());
+        } catch (Exception e) {
+            logger.error("Shard rebalance failed: {}", e.getMessage(), e);
+            exitCode = 1;
+        }
+
+        int status = exitCode;
+        System.exit(SpringApplication.exit(applicationContext, () -> status));
+    }
+}
@@ -0,0 +1,128 @@
+package com.safra.bank.device.sharding;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Consistent hash ring mapping user keys to shard ids
+ * Each shard owns a number of virtual nodes on a 64-bit ring; a key belongs to the
+ * first virtual node at or after its hash (wrapping around)
+ *
+ * Performance Notes:
+ * - Adding a shard moves only the key ranges its virtual nodes claim (about 1/N of keys);
+ *   every other key keeps its shard
+ * - Lookups are a binary search over a sorted primitive array, with no allocation
+ * - The hash is computed from the key's characters only, so placement is identical
+ *   across JVMs, replicas and the rebalancing tool
+ */
+public final class ShardRing {
+
+    /**
+     * Largest usable shard id; shard ids also select disjoint id ranges for registrations and outbox changes
+     * (see {@link #idRangeStart(int)})
+     */
+    public static final int MAX_SHARD_ID = (1 << 15) - 1;
+
+    private static final int ID_RANGE_BITS = 48;
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final List<Integer> shardIds;
+
+    private final long[] points;
+
+    private final int[] owners;
+
+    /**
+     * @param shardIds distinct shard ids between 0 and {@link #MAX_SHARD_ID}
+     * @param virtualNodes ring positions per shard; more nodes give a more even key split
+     */
+    public ShardRing(Collection<Integer> shardIds, int virtualNodes) {
+        if (shardIds.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        if (virtualNodes < 1) {
+            throw new IllegalArgumentException("virtualNodes must be positive");
+        }
+        this.shardIds = List.copyOf(shardIds);
+
+        List<long[]> nodes = new ArrayList<>(shardIds.size() * virtualNodes);
+        for (int shardId : this.shardIds) {
+            if (shardId < 0 || shardId > MAX_SHARD_ID) {
+                throw new IllegalArgumentException("Shard id out of range: " + shardId);
+            }
+            for (int node = 0; node < virtualNodes; node++) {
+                nodes.add(new long[] {hash("shard-" + shardId + "#" + node), shardId});
+            }
+        }
+        // Ties (practically impossible) are broken by shard id so every instance builds the same ring
+        nodes.sort((a, b) -> a[0] != b[0] ? Long.compareUnsigned(a[0], b[0]) : Long.compare(a[1], b[1]));
+
+        points = new long[nodes.size()];
+        owners = new int[nodes.size()];
+        for (int i = 0; i < nodes.size(); i++) {
+            points[i] = nodes.get(i)[0];
+            owners[i] = (int) nodes.get(i)[1];
+        }
+    }
+
+    /**
+     * @param userKey the user identifier
+     * @return id of the shard storing the user's registrations
+     */
+    public int shardFor(String userKey) {
+        long hash = hash(userKey);
+        int low = 0;
+        int high = points.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (Long.compareUnsigned(points[mid], hash) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return owners[low == points.length ? 0 : low];
+    }
+
+    /**
+     * @return shard ids in configuration order
+     */
+    public List<Integer> getShardIds() {
+        return shardIds;
+    }
+
+    /**
+     * First registration id of a shard's id range
+     * Ranges are disjoint, so ids stay globally unique (and safe as natural-id cache values)
+     * even though each shard generates its own
+     *
+     * @param shardId shard id
+     * @return shardId * 2^48
+     */
+    public static long idRangeStart(int shardId) {
+        return (long) shardId << ID_RANGE_BITS;
+    }
+
+    /**
+     * 64-bit FNV-1a over the UTF-16 code units, finished with the MurmurHash3 fmix64 step
+     * so nearby keys (user1, user2, ...) spread over the whole ring
+     */
+    static long hash(String value) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            hash = (hash ^ (c & 0xff)) * FNV_PRIME;
+            hash = (hash ^ (c >>> 8)) * FNV_PRIME;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
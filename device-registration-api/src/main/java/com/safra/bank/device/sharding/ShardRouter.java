@@ -0,0 +1,188 @@
+package com.safra.bank.device.sharding;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Selects the registration storage shard for a unit of work
+ * With sharding disabled (the primary DataSource is no {@link ShardRoutingDataSource}) every call runs unchanged
+ * against the single datasource
+ *
+ * Usage: wrap the whole transaction, e.g.
+ * {@code shardRouter.callOnShardFor(userKey, () -> transactionTemplate.execute(...))},
+ * because the connection is bound when the transaction begins
+ *
+ * DevSecOps Features:
+ * - Shard selection is always restored, so pooled request threads never leak a shard
+ * - Per-shard id ranges are enforced at startup, keeping registration and outbox ids globally unique
+ */
+@Component
+public class ShardRouter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardRouter.class);
+
+    // Tables whose ids must be unique across shards: registration ids, and outbox ids that
+    // subscribers deduplicate by
+    private static final List<String> ID_RANGE_TABLES = List.of("device_registrations", "registration_outbox");
+
+    // Moves a shard's identity sequence into its id range; never moves a sequence backwards
+    private static final String ID_RANGE_SQL =
+        "SELECT setval(s.seq, ?, false) FROM " +
+        "(SELECT pg_get_serial_sequence(?, 'id')::regclass AS seq) s " +
+        "WHERE COALESCE(pg_sequence_last_value(s.seq), 0) < ?";
+
+    @Autowired
+    private DataSource dataSource;
+
+    private ShardRoutingDataSource shardRoutingDataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${device.sharding.virtual-nodes:256}")
+    private int virtualNodes;
+
+    private ShardRing ring;
+
+    private final Map<Integer, Timer> shardTimers = new LinkedHashMap<>();
+
+    @PostConstruct
+    void init() {
+        if (!(dataSource instanceof ShardRoutingDataSource routing)) {
+            return;
+        }
+        shardRoutingDataSource = routing;
+        ring = new ShardRing(shardRoutingDataSource.getShardIds(), virtualNodes);
+        for (int shardId : ring.getShardIds()) {
+            shardTimers.put(shardId, Timer.builder("device.sharding.calls")
+                .description("Units of work routed to a registration shard")
+                .tag("shard", Integer.toString(shardId))
+                .register(meterRegistry));
+            ensureIdRange(shardId);
+        }
+        logger.info("Registration storage sharded across shards {} ({} virtual nodes each)",
+                   ring.getShardIds(), virtualNodes);
+    }
+
+    /**
+     * @return true if registrations are spread over several shards
+     */
+    public boolean isEnabled() {
+        return ring != null;
+    }
+
+    /**
+     * @return configured shard ids; empty when sharding is disabled
+     */
+    public List<Integer> getShardIds() {
+        return ring != null ? ring.getShardIds() : List.of();
+    }
+
+    /**
+     * @param userKey the user identifier
+     * @return id of the shard owning the user's registrations
+     * @throws IllegalStateException if sharding is disabled
+     */
+    public int shardFor(String userKey) {
+        if (ring == null) {
+            throw new IllegalStateException("Registration storage is not sharded");
+        }
+        return ring.shardFor(userKey);
+    }
+
+    /**
+     * Run a unit of work against the shard owning a user's registrations
+     */
+    public <T> T callOnShardFor(String userKey, Supplier<T> call) {
+        return ring != null ? callOnShard(ring.shardFor(userKey), call) : call.get();
+    }
+
+    /**
+     * Run a unit of work against a specific shard
+     * Nested calls restore the enclosing selection when they return
+     */
+    public <T> T callOnShard(int shardId, Supplier<T> call) {
+        Integer previous = ShardRoutingDataSource.currentShard();
+        ShardRoutingDataSource.setCurrentShard(shardId);
+        Timer.Sample sample = Timer.start();
+        try {
+            return call.get();
+        } finally {
+            Timer timer = shardTimers.get(shardId);
+            if (timer != null) {
+                sample.stop(timer);
+            }
+            ShardRoutingDataSource.setCurrentShard(previous);
+        }
+    }
+
+    /**
+     * Run a unit of work once per shard, sequentially in configuration order
+     * (once against the single datasource when sharding is disabled)
+     *
+     * @return one result per shard
+     */
+    public <T> List<T> callOnEachShard(Supplier<T> call) {
+        if (ring == null) {
+            return Collections.singletonList(call.get());
+        }
+        List<T> results = new ArrayList<>(ring.getShardIds().size());
+        for (int shardId : ring.getShardIds()) {
+            results.add(callOnShard(shardId, call));
+        }
+        return results;
+    }
+
+    /**
+     * Split user keys by owning shard and run a unit of work per shard with its keys
+     * Shards owning none of the keys are skipped
+     *
+     * @return one result per shard that owns at least one key
+     */
+    public <T> List<T> callPerShard(Collection<? extends String> userKeys, Function<List<String>, T> call) {
+        if (ring == null) {
+            return Collections.singletonList(call.apply(List.copyOf(userKeys)));
+        }
+        Map<Integer, List<String>> keysByShard = new LinkedHashMap<>();
+        for (String userKey : userKeys) {
+            keysByShard.computeIfAbsent(ring.shardFor(userKey), shard -> new ArrayList<>()).add(userKey);
+        }
+        List<T> results = new ArrayList<>(keysByShard.size());
+        keysByShard.forEach((shardId, keys) -> results.add(callOnShard(shardId, () -> call.apply(keys))));
+        return results;
+    }
+
+    private void ensureIdRange(int shardId) {
+        long rangeStart = ShardRing.idRangeStart(shardId);
+        if (rangeStart == 0) {
+            return;
+        }
+        for (String table : ID_RANGE_TABLES) {
+            List<Long> moved = callOnShard(shardId,
+                () -> jdbcTemplate.queryForList(ID_RANGE_SQL, Long.class, rangeStart, table, rangeStart));
+            if (!moved.isEmpty()) {
+                logger.info("Moved shard {} {} id sequence to its range starting at {}", shardId, table, rangeStart);
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.safra.bank.device.sharding;
+
+import com.safra.bank.shared.jdbc.HikariPoolOwner;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * DataSource routing each connection request to the shard selected on the current thread
+ * The shard must be selected (see {@link ShardRouter}) before a transaction opens its connection
+ *
+ * Unrouted connections, i.e. Hibernate bootstrap/schema validation and health checks, use the
+ * first configured shard; selecting an unknown shard fails instead of falling back.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource implements HikariPoolOwner {
+
+    private static final ThreadLocal<Integer> CURRENT_SHARD = new ThreadLocal<>();
+
+    private final Map<Integer, HikariDataSource> shards;
+
+    /**
+     * @param shards per-shard connection pools in configuration order; the first is the default
+     * @param decorator applied to each pool before routing to it (e.g. query profiling)
+     */
+    public ShardRoutingDataSource(Map<Integer, HikariDataSource> shards,
+                                  Function<HikariDataSource, DataSource> decorator) {
+        this.shards = shards;
+        Map<Object, Object> targets = new LinkedHashMap<>();
+        shards.forEach((id, pool) -> targets.put(id, decorator.apply(pool)));
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(targets.values().iterator().next());
+        setLenientFallback(false);
+    }
+
+    /**
+     * @return configured shard ids in configuration order
+     */
+    public List<Integer> getShardIds() {
+        return new ArrayList<>(shards.keySet());
+    }
+
+    /**
+     * @return the shard connection pools
+     */
+    @Override
+    public Collection<HikariDataSource> getPools() {
+        return Collections.unmodifiableCollection(shards.values());
+    }
+
+    static Integer currentShard() {
+        return CURRENT_SHARD.get();
+    }
+
+    static void setCurrentShard(Integer shardId) {
+        if (shardId == null) {
+            CURRENT_SHARD.remove();
+        } else {
+            CURRENT_SHARD.set(shardId);
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return CURRENT_SHARD.get();
+    }
+
+    /**
+     * Close every shard pool; called by the container on shutdown
+     */
+    public void close() {
+        shards.values().forEach(HikariDataSource::close);
+    }
+}
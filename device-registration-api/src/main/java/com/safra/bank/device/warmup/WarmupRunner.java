@@ -0,0 +1,260 @@
+package com.safra.bank.device.warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safra.bank.device.controller.DeviceController;
+import com.safra.bank.device.controller.UserLookupController;
+import com.safra.bank.device.repository.DeviceRegistrationRepository;
+import com.safra.bank.device.service.UserDeviceLookupService;
+import com.safra.bank.device.sharding.ShardRouter;
+import com.safra.bank.shared.dto.DeviceRegistrationRequest;
+import com.safra.bank.shared.dto.UserDevicesBatchRequest;
+import com.safra.bank.shared.entity.DeviceRegistration;
+import com.safra.bank.shared.jdbc.HikariPools;
+import com.safra.bank.shared.jdbc.QueryProfiler;
+import com.safra.bank.shared.latency.StageLatencyRecorder;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Warm-up phase run before the service reports ready
+ * Spring Boot publishes ReadinessState.ACCEPTING_TRAFFIC only after the application runners have
+ * returned, so /actuator/health/readiness reports OUT_OF_SERVICE (and Kubernetes keeps the pod out
+ * of the Service endpoints) until warm-up has finished
+ *
+ * DevSecOps Features:
+ * - Synthetic registrations run in a transaction that is rolled back: nothing is persisted and no
+ *   after-commit listener (lookup cache, registration cube) sees them
+ * - Failures are logged and never keep the service from becoming ready
+ *
+ * Performance Notes:
+ * - Every connection pool is filled to maximum-pool-size instead of minimum-idle
+ * - The newest registrations are loaded into the natural-id cache and the user lookup cache
+ * - DeviceController and UserLookupController handlers are called in-process, and requests and
+ *   responses go through the application ObjectMapper, so the JIT compiles the request path and
+ *   Jackson builds its serializers before the first real request
+ * - Bounded by device.warmup.iterations and device.warmup.max-duration
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class WarmupRunner implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(WarmupRunner.class);
+
+    private static final List<String> DEVICE_TYPES = List.of("iOS", "Android", "Watch", "TV");
+
+    private static final int BATCH_LOOKUP_EVERY = 10;
+
+    private static final int BATCH_LOOKUP_SIZE = 100;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Autowired
+    private DeviceController deviceController;
+
+    @Autowired
+    private UserLookupController userLookupController;
+
+    @Autowired
+    private DeviceRegistrationRepository deviceRegistrationRepository;
+
+    @Autowired
+    private UserDeviceLookupService userDeviceLookupService;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private StageLatencyRecorder<?> stageLatency;
+
+    @Autowired
+    private QueryProfiler queryProfiler;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${device.warmup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${device.warmup.iterations:2000}")
+    private int iterations;
+
+    @Value("${device.warmup.max-duration:20s}")
+    private Duration maxDuration;
+
+    @Value("${device.warmup.preload-registrations:10000}")
+    private int preloadRegistrations;
+
+    private volatile long durationNanos;
+
+    private volatile int completedIterations;
+
+    private volatile long firstIterationsNanos;
+
+    private volatile long lastIterationsNanos;
+
+    private volatile int pooledConnections;
+
+    private volatile int preloaded;
+
+    @PostConstruct
+    void init() {
+        TimeGauge.builder("device.warmup.duration", this, TimeUnit.NANOSECONDS, runner -> runner.durationNanos)
+            .description("Time spent in the warm-up phase before readiness")
+            .register(meterRegistry);
+        Gauge.builder("device.warmup.iterations", this, runner -> runner.completedIterations)
+            .description("Synthetic request rounds run during warm-up")
+            .register(meterRegistry);
+        TimeGauge.builder("device.warmup.iteration.latency", this, TimeUnit.NANOSECONDS, runner -> runner.firstIterationsNanos)
+            .description("Mean latency of a synthetic request round during warm-up")
+            .tag("phase", "first")
+            .register(meterRegistry);
+        TimeGauge.builder("device.warmup.iteration.latency", this, TimeUnit.NANOSECONDS, runner -> runner.lastIterationsNanos)
+            .description("Mean latency of a synthetic request round during warm-up")
+            .tag("phase", "last")
+            .register(meterRegistry);
+        Gauge.builder("device.warmup.connections", this, runner -> runner.pooledConnections)
+            .description("Pooled database connections opened during warm-up")
+            .register(meterRegistry);
+        Gauge.builder("device.warmup.preloaded", this, runner -> runner.preloaded)
+            .description("Registrations loaded into the caches during warm-up")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        long deadline = start + maxDuration.toNanos();
+        try {
+            fillPools();
+            List<String> userKeys = preloadCaches();
+            exerciseHandlers(userKeys, deadline);
+        } catch (Exception e) {
+            logger.warn("Warm-up stopped early: {}", e.getMessage(), e);
+        } finally {
+            // Report live traffic only
+            stageLatency.reset();
+            queryProfiler.reset();
+            durationNanos = System.nanoTime() - start;
+        }
+        logger.info("Warm-up finished in {} ms: {} connections, {} registrations preloaded, {} rounds, " +
+                    "mean round {} us (first 10%) -> {} us (last 10%)",
+                    TimeUnit.NANOSECONDS.toMillis(durationNanos), pooledConnections, preloaded, completedIterations,
+                    TimeUnit.NANOSECONDS.toMicros(firstIterationsNanos), TimeUnit.NANOSECONDS.toMicros(lastIterationsNanos));
+    }
+
+    private void fillPools() {
+        int connections = 0;
+        for (HikariDataSource pool : HikariPools.find(applicationContext)) {
+            connections += HikariPools.fill(pool);
+        }
+        pooledConnections = connections;
+    }
+
+    /**
+     * Load the newest registrations of every shard into the natural-id cache, then the
+     * lookup cache for their users
+     *
+     * @return user keys of the loaded registrations
+     */
+    private List<String> preloadCaches() {
+        if (preloadRegistrations <= 0) {
+            return List.of();
+        }
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        List<String> userKeys = new ArrayList<>();
+        for (List<DeviceRegistration> registrations : shardRouter.callOnEachShard(() -> readOnly.execute(
+                status -> deviceRegistrationRepository.findAllByOrderByIdDesc(Limit.of(preloadRegistrations))))) {
+            registrations.forEach(registration -> userKeys.add(registration.getUserKey()));
+            preloaded += registrations.size();
+        }
+        List<String> distinct = userKeys.stream().distinct().toList();
+        if (!distinct.isEmpty()) {
+            userDeviceLookupService.lookupAll(distinct);
+        }
+        return distinct;
+    }
+
+    private void exerciseHandlers(List<String> userKeys, long deadline) throws Exception {
+        TransactionTemplate rolledBack = new TransactionTemplate(transactionManager);
+        String prefix = "warmup-" + UUID.randomUUID() + "-";
+        long[] rounds = new long[Math.max(iterations, 0)];
+        int round = 0;
+        for (; round < rounds.length && System.nanoTime() - deadline < 0; round++) {
+            long roundStart = System.nanoTime();
+
+            DeviceRegistrationRequest registration = objectMapper.readValue(objectMapper.writeValueAsBytes(
+                new DeviceRegistrationRequest(prefix + round, DEVICE_TYPES.get(round % DEVICE_TYPES.size()),
+                    "1.0." + (round % 10), "17." + (round % 4), "BR")), DeviceRegistrationRequest.class);
+            serialize(shardRouter.callOnShardFor(registration.getUserKey(), () -> rolledBack.execute(status -> {
+                status.setRollbackOnly();
+                return deviceController.registerDevice(registration, "warmup");
+            })));
+
+            // Lookups of synthetic users would cache empty results, so known users are used
+            if (!userKeys.isEmpty()) {
+                serialize(userLookupController.lookupUserDevices(userKeys.get(round % userKeys.size())));
+                if (round % BATCH_LOOKUP_EVERY == 0) {
+                    int from = (round / BATCH_LOOKUP_EVERY * BATCH_LOOKUP_SIZE) % userKeys.size();
+                    List<String> batch = userKeys.subList(from, Math.min(from + BATCH_LOOKUP_SIZE, userKeys.size()));
+                    UserDevicesBatchRequest batchRequest = objectMapper.readValue(
+                        objectMapper.writeValueAsBytes(new UserDevicesBatchRequest(batch)), UserDevicesBatchRequest.class);
+                    serialize(userLookupController.lookupUserDevicesBatch(batchRequest));
+                }
+            }
+            rounds[round] = System.nanoTime() - roundStart;
+        }
+        completedIterations = round;
+        int tenth = Math.max(1, round / 10);
+        if (round > 0) {
+            firstIterationsNanos = mean(rounds, 0, Math.min(tenth, round));
+            lastIterationsNanos = mean(rounds, Math.max(0, round - tenth), round);
+        }
+    }
+
+    private void serialize(ResponseEntity<?> response) throws Exception {
+        if (response != null && response.getBody() != null) {
+            objectMapper.writeValueAsBytes(response.getBody());
+        }
+    }
+
+    private static long mean(long[] values, int from, int to) {
+        long sum = 0;
+        for (int i = from; i < to; i++) {
+            sum += values[i];
+        }
+        return sum / (to - from);
+    }
+}
@@ -0,0 +1,77 @@
+package com.safra.bank.device.web;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safra.bank.shared.dto.DeviceRegistrationResponse;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JSON writer for the fixed response DTOs of the Device Registration API
+ * Registered ahead of the Jackson converter; anything it does not recognize falls back to Jackson
+ *
+ * Performance Notes:
+ * - Constant DeviceRegistrationResponse payloads (200, 400, 500) are serialized once at startup
+ *   and written as cached byte arrays
+ * - Content-Length is computed up front, so responses are not chunked
+ */
+public class PreSerializedJsonHttpMessageConverter extends AbstractHttpMessageConverter<DeviceRegistrationResponse> {
+
+    private final ObjectMapper objectMapper;
+
+    private final Map<Integer, byte[]> registrationResponses = new HashMap<>();
+
+    public PreSerializedJsonHttpMessageConverter(ObjectMapper objectMapper) {
+        super(MediaType.APPLICATION_JSON);
+        this.objectMapper = objectMapper;
+        try {
+            for (DeviceRegistrationResponse response : List.of(DeviceRegistrationResponse.success(),
+                    DeviceRegistrationResponse.badRequest(), DeviceRegistrationResponse.internalError(),
+                    DeviceRegistrationResponse.serviceUnavailable())) {
+                registrationResponses.put(response.getStatusCode(), objectMapper.writeValueAsBytes(response));
+            }
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to pre-serialize constant responses", e);
+        }
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return clazz == DeviceRegistrationResponse.class;
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected DeviceRegistrationResponse readInternal(Class<? extends DeviceRegistrationResponse> clazz,
+                                                      HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Write-only converter", inputMessage);
+    }
+
+    @Override
+    protected Long getContentLength(DeviceRegistrationResponse value, MediaType contentType) {
+        byte[] cached = cached(value);
+        return cached != null ? (long) cached.length : null;
+    }
+
+    @Override
+    protected void writeInternal(DeviceRegistrationResponse value, HttpOutputMessage outputMessage) throws IOException {
+        byte[] cached = cached(value);
+        outputMessage.getBody().write(cached != null ? cached : objectMapper.writeValueAsBytes(value));
+    }
+
+    private byte[] cached(DeviceRegistrationResponse value) {
+        return value.getStatusCode() != null ? registrationResponses.get(value.getStatusCode()) : null;
+    }
+}
@@ -0,0 +1,99 @@
+package com.safra.bank.device.repository;
+
+import com.safra.bank.shared.entity.DeviceRegistration;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.NaturalIdLoadAccess;
+import org.hibernate.Session;
+import org.hibernate.cache.spi.access.NaturalIdDataAccess;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DeviceRegistrationNaturalIdRepositoryImplTest {
+
+    private static final Object NATURAL_ID = new Object[] {"iOS", "user-1"};
+
+    private static final Object CACHE_KEY = "cache-key";
+
+    private final EntityManager entityManager = mock(EntityManager.class);
+
+    private final Session session = mock(Session.class);
+
+    private final SessionImplementor sessionImplementor = mock(SessionImplementor.class, RETURNS_DEEP_STUBS);
+
+    private final EntityPersister persister = mock(EntityPersister.class, RETURNS_DEEP_STUBS);
+
+    private final NaturalIdDataAccess cacheAccess = mock(NaturalIdDataAccess.class);
+
+    @SuppressWarnings("unchecked")
+    private final NaturalIdLoadAccess<DeviceRegistration> loadAccess = mock(NaturalIdLoadAccess.class);
+
+    @SuppressWarnings("unchecked")
+    private final TypedQuery<DeviceRegistration> query = mock(TypedQuery.class);
+
+    private final DeviceRegistrationNaturalIdRepositoryImpl repository = new DeviceRegistrationNaturalIdRepositoryImpl();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(repository, "entityManager", entityManager);
+        when(entityManager.unwrap(Session.class)).thenReturn(session);
+        when(session.byNaturalId(DeviceRegistration.class)).thenReturn(loadAccess);
+        when(loadAccess.using(anyString(), any())).thenReturn(loadAccess);
+        when(loadAccess.loadOptional()).thenReturn(Optional.empty());
+
+        when(session.unwrap(SessionImplementor.class)).thenReturn(sessionImplementor);
+        when(sessionImplementor.getFactory().getMappingMetamodel().getEntityDescriptor(DeviceRegistration.class))
+            .thenReturn(persister);
+        when(persister.getNaturalIdCacheAccessStrategy()).thenReturn(cacheAccess);
+        when(persister.getNaturalIdMapping().normalizeInput(any())).thenReturn(NATURAL_ID);
+        when(cacheAccess.generateCacheKey(NATURAL_ID, persister, sessionImplementor)).thenReturn(CACHE_KEY);
+
+        when(entityManager.createQuery(anyString(), eq(DeviceRegistration.class))).thenReturn(query);
+        when(query.setParameter(anyString(), any())).thenReturn(query);
+    }
+
+    @Test
+    void staleCachedIdIsEvictedAndTheRowReadByNaturalKey() {
+        // Another process merged the row away, so the cached id has no row
+        DeviceRegistration moved = new DeviceRegistration("user-1", "iOS");
+        when(cacheAccess.get(sessionImplementor, CACHE_KEY)).thenReturn(42L);
+        when(query.getResultStream()).thenReturn(Stream.of(moved));
+
+        assertThat(repository.findByUserKeyAndDeviceType("user-1", "iOS")).containsSame(moved);
+        verify(cacheAccess).evict(CACHE_KEY);
+        verify(query).setParameter("userKey", "user-1");
+        verify(query).setParameter("deviceType", "iOS");
+    }
+
+    @Test
+    void uncachedMissingKeyCostsNoExtraQuery() {
+        assertThat(repository.findByUserKeyAndDeviceType("user-1", "iOS")).isEmpty();
+        verify(cacheAccess, never()).evict(any());
+        verify(entityManager, never()).createQuery(anyString(), eq(DeviceRegistration.class));
+    }
+
+    @Test
+    void foundRegistrationSkipsTheCacheCheck() {
+        DeviceRegistration registration = new DeviceRegistration("user-1", "iOS");
+        when(loadAccess.loadOptional()).thenReturn(Optional.of(registration));
+
+        assertThat(repository.findByUserKeyAndDeviceType("user-1", "iOS")).containsSame(registration);
+        verify(session, never()).unwrap(SessionImplementor.class);
+    }
+}
@@ -0,0 +1,293 @@
+package com.safra.bank.device.service;
+
+import com.safra.bank.device.sharding.RebalanceResult;
+import com.safra.bank.device.sharding.ShardRouter;
+import com.safra.bank.device.sharding.ShardRoutingDataSource;
+import com.safra.bank.shared.entity.DeviceRegistration;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Rebalances between two local PostgreSQL databases standing in for shards 0 and 1
+ * Connection settings: TEST_SHARD_0_URL, TEST_SHARD_1_URL, TEST_DB_USERNAME, TEST_DB_PASSWORD
+ * (defaults: databases safra_shard_0 and safra_shard_1 on localhost); skipped when either is unreachable.
+ * Tables are created in a dedicated schema that is dropped afterwards.
+ */
+class ShardRebalanceServiceTest {
+
+    private static final String SCHEMA = "rebalance_test";
+
+    private static final String[] URLS = {
+        env("TEST_SHARD_0_URL", "jdbc:postgresql://localhost:5432/safra_shard_0"),
+        env("TEST_SHARD_1_URL", "jdbc:postgresql://localhost:5432/safra_shard_1")
+    };
+
+    private static final String USERNAME = env("TEST_DB_USERNAME", "safra_user");
+
+    private static final String PASSWORD = env("TEST_DB_PASSWORD", "safra_password");
+
+    private static final List<String> SCHEMA_SQL = List.of(
+        "DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE",
+        "CREATE SCHEMA " + SCHEMA,
+        "CREATE TABLE " + SCHEMA + ".device_registrations (" +
+            "id BIGSERIAL PRIMARY KEY, user_key VARCHAR(255) NOT NULL, device_type VARCHAR(50) NOT NULL, " +
+            "created_at TIMESTAMP NOT NULL, updated_at TIMESTAMP NOT NULL, " +
+            "app_version VARCHAR(32), os_version VARCHAR(32), region VARCHAR(32), " +
+            "CONSTRAINT uk_user_device UNIQUE (user_key, device_type))",
+        "CREATE TABLE " + SCHEMA + ".registration_outbox (id BIGSERIAL PRIMARY KEY)");
+
+    private static final int USERS = 2000;
+
+    private static final LocalDateTime CREATED = LocalDateTime.of(2025, 9, 1, 10, 0);
+
+    private static ShardRoutingDataSource dataSource;
+
+    private static JdbcTemplate jdbcTemplate;
+
+    private ShardRouter shardRouter;
+
+    private RegistrationCubeBuffer registrationCubeBuffer;
+
+    private Cache secondLevelCache;
+
+    private ShardRebalanceService service;
+
+    @BeforeAll
+    static void createSchemas() {
+        for (String url : URLS) {
+            try (Connection connection = DriverManager.getConnection(url, USERNAME, PASSWORD);
+                 Statement statement = connection.createStatement()) {
+                for (String sql : SCHEMA_SQL) {
+                    statement.execute(sql);
+                }
+            } catch (SQLException e) {
+                assumeTrue(false, "Local PostgreSQL shard not available at " + url + ": " + e.getMessage());
+            }
+        }
+
+        Map<Integer, HikariDataSource> shards = new LinkedHashMap<>();
+        for (int shardId = 0; shardId < URLS.length; shardId++) {
+            HikariDataSource pool = new HikariDataSource();
+            pool.setPoolName("rebalance-test-" + shardId);
+            pool.setJdbcUrl(URLS[shardId] + (URLS[shardId].contains("?") ? "&" : "?") + "currentSchema=" + SCHEMA);
+            pool.setUsername(USERNAME);
+            pool.setPassword(PASSWORD);
+            pool.setMaximumPoolSize(2);
+            shards.put(shardId, pool);
+        }
+        dataSource = new ShardRoutingDataSource(shards, pool -> pool);
+        dataSource.afterPropertiesSet();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @AfterAll
+    static void dropSchemas() {
+        if (dataSource != null) {
+            dataSource.close();
+        }
+        for (String url : URLS) {
+            try (Connection connection = DriverManager.getConnection(url, USERNAME, PASSWORD);
+                 Statement statement = connection.createStatement()) {
+                statement.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+            } catch (SQLException e) {
+                // Unreachable shard, or left behind for the next run, which drops it first
+            }
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        shardRouter = new ShardRouter();
+        ReflectionTestUtils.setField(shardRouter, "dataSource", dataSource);
+        ReflectionTestUtils.setField(shardRouter, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(shardRouter, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(shardRouter, "virtualNodes", 256);
+        ReflectionTestUtils.invokeMethod(shardRouter, "init");
+
+        registrationCubeBuffer = mock(RegistrationCubeBuffer.class);
+        service = new ShardRebalanceService();
+        ReflectionTestUtils.setField(service, "shardRouter", shardRouter);
+        ReflectionTestUtils.setField(service, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(service, "transactionTemplate",
+            new TransactionTemplate(new DataSourceTransactionManager(dataSource)));
+        ReflectionTestUtils.setField(service, "registrationCubeBuffer", registrationCubeBuffer);
+        secondLevelCache = mock(Cache.class);
+        SessionFactory sessionFactory = mock(SessionFactory.class);
+        when(sessionFactory.getCache()).thenReturn(secondLevelCache);
+        EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+        when(entityManagerFactory.unwrap(SessionFactory.class)).thenReturn(sessionFactory);
+        ReflectionTestUtils.setField(service, "entityManagerFactory", entityManagerFactory);
+        // Small pages so the keyset paging crosses many page boundaries
+        ReflectionTestUtils.setField(service, "batchSize", 97);
+        ReflectionTestUtils.setField(service, "progressInterval", 1_000_000L);
+
+        for (int shardId = 0; shardId < URLS.length; shardId++) {
+            shardRouter.callOnShard(shardId, () -> jdbcTemplate.update("TRUNCATE device_registrations"));
+        }
+    }
+
+    @Test
+    void movesOnlyKeysOwnedByTheNewShard() {
+        // Shard 1 was just added: every registration is still on shard 0
+        for (int i = 0; i < USERS; i++) {
+            insert(0, "user" + i, "iOS", CREATED, "1.0");
+        }
+        Map<String, Row> before = rows(0);
+        long owned = before.keySet().stream().filter(userKey -> shardRouter.shardFor(userKey) == 1).count();
+        assertThat(owned).isBetween((long) USERS * 4 / 10, (long) USERS * 6 / 10);
+
+        RebalanceResult result = service.rebalance(false);
+
+        // Shard 1 is scanned after shard 0, so the copied rows are scanned (and kept) once more
+        assertThat(result.getScanned()).isEqualTo(USERS + owned);
+        assertThat(result.getMoved()).isEqualTo(owned);
+        assertThat(result.getMovedByRoute()).containsOnly(Map.entry("0->1", owned));
+
+        Map<String, Row> stayed = rows(0);
+        Map<String, Row> moved = rows(1);
+        assertThat(stayed).hasSize(USERS - (int) owned);
+        assertThat(moved).hasSize((int) owned);
+        stayed.forEach((userKey, row) -> {
+            assertThat(shardRouter.shardFor(userKey)).isZero();
+            // Not rewritten: same row version as before the run
+            assertThat(row).isEqualTo(before.get(userKey));
+        });
+        moved.forEach((userKey, row) -> {
+            assertThat(shardRouter.shardFor(userKey)).isEqualTo(1);
+            Row original = before.get(userKey);
+            assertThat(row.id()).isEqualTo(original.id());
+            assertThat(row.createdAt()).isEqualTo(original.createdAt());
+            assertThat(row.appVersion()).isEqualTo(original.appVersion());
+        });
+        verify(registrationCubeBuffer, times(1)).rebuild();
+
+        // Re-running finds nothing left to move and touches no row
+        RebalanceResult again = service.rebalance(false);
+        assertThat(again.getScanned()).isEqualTo(USERS);
+        assertThat(again.getMoved()).isZero();
+        assertThat(rows(0)).isEqualTo(stayed);
+        assertThat(rows(1)).isEqualTo(moved);
+        verify(registrationCubeBuffer, times(1)).rebuild();
+    }
+
+    @Test
+    void mergesWithRegistrationsMadeOnTheNewShard() {
+        String userKey = keyOwnedBy(1);
+        insert(0, userKey, "iOS", CREATED, "1.0");
+        // Registered again after shard 1 was added, with a newer app version
+        insert(1, userKey, "iOS", CREATED.plusDays(3), "2.0");
+
+        RebalanceResult result = service.rebalance(false);
+
+        assertThat(result.getMoved()).isEqualTo(1);
+        assertThat(rows(0)).isEmpty();
+        Row merged = rows(1).get(userKey);
+        assertThat(merged.createdAt()).isEqualTo(CREATED);
+        assertThat(merged.updatedAt()).isEqualTo(CREATED.plusDays(3));
+        assertThat(merged.appVersion()).isEqualTo("2.0");
+    }
+
+    @Test
+    void evictsNaturalIdsOnceTheMergedRowIsDeleted() {
+        String userKey = keyOwnedBy(1);
+        insert(0, userKey, "iOS", CREATED, "1.0");
+        insert(1, userKey, "iOS", CREATED.plusDays(3), "2.0");
+        long movedId = rows(0).get(userKey).id();
+        long keptId = rows(1).get(userKey).id();
+        AtomicReference<Map<String, Row>> sourceAtEviction = new AtomicReference<>();
+        doAnswer(invocation -> {
+            sourceAtEviction.set(rows(0));
+            return null;
+        }).when(secondLevelCache).evictNaturalIdData(DeviceRegistration.class);
+
+        service.rebalance(false);
+
+        // The cached resolution may still be the moved row's id, which no longer exists anywhere
+        assertThat(rows(1).get(userKey).id()).isEqualTo(keptId).isNotEqualTo(movedId);
+        verify(secondLevelCache, times(1)).evictNaturalIdData(DeviceRegistration.class);
+        assertThat(sourceAtEviction.get()).isEmpty();
+    }
+
+    @Test
+    void dryRunCountsWithoutMoving() {
+        for (int i = 0; i < 200; i++) {
+            insert(0, "user" + i, "Android", CREATED, null);
+        }
+        Map<String, Row> before = rows(0);
+
+        RebalanceResult result = service.rebalance(true);
+
+        assertThat(result.isDryRun()).isTrue();
+        assertThat(result.getMoved()).isPositive();
+        assertThat(rows(0)).isEqualTo(before);
+        assertThat(rows(1)).isEmpty();
+        verify(registrationCubeBuffer, never()).rebuild();
+        verify(secondLevelCache, never()).evictNaturalIdData(DeviceRegistration.class);
+    }
+
+    private void insert(int shardId, String userKey, String deviceType, LocalDateTime createdAt, String appVersion) {
+        shardRouter.callOnShard(shardId, () -> jdbcTemplate.update(
+            "INSERT INTO device_registrations (user_key, device_type, created_at, updated_at, app_version) " +
+            "VALUES (?, ?, ?, ?, ?)", userKey, deviceType, createdAt, createdAt, appVersion));
+    }
+
+    private Map<String, Row> rows(int shardId) {
+        Map<String, Row> rows = new HashMap<>();
+        shardRouter.callOnShard(shardId, () -> jdbcTemplate.query(
+            "SELECT user_key, id, created_at, updated_at, app_version, xmin::text FROM device_registrations",
+            (resultSet, rowNum) -> rows.put(resultSet.getString(1), new Row(
+                resultSet.getLong(2),
+                resultSet.getObject(3, LocalDateTime.class),
+                resultSet.getObject(4, LocalDateTime.class),
+                resultSet.getString(5),
+                resultSet.getString(6)))));
+        return rows;
+    }
+
+    private String keyOwnedBy(int shardId) {
+        for (int i = 0; ; i++) {
+            if (shardRouter.shardFor("merge-user" + i) == shardId) {
+                return "merge-user" + i;
+            }
+        }
+    }
+
+    private static String env(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value != null && !value.isBlank() ? value : defaultValue;
+    }
+
+    // xmin identifies the row version, so an unchanged xmin proves the row was not rewritten
+    private record Row(long id, LocalDateTime createdAt, LocalDateTime updatedAt, String appVersion, String xmin) {}
+}
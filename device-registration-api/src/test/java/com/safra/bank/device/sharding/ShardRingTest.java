@@ -0,0 +1,122 @@
+package com.safra.bank.device.sharding;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ShardRingTest {
+
+    private static final int VIRTUAL_NODES = 256;
+
+    private static final int KEYS = 100_000;
+
+    @Test
+    void placesVirtualNodesPerShard() {
+        ShardRing ring = new ShardRing(List.of(0, 1, 2, 3), VIRTUAL_NODES);
+
+        long[] points = (long[]) ReflectionTestUtils.getField(ring, "points");
+        int[] owners = (int[]) ReflectionTestUtils.getField(ring, "owners");
+        assertThat(points).hasSize(4 * VIRTUAL_NODES);
+        for (int i = 1; i < points.length; i++) {
+            assertThat(Long.compareUnsigned(points[i - 1], points[i])).isNegative();
+        }
+        Map<Integer, Integer> nodesPerShard = new HashMap<>();
+        for (int owner : owners) {
+            nodesPerShard.merge(owner, 1, Integer::sum);
+        }
+        assertThat(nodesPerShard).containsOnlyKeys(0, 1, 2, 3).allSatisfy(
+            (shard, nodes) -> assertThat(nodes).isEqualTo(VIRTUAL_NODES));
+    }
+
+    @Test
+    void spreadsKeysEvenlyWith256VirtualNodes() {
+        Map<Integer, Integer> keysPerShard = countKeys(new ShardRing(List.of(0, 1, 2, 3), VIRTUAL_NODES));
+
+        // Sequential keys (user0, user1, ...) still land within 10% of an even split
+        assertThat(keysPerShard).containsOnlyKeys(0, 1, 2, 3).allSatisfy(
+            (shard, keys) -> assertThat(keys).isBetween(KEYS / 4 * 9 / 10, KEYS / 4 * 11 / 10));
+    }
+
+    @Test
+    void moreVirtualNodesGiveAMoreEvenSplit() {
+        assertThat(spread(countKeys(new ShardRing(List.of(0, 1, 2, 3), VIRTUAL_NODES))))
+            .isLessThan(spread(countKeys(new ShardRing(List.of(0, 1, 2, 3), 1))));
+    }
+
+    @Test
+    void shardForIsStable() {
+        ShardRing ring = new ShardRing(List.of(0, 1, 2, 3), VIRTUAL_NODES);
+        ShardRing rebuilt = new ShardRing(List.of(3, 1, 0, 2), VIRTUAL_NODES);
+
+        // Placement depends only on the key and the shard ids, not on the instance or list order
+        for (int i = 0; i < KEYS; i++) {
+            String userKey = "user" + i;
+            assertThat(rebuilt.shardFor(userKey)).isEqualTo(ring.shardFor(userKey));
+            assertThat(ring.shardFor(userKey)).isEqualTo(ring.shardFor(new String(userKey.toCharArray())));
+        }
+    }
+
+    @Test
+    void hashIsFixedAcrossReleases() {
+        // Pinned values: changing the hash would silently misplace every stored registration
+        assertThat(ShardRing.hash("")).isEqualTo(0xefd01f60ba992926L);
+        assertThat(ShardRing.hash("user1")).isEqualTo(0xff6093da7ded9c05L);
+        assertThat(ShardRing.hash("shard-0#0")).isEqualTo(0xa077f8189d940fffL);
+    }
+
+    @Test
+    void addingAShardMovesKeysOnlyToTheNewShard() {
+        ShardRing before = new ShardRing(List.of(0, 1, 2), VIRTUAL_NODES);
+        ShardRing after = new ShardRing(List.of(0, 1, 2, 3), VIRTUAL_NODES);
+
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            String userKey = "user" + i;
+            int oldShard = before.shardFor(userKey);
+            int newShard = after.shardFor(userKey);
+            if (oldShard != newShard) {
+                assertThat(newShard).isEqualTo(3);
+                moved++;
+            }
+        }
+        // About a quarter of the keys: the new shard's share
+        assertThat(moved).isBetween(KEYS / 4 * 9 / 10, KEYS / 4 * 11 / 10);
+    }
+
+    @Test
+    void separatesShardIdRanges() {
+        assertThat(ShardRing.idRangeStart(0)).isZero();
+        assertThat(ShardRing.idRangeStart(1)).isEqualTo(1L << 48);
+        assertThat(ShardRing.idRangeStart(ShardRing.MAX_SHARD_ID)).isPositive();
+    }
+
+    @Test
+    void rejectsInvalidConfiguration() {
+        assertThatThrownBy(() -> new ShardRing(List.of(), VIRTUAL_NODES)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new ShardRing(List.of(0), 0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new ShardRing(List.of(-1), VIRTUAL_NODES)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new ShardRing(List.of(ShardRing.MAX_SHARD_ID + 1), VIRTUAL_NODES))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static Map<Integer, Integer> countKeys(ShardRing ring) {
+        Map<Integer, Integer> keysPerShard = new HashMap<>();
+        for (int i = 0; i < KEYS; i++) {
+            keysPerShard.merge(ring.shardFor("user" + i), 1, Integer::sum);
+        }
+        return keysPerShard;
+    }
+
+    private static int spread(Map<Integer, Integer> keysPerShard) {
+        int max = keysPerShard.values().stream().mapToInt(Integer::intValue).max().orElse(0);
+        // A shard owning no keys at all counts as zero
+        int min = keysPerShard.size() < 4 ? 0 : keysPerShard.values().stream().mapToInt(Integer::intValue).min().orElse(0);
+        return max - min;
+    }
+}
@@ -0,0 +1,76 @@
+package com.safra.bank.shared.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * DTO for device combination analytics responses
+ * Used by StatisticsAPI GET /Log/auth/statistics/combinations endpoint
+ *
+ * DevSecOps Features:
+ * - Standardized response format
+ * - Error indication with -1 count value (consistent with StatisticsResponse)
+ * - Watermark exposes index freshness without revealing user data
+ */
+public class DeviceCombinationResponse {
+
+    @JsonProperty("expression")
+    private String expression;
+
+    @JsonProperty("count")
+    private Long count;
+
+    @JsonProperty("watermark")
+    private Long watermark;
+
+    // Default constructor for JSON serialization
+    public DeviceCombinationResponse() {}
+
+    public DeviceCombinationResponse(String expression, Long count, Long watermark) {
+        this.expression = expression;
+        this.count = count;
+        this.watermark = watermark;
+    }
+
+    // Factory method for error response
+    public static DeviceCombinationResponse error(String expression) {
+        return new DeviceCombinationResponse(expression, -1L, null);
+    }
+
+    // Factory method for success response
+    public static DeviceCombinationResponse success(String expression, long count, long watermark) {
+        return new DeviceCombinationResponse(expression, count, watermark);
+    }
+
+    public String getExpression() {
+        return expression;
+    }
+
+    public void setExpression(String expression) {
+        this.expression = expression;
+    }
+
+    public Long getCount() {
+        return count;
+    }
+
+    public void setCount(Long count) {
+        this.count = count;
+    }
+
+    public Long getWatermark() {
+        return watermark;
+    }
+
+    public void setWatermark(Long watermark) {
+        this.watermark = watermark;
+    }
+
+    @Override
+    public String toString() {
+        return "DeviceCombinationResponse{" +
+                "expression='" + expression + '\'' +
+                ", count=" + count +
+                ", watermark=" + watermark +
+                '}';
+    }
+}
@@ -5,6 +5,8 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
 
+import java.time.LocalDateTime;
+
 /**
  * DTO for device registration requests
  * Used by DeviceRegistrationAPI POST /Device/register endpoint
@@ -13,10 +15,17 @@ import jakarta.validation.constraints.Size;
  * - Input validation to prevent injection attacks
  * - Size constraints to prevent buffer overflow
  * - Pattern validation for device type enumeration
+ * - Optional statistics dimensions restricted to short alphanumeric tokens
+ * - Optional request id (UUID) and login time, sent unchanged with every attempt of one login,
+ *   so a hedged or retried registration is logged once
  * - JSON property mapping for consistent API contract
  */
 public class DeviceRegistrationRequest {
 
+    private static final String DIMENSION_PATTERN = "^[A-Za-z0-9._-]{1,32}$";
+
+    private static final String DIMENSION_MESSAGE = "must be 1 to 32 letters, digits, '.', '_' or '-'";
+
     @NotBlank(message = "User key is required")
     @Size(min = 1, max = 255, message = "User key must be between 1 and 255 characters")
     @JsonProperty("userKey")
@@ -28,6 +37,29 @@ public class DeviceRegistrationRequest {
     @JsonProperty("deviceType")
     private String deviceType;
 
+    // Optional statistics dimensions; null when the client does not report them
+    @Pattern(regexp = DIMENSION_PATTERN, message = "App version " + DIMENSION_MESSAGE)
+    @JsonProperty("appVersion")
+    private String appVersion;
+
+    @Pattern(regexp = DIMENSION_PATTERN, message = "OS version " + DIMENSION_MESSAGE)
+    @JsonProperty("osVersion")
+    private String osVersion;
+
+    @Pattern(regexp = DIMENSION_PATTERN, message = "Region " + DIMENSION_MESSAGE)
+    @JsonProperty("region")
+    private String region;
+
+    // Identifies one logical login across hedged and retried attempts; null when the caller never repeats
+    @Pattern(regexp = "^[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}$",
+             message = "Request id must be a UUID")
+    @JsonProperty("requestId")
+    private String requestId;
+
+    // Time of the login at the caller; null to use the time of arrival
+    @JsonProperty("loginTime")
+    private LocalDateTime loginTime;
+
     // Default constructor for JSON deserialization
     public DeviceRegistrationRequest() {}
 
@@ -36,6 +68,14 @@ public class DeviceRegistrationRequest {
         this.deviceType = deviceType;
     }
 
+    public DeviceRegistrationRequest(String userKey, String deviceType, String appVersion, String osVersion, String region) {
+        this.userKey = userKey;
+        this.deviceType = deviceType;
+        this.appVersion = appVersion;
+        this.osVersion = osVersion;
+        this.region = region;
+    }
+
     public String getUserKey() {
         return userKey;
     }
@@ -52,11 +92,56 @@ public class DeviceRegistrationRequest {
         this.deviceType = deviceType;
     }
 
+    public String getAppVersion() {
+        return appVersion;
+    }
+
+    public void setAppVersion(String appVersion) {
+        this.appVersion = appVersion;
+    }
+
+    public String getOsVersion() {
+        return osVersion;
+    }
+
+    public void setOsVersion(String osVersion) {
+        this.osVersion = osVersion;
+    }
+
+    public String getRegion() {
+        return region;
+    }
+
+    public void setRegion(String region) {
+        this.region = region;
+    }
+
+    public String getRequestId() {
+        return requestId;
+    }
+
+    public void setRequestId(String requestId) {
+        this.requestId = requestId;
+    }
+
+    public LocalDateTime getLoginTime() {
+        return loginTime;
+    }
+
+    public void setLoginTime(LocalDateTime loginTime) {
+        this.loginTime = loginTime;
+    }
+
     @Override
     public String toString() {
         return "DeviceRegistrationRequest{" +
                 "userKey='" + userKey + '\'' +
                 ", deviceType='" + deviceType + '\'' +
+                ", appVersion='" + appVersion + '\'' +
+                ", osVersion='" + osVersion + '\'' +
+                ", region='" + region + '\'' +
+                ", requestId='" + requestId + '\'' +
+                ", loginTime=" + loginTime +
                 '}';
     }
 }
\ No newline at end of file
@@ -36,6 +36,10 @@ public class DeviceRegistrationResponse {
         return new DeviceRegistrationResponse(500);
     }
 
+    public static DeviceRegistrationResponse serviceUnavailable() {
+        return new DeviceRegistrationResponse(503);
+    }
+
     public Integer getStatusCode() {
         return statusCode;
     }
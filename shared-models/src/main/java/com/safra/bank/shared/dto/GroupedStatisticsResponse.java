@@ -0,0 +1,139 @@
+package com.safra.bank.shared.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DTO for grouped device statistics responses
+ * Used by StatisticsAPI GET /Log/auth/statistics/groups endpoint
+ *
+ * DevSecOps Features:
+ * - Standardized response format
+ * - Error indication with -1 total value (consistent with StatisticsResponse)
+ * - Returns registration counts only; no user identifiers are exposed
+ */
+public class GroupedStatisticsResponse {
+
+    @JsonProperty("groupBy")
+    private List<String> groupBy;
+
+    @JsonProperty("groups")
+    private List<Group> groups;
+
+    @JsonProperty("total")
+    private Long total;
+
+    // True when more groups matched than were returned
+    @JsonProperty("truncated")
+    private boolean truncated;
+
+    // Default constructor for JSON serialization
+    public GroupedStatisticsResponse() {}
+
+    public GroupedStatisticsResponse(List<String> groupBy, List<Group> groups, Long total, boolean truncated) {
+        this.groupBy = groupBy;
+        this.groups = groups;
+        this.total = total;
+        this.truncated = truncated;
+    }
+
+    // Factory method for error response
+    public static GroupedStatisticsResponse error(List<String> groupBy) {
+        return new GroupedStatisticsResponse(groupBy, List.of(), -1L, false);
+    }
+
+    // Factory method for success response
+    public static GroupedStatisticsResponse success(List<String> groupBy, List<Group> groups, long total,
+                                                    boolean truncated) {
+        return new GroupedStatisticsResponse(groupBy, groups, total, truncated);
+    }
+
+    public List<String> getGroupBy() {
+        return groupBy;
+    }
+
+    public void setGroupBy(List<String> groupBy) {
+        this.groupBy = groupBy;
+    }
+
+    public List<Group> getGroups() {
+        return groups;
+    }
+
+    public void setGroups(List<Group> groups) {
+        this.groups = groups;
+    }
+
+    public Long getTotal() {
+        return total;
+    }
+
+    public void setTotal(Long total) {
+        this.total = total;
+    }
+
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    public void setTruncated(boolean truncated) {
+        this.truncated = truncated;
+    }
+
+    @Override
+    public String toString() {
+        return "GroupedStatisticsResponse{" +
+                "groupBy=" + groupBy +
+                ", groups=" + (groups != null ? groups.size() : 0) +
+                ", total=" + total +
+                ", truncated=" + truncated +
+                '}';
+    }
+
+    /**
+     * Registration count of one combination of the grouped dimensions
+     * A null dimension value means registrations that did not report it
+     */
+    public static class Group {
+
+        @JsonProperty("dimensions")
+        private Map<String, String> dimensions;
+
+        @JsonProperty("count")
+        private Long count;
+
+        // Default constructor for JSON serialization
+        public Group() {}
+
+        public Group(Map<String, String> dimensions, Long count) {
+            this.dimensions = dimensions;
+            this.count = count;
+        }
+
+        public Map<String, String> getDimensions() {
+            return dimensions;
+        }
+
+        public void setDimensions(Map<String, String> dimensions) {
+            this.dimensions = dimensions;
+        }
+
+        public Long getCount() {
+            return count;
+        }
+
+        public void setCount(Long count) {
+            this.count = count;
+        }
+
+        @Override
+        public String toString() {
+            return "Group{" +
+                    "dimensions=" + dimensions +
+                    ", count=" + count +
+                    '}';
+        }
+    }
+}
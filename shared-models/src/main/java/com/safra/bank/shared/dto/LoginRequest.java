@@ -13,10 +13,15 @@ import jakarta.validation.constraints.Size;
  * - Input validation to prevent injection attacks
  * - Size constraints to prevent buffer overflow
  * - Pattern validation for device type enumeration
+ * - Optional statistics dimensions restricted to short alphanumeric tokens
  * - JSON property mapping for consistent API contract
  */
 public class LoginRequest {
 
+    public static final String DIMENSION_PATTERN = "^[A-Za-z0-9._-]{1,32}$";
+
+    private static final String DIMENSION_MESSAGE = "must be 1 to 32 letters, digits, '.', '_' or '-'";
+
     @NotBlank(message = "User key is required")
     @Size(min = 1, max = 255, message = "User key must be between 1 and 255 characters")
     @JsonProperty("userKey")
@@ -28,6 +33,19 @@ public class LoginRequest {
     @JsonProperty("deviceType")
     private String deviceType;
 
+    // Optional statistics dimensions; null when the client does not report them
+    @Pattern(regexp = DIMENSION_PATTERN, message = "App version " + DIMENSION_MESSAGE)
+    @JsonProperty("appVersion")
+    private String appVersion;
+
+    @Pattern(regexp = DIMENSION_PATTERN, message = "OS version " + DIMENSION_MESSAGE)
+    @JsonProperty("osVersion")
+    private String osVersion;
+
+    @Pattern(regexp = DIMENSION_PATTERN, message = "Region " + DIMENSION_MESSAGE)
+    @JsonProperty("region")
+    private String region;
+
     // Default constructor for JSON deserialization
     public LoginRequest() {}
 
@@ -36,6 +54,14 @@ public class LoginRequest {
         this.deviceType = deviceType;
     }
 
+    public LoginRequest(String userKey, String deviceType, String appVersion, String osVersion, String region) {
+        this.userKey = userKey;
+        this.deviceType = deviceType;
+        this.appVersion = appVersion;
+        this.osVersion = osVersion;
+        this.region = region;
+    }
+
     public String getUserKey() {
         return userKey;
     }
@@ -52,11 +78,38 @@ public class LoginRequest {
         this.deviceType = deviceType;
     }
 
+    public String getAppVersion() {
+        return appVersion;
+    }
+
+    public void setAppVersion(String appVersion) {
+        this.appVersion = appVersion;
+    }
+
+    public String getOsVersion() {
+        return osVersion;
+    }
+
+    public void setOsVersion(String osVersion) {
+        this.osVersion = osVersion;
+    }
+
+    public String getRegion() {
+        return region;
+    }
+
+    public void setRegion(String region) {
+        this.region = region;
+    }
+
     @Override
     public String toString() {
         return "LoginRequest{" +
                 "userKey='" + userKey + '\'' +
                 ", deviceType='" + deviceType + '\'' +
+                ", appVersion='" + appVersion + '\'' +
+                ", osVersion='" + osVersion + '\'' +
+                ", region='" + region + '\'' +
                 '}';
     }
 }
\ No newline at end of file
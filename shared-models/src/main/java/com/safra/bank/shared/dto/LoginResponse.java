@@ -40,6 +40,14 @@ public class LoginResponse {
         return new LoginResponse(500, "internal_error");
     }
 
+    public static LoginResponse tooManyRequests() {
+        return new LoginResponse(429, "too_many_requests");
+    }
+
+    public static LoginResponse serviceUnavailable() {
+        return new LoginResponse(503, "service_unavailable");
+    }
+
     public Integer getStatusCode() {
         return statusCode;
     }
@@ -0,0 +1,166 @@
+package com.safra.bank.shared.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DTO for login volume over time
+ * Used by StatisticsAPI GET /Log/auth/statistics/logins endpoint
+ *
+ * DevSecOps Features:
+ * - Standardized response format
+ * - Error indication with -1 total value (consistent with StatisticsResponse)
+ * - Returns login counts only; no user identifiers are exposed
+ */
+public class LoginVolumeResponse {
+
+    @JsonProperty("interval")
+    private String interval;
+
+    // Start of the first bucket (inclusive), ISO-8601 local date-time
+    @JsonProperty("from")
+    private String from;
+
+    // End of the range (exclusive), ISO-8601 local date-time
+    @JsonProperty("to")
+    private String to;
+
+    @JsonProperty("buckets")
+    private List<Bucket> buckets;
+
+    @JsonProperty("total")
+    private Long total;
+
+    // Default constructor for JSON serialization
+    public LoginVolumeResponse() {}
+
+    public LoginVolumeResponse(String interval, String from, String to, List<Bucket> buckets, Long total) {
+        this.interval = interval;
+        this.from = from;
+        this.to = to;
+        this.buckets = buckets;
+        this.total = total;
+    }
+
+    // Factory method for error response
+    public static LoginVolumeResponse error(String interval) {
+        return new LoginVolumeResponse(interval, null, null, List.of(), -1L);
+    }
+
+    // Factory method for success response
+    public static LoginVolumeResponse success(String interval, String from, String to, List<Bucket> buckets,
+                                              long total) {
+        return new LoginVolumeResponse(interval, from, to, buckets, total);
+    }
+
+    public String getInterval() {
+        return interval;
+    }
+
+    public void setInterval(String interval) {
+        this.interval = interval;
+    }
+
+    public String getFrom() {
+        return from;
+    }
+
+    public void setFrom(String from) {
+        this.from = from;
+    }
+
+    public String getTo() {
+        return to;
+    }
+
+    public void setTo(String to) {
+        this.to = to;
+    }
+
+    public List<Bucket> getBuckets() {
+        return buckets;
+    }
+
+    public void setBuckets(List<Bucket> buckets) {
+        this.buckets = buckets;
+    }
+
+    public Long getTotal() {
+        return total;
+    }
+
+    public void setTotal(Long total) {
+        this.total = total;
+    }
+
+    @Override
+    public String toString() {
+        return "LoginVolumeResponse{" +
+                "interval='" + interval + '\'' +
+                ", from='" + from + '\'' +
+                ", to='" + to + '\'' +
+                ", buckets=" + (buckets != null ? buckets.size() : 0) +
+                ", total=" + total +
+                '}';
+    }
+
+    /**
+     * Logins per device type in one time bucket; device types without logins are omitted
+     */
+    public static class Bucket {
+
+        // Bucket start, ISO-8601 local date-time
+        @JsonProperty("start")
+        private String start;
+
+        @JsonProperty("logins")
+        private Map<String, Long> logins;
+
+        @JsonProperty("total")
+        private Long total;
+
+        // Default constructor for JSON serialization
+        public Bucket() {}
+
+        public Bucket(String start, Map<String, Long> logins, Long total) {
+            this.start = start;
+            this.logins = logins;
+            this.total = total;
+        }
+
+        public String getStart() {
+            return start;
+        }
+
+        public void setStart(String start) {
+            this.start = start;
+        }
+
+        public Map<String, Long> getLogins() {
+            return logins;
+        }
+
+        public void setLogins(Map<String, Long> logins) {
+            this.logins = logins;
+        }
+
+        public Long getTotal() {
+            return total;
+        }
+
+        public void setTotal(Long total) {
+            this.total = total;
+        }
+
+        @Override
+        public String toString() {
+            return "Bucket{" +
+                    "start='" + start + '\'' +
+                    ", logins=" + logins +
+                    ", total=" + total +
+                    '}';
+        }
+    }
+}
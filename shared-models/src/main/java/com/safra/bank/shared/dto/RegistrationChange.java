@@ -0,0 +1,130 @@
+package com.safra.bank.shared.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * DTO for one registration change delivered from the device-registration-api outbox
+ * HTTP subscribers receive a JSON array of these per request
+ *
+ * DevSecOps Features:
+ * - Delivery is at least once: a change can arrive again after a failure or restart,
+ *   so consumers should deduplicate by id (unique per shard)
+ * - Carries the userKey, so subscriber endpoints must be internal
+ */
+public class RegistrationChange {
+
+    @JsonProperty("id")
+    private Long id;
+
+    // REGISTERED or DIMENSIONS_CHANGED
+    @JsonProperty("type")
+    private String type;
+
+    @JsonProperty("userKey")
+    private String userKey;
+
+    @JsonProperty("deviceType")
+    private String deviceType;
+
+    @JsonProperty("appVersion")
+    private String appVersion;
+
+    @JsonProperty("osVersion")
+    private String osVersion;
+
+    @JsonProperty("region")
+    private String region;
+
+    // ISO-8601 local date-time of the committing registration
+    @JsonProperty("occurredAt")
+    private String occurredAt;
+
+    // Default constructor for JSON serialization
+    public RegistrationChange() {}
+
+    public RegistrationChange(Long id, String type, String userKey, String deviceType, String appVersion,
+                              String osVersion, String region, String occurredAt) {
+        this.id = id;
+        this.type = type;
+        this.userKey = userKey;
+        this.deviceType = deviceType;
+        this.appVersion = appVersion;
+        this.osVersion = osVersion;
+        this.region = region;
+        this.occurredAt = occurredAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getUserKey() {
+        return userKey;
+    }
+
+    public void setUserKey(String userKey) {
+        this.userKey = userKey;
+    }
+
+    public String getDeviceType() {
+        return deviceType;
+    }
+
+    public void setDeviceType(String deviceType) {
+        this.deviceType = deviceType;
+    }
+
+    public String getAppVersion() {
+        return appVersion;
+    }
+
+    public void setAppVersion(String appVersion) {
+        this.appVersion = appVersion;
+    }
+
+    public String getOsVersion() {
+        return osVersion;
+    }
+
+    public void setOsVersion(String osVersion) {
+        this.osVersion = osVersion;
+    }
+
+    public String getRegion() {
+        return region;
+    }
+
+    public void setRegion(String region) {
+        this.region = region;
+    }
+
+    public String getOccurredAt() {
+        return occurredAt;
+    }
+
+    public void setOccurredAt(String occurredAt) {
+        this.occurredAt = occurredAt;
+    }
+
+    @Override
+    public String toString() {
+        return "RegistrationChange{" +
+                "id=" + id +
+                ", type='" + type + '\'' +
+                ", deviceType='" + deviceType + '\'' +
+                ", occurredAt='" + occurredAt + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,53 @@
+package com.safra.bank.shared.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO for a single device type registered by a user
+ * Used by DeviceRegistrationAPI user device lookup endpoints
+ *
+ * DevSecOps Features:
+ * - Exposes only device type and last-seen time (no internal identifiers)
+ */
+public class UserDevice {
+
+    @JsonProperty("deviceType")
+    private String deviceType;
+
+    @JsonProperty("lastSeen")
+    private LocalDateTime lastSeen;
+
+    // Default constructor for JSON serialization
+    public UserDevice() {}
+
+    public UserDevice(String deviceType, LocalDateTime lastSeen) {
+        this.deviceType = deviceType;
+        this.lastSeen = lastSeen;
+    }
+
+    public String getDeviceType() {
+        return deviceType;
+    }
+
+    public void setDeviceType(String deviceType) {
+        this.deviceType = deviceType;
+    }
+
+    public LocalDateTime getLastSeen() {
+        return lastSeen;
+    }
+
+    public void setLastSeen(LocalDateTime lastSeen) {
+        this.lastSeen = lastSeen;
+    }
+
+    @Override
+    public String toString() {
+        return "UserDevice{" +
+                "deviceType='" + deviceType + '\'' +
+                ", lastSeen=" + lastSeen +
+                '}';
+    }
+}
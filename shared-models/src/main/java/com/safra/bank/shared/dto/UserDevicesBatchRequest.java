@@ -0,0 +1,46 @@
+package com.safra.bank.shared.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+/**
+ * DTO for batch user device lookup requests
+ * Used by DeviceRegistrationAPI POST /Device/lookup/batch endpoint
+ *
+ * DevSecOps Features:
+ * - Bounded batch size to cap per-request database work
+ * - Size constraints on every user key
+ */
+public class UserDevicesBatchRequest {
+
+    @NotEmpty(message = "At least one user key is required")
+    @Size(max = 10000, message = "At most 10000 user keys per request")
+    @JsonProperty("userKeys")
+    private List<@NotBlank @Size(max = 255) String> userKeys;
+
+    // Default constructor for JSON deserialization
+    public UserDevicesBatchRequest() {}
+
+    public UserDevicesBatchRequest(List<String> userKeys) {
+        this.userKeys = userKeys;
+    }
+
+    public List<String> getUserKeys() {
+        return userKeys;
+    }
+
+    public void setUserKeys(List<String> userKeys) {
+        this.userKeys = userKeys;
+    }
+
+    @Override
+    public String toString() {
+        return "UserDevicesBatchRequest{" +
+                "userKeys=" + (userKeys != null ? userKeys.size() : 0) +
+                '}';
+    }
+}
@@ -0,0 +1,54 @@
+package com.safra.bank.shared.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * DTO for user device lookup responses
+ * Used by DeviceRegistrationAPI GET /Device/lookup and POST /Device/lookup/batch endpoints
+ *
+ * DevSecOps Features:
+ * - Standardized response format
+ * - Empty device list for unknown users (no existence oracle beyond the list itself)
+ */
+public class UserDevicesResponse {
+
+    @JsonProperty("userKey")
+    private String userKey;
+
+    @JsonProperty("devices")
+    private List<UserDevice> devices;
+
+    // Default constructor for JSON serialization
+    public UserDevicesResponse() {}
+
+    public UserDevicesResponse(String userKey, List<UserDevice> devices) {
+        this.userKey = userKey;
+        this.devices = devices;
+    }
+
+    public String getUserKey() {
+        return userKey;
+    }
+
+    public void setUserKey(String userKey) {
+        this.userKey = userKey;
+    }
+
+    public List<UserDevice> getDevices() {
+        return devices;
+    }
+
+    public void setDevices(List<UserDevice> devices) {
+        this.devices = devices;
+    }
+
+    @Override
+    public String toString() {
+        return "UserDevicesResponse{" +
+                "userKey='" + userKey + '\'' +
+                ", devices=" + devices +
+                '}';
+    }
+}
@@ -3,6 +3,8 @@ package com.safra.bank.shared.entity;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import java.time.LocalDateTime;
 import java.util.Objects;
 
@@ -14,8 +16,18 @@ import java.util.Objects;
  * - Uses validation annotations to prevent injection attacks
  * - Implements proper equals/hashCode for entity integrity
  * - Includes audit fields for security tracking
+ *
+ * Performance Notes:
+ * - (userKey, deviceType) is the immutable natural key enforced by uk_user_device
+ * - appVersion, osVersion and region are the latest reported statistics dimensions;
+ *   registrations are counted by them in {@link RegistrationCubeCell}
+ * - Only the (userKey, deviceType) -> id resolution is held in a bounded second-level cache region
+ *   (see application.conf), since the natural key never changes for a row. The entity itself is
+ *   not cached: its dimensions and updated_at change, partly through JDBC batch updates that
+ *   would bypass a cached copy, so it is always read by primary key
  */
 @Entity
+@NaturalIdCache(region = DeviceRegistration.NATURAL_ID_CACHE_REGION)
 @Table(name = "device_registrations", 
        indexes = {
            @Index(name = "idx_device_type", columnList = "deviceType"),
@@ -28,20 +40,33 @@ import java.util.Objects;
        })
 public class DeviceRegistration {
 
+    public static final String NATURAL_ID_CACHE_REGION = "device-registration-natural-id";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    @NaturalId
     @NotBlank(message = "User key cannot be blank")
     @Column(name = "userKey", nullable = false, length = 255)
     private String userKey;
 
+    @NaturalId
     @NotBlank(message = "Device type cannot be blank")
     @Pattern(regexp = "^(iOS|Android|Watch|TV)$", 
              message = "Device type must be one of: iOS, Android, Watch, TV")
     @Column(name = "deviceType", nullable = false, length = 50)
     private String deviceType;
 
+    @Column(name = "appVersion", length = 32)
+    private String appVersion;
+
+    @Column(name = "osVersion", length = 32)
+    private String osVersion;
+
+    @Column(name = "region", length = 32)
+    private String region;
+
     @Column(name = "createdAt", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
@@ -93,6 +118,30 @@ public class DeviceRegistration {
         this.deviceType = deviceType;
     }
 
+    public String getAppVersion() {
+        return appVersion;
+    }
+
+    public void setAppVersion(String appVersion) {
+        this.appVersion = appVersion;
+    }
+
+    public String getOsVersion() {
+        return osVersion;
+    }
+
+    public void setOsVersion(String osVersion) {
+        this.osVersion = osVersion;
+    }
+
+    public String getRegion() {
+        return region;
+    }
+
+    public void setRegion(String region) {
+        this.region = region;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -129,6 +178,9 @@ public class DeviceRegistration {
                 "id=" + id +
                 ", userKey='" + userKey + '\'' +
                 ", deviceType='" + deviceType + '\'' +
+                ", appVersion='" + appVersion + '\'' +
+                ", osVersion='" + osVersion + '\'' +
+                ", region='" + region + '\'' +
                 ", createdAt=" + createdAt +
                 ", updatedAt=" + updatedAt +
                 '}';
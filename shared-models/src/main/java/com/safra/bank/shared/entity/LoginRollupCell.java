@@ -0,0 +1,142 @@
+package com.safra.bank.shared.entity;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * JPA Entity for one hourly login rollup cell
+ * Holds the number of logins per (hour, deviceType) recorded in the login_events log;
+ * login volume over time is answered by summing cells instead of scanning the log
+ *
+ * DevSecOps Notes:
+ * - Holds counts only; no user identifiers are stored
+ *
+ * Performance Notes:
+ * - Cells are maintained incrementally by device-registration-api with batched
+ *   INSERT ... ON CONFLICT DO UPDATE deltas, in the same transaction as the log rows they count
+ *   (see login_rollup in database/sql/schema.sql)
+ * - The table grows by at most one row per device type and hour
+ * - With sharded storage every shard holds the rollup of its own login events
+ */
+@Entity
+@IdClass(LoginRollupCell.Key.class)
+@Table(name = "login_rollup")
+public class LoginRollupCell {
+
+    @Id
+    @Column(name = "bucketStart", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Id
+    @Column(name = "deviceType", nullable = false, length = 50)
+    private String deviceType;
+
+    @Column(name = "logins", nullable = false)
+    private long logins;
+
+    @Column(name = "updatedAt", nullable = false)
+    private LocalDateTime updatedAt;
+
+    // Constructors
+    public LoginRollupCell() {}
+
+    public LoginRollupCell(LocalDateTime bucketStart, String deviceType, long logins) {
+        this.bucketStart = bucketStart;
+        this.deviceType = deviceType;
+        this.logins = logins;
+    }
+
+    @PrePersist
+    @PreUpdate
+    protected void onWrite() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public LocalDateTime getBucketStart() {
+        return bucketStart;
+    }
+
+    public void setBucketStart(LocalDateTime bucketStart) {
+        this.bucketStart = bucketStart;
+    }
+
+    public String getDeviceType() {
+        return deviceType;
+    }
+
+    public void setDeviceType(String deviceType) {
+        this.deviceType = deviceType;
+    }
+
+    public long getLogins() {
+        return logins;
+    }
+
+    public void setLogins(long logins) {
+        this.logins = logins;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        LoginRollupCell that = (LoginRollupCell) o;
+        return Objects.equals(bucketStart, that.bucketStart) &&
+               Objects.equals(deviceType, that.deviceType);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(bucketStart, deviceType);
+    }
+
+    @Override
+    public String toString() {
+        return "LoginRollupCell{" +
+                "bucketStart=" + bucketStart +
+                ", deviceType='" + deviceType + '\'' +
+                ", logins=" + logins +
+                '}';
+    }
+
+    /**
+     * Composite primary key: hour and device type
+     */
+    public static class Key implements Serializable {
+
+        private LocalDateTime bucketStart;
+        private String deviceType;
+
+        public Key() {}
+
+        public Key(LocalDateTime bucketStart, String deviceType) {
+            this.bucketStart = bucketStart;
+            this.deviceType = deviceType;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key that = (Key) o;
+            return Objects.equals(bucketStart, that.bucketStart) &&
+                   Objects.equals(deviceType, that.deviceType);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(bucketStart, deviceType);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.safra.bank.shared.entity;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * JPA Entity for one cell of the pre-aggregated registration cube
+ * Holds the number of registrations per (deviceType, appVersion, osVersion, region);
+ * group-by statistics over any subset of the dimensions are answered by summing cells
+ * instead of scanning device_registrations
+ *
+ * DevSecOps Notes:
+ * - Holds counts only; no user identifiers are stored
+ * - Dimensions a client did not report are stored as an empty string, so every
+ *   key column is NOT NULL and part of the primary key
+ *
+ * Performance Notes:
+ * - Cells are maintained incrementally by device-registration-api with batched
+ *   INSERT ... ON CONFLICT DO UPDATE deltas (see registration_cube in database/sql/schema.sql)
+ * - The table size depends on the number of distinct dimension combinations,
+ *   not on the number of registrations
+ * - With sharded storage every shard holds the cube of its own registrations
+ */
+@Entity
+@IdClass(RegistrationCubeCell.Key.class)
+@Table(name = "registration_cube")
+public class RegistrationCubeCell {
+
+    /**
+     * Stored value of a dimension the client did not report
+     */
+    public static final String UNKNOWN = "";
+
+    @Id
+    @Column(name = "deviceType", nullable = false, length = 50)
+    private String deviceType;
+
+    @Id
+    @Column(name = "appVersion", nullable = false, length = 32)
+    private String appVersion;
+
+    @Id
+    @Column(name = "osVersion", nullable = false, length = 32)
+    private String osVersion;
+
+    @Id
+    @Column(name = "region", nullable = false, length = 32)
+    private String region;
+
+    @Column(name = "registrations", nullable = false)
+    private long registrations;
+
+    @Column(name = "updatedAt", nullable = false)
+    private LocalDateTime updatedAt;
+
+    // Constructors
+    public RegistrationCubeCell() {}
+
+    public RegistrationCubeCell(String deviceType, String appVersion, String osVersion, String region,
+                                long registrations) {
+        this.deviceType = deviceType;
+        this.appVersion = appVersion;
+        this.osVersion = osVersion;
+        this.region = region;
+        this.registrations = registrations;
+    }
+
+    @PrePersist
+    @PreUpdate
+    protected void onWrite() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public String getDeviceType() {
+        return deviceType;
+    }
+
+    public void setDeviceType(String deviceType) {
+        this.deviceType = deviceType;
+    }
+
+    public String getAppVersion() {
+        return appVersion;
+    }
+
+    public void setAppVersion(String appVersion) {
+        this.appVersion = appVersion;
+    }
+
+    public String getOsVersion() {
+        return osVersion;
+    }
+
+    public void setOsVersion(String osVersion) {
+        this.osVersion = osVersion;
+    }
+
+    public String getRegion() {
+        return region;
+    }
+
+    public void setRegion(String region) {
+        this.region = region;
+    }
+
+    public long getRegistrations() {
+        return registrations;
+    }
+
+    public void setRegistrations(long registrations) {
+        this.registrations = registrations;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        RegistrationCubeCell that = (RegistrationCubeCell) o;
+        return Objects.equals(deviceType, that.deviceType) &&
+               Objects.equals(appVersion, that.appVersion) &&
+               Objects.equals(osVersion, that.osVersion) &&
+               Objects.equals(region, that.region);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(deviceType, appVersion, osVersion, region);
+    }
+
+    @Override
+    public String toString() {
+        return "RegistrationCubeCell{" +
+                "deviceType='" + deviceType + '\'' +
+                ", appVersion='" + appVersion + '\'' +
+                ", osVersion='" + osVersion + '\'' +
+                ", region='" + region + '\'' +
+                ", registrations=" + registrations +
+                '}';
+    }
+
+    /**
+     * Composite primary key: the four dimensions
+     */
+    public static class Key implements Serializable {
+
+        private String deviceType;
+        private String appVersion;
+        private String osVersion;
+        private String region;
+
+        public Key() {}
+
+        public Key(String deviceType, String appVersion, String osVersion, String region) {
+            this.deviceType = deviceType;
+            this.appVersion = appVersion;
+            this.osVersion = osVersion;
+            this.region = region;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key that = (Key) o;
+            return Objects.equals(deviceType, that.deviceType) &&
+                   Objects.equals(appVersion, that.appVersion) &&
+                   Objects.equals(osVersion, that.osVersion) &&
+                   Objects.equals(region, that.region);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(deviceType, appVersion, osVersion, region);
+        }
+    }
+}
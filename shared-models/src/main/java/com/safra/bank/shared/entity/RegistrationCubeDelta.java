@@ -0,0 +1,130 @@
+package com.safra.bank.shared.entity;
+
+import jakarta.persistence.*;
+import java.util.Objects;
+
+/**
+ * JPA Entity for one registration cube delta not yet applied to the cube
+ * device-registration-api inserts +1 for a new registration, and -1/+1 for a dimension change,
+ * in the registration transaction; a flush sums the rows per cell into registration_cube
+ * (see {@link RegistrationCubeCell}) and deletes them in one statement
+ *
+ * DevSecOps Notes:
+ * - The delta commits or rolls back with the registration, so the cube survives crashes and
+ *   never counts registrations that did not happen
+ * - Holds counts only; no user identifiers are stored
+ *
+ * Performance Notes:
+ * - Append-only until the next flush, so registrations never wait on a popular cube row
+ * - The table holds only unapplied deltas (about one flush interval of new registrations)
+ * - With sharded storage every shard holds the deltas of its own registrations
+ */
+@Entity
+@Table(name = "registration_cube_deltas")
+public class RegistrationCubeDelta {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "deviceType", nullable = false, length = 50)
+    private String deviceType;
+
+    @Column(name = "appVersion", nullable = false, length = 32)
+    private String appVersion;
+
+    @Column(name = "osVersion", nullable = false, length = 32)
+    private String osVersion;
+
+    @Column(name = "region", nullable = false, length = 32)
+    private String region;
+
+    // +1 or -1 registrations in the cell
+    @Column(name = "delta", nullable = false)
+    private int delta;
+
+    // Constructors
+    public RegistrationCubeDelta() {}
+
+    public RegistrationCubeDelta(String deviceType, String appVersion, String osVersion, String region, int delta) {
+        this.deviceType = deviceType;
+        this.appVersion = appVersion;
+        this.osVersion = osVersion;
+        this.region = region;
+        this.delta = delta;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getDeviceType() {
+        return deviceType;
+    }
+
+    public void setDeviceType(String deviceType) {
+        this.deviceType = deviceType;
+    }
+
+    public String getAppVersion() {
+        return appVersion;
+    }
+
+    public void setAppVersion(String appVersion) {
+        this.appVersion = appVersion;
+    }
+
+    public String getOsVersion() {
+        return osVersion;
+    }
+
+    public void setOsVersion(String osVersion) {
+        this.osVersion = osVersion;
+    }
+
+    public String getRegion() {
+        return region;
+    }
+
+    public void setRegion(String region) {
+        this.region = region;
+    }
+
+    public int getDelta() {
+        return delta;
+    }
+
+    public void setDelta(int delta) {
+        this.delta = delta;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        RegistrationCubeDelta that = (RegistrationCubeDelta) o;
+        return Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+
+    @Override
+    public String toString() {
+        return "RegistrationCubeDelta{" +
+                "id=" + id +
+                ", deviceType='" + deviceType + '\'' +
+                ", appVersion='" + appVersion + '\'' +
+                ", osVersion='" + osVersion + '\'' +
+                ", region='" + region + '\'' +
+                ", delta=" + delta +
+                '}';
+    }
+}
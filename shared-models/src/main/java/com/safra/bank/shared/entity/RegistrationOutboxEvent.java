@@ -0,0 +1,193 @@
+package com.safra.bank.shared.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * JPA Entity for one pending change in the registration outbox
+ * device-registration-api inserts a row in the transaction that creates a registration or
+ * changes its statistics dimensions; a relay delivers the rows to subscribers and deletes them
+ *
+ * DevSecOps Notes:
+ * - Rows exist only until every subscriber has acknowledged them, or until they are parked in
+ *   registration_outbox_parked after device.outbox.max-attempts failed deliveries
+ * - The row commits or rolls back with the registration, so subscribers never see
+ *   changes that did not happen and never miss changes that did
+ *
+ * Performance Notes:
+ * - The table holds only undelivered changes, so it stays small however many
+ *   registrations exist; the relay reads it through idx_registration_outbox_due
+ * - Relays claim rows with FOR UPDATE SKIP LOCKED and never wait on each other
+ * - With sharded storage every shard holds the outbox of its own registrations
+ */
+@Entity
+@Table(name = "registration_outbox",
+       indexes = {
+           @Index(name = "idx_registration_outbox_due", columnList = "nextAttemptAt, id")
+       })
+public class RegistrationOutboxEvent {
+
+    /**
+     * A (userKey, deviceType) registration was created
+     */
+    public static final String REGISTERED = "REGISTERED";
+
+    /**
+     * A login reported different statistics dimensions for an existing registration
+     */
+    public static final String DIMENSIONS_CHANGED = "DIMENSIONS_CHANGED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "eventType", nullable = false, length = 32)
+    private String eventType;
+
+    @Column(name = "userKey", nullable = false, length = 255)
+    private String userKey;
+
+    @Column(name = "deviceType", nullable = false, length = 50)
+    private String deviceType;
+
+    @Column(name = "appVersion", length = 32)
+    private String appVersion;
+
+    @Column(name = "osVersion", length = 32)
+    private String osVersion;
+
+    @Column(name = "region", length = 32)
+    private String region;
+
+    @Column(name = "createdAt", nullable = false)
+    private LocalDateTime createdAt;
+
+    // Delivery attempts so far; the relay backs off exponentially between them
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    // Not claimable before this time (retry backoff, or the lease of a relay delivering it)
+    @Column(name = "nextAttemptAt", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    // Space-separated names of the subscribers that already acknowledged the change;
+    // a retry is only delivered to the others
+    @Column(name = "deliveredTo", length = 2000)
+    private String deliveredTo;
+
+    // Constructors
+    public RegistrationOutboxEvent() {}
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public void setEventType(String eventType) {
+        this.eventType = eventType;
+    }
+
+    public String getUserKey() {
+        return userKey;
+    }
+
+    public void setUserKey(String userKey) {
+        this.userKey = userKey;
+    }
+
+    public String getDeviceType() {
+        return deviceType;
+    }
+
+    public void setDeviceType(String deviceType) {
+        this.deviceType = deviceType;
+    }
+
+    public String getAppVersion() {
+        return appVersion;
+    }
+
+    public void setAppVersion(String appVersion) {
+        this.appVersion = appVersion;
+    }
+
+    public String getOsVersion() {
+        return osVersion;
+    }
+
+    public void setOsVersion(String osVersion) {
+        this.osVersion = osVersion;
+    }
+
+    public String getRegion() {
+        return region;
+    }
+
+    public void setRegion(String region) {
+        this.region = region;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public LocalDateTime getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    public String getDeliveredTo() {
+        return deliveredTo;
+    }
+
+    public void setDeliveredTo(String deliveredTo) {
+        this.deliveredTo = deliveredTo;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        RegistrationOutboxEvent that = (RegistrationOutboxEvent) o;
+        return Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+
+    @Override
+    public String toString() {
+        return "RegistrationOutboxEvent{" +
+                "id=" + id +
+                ", eventType='" + eventType + '\'' +
+                ", deviceType='" + deviceType + '\'' +
+                ", attempts=" + attempts +
+                '}';
+    }
+}
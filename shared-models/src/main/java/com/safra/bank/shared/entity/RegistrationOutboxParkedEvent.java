@@ -0,0 +1,174 @@
+package com.safra.bank.shared.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * JPA Entity for a registration change the outbox relay gave up on
+ * A change moves here from registration_outbox (see {@link RegistrationOutboxEvent}) when a
+ * subscriber still has not acknowledged it after device.outbox.max-attempts deliveries
+ *
+ * DevSecOps Notes:
+ * - Parked changes are kept for inspection; re-insert them into registration_outbox to deliver
+ *   them again once the subscriber is fixed
+ *
+ * Performance Notes:
+ * - Keeps the outbox small and stops healthy subscribers from seeing retries of changes that
+ *   a broken subscriber rejects
+ */
+@Entity
+@Table(name = "registration_outbox_parked")
+public class RegistrationOutboxParkedEvent {
+
+    // Id of the change in registration_outbox
+    @Id
+    private Long id;
+
+    @Column(name = "eventType", nullable = false, length = 32)
+    private String eventType;
+
+    @Column(name = "userKey", nullable = false, length = 255)
+    private String userKey;
+
+    @Column(name = "deviceType", nullable = false, length = 50)
+    private String deviceType;
+
+    @Column(name = "appVersion", length = 32)
+    private String appVersion;
+
+    @Column(name = "osVersion", length = 32)
+    private String osVersion;
+
+    @Column(name = "region", length = 32)
+    private String region;
+
+    @Column(name = "createdAt", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    // Space-separated names of the subscribers that never acknowledged the change
+    @Column(name = "failedSubscribers", nullable = false, length = 2000)
+    private String failedSubscribers;
+
+    @Column(name = "parkedAt", nullable = false)
+    private LocalDateTime parkedAt;
+
+    // Constructors
+    public RegistrationOutboxParkedEvent() {}
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public void setEventType(String eventType) {
+        this.eventType = eventType;
+    }
+
+    public String getUserKey() {
+        return userKey;
+    }
+
+    public void setUserKey(String userKey) {
+        this.userKey = userKey;
+    }
+
+    public String getDeviceType() {
+        return deviceType;
+    }
+
+    public void setDeviceType(String deviceType) {
+        this.deviceType = deviceType;
+    }
+
+    public String getAppVersion() {
+        return appVersion;
+    }
+
+    public void setAppVersion(String appVersion) {
+        this.appVersion = appVersion;
+    }
+
+    public String getOsVersion() {
+        return osVersion;
+    }
+
+    public void setOsVersion(String osVersion) {
+        this.osVersion = osVersion;
+    }
+
+    public String getRegion() {
+        return region;
+    }
+
+    public void setRegion(String region) {
+        this.region = region;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public String getFailedSubscribers() {
+        return failedSubscribers;
+    }
+
+    public void setFailedSubscribers(String failedSubscribers) {
+        this.failedSubscribers = failedSubscribers;
+    }
+
+    public LocalDateTime getParkedAt() {
+        return parkedAt;
+    }
+
+    public void setParkedAt(LocalDateTime parkedAt) {
+        this.parkedAt = parkedAt;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        RegistrationOutboxParkedEvent that = (RegistrationOutboxParkedEvent) o;
+        return Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+
+    @Override
+    public String toString() {
+        return "RegistrationOutboxParkedEvent{" +
+                "id=" + id +
+                ", eventType='" + eventType + '\'' +
+                ", deviceType='" + deviceType + '\'' +
+                ", attempts=" + attempts +
+                ", failedSubscribers='" + failedSubscribers + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,137 @@
+package com.safra.bank.shared.admission;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load model of one Hikari pool for the admission controllers of the services
+ * Predicts how long a request arriving now would wait for a connection from the pool's live
+ * queue length and the recent connection hold and acquire times (hikaricp.connections.usage /
+ * hikaricp.connections.acquire)
+ *
+ * Performance Notes:
+ * - Prediction reads two pool counters; averages are refreshed by {@link #sample} off the request path
+ * - Hold and acquire times are only recorded when a connection is returned or obtained, so a
+ *   stalled database produces no samples; while every connection is busy and none came back,
+ *   the hold time is taken to be at least the time since the last return (same for waiters)
+ * - A single long hold (a streamed /Device/export, a rebalance page loop) lands in one interval
+ *   and would dominate its mean; each interval's mean hold is capped at {@code MAX_HOLD_GROWTH}
+ *   times the average, so outliers nudge the average while a real slowdown still reaches it
+ *   within a few intervals (at most x2.5 per interval)
+ */
+public final class PoolLoad {
+
+    // Weight of the newest interval in the moving averages
+    private static final double ALPHA = 0.5;
+
+    // Largest interval mean hold folded into the average, as a multiple of the average
+    private static final double MAX_HOLD_GROWTH = 4.0;
+
+    private final HikariDataSource pool;
+
+    private Timer usage;
+
+    private Timer acquire;
+
+    private long lastUsageCount;
+
+    private double lastUsageTotal;
+
+    private long lastAcquireCount;
+
+    private double lastAcquireTotal;
+
+    private long lastReturnNanos;
+
+    private long lastAcquiredNanos;
+
+    private double holdAverage;
+
+    private double acquireAverage;
+
+    private volatile long holdNanos;
+
+    private volatile long acquireNanos;
+
+    public PoolLoad(HikariDataSource pool) {
+        this.pool = pool;
+    }
+
+    public String name() {
+        return pool.getPoolName();
+    }
+
+    /**
+     * Fold the connections returned and obtained since the previous call into the averages
+     * Only called from the sampling thread
+     */
+    public void sample(MeterRegistry meterRegistry, long nowNanos) {
+        HikariPoolMXBean mx = pool.getHikariPoolMXBean();
+        if (mx == null) {
+            // Pools start lazily
+            return;
+        }
+        if (usage == null || acquire == null) {
+            usage = meterRegistry.find("hikaricp.connections.usage").tag("pool", pool.getPoolName()).timer();
+            acquire = meterRegistry.find("hikaricp.connections.acquire").tag("pool", pool.getPoolName()).timer();
+            lastReturnNanos = nowNanos;
+            lastAcquiredNanos = nowNanos;
+            if (usage == null || acquire == null) {
+                return;
+            }
+        }
+
+        long usageCount = usage.count();
+        double usageTotal = usage.totalTime(TimeUnit.NANOSECONDS);
+        if (usageCount > lastUsageCount) {
+            double intervalHold = (usageTotal - lastUsageTotal) / (usageCount - lastUsageCount);
+            if (holdAverage > 0) {
+                intervalHold = Math.min(intervalHold, holdAverage * MAX_HOLD_GROWTH);
+            }
+            holdAverage = average(holdAverage, intervalHold);
+            lastReturnNanos = nowNanos;
+            holdNanos = (long) holdAverage;
+        } else if (mx.getActiveConnections() >= pool.getMaximumPoolSize()) {
+            holdNanos = Math.max((long) holdAverage, nowNanos - lastReturnNanos);
+        }
+        lastUsageCount = usageCount;
+        lastUsageTotal = usageTotal;
+
+        long acquireCount = acquire.count();
+        double acquireTotal = acquire.totalTime(TimeUnit.NANOSECONDS);
+        if (acquireCount > lastAcquireCount) {
+            acquireAverage = average(acquireAverage, (acquireTotal - lastAcquireTotal) / (acquireCount - lastAcquireCount));
+            lastAcquiredNanos = nowNanos;
+            acquireNanos = (long) acquireAverage;
+        } else if (mx.getThreadsAwaitingConnection() > 0) {
+            acquireNanos = Math.max((long) acquireAverage, nowNanos - lastAcquiredNanos);
+        }
+        lastAcquireCount = acquireCount;
+        lastAcquireTotal = acquireTotal;
+    }
+
+    /**
+     * @return predicted connection wait for a request arriving now, in nanoseconds
+     */
+    public long predictedWaitNanos() {
+        HikariPoolMXBean mx = pool.getHikariPoolMXBean();
+        if (mx == null) {
+            return 0;
+        }
+        int pending = mx.getThreadsAwaitingConnection();
+        if (pending == 0 && mx.getIdleConnections() > 0) {
+            return 0;
+        }
+        // Everyone queued ahead is served as connections come back, maximumPoolSize at a time
+        long queued = (pending + 1) * holdNanos / Math.max(1, pool.getMaximumPoolSize());
+        return pending > 0 ? Math.max(queued, acquireNanos) : queued;
+    }
+
+    private static double average(double current, double sample) {
+        return current == 0 ? sample : current + ALPHA * (sample - current);
+    }
+}
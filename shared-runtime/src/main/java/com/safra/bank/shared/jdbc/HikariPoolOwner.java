@@ -0,0 +1,18 @@
+package com.safra.bank.shared.jdbc;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import java.util.Collection;
+
+/**
+ * Implemented by beans holding Hikari pools that are not DataSource beans themselves,
+ * e.g. the shard pools behind a routing DataSource or a scatter-gather counter
+ * {@link HikariPools#find} includes these pools in place of the owning bean
+ */
+public interface HikariPoolOwner {
+
+    /**
+     * @return the pools owned by this bean
+     */
+    Collection<HikariDataSource> getPools();
+}
@@ -0,0 +1,78 @@
+package com.safra.bank.shared.jdbc;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationContext;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Finds the Hikari pools behind the DataSource beans and those of {@link HikariPoolOwner} beans
+ * Looks through {@link ProfilingDataSource} wrappers; a routing DataSource that owns shard pools
+ * is expanded into them
+ */
+public final class HikariPools {
+
+    private static final Logger logger = LoggerFactory.getLogger(HikariPools.class);
+
+    private HikariPools() {
+    }
+
+    /**
+     * @param applicationContext context holding the DataSource beans
+     * @return every distinct Hikari pool, including the shard pools when sharded
+     */
+    public static List<HikariDataSource> find(ApplicationContext applicationContext) {
+        Set<HikariDataSource> found = Collections.newSetFromMap(new IdentityHashMap<>());
+        applicationContext.getBeanProvider(HikariPoolOwner.class)
+            .orderedStream()
+            .forEach(owner -> found.addAll(owner.getPools()));
+        for (DataSource dataSource : applicationContext.getBeansOfType(DataSource.class).values()) {
+            if (dataSource instanceof HikariPoolOwner) {
+                continue;
+            }
+            try {
+                if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                    found.add(dataSource.unwrap(HikariDataSource.class));
+                }
+            } catch (SQLException e) {
+                logger.warn("Could not unwrap DataSource to its Hikari pool: {}", e.getMessage());
+            }
+        }
+        return List.copyOf(found);
+    }
+
+    /**
+     * Open connections until the pool holds maximum-pool-size, then return them all as idle
+     * Connections above minimum-idle are retired again after idle-timeout if unused
+     *
+     * @return connections held by the pool afterwards
+     */
+    public static int fill(HikariDataSource pool) {
+        List<Connection> borrowed = new ArrayList<>(pool.getMaximumPoolSize());
+        try {
+            while (borrowed.size() < pool.getMaximumPoolSize()) {
+                borrowed.add(pool.getConnection());
+            }
+        } catch (SQLException e) {
+            logger.warn("Could not fill connection pool {}: {}", pool.getPoolName(), e.getMessage());
+        } finally {
+            for (Connection connection : borrowed) {
+                try {
+                    connection.close();
+                } catch (SQLException e) {
+                    logger.debug("Failed to return connection to pool {}: {}", pool.getPoolName(), e.getMessage());
+                }
+            }
+        }
+        return pool.getHikariPoolMXBean() != null ? pool.getHikariPoolMXBean().getTotalConnections() : 0;
+    }
+}
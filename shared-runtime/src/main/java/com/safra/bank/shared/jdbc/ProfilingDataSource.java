@@ -0,0 +1,299 @@
+package com.safra.bank.shared.jdbc;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.function.Supplier;
+
+/**
+ * DataSource wrapper reporting connection-acquire wait and statement executions to {@link QueryProfiler}
+ * Connections, statements and result sets are JDK proxies; every call not needed for profiling
+ * goes straight to the pooled object, and unwrap() still reaches driver classes (e.g. PGConnection)
+ */
+public class ProfilingDataSource extends DelegatingDataSource {
+
+    // Proxy classes are resolved once; Proxy.newProxyInstance looks them up on every call
+    private static final Constructor<?> CONNECTION_PROXY = proxyConstructor(Connection.class);
+    private static final Constructor<?> STATEMENT_PROXY = proxyConstructor(Statement.class);
+    private static final Constructor<?> PREPARED_STATEMENT_PROXY = proxyConstructor(PreparedStatement.class);
+    private static final Constructor<?> CALLABLE_STATEMENT_PROXY = proxyConstructor(CallableStatement.class);
+    private static final Constructor<?> RESULT_SET_PROXY = proxyConstructor(ResultSet.class);
+
+    private final String name;
+
+    private final Supplier<QueryProfiler> profiler;
+
+    /**
+     * @param target the pool being profiled
+     * @param name datasource name used in reports and metrics
+     * @param profiler resolved on first use; the profiler bean may not exist yet when pools are wrapped
+     */
+    public ProfilingDataSource(DataSource target, String name, Supplier<QueryProfiler> profiler) {
+        super(target);
+        this.name = name;
+        this.profiler = profiler;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        try {
+            return profile(obtainTargetDataSource().getConnection(), start);
+        } catch (SQLException e) {
+            // Acquire timeouts are the pool starvation this measures
+            profiler.get().recordAcquire(name, System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        long start = System.nanoTime();
+        try {
+            return profile(obtainTargetDataSource().getConnection(username, password), start);
+        } catch (SQLException e) {
+            // Acquire timeouts are the pool starvation this measures
+            profiler.get().recordAcquire(name, System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    private Connection profile(Connection connection, long start) {
+        QueryProfiler queryProfiler = profiler.get();
+        queryProfiler.recordAcquire(name, System.nanoTime() - start);
+        return (Connection) newProxy(CONNECTION_PROXY, new ConnectionHandler(connection, queryProfiler));
+    }
+
+    private static Constructor<?> proxyConstructor(Class<?> type) {
+        try {
+            return Proxy.newProxyInstance(ProfilingDataSource.class.getClassLoader(), new Class<?>[] {type},
+                    (proxy, method, args) -> null)
+                .getClass().getConstructor(InvocationHandler.class);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("No proxy constructor for " + type, e);
+        }
+    }
+
+    private static Object newProxy(Constructor<?> constructor, InvocationHandler handler) {
+        try {
+            return constructor.newInstance(handler);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot create JDBC proxy", e);
+        }
+    }
+
+    private static Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    /**
+     * Handles the Object and Wrapper methods shared by all proxies
+     *
+     * @return the result, or null if the method is not one of them
+     */
+    private static Object invokeCommon(Object proxy, Object target, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return "Profiling[" + target + "]";
+            case "unwrap":
+                return ((Class<?>) args[0]).isInstance(proxy) ? proxy : invokeTarget(target, method, args);
+            case "isWrapperFor":
+                return ((Class<?>) args[0]).isInstance(proxy) || (Boolean) invokeTarget(target, method, args);
+            default:
+                return null;
+        }
+    }
+
+    private final class ConnectionHandler implements InvocationHandler {
+
+        private final Connection target;
+
+        private final QueryProfiler queryProfiler;
+
+        ConnectionHandler(Connection target, QueryProfiler queryProfiler) {
+            this.target = target;
+            this.queryProfiler = queryProfiler;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object common = invokeCommon(proxy, target, method, args);
+            if (common != null) {
+                return common;
+            }
+            Object result = invokeTarget(target, method, args);
+            return switch (method.getName()) {
+                case "prepareStatement", "prepareCall" ->
+                    profile((Statement) result, (String) args[0], (Connection) proxy);
+                case "createStatement" -> profile((Statement) result, null, (Connection) proxy);
+                default -> result;
+            };
+        }
+
+        private Statement profile(Statement statement, String sql, Connection connectionProxy) {
+            Constructor<?> constructor = statement instanceof CallableStatement ? CALLABLE_STATEMENT_PROXY
+                : statement instanceof PreparedStatement ? PREPARED_STATEMENT_PROXY : STATEMENT_PROXY;
+            return (Statement) newProxy(constructor, new StatementHandler(statement, sql, connectionProxy, queryProfiler));
+        }
+    }
+
+    private final class StatementHandler implements InvocationHandler {
+
+        private final Statement target;
+
+        // Prepared SQL; null for plain statements, which pass SQL to execute()
+        private final String sql;
+
+        private final Connection connectionProxy;
+
+        private final QueryProfiler queryProfiler;
+
+        private String batchSql;
+
+        // Statistics of the last execute(), for result sets fetched afterwards with getResultSet()
+        private StatementStats lastExecution;
+
+        StatementHandler(Statement target, String sql, Connection connectionProxy, QueryProfiler queryProfiler) {
+            this.target = target;
+            this.sql = sql;
+            this.connectionProxy = connectionProxy;
+            this.queryProfiler = queryProfiler;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object common = invokeCommon(proxy, target, method, args);
+            if (common != null) {
+                return common;
+            }
+            String methodName = method.getName();
+            if (methodName.startsWith("execute")) {
+                return execute(method, args);
+            }
+            switch (methodName) {
+                case "getConnection":
+                    return connectionProxy;
+                case "getResultSet":
+                    return profile((ResultSet) invokeTarget(target, method, args), lastExecution);
+                case "addBatch":
+                    if (args != null && args.length == 1 && batchSql == null) {
+                        batchSql = (String) args[0];
+                    }
+                    return invokeTarget(target, method, args);
+                default:
+                    return invokeTarget(target, method, args);
+            }
+        }
+
+        private Object execute(Method method, Object[] args) throws Throwable {
+            String executedSql = sql != null ? sql
+                : args != null && args.length > 0 && args[0] instanceof String text ? text
+                : batchSql != null ? batchSql : "<batch>";
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = invokeTarget(target, method, args);
+            } catch (Throwable e) {
+                queryProfiler.recordExecution(ProfilingDataSource.this, executedSql, System.nanoTime() - start, true);
+                throw e;
+            }
+            StatementStats stats = queryProfiler.recordExecution(ProfilingDataSource.this, executedSql,
+                System.nanoTime() - start, false);
+            lastExecution = stats;
+            if (method.getName().endsWith("Batch")) {
+                batchSql = null;
+            }
+            if (result instanceof ResultSet resultSet) {
+                return profile(resultSet, stats);
+            }
+            if (result instanceof Number updated) {
+                stats.addRows(updated.longValue());
+            } else if (result instanceof int[] counts) {
+                for (int count : counts) {
+                    stats.addRows(count);
+                }
+            } else if (result instanceof long[] counts) {
+                for (long count : counts) {
+                    stats.addRows(count);
+                }
+            }
+            return result;
+        }
+
+        private ResultSet profile(ResultSet resultSet, StatementStats stats) {
+            if (resultSet == null || stats == null) {
+                return resultSet;
+            }
+            return (ResultSet) newProxy(RESULT_SET_PROXY, new ResultSetHandler(resultSet, stats));
+        }
+    }
+
+    /**
+     * Counts rows as they are read; the count is added to the statement when the result set
+     * is exhausted or closed
+     */
+    private static final class ResultSetHandler implements InvocationHandler {
+
+        private final ResultSet target;
+
+        private final StatementStats stats;
+
+        private long rows;
+
+        private boolean reported;
+
+        ResultSetHandler(ResultSet target, StatementStats stats) {
+            this.target = target;
+            this.stats = stats;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object common = invokeCommon(proxy, target, method, args);
+            if (common != null) {
+                return common;
+            }
+            switch (method.getName()) {
+                case "next":
+                    boolean hasRow = (Boolean) invokeTarget(target, method, args);
+                    if (hasRow) {
+                        rows++;
+                    } else {
+                        report();
+                    }
+                    return hasRow;
+                case "close":
+                    report();
+                    return invokeTarget(target, method, args);
+                default:
+                    return invokeTarget(target, method, args);
+            }
+        }
+
+        private void report() {
+            if (!reported) {
+                reported = true;
+                stats.addRows(rows);
+            }
+        }
+    }
+}
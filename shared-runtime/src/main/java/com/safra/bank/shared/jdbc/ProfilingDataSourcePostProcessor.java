@@ -0,0 +1,51 @@
+package com.safra.bank.shared.jdbc;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.stereotype.Component;
+import org.springframework.util.function.SingletonSupplier;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps DataSource beans in a {@link ProfilingDataSource} when {@code <prefix>.jdbc.profiler.enabled} is true
+ * The prefix is the service's own property namespace, set as shared.property-prefix (e.g. "device"),
+ * and applies to every setting of this module
+ * Shard pools are not beans and are wrapped where they are created; routing datasources are
+ * left unwrapped so they can still be injected by their own type
+ */
+@Component
+public class ProfilingDataSourcePostProcessor implements BeanPostProcessor, BeanFactoryAware, EnvironmentAware {
+
+    private BeanFactory beanFactory;
+
+    private Environment environment;
+
+    @Override
+    public void setBeanFactory(BeanFactory beanFactory) {
+        this.beanFactory = beanFactory;
+    }
+
+    @Override
+    public void setEnvironment(Environment environment) {
+        this.environment = environment;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+        if (bean instanceof DataSource dataSource
+                && !(bean instanceof ProfilingDataSource)
+                && !(bean instanceof AbstractRoutingDataSource)
+                && environment.getProperty(environment.getRequiredProperty("shared.property-prefix")
+                                           + ".jdbc.profiler.enabled", Boolean.class, true)) {
+            return new ProfilingDataSource(dataSource, beanName,
+                SingletonSupplier.of(() -> beanFactory.getBean(QueryProfiler.class)));
+        }
+        return bean;
+    }
+}
@@ -0,0 +1,323 @@
+package com.safra.bank.shared.jdbc;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+import java.util.regex.Pattern;
+
+/**
+ * JDBC query profiler fed by {@link ProfilingDataSource}
+ * Keeps per-statement latency histograms, call and row counts, the application methods issuing
+ * each statement and per-datasource connection-acquire wait; reported by {@link QueryProfilerEndpoint}
+ *
+ * DevSecOps Features:
+ * - Bind parameter values are never captured; plans use EXPLAIN (GENERIC_PLAN) (PostgreSQL 16+)
+ * - EXPLAIN never executes the statement (no ANALYZE), so writes are safe to explain
+ * - Bounded: statement count, origins per statement and the EXPLAIN queue are all capped
+ *
+ * Performance Notes:
+ * - Recording is a map lookup and a few lock-free increments; the issuing method is resolved
+ *   by stack walk only on the first and every 1024th execution of a statement
+ * - Latency covers statement execution (including the first fetch for queries), not row iteration
+ * - Plans are captured asynchronously on a separate connection, at most once per interval per statement
+ */
+@Component
+public class QueryProfiler {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryProfiler.class);
+
+    private static final String APPLICATION_PACKAGE = "com.safra.bank.";
+
+    private static final String PROFILER_PACKAGE = QueryProfiler.class.getPackageName() + ".";
+
+    private static final long ORIGIN_SAMPLE_MASK = 1023;
+
+    private static final int MAX_SQL_LENGTH = 2000;
+
+    // Multi-row VALUES lists and IN lists differ only in length; one entry per statement shape
+    private static final Pattern VALUES_ROWS = Pattern.compile(
+        "(\\([^()]*\\?[^()]*\\))(?:\\s*,\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\))+");
+
+    private static final Pattern IN_LIST = Pattern.compile(
+        "(?i)\\bin\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+
+    private static final StackWalker STACK_WALKER = StackWalker.getInstance();
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${${shared.property-prefix}.jdbc.profiler.enabled:true}")
+    private boolean enabled;
+
+    @Value("${${shared.property-prefix}.jdbc.profiler.max-statements:500}")
+    private int maxStatements;
+
+    @Value("${${shared.property-prefix}.jdbc.profiler.explain.enabled:true}")
+    private boolean explainEnabled;
+
+    @Value("${${shared.property-prefix}.jdbc.profiler.explain.threshold:250ms}")
+    private Duration explainThreshold;
+
+    @Value("${${shared.property-prefix}.jdbc.profiler.explain.interval:10m}")
+    private Duration explainInterval;
+
+    // Normalized SQL -> statistics
+    private final Map<String, StatementStats> statements = new ConcurrentHashMap<>();
+
+    // Raw SQL -> statistics, so normalization runs once per distinct SQL text
+    private final Map<String, StatementStats> statementsBySql = new ConcurrentHashMap<>();
+
+    private final Map<String, LatencyHistogram> acquireWait = new ConcurrentHashMap<>();
+
+    private final Map<String, Timer> acquireTimers = new ConcurrentHashMap<>();
+
+    private volatile StatementStats overflow = newOverflow();
+
+    private final ThreadPoolExecutor explainExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(16), runnable -> {
+            Thread thread = new Thread(runnable, "jdbc-profiler-explain");
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.DiscardPolicy());
+
+    /**
+     * @return true if statements are being profiled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Wrap a connection pool so its connections and statements are profiled
+     *
+     * @param target the pool
+     * @param name datasource name used in reports and metrics, e.g. the pool name
+     * @return the profiling wrapper, or the pool itself when profiling is disabled
+     */
+    public DataSource wrap(DataSource target, String name) {
+        return enabled ? new ProfilingDataSource(target, name, () -> this) : target;
+    }
+
+    void recordAcquire(String dataSource, long nanos) {
+        acquireWait.computeIfAbsent(dataSource, name -> new LatencyHistogram()).record(nanos / 1000);
+        acquireTimers.computeIfAbsent(dataSource, name -> Timer.builder("jdbc.connection.acquire")
+                .description("Time waiting for a pooled JDBC connection")
+                .tag("datasource", name)
+                .register(meterRegistry))
+            .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Record one statement execution
+     *
+     * @param source the datasource that executed it; plans are captured through its pool
+     * @param sql SQL text as executed
+     * @return statistics the caller adds returned or updated row counts to
+     */
+    StatementStats recordExecution(ProfilingDataSource source, String sql, long nanos, boolean failed) {
+        StatementStats stats = statsFor(sql);
+        long micros = nanos / 1000;
+        long calls = stats.record(micros, failed);
+        if (calls == 1 || (calls & ORIGIN_SAMPLE_MASK) == 0) {
+            stats.addOrigin(findOrigin());
+        }
+        if (explainEnabled && !failed && micros >= explainThreshold.toNanos() / 1000
+                && stats.claimExplain(System.nanoTime(), explainInterval.toNanos())) {
+            DataSource pool = source.getTargetDataSource();
+            explainExecutor.execute(() -> captureExplain(pool, sql, stats, micros));
+        }
+        return stats;
+    }
+
+    /**
+     * @param limit entries per ranking
+     * @return profile of the statements executed since startup or the last reset
+     */
+    public QueryProfileReport report(int limit) {
+        List<StatementStats> all = new ArrayList<>(statements.values());
+        StatementStats others = overflow;
+        if (others.getCalls() > 0) {
+            all.add(others);
+        }
+        List<AcquireReport> acquire = new ArrayList<>();
+        acquireWait.forEach((name, histogram) -> acquire.add(new AcquireReport(name, histogram.getCount(),
+            histogram.getMeanMillis(), histogram.getPercentileMillis(0.99), histogram.getMaxMillis())));
+        return new QueryProfileReport(enabled, statements.size(), acquire,
+            top(all, stats -> stats.getLatency().getPercentileMillis(0.99), limit),
+            top(all, stats -> stats.getCalls(), limit),
+            top(all, stats -> stats.getLatency().getTotalMillis(), limit));
+    }
+
+    /**
+     * Discard all statistics collected so far
+     */
+    public void reset() {
+        statementsBySql.clear();
+        statements.clear();
+        acquireWait.clear();
+        overflow = newOverflow();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        explainExecutor.shutdownNow();
+    }
+
+    private StatementStats statsFor(String sql) {
+        StatementStats stats = statementsBySql.get(sql);
+        if (stats != null) {
+            return stats;
+        }
+        String normalized = normalize(sql);
+        stats = statements.get(normalized);
+        if (stats == null) {
+            stats = statements.size() < maxStatements
+                ? statements.computeIfAbsent(normalized, key -> new StatementStats(key, true))
+                : overflow;
+        }
+        if (statementsBySql.size() < maxStatements * 4) {
+            statementsBySql.putIfAbsent(sql, stats);
+        }
+        return stats;
+    }
+
+    private static String normalize(String sql) {
+        String normalized = VALUES_ROWS.matcher(sql.strip()).replaceAll("$1, ...");
+        normalized = IN_LIST.matcher(normalized).replaceAll("in (?, ...)");
+        return normalized.length() > MAX_SQL_LENGTH ? normalized.substring(0, MAX_SQL_LENGTH) + "..." : normalized;
+    }
+
+    private static StatementStats newOverflow() {
+        return new StatementStats("<other statements>", false);
+    }
+
+    /**
+     * @return the application method that issued the current statement, e.g. "DeviceRegistrationService.registerDevice"
+     */
+    private static String findOrigin() {
+        return STACK_WALKER.walk(frames -> frames
+            .filter(frame -> frame.getClassName().startsWith(APPLICATION_PACKAGE)
+                && !frame.getClassName().startsWith(PROFILER_PACKAGE)
+                && !frame.getClassName().contains("$$"))
+            .findFirst()
+            .map(frame -> simpleName(frame.getClassName()) + "." + methodName(frame.getMethodName()))
+            .orElse("<framework>"));
+    }
+
+    private static String simpleName(String className) {
+        return className.substring(className.lastIndexOf('.') + 1);
+    }
+
+    private static String methodName(String method) {
+        // lambda$registerDevice$0 -> registerDevice
+        if (method.startsWith("lambda$")) {
+            int end = method.indexOf('$', 7);
+            return method.substring(7, end > 7 ? end : method.length());
+        }
+        return method;
+    }
+
+    private void captureExplain(DataSource pool, String sql, StatementStats stats, long triggerMicros) {
+        String explainSql = "EXPLAIN (GENERIC_PLAN) " + toNumberedParameters(sql);
+        try (Connection connection = pool.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.setQueryTimeout(5);
+            StringBuilder plan = new StringBuilder();
+            try (ResultSet resultSet = statement.executeQuery(explainSql)) {
+                while (resultSet.next()) {
+                    plan.append(resultSet.getString(1)).append('\n');
+                }
+            }
+            stats.setExplain(new ExplainCapture(Instant.now().toString(), triggerMicros / 1000.0, plan.toString(), null));
+            logger.info("Captured plan for statement taking {} ms", triggerMicros / 1000);
+        } catch (SQLException | RuntimeException e) {
+            stats.setExplain(new ExplainCapture(Instant.now().toString(), triggerMicros / 1000.0, null, e.getMessage()));
+            logger.debug("Plan capture failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Rewrite JDBC ? placeholders as $1, $2, ... outside quoted text
+     * ("??" is the JDBC escape for a literal question mark)
+     */
+    static String toNumberedParameters(String sql) {
+        StringBuilder result = new StringBuilder(sql.length() + 16);
+        int parameter = 0;
+        char quote = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+                result.append(c);
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+                result.append(c);
+            } else if (c == '?') {
+                if (i + 1 < sql.length() && sql.charAt(i + 1) == '?') {
+                    result.append('?');
+                    i++;
+                } else {
+                    result.append('$').append(++parameter);
+                }
+            } else {
+                result.append(c);
+            }
+        }
+        return result.toString();
+    }
+
+    private static List<StatementReport> top(List<StatementStats> all, ToDoubleFunction<StatementStats> key, int limit) {
+        return all.stream()
+            .filter(stats -> stats.getCalls() > 0)
+            .sorted(Comparator.comparingDouble(key).reversed())
+            .limit(limit)
+            .map(QueryProfiler::toReport)
+            .toList();
+    }
+
+    private static StatementReport toReport(StatementStats stats) {
+        LatencyHistogram latency = stats.getLatency();
+        long calls = stats.getCalls();
+        return new StatementReport(stats.getSql(), stats.getOrigins(), calls, stats.getErrors(),
+            latency.getTotalMillis(), latency.getMeanMillis(), latency.getPercentileMillis(0.5),
+            latency.getPercentileMillis(0.95), latency.getPercentileMillis(0.99), latency.getMaxMillis(),
+            stats.getRows(), calls > 0 ? (double) stats.getRows() / calls : 0, stats.getExplain());
+    }
+
+    public record QueryProfileReport(boolean enabled, int statements, List<AcquireReport> connectionAcquire,
+                                     List<StatementReport> slowest, List<StatementReport> mostFrequent,
+                                     List<StatementReport> mostTotalTime) {}
+
+    public record AcquireReport(String dataSource, long count, double meanMillis, double p99Millis,
+                                double maxMillis) {}
+
+    public record StatementReport(String sql, List<String> origins, long calls, long errors, double totalMillis,
+                                  double meanMillis, double p50Millis, double p95Millis, double p99Millis,
+                                  double maxMillis, long rows, double rowsPerCall, ExplainCapture explain) {}
+
+    public record ExplainCapture(String capturedAt, double triggerMillis, String plan, String error) {}
+}
@@ -0,0 +1,41 @@
+package com.safra.bank.shared.jdbc;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator endpoint exposing the JDBC query profile
+ *
+ * Endpoints:
+ * - GET /actuator/queries?limit=10 : slowest (p99), most frequent and most total time statements,
+ *   plus connection-acquire wait per datasource
+ * - DELETE /actuator/queries : reset the collected statistics
+ *
+ * DevSecOps Features:
+ * - Reports statement text and plans only; bind parameter values are never recorded
+ */
+@Component
+@Endpoint(id = "queries")
+public class QueryProfilerEndpoint {
+
+    @Autowired
+    private QueryProfiler queryProfiler;
+
+    @Value("${${shared.property-prefix}.jdbc.profiler.report-size:10}")
+    private int defaultLimit;
+
+    @ReadOperation
+    public QueryProfiler.QueryProfileReport queries(@Nullable Integer limit) {
+        return queryProfiler.report(limit != null && limit > 0 ? Math.min(limit, 100) : defaultLimit);
+    }
+
+    @DeleteOperation
+    public void reset() {
+        queryProfiler.reset();
+    }
+}
@@ -0,0 +1,109 @@
+package com.safra.bank.shared.jdbc;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Execution statistics for one (normalized) SQL statement
+ */
+final class StatementStats {
+
+    private static final int MAX_ORIGINS = 4;
+
+    private static final Pattern EXPLAINABLE = Pattern.compile("^\\s*(select|insert|update|delete|with)\\b",
+        Pattern.CASE_INSENSITIVE);
+
+    private final String sql;
+
+    private final boolean explainable;
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    private final AtomicLong calls = new AtomicLong();
+
+    private final LongAdder errors = new LongAdder();
+
+    private final LongAdder rows = new LongAdder();
+
+    private final Set<String> origins = ConcurrentHashMap.newKeySet();
+
+    // System.nanoTime() of the last EXPLAIN attempt; 0 before the first
+    private final AtomicLong lastExplainAttempt = new AtomicLong();
+
+    private volatile QueryProfiler.ExplainCapture explain;
+
+    StatementStats(String sql, boolean explainable) {
+        this.sql = sql;
+        this.explainable = explainable && EXPLAINABLE.matcher(sql).find();
+    }
+
+    /**
+     * @return number of calls including this one
+     */
+    long record(long micros, boolean failed) {
+        latency.record(micros);
+        if (failed) {
+            errors.increment();
+        }
+        return calls.incrementAndGet();
+    }
+
+    void addRows(long count) {
+        if (count > 0) {
+            rows.add(count);
+        }
+    }
+
+    void addOrigin(String origin) {
+        if (origins.size() < MAX_ORIGINS) {
+            origins.add(origin);
+        }
+    }
+
+    /**
+     * Claim the right to capture a plan; at most one attempt per interval
+     */
+    boolean claimExplain(long nowNanos, long intervalNanos) {
+        if (!explainable) {
+            return false;
+        }
+        long last = lastExplainAttempt.get();
+        return (last == 0 || nowNanos - last >= intervalNanos) && lastExplainAttempt.compareAndSet(last, nowNanos);
+    }
+
+    void setExplain(QueryProfiler.ExplainCapture explain) {
+        this.explain = explain;
+    }
+
+    String getSql() {
+        return sql;
+    }
+
+    LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    long getCalls() {
+        return calls.get();
+    }
+
+    long getErrors() {
+        return errors.sum();
+    }
+
+    long getRows() {
+        return rows.sum();
+    }
+
+    List<String> getOrigins() {
+        return List.copyOf(origins);
+    }
+
+    QueryProfiler.ExplainCapture getExplain() {
+        return explain;
+    }
+}
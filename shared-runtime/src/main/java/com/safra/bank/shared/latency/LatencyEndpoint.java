@@ -0,0 +1,35 @@
+package com.safra.bank.shared.latency;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator endpoint exposing hot-path stage latency distributions
+ * Complements the Prometheus scrape with on-box, full-resolution percentiles during incidents
+ *
+ * Endpoints:
+ * - GET /actuator/latency?stage=validation&deviceType=iOS : last interval and cumulative percentiles,
+ *   each with its HdrHistogram compressed encoding
+ * - DELETE /actuator/latency : reset all distributions (loopback callers only, see the services' SecurityConfig)
+ */
+@Component
+@Endpoint(id = "latency")
+public class LatencyEndpoint {
+
+    @Autowired
+    private StageLatencyRecorder<?> stageLatencyRecorder;
+
+    @ReadOperation
+    public StageLatencyRecorder.LatencyReport latency(@Nullable String stage, @Nullable String deviceType) {
+        return stageLatencyRecorder.report(stage, deviceType);
+    }
+
+    @DeleteOperation
+    public void reset() {
+        stageLatencyRecorder.reset();
+    }
+}
@@ -0,0 +1,226 @@
+package com.safra.bank.shared.latency;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * High-resolution latency distributions for the hot-path stages of a service,
+ * split by device type and outcome; reported by {@link LatencyEndpoint}
+ * Each service registers one recorder bean over its own stage enum, e.g.
+ * {@code new StageLatencyRecorder<>(Stage.class)}; stages are reported by their lower-case name
+ *
+ * Performance Notes:
+ * - Each (stage, device type, outcome) has an HdrHistogram Recorder; recording is wait-free
+ *   and allocation-free, and readers never block recording threads
+ * - Intervals are swapped on a fixed delay ({@code <prefix>.latency.interval-ms}); the completed
+ *   interval is kept for reporting and added to the cumulative histogram
+ * - Histograms are created on first use; device types outside the known set share "other",
+ *   so request input cannot grow the number of histograms
+ * - Values are nanoseconds, clamped to one minute
+ */
+public class StageLatencyRecorder<S extends Enum<S>> {
+
+    /**
+     * Stage outcomes: completed, rejected (invalid input, constraint violation or downstream 4xx) or failed
+     */
+    public enum Outcome {
+        SUCCESS, REJECTED, ERROR;
+
+        public String label() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private static final List<String> DEVICE_TYPES = List.of("iOS", "Android", "Watch", "TV", "other");
+
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    @Value("${${shared.property-prefix}.latency.enabled:true}")
+    private boolean enabled;
+
+    @Value("${${shared.property-prefix}.latency.significant-digits:2}")
+    private int significantDigits;
+
+    private final S[] stages;
+
+    private final int outcomes = Outcome.values().length;
+
+    private final int deviceTypes = DEVICE_TYPES.size();
+
+    private volatile AtomicReferenceArray<Slot> slots;
+
+    private volatile long cumulativeSince = System.currentTimeMillis();
+
+    /**
+     * @param stageType the service's hot-path stages
+     */
+    public StageLatencyRecorder(Class<S> stageType) {
+        this.stages = stageType.getEnumConstants();
+        this.slots = new AtomicReferenceArray<>(stages.length * deviceTypes * outcomes);
+    }
+
+    /**
+     * Record one stage execution
+     *
+     * @param stage hot-path stage
+     * @param deviceType requested device type (unknown or null values are recorded as "other")
+     * @param outcome stage outcome
+     * @param nanos elapsed time in nanoseconds
+     */
+    public void record(S stage, String deviceType, Outcome outcome, long nanos) {
+        if (!enabled) {
+            return;
+        }
+        slot(stage, deviceTypeIndex(deviceType), outcome).recorder.recordValue(
+            Math.max(0, Math.min(nanos, HIGHEST_TRACKABLE_NANOS)));
+    }
+
+    /**
+     * Close the current interval of every histogram
+     */
+    @Scheduled(fixedDelayString = "${${shared.property-prefix}.latency.interval-ms:10000}")
+    public void rotate() {
+        AtomicReferenceArray<Slot> current = slots;
+        for (int i = 0; i < current.length(); i++) {
+            Slot slot = current.get(i);
+            if (slot != null) {
+                slot.rotate();
+            }
+        }
+    }
+
+    /**
+     * @param stage only this stage label (e.g. "validation"), or null for all
+     * @param deviceType only this device type, or null for all
+     * @return distributions of the last completed interval and since startup or the last reset
+     */
+    public LatencyReport report(String stage, String deviceType) {
+        List<StageLatency> entries = new ArrayList<>();
+        AtomicReferenceArray<Slot> current = slots;
+        for (S s : stages) {
+            if (stage != null && !label(s).equals(stage)) {
+                continue;
+            }
+            for (int d = 0; d < deviceTypes; d++) {
+                if (deviceType != null && !DEVICE_TYPES.get(d).equals(deviceType)) {
+                    continue;
+                }
+                for (Outcome o : Outcome.values()) {
+                    Slot slot = current.get(index(s, d, o));
+                    if (slot != null) {
+                        entries.add(slot.report(label(s), DEVICE_TYPES.get(d), o.label()));
+                    }
+                }
+            }
+        }
+        return new LatencyReport(Instant.ofEpochMilli(cumulativeSince).toString(), significantDigits, entries);
+    }
+
+    /**
+     * Discard all recorded distributions
+     */
+    public void reset() {
+        slots = new AtomicReferenceArray<>(slots.length());
+        cumulativeSince = System.currentTimeMillis();
+    }
+
+    private Slot slot(S stage, int deviceType, Outcome outcome) {
+        AtomicReferenceArray<Slot> current = slots;
+        int index = index(stage, deviceType, outcome);
+        Slot slot = current.get(index);
+        if (slot == null) {
+            Slot created = new Slot(significantDigits);
+            slot = current.compareAndSet(index, null, created) ? created : current.get(index);
+        }
+        return slot;
+    }
+
+    private int index(S stage, int deviceType, Outcome outcome) {
+        return (stage.ordinal() * deviceTypes + deviceType) * outcomes + outcome.ordinal();
+    }
+
+    private static String label(Enum<?> stage) {
+        return stage.name().toLowerCase(Locale.ROOT);
+    }
+
+    private static int deviceTypeIndex(String deviceType) {
+        if (deviceType == null) {
+            return 4;
+        }
+        return switch (deviceType) {
+            case "iOS" -> 0;
+            case "Android" -> 1;
+            case "Watch" -> 2;
+            case "TV" -> 3;
+            default -> 4;
+        };
+    }
+
+    private static final class Slot {
+
+        private final Recorder recorder;
+
+        private final Histogram cumulative;
+
+        // Last completed interval; recycled by the next swap
+        private Histogram interval;
+
+        Slot(int significantDigits) {
+            recorder = new Recorder(HIGHEST_TRACKABLE_NANOS, significantDigits);
+            cumulative = new Histogram(HIGHEST_TRACKABLE_NANOS, significantDigits);
+            cumulative.setStartTimeStamp(System.currentTimeMillis());
+        }
+
+        synchronized void rotate() {
+            interval = interval == null ? recorder.getIntervalHistogram() : recorder.getIntervalHistogram(interval);
+            cumulative.add(interval);
+            cumulative.setEndTimeStamp(interval.getEndTimeStamp());
+        }
+
+        synchronized StageLatency report(String stage, String deviceType, String outcome) {
+            return new StageLatency(stage, deviceType, outcome,
+                interval != null ? summarize(interval) : null, summarize(cumulative));
+        }
+
+        private static Distribution summarize(Histogram histogram) {
+            ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+            int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+            return new Distribution(
+                Instant.ofEpochMilli(histogram.getStartTimeStamp()).toString(),
+                histogram.getEndTimeStamp() > 0 ? Instant.ofEpochMilli(histogram.getEndTimeStamp()).toString() : null,
+                histogram.getTotalCount(),
+                histogram.getMean() / 1_000_000.0,
+                histogram.getValueAtPercentile(50) / 1_000_000.0,
+                histogram.getValueAtPercentile(90) / 1_000_000.0,
+                histogram.getValueAtPercentile(99) / 1_000_000.0,
+                histogram.getValueAtPercentile(99.9) / 1_000_000.0,
+                histogram.getMaxValue() / 1_000_000.0,
+                Base64.getEncoder().encodeToString(Arrays.copyOf(buffer.array(), length)));
+        }
+    }
+
+    public record LatencyReport(String cumulativeSince, int significantDigits, List<StageLatency> stages) {}
+
+    public record StageLatency(String stage, String deviceType, String outcome,
+                               Distribution interval, Distribution cumulative) {}
+
+    /**
+     * Percentiles in milliseconds; compressed is the HdrHistogram V2 compressed encoding (Base64,
+     * values in nanoseconds), readable with HistogramLogReader or Histogram.decodeFromCompressedByteBuffer
+     */
+    public record Distribution(String start, String end, long count, double meanMillis, double p50Millis,
+                               double p90Millis, double p99Millis, double p999Millis, double maxMillis,
+                               String compressed) {}
+}
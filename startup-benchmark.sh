@@ -0,0 +1,96 @@
+#!/bin/bash
+
+# Safra Bank Startup Benchmark Script
+# Compares default startup against the fast-startup build (Spring AOT + AppCDS + schema validation)
+#
+# Prerequisites:
+#   mvn -Pfast-startup package -DskipTests     (produces <module>/target/cds)
+#   PostgreSQL reachable with database/sql/schema.sql applied (validate mode needs the schema)
+#
+# Usage:
+#   ./startup-benchmark.sh [statistics-api|device-registration-api] [runs]
+
+set -e
+
+SERVICE="${1:-device-registration-api}"
+RUNS="${2:-5}"
+
+case "$SERVICE" in
+    statistics-api)          PORT=8080; FIRST_REQUEST="/Log/auth/statistics?deviceType=iOS" ;;
+    device-registration-api) PORT=8081; FIRST_REQUEST="/Device/lookup?userKey=startup-benchmark" ;;
+    *) echo "Unknown service: $SERVICE"; exit 1 ;;
+esac
+
+JAVA="${JAVA_HOME:+$JAVA_HOME/bin/}java"
+TARGET="$SERVICE/target"
+JAR=$(ls "$TARGET"/"$SERVICE"-*.jar | grep -v original | head -1)
+CDS_DIR="$TARGET/cds"
+BASE_URL="http://localhost:$PORT"
+COMMON_OPTS="-Dmanagement.endpoint.health.probes.enabled=true"
+
+if [ ! -f "$CDS_DIR/application.jsa" ]; then
+    echo "❌ $CDS_DIR/application.jsa not found. Run: mvn -Pfast-startup package -DskipTests"
+    exit 1
+fi
+
+now_ms() {
+    date +%s%3N
+}
+
+# Start the service, wait for readiness and the first successful business request, then stop it
+# Prints: <ready_ms> <first_request_ms> <application.ready.time seconds reported by Spring Boot>
+measure() {
+    local start ready first boot_ready pid
+    start=$(now_ms)
+    "$@" > /tmp/startup-benchmark.log 2>&1 &
+    pid=$!
+
+    until curl -sf "$BASE_URL/actuator/health/readiness" > /dev/null 2>&1; do
+        if ! kill -0 "$pid" 2>/dev/null; then
+            echo "❌ Service exited during startup, see /tmp/startup-benchmark.log" >&2
+            exit 1
+        fi
+        sleep 0.05
+    done
+    ready=$(now_ms)
+
+    until curl -s -o /dev/null -w "%{http_code}" "$BASE_URL$FIRST_REQUEST" | grep -q "^[24]"; do
+        sleep 0.05
+    done
+    first=$(now_ms)
+
+    boot_ready=$(curl -s "$BASE_URL/actuator/metrics/application.ready.time" \
+        | sed -n 's/.*"value":\([0-9.]*\).*/\1/p')
+
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+
+    echo "$((ready - start)) $((first - start)) ${boot_ready:-n/a}"
+}
+
+report() {
+    local label="$1"; shift
+    local total_ready=0 total_first=0
+    echo ""
+    echo "▶ $label"
+    for run in $(seq 1 "$RUNS"); do
+        read -r ready first boot_ready < <(measure "$@")
+        printf "   run %d: ready %6d ms, first request %6d ms, application.ready.time %ss\n" \
+            "$run" "$ready" "$first" "$boot_ready"
+        total_ready=$((total_ready + ready))
+        total_first=$((total_first + first))
+    done
+    printf "   avg:   ready %6d ms, first request %6d ms\n" \
+        $((total_ready / RUNS)) $((total_first / RUNS))
+}
+
+echo "🏦 Safra Bank Startup Benchmark: $SERVICE ($RUNS runs each)"
+echo "============================================"
+
+report "Default (fat jar, JIT-only class loading, ddl-auto: create)" \
+    "$JAVA" $COMMON_OPTS -jar "$JAR"
+
+report "Fast startup (extracted jar, AOT, AppCDS, ddl-auto: validate)" \
+    "$JAVA" -XX:SharedArchiveFile="$CDS_DIR/application.jsa" -Xlog:cds=off \
+    -Dspring.aot.enabled=true -Dspring.profiles.active=fast-startup \
+    $COMMON_OPTS -jar "$CDS_DIR/$(basename "$JAR")"
@@ -0,0 +1,24 @@
+package com.safra.bank.statistics.reactive;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+/**
+ * Statistics API (Reactive) Spring Boot Application
+ * 
+ * Non-blocking variant of the Statistics API exposing the same
+ * /Log/auth and /Log/auth/statistics contract
+ * 
+ * Architecture Notes:
+ * - WebFlux on Reactor Netty: a small, fixed number of event-loop threads serves all requests
+ * - Non-blocking WebClient for calls to DeviceRegistrationAPI
+ * - R2DBC for count queries; no JPA or JDBC on the request path
+ * - Shares request/response DTOs with the MVC Statistics API through shared-models
+ */
+@SpringBootApplication
+public class ReactiveStatisticsApiApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.run(ReactiveStatisticsApiApplication.class, args);
+    }
+}
@@ -0,0 +1,62 @@
+package com.safra.bank.statistics.reactive.config;
+
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+/**
+ * Application configuration for Statistics API (Reactive)
+ * Configures beans and application-wide settings
+ * 
+ * DevSecOps Features:
+ * - WebClient with connect and response timeouts to prevent hanging connections
+ * - Bounded connection pool with pending-acquire limit (backpressure instead of unbounded queuing)
+ * - Internal service header on every downstream call
+ */
+@Configuration
+public class ApplicationConfig {
+
+    @Value("${device.registration.api.url:http://localhost:8081}")
+    private String deviceRegistrationApiUrl;
+
+    @Value("${device.registration.api.max-connections:500}")
+    private int maxConnections;
+
+    @Value("${device.registration.api.pending-acquire-max:10000}")
+    private int pendingAcquireMax;
+
+    /**
+     * Configure WebClient for non-blocking HTTP communication
+     * Used for calling internal DeviceRegistrationAPI
+     * 
+     * @param builder WebClient.Builder provided by Spring Boot
+     * @return configured WebClient
+     */
+    @Bean
+    public WebClient deviceRegistrationWebClient(WebClient.Builder builder) {
+        ConnectionProvider connectionProvider = ConnectionProvider.builder("device-registration-api")
+            .maxConnections(maxConnections)
+            .pendingAcquireMaxCount(pendingAcquireMax)
+            .pendingAcquireTimeout(Duration.ofSeconds(10))
+            .maxIdleTime(Duration.ofSeconds(30))
+            .metrics(true)
+            .build();
+
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+            .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, 10_000)
+            .responseTimeout(Duration.ofSeconds(30));
+
+        return builder
+            .baseUrl(deviceRegistrationApiUrl)
+            .clientConnector(new ReactorClientHttpConnector(httpClient))
+            .defaultHeader("X-Internal-Service", "statistics-api")
+            .build();
+    }
+}
@@ -0,0 +1,95 @@
+package com.safra.bank.statistics.reactive.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+import org.springframework.security.web.server.header.ReferrerPolicyServerHttpHeadersWriter;
+import org.springframework.security.web.server.header.XFrameOptionsServerHttpHeadersWriter;
+import org.springframework.web.cors.CorsConfiguration;
+import org.springframework.web.cors.reactive.CorsConfigurationSource;
+import org.springframework.web.cors.reactive.UrlBasedCorsConfigurationSource;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Spring Security Configuration for Statistics API (Reactive)
+ * Mirrors the MVC Statistics API security rules on the WebFlux filter chain
+ * 
+ * Security Features:
+ * - Comprehensive security headers (HSTS, X-Frame-Options, etc.)
+ * - CORS configuration for controlled cross-origin access
+ * - Stateless: no security context is stored between requests
+ * - Actuator endpoint protection
+ */
+@Configuration
+@EnableWebFluxSecurity
+public class SecurityConfig {
+
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http) {
+        http
+            // CSRF configuration - disabled for API
+            .csrf(ServerHttpSecurity.CsrfSpec::disable)
+
+            // CORS configuration
+            .cors(cors -> cors.configurationSource(corsConfigurationSource()))
+
+            // Security headers for DevSecOps
+            .headers(headers -> headers
+                .frameOptions(frameOptions -> frameOptions.mode(XFrameOptionsServerHttpHeadersWriter.Mode.DENY))
+                .hsts(hsts -> hsts
+                    .maxAge(Duration.ofDays(365))
+                    .includeSubdomains(true))
+                .referrerPolicy(referrer -> referrer.policy(
+                    ReferrerPolicyServerHttpHeadersWriter.ReferrerPolicy.STRICT_ORIGIN_WHEN_CROSS_ORIGIN)))
+
+            // Stateless - no session-backed security context
+            .securityContextRepository(NoOpServerSecurityContextRepository.getInstance())
+            .httpBasic(ServerHttpSecurity.HttpBasicSpec::disable)
+            .formLogin(ServerHttpSecurity.FormLoginSpec::disable)
+
+            // Authorization rules
+            .authorizeExchange(exchanges -> exchanges
+                // Public endpoints
+                .pathMatchers("/Log/**").permitAll()
+
+                // Actuator endpoints - restrict in production
+                .pathMatchers("/actuator/health", "/actuator/health/**").permitAll()
+                .pathMatchers("/actuator/**").permitAll() // Should be restricted in production
+
+                // OpenAPI documentation - can be restricted in production
+                .pathMatchers("/api-docs/**", "/swagger-ui/**", "/swagger-ui.html", "/webjars/**").permitAll()
+
+                // All other requests require authentication (future expansion)
+                .anyExchange().authenticated()
+            );
+
+        return http.build();
+    }
+
+    /**
+     * CORS configuration for controlled cross-origin access
+     */
+    @Bean
+    public CorsConfigurationSource corsConfigurationSource() {
+        CorsConfiguration configuration = new CorsConfiguration();
+        configuration.setAllowedOriginPatterns(Arrays.asList("*")); // Restrict in production
+        configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
+        configuration.setAllowedHeaders(Arrays.asList(
+            "Authorization",
+            "Content-Type",
+            "X-Requested-With",
+            "X-Internal-Service"
+        ));
+        configuration.setAllowCredentials(true);
+        configuration.setMaxAge(3600L);
+
+        UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
+        source.registerCorsConfiguration("/**", configuration);
+        return source;
+    }
+}
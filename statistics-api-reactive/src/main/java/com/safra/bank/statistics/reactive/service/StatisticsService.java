@@ -0,0 +1,174 @@
+package com.safra.bank.statistics.reactive.service;
+
+import com.safra.bank.shared.dto.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive service layer for Statistics API business logic
+ * Handles user login events and device statistics retrieval
+ * 
+ * DevSecOps Features:
+ * - Comprehensive logging for audit trails
+ * - Input validation and sanitization
+ * - Secure communication with internal APIs
+ * - Exception handling with proper error responses
+ * - No sensitive data exposure in logs
+ *
+ * Performance Notes:
+ * - Downstream registration uses the non-blocking WebClient; counts use R2DBC with bind parameters
+ * - Nothing on these paths blocks, so concurrency is bounded by the connection pools, not threads
+ */
+@Service
+public class StatisticsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StatisticsService.class);
+
+    private static final String COUNT_BY_DEVICE_TYPE_SQL =
+        "SELECT COUNT(*) FROM device_registrations WHERE device_type = $1";
+
+    @Autowired
+    private WebClient deviceRegistrationWebClient;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    /**
+     * Process user login event and register device
+     * Communicates with DeviceRegistrationAPI to store the registration
+     * 
+     * @param loginRequest the login request containing user and device information
+     * @return LoginResponse indicating success or failure
+     */
+    public Mono<LoginResponse> processLogin(LoginRequest loginRequest) {
+        logger.info("Processing login for device type: {}", loginRequest.getDeviceType());
+
+        // Input validation (additional layer beyond controller validation)
+        if (loginRequest.getUserKey() == null || loginRequest.getUserKey().trim().isEmpty()) {
+            logger.warn("Login attempt with empty user key");
+            return Mono.just(LoginResponse.badRequest());
+        }
+
+        if (loginRequest.getDeviceType() == null ||
+            !isValidDeviceType(loginRequest.getDeviceType())) {
+            logger.warn("Login attempt with invalid device type: {}", loginRequest.getDeviceType());
+            return Mono.just(LoginResponse.badRequest());
+        }
+
+        DeviceRegistrationRequest registrationRequest = new DeviceRegistrationRequest(
+            loginRequest.getUserKey(),
+            loginRequest.getDeviceType(),
+            loginRequest.getAppVersion(),
+            loginRequest.getOsVersion(),
+            loginRequest.getRegion()
+        );
+
+        return callDeviceRegistrationAPI(registrationRequest)
+            .map(registrationResponse -> {
+                if (registrationResponse.getStatusCode() != null && registrationResponse.getStatusCode() == 200) {
+                    logger.info("Successfully processed login for device type: {}", loginRequest.getDeviceType());
+                    return LoginResponse.success();
+                }
+                if (registrationResponse.getStatusCode() != null && registrationResponse.getStatusCode() == 503) {
+                    // DeviceRegistrationAPI is shedding load; pass the 503 on so the client backs off
+                    logger.warn("DeviceRegistrationAPI is overloaded, login for device type {} not registered",
+                        loginRequest.getDeviceType());
+                    return LoginResponse.serviceUnavailable();
+                }
+                logger.error("Failed to register device. Response: {}", registrationResponse);
+                return LoginResponse.badRequest();
+            })
+            .switchIfEmpty(Mono.fromSupplier(() -> {
+                logger.error("Failed to register device. Response: null");
+                return LoginResponse.badRequest();
+            }))
+            .onErrorResume(e -> {
+                logger.error("Error processing login: {}", e.getMessage(), e);
+                return Mono.just(LoginResponse.internalError());
+            });
+    }
+
+    /**
+     * Retrieve device statistics for a specific device type
+     * 
+     * @param deviceType the device type to get statistics for
+     * @return StatisticsResponse with device count or error indication
+     */
+    public Mono<StatisticsResponse> getDeviceStatistics(String deviceType) {
+        logger.info("Retrieving statistics for device type: {}", deviceType);
+
+        // Check if device type is valid
+        if (deviceType == null || !isValidDeviceType(deviceType)) {
+            logger.warn("Statistics request with invalid device type: {}", deviceType);
+            // Return count -1 for invalid device types as per task requirements
+            return Mono.just(StatisticsResponse.error(deviceType));
+        }
+
+        return databaseClient.sql(COUNT_BY_DEVICE_TYPE_SQL)
+            .bind(0, deviceType)
+            .map(row -> row.get(0, Long.class))
+            .one()
+            .map(count -> {
+                logger.info("Found {} registrations for device type: {}", count, deviceType);
+                return StatisticsResponse.success(deviceType, count.intValue());
+            })
+            .onErrorResume(e -> {
+                logger.error("Error retrieving statistics for device type {}: {}", deviceType, e.getMessage(), e);
+                return Mono.just(StatisticsResponse.error(deviceType));
+            });
+    }
+
+    /**
+     * Call the internal DeviceRegistrationAPI to register a device
+     * A 4xx/5xx response body is still decoded so the caller sees its status code; a 503 (load
+     * shedding) or a 5xx without a readable body is reported as service unavailable
+     * 
+     * @param request the device registration request
+     * @return DeviceRegistrationResponse, or empty if the call fails
+     */
+    private Mono<DeviceRegistrationResponse> callDeviceRegistrationAPI(DeviceRegistrationRequest request) {
+        logger.debug("Calling DeviceRegistrationAPI at: /Device/register");
+
+        return deviceRegistrationWebClient.post()
+            .uri("/Device/register")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(request)
+            .exchangeToMono(response -> {
+                if (response.statusCode().value() == HttpStatus.SERVICE_UNAVAILABLE.value()) {
+                    return response.releaseBody().thenReturn(DeviceRegistrationResponse.serviceUnavailable());
+                }
+                Mono<DeviceRegistrationResponse> body = response.bodyToMono(DeviceRegistrationResponse.class);
+                if (response.statusCode().is5xxServerError()) {
+                    body = body.onErrorResume(e -> Mono.empty())
+                        .defaultIfEmpty(DeviceRegistrationResponse.serviceUnavailable());
+                }
+                return body;
+            })
+            .onErrorResume(e -> {
+                logger.error("Failed to call DeviceRegistrationAPI: {}", e.getMessage());
+                return Mono.empty();
+            });
+    }
+
+    /**
+     * Validate device type against allowed values
+     * Prevents injection attacks and ensures data integrity
+     * 
+     * @param deviceType the device type to validate
+     * @return true if valid, false otherwise
+     */
+    private boolean isValidDeviceType(String deviceType) {
+        return deviceType != null && 
+               (deviceType.equals("iOS") || 
+                deviceType.equals("Android") || 
+                deviceType.equals("Watch") || 
+                deviceType.equals("TV"));
+    }
+}
@@ -0,0 +1,132 @@
+package com.safra.bank.statistics.admission;
+
+import com.safra.bank.shared.admission.PoolLoad;
+import com.safra.bank.shared.jdbc.HikariPools;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission control on connection pool saturation for statistics reads
+ * Rejects a read up front when it would wait longer for a database connection than allowed,
+ * instead of letting it queue on Hikari until connection-timeout (20s) expires
+ *
+ * DevSecOps Features:
+ * - Overload is answered with 503 and Retry-After, so clients back off instead of retrying at once
+ *
+ * Performance Notes:
+ * - Logins use no connection here; they are shed by device-registration-api, which gives
+ *   writes a tighter limit than reads, and its 503 is passed on to the client
+ * - The admit decision reads live pool counters only; averages are sampled in the background
+ * - With sharded storage a read is judged by the most saturated shard pool
+ */
+@Component
+public class AdmissionController {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdmissionController.class);
+
+    private static final long MAX_RETRY_AFTER_SECONDS = 30;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${statistics.admission.enabled:true}")
+    private boolean enabled;
+
+    @Value("${statistics.admission.max-wait.read:2s}")
+    private Duration maxReadWait;
+
+    private Counter admitted;
+
+    private Counter shed;
+
+    private volatile List<PoolLoad> pools = List.of();
+
+    @PostConstruct
+    void init() {
+        admitted = Counter.builder("statistics.admission.requests")
+            .description("Reads admitted by pool-saturation admission control")
+            .tag("class", "read").tag("result", "admitted")
+            .register(meterRegistry);
+        shed = Counter.builder("statistics.admission.requests")
+            .description("Reads rejected with 503 because the predicted connection wait was too long")
+            .tag("class", "read").tag("result", "shed")
+            .register(meterRegistry);
+        Gauge.builder("statistics.admission.predicted.wait", this, controller -> controller.predictedWaitNanos() / 1_000_000.0)
+            .description("Predicted connection wait in milliseconds for a read arriving now")
+            .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Collect the Hikari pools behind the DataSource beans and the shard pools
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void discoverPools() {
+        List<HikariDataSource> found = HikariPools.find(applicationContext);
+        List<PoolLoad> loads = new ArrayList<>(found.size());
+        found.forEach(pool -> loads.add(new PoolLoad(pool)));
+        pools = List.copyOf(loads);
+        logger.info("Admission control {} over {} connection pool(s) (max read wait {})",
+                    enabled ? "enabled" : "disabled", loads.size(), maxReadWait);
+    }
+
+    /**
+     * Refresh the connection hold and acquire averages of every pool
+     */
+    @Scheduled(fixedDelayString = "${statistics.admission.sample-interval-ms:250}")
+    public void sample() {
+        long now = System.nanoTime();
+        for (PoolLoad pool : pools) {
+            pool.sample(meterRegistry, now);
+        }
+    }
+
+    /**
+     * Decide whether a read may proceed
+     *
+     * @return 0 to admit, otherwise the Retry-After in seconds
+     */
+    public long tryAdmit() {
+        if (!enabled) {
+            return 0;
+        }
+        long predicted = predictedWaitNanos();
+        if (predicted <= maxReadWait.toNanos()) {
+            admitted.increment();
+            return 0;
+        }
+        shed.increment();
+        return Math.min(MAX_RETRY_AFTER_SECONDS, Math.max(1, TimeUnit.NANOSECONDS.toSeconds(predicted + 999_999_999L)));
+    }
+
+    private long predictedWaitNanos() {
+        long worst = 0;
+        for (PoolLoad pool : pools) {
+            worst = Math.max(worst, pool.predictedWaitNanos());
+        }
+        return worst;
+    }
+}
@@ -0,0 +1,59 @@
+package com.safra.bank.statistics.admission;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safra.bank.shared.dto.LoginResponse;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Admission control for the database-backed statistics reads
+ * (GET /Log/auth/statistics, /Log/auth/statistics/groups and /Log/auth/statistics/logins)
+ * Runs after the rate limit and ahead of the Spring Security filter chain
+ *
+ * DevSecOps Features:
+ * - 503 Service Unavailable with Retry-After
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 20)
+public class AdmissionFilter extends OncePerRequestFilter {
+
+    @Autowired
+    private AdmissionController admissionController;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        return !admissionController.isEnabled()
+            || !(path.equals("/Log/auth/statistics") || path.equals("/Log/auth/statistics/groups")
+                 || path.equals("/Log/auth/statistics/logins"));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        long retryAfterSeconds = admissionController.tryAdmit();
+        if (retryAfterSeconds > 0) {
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            objectMapper.writeValue(response.getOutputStream(), LoginResponse.serviceUnavailable());
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,675 @@
+package com.safra.bank.statistics.analytics;
+
+import com.safra.bank.statistics.snapshot.SnapshotFile;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.roaringbitmap.RoaringBitmap;
+import org.roaringbitmap.longlong.LongIterator;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory bitmap index of device types per user
+ * Maps each userKey to a dense integer ID and keeps one compressed (Roaring) bitmap
+ * per device type, so boolean device combinations are answered without self-joins
+ *
+ * Performance Notes:
+ * - Loaded incrementally by registration id; each refresh reads only new rows
+ * - Commit-safe: ids a refresh skipped (rolled back, or not committed yet, e.g. a backfill chunk
+ *   committing after later registrations) are kept as open ids and looked up again on every
+ *   refresh; the watermark passes them only once pg_snapshot_xmin shows that every transaction
+ *   running when they were skipped has ended, so late commits are never lost
+ * - A long-running write transaction holds the watermark back; its open ids are rechecked with
+ *   one indexed lookup per run of ids or per batch-size scattered ids
+ * - Snapshotted to local disk and restored on startup, avoiding a full table scan per restart;
+ *   only registrations above the snapshot watermark are read afterwards. A snapshot whose row
+ *   count no longer matches device_registrations (rows deleted, table reloaded) is discarded
+ * - The snapshot is memory-mapped: the bitmaps (a few bytes per user) are restored before the
+ *   first query, while the userKey dictionary, the bulk of the file, is decoded by the first
+ *   background refresh, which is the only code that needs it
+ * - Queries run under a read lock and never block each other
+ * - Reads spring.datasource only, so it is switched off with sharded registration storage;
+ *   combination queries are then answered with 503 rather than counts from one shard
+ */
+@Component
+public class DeviceBitmapIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeviceBitmapIndex.class);
+
+    private static final List<String> DEVICE_TYPES = List.of("iOS", "Android", "Watch", "TV");
+
+    private static final int SNAPSHOT_MAGIC = 0x53424D31;
+
+    private static final int SNAPSHOT_VERSION = 3;
+
+    private static final int STATE_SECTION = 0;
+
+    private static final int USERS_SECTION = 1;
+
+    private static final String INCREMENT_SQL =
+        "SELECT id, user_key, device_type FROM device_registrations WHERE id > ? ORDER BY id LIMIT ?";
+
+    private static final String OPEN_RANGE_SQL =
+        "SELECT id, user_key, device_type FROM device_registrations WHERE id >= ? AND id <= ? ORDER BY id LIMIT ?";
+
+    private static final String OPEN_IDS_SQL =
+        "SELECT id, user_key, device_type FROM device_registrations WHERE id = ANY(?)";
+
+    // Oldest transaction still running, and the first transaction id not yet assigned
+    private static final String HORIZON_SQL =
+        "SELECT pg_snapshot_xmin(s)::text::bigint, pg_snapshot_xmax(s)::text::bigint FROM pg_current_snapshot() s";
+
+    private static final String ROWS_AT_OR_BELOW_SQL = "SELECT COUNT(*) FROM device_registrations WHERE id <= ?";
+
+    // Runs of open ids at least this long are rechecked with a range query instead of by id
+    private static final int MIN_OPEN_RANGE = 64;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${statistics.bitmap.enabled:true}")
+    private boolean enabled;
+
+    @Value("${statistics.sharding.enabled:false}")
+    private boolean shardingEnabled;
+
+    @Value("${statistics.bitmap.batch-size:50000}")
+    private int batchSize;
+
+    @Value("${statistics.bitmap.snapshot-path:/tmp/statistics-api/device-bitmaps.bin}")
+    private Path snapshotPath;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Integer> userIds = new HashMap<>();
+
+    private final List<String> userKeys = new ArrayList<>();
+
+    private final Map<String, RoaringBitmap> bitmaps = new LinkedHashMap<>();
+
+    private int userCount;
+
+    // Every registration with an id up to the watermark is applied
+    private long watermark;
+
+    // Registrations with an id up to the watermark, to check a restored snapshot against the table
+    private long rowsAtOrBelowWatermark;
+
+    // The refresh thread's state: highest id read, ids above the watermark not seen (yet), and the
+    // scan positions waiting for the transactions that were running when they were read to end
+    private long scannedUpTo;
+
+    private final Roaring64Bitmap openIds = new Roaring64Bitmap();
+
+    private final ArrayDeque<ScanPosition> unsettled = new ArrayDeque<>();
+
+    private long lastXmin;
+
+    private boolean verifyRestored;
+
+    private volatile long openIdCount;
+
+    private volatile boolean dirty;
+
+    /**
+     * Mapped userKey dictionary of the restored snapshot, until the first refresh decodes it
+     */
+    private SnapshotFile.MappedSection pendingUsers;
+
+    private volatile long restoreNanos;
+
+    private volatile long snapshotBytes;
+
+    @PostConstruct
+    void init() {
+        DEVICE_TYPES.forEach(type -> bitmaps.put(type, new RoaringBitmap()));
+        Gauge.builder("statistics.bitmap.users", this, index -> index.userCount())
+            .description("Distinct users in the device bitmap index")
+            .register(meterRegistry);
+        Gauge.builder("statistics.bitmap.watermark", this, index -> index.getWatermark())
+            .description("Registration id up to which the device bitmap index is complete")
+            .register(meterRegistry);
+        Gauge.builder("statistics.bitmap.open.ids", this, index -> index.openIdCount)
+            .description("Registration ids above the watermark that may still be committed")
+            .register(meterRegistry);
+        TimeGauge.builder("statistics.bitmap.snapshot.restore", this, TimeUnit.NANOSECONDS, index -> index.restoreNanos)
+            .description("Time spent restoring the device bitmap index from its snapshot at startup")
+            .register(meterRegistry);
+        Gauge.builder("statistics.bitmap.snapshot.bytes", this, index -> index.snapshotBytes)
+            .description("Size of the last device bitmap index snapshot read or written")
+            .register(meterRegistry);
+
+        if (enabled && shardingEnabled) {
+            logger.warn("Device bitmap index disabled: it reads spring.datasource only and would miss registrations " +
+                       "on the other shards");
+            enabled = false;
+        }
+        if (enabled) {
+            restoreSnapshot();
+        }
+    }
+
+    /**
+     * Count users matching a device combination
+     *
+     * @param expression parsed device combination
+     * @return number of matching users
+     */
+    public long count(DeviceCombinationExpression expression) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap universe = RoaringBitmap.bitmapOfRange(0, userCount);
+            return expression.evaluate(bitmaps::get, universe).getLongCardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getWatermark() {
+        lock.readLock().lock();
+        try {
+            return watermark;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int userCount() {
+        lock.readLock().lock();
+        try {
+            return userCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Apply registrations added since the last refresh and those committed since under open ids,
+     * decoding the restored dictionary first
+     * Synchronized because the dictionary and the scan state are only read and changed here
+     */
+    @Scheduled(fixedDelayString = "${statistics.bitmap.refresh-interval-ms:5000}")
+    public synchronized void refresh() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            if (verifyRestored) {
+                verifyRestoredRows();
+            }
+            if (pendingUsers != null) {
+                loadUserDictionary();
+            }
+            // Positions whose transactions had all ended before this refresh: the recheck below
+            // sees the final state of their open ids
+            long settleTo = watermark;
+            for (ScanPosition position : unsettled) {
+                if (position.xmax() > lastXmin) {
+                    break;
+                }
+                settleTo = position.scannedUpTo();
+            }
+
+            int applied;
+            long total = 0;
+            do {
+                applied = applyNextBatch();
+                total += applied;
+            } while (applied == batchSize);
+            total += recheckOpenIds();
+            if (settleTo > watermark) {
+                settle(settleTo);
+            }
+
+            long[] horizon = jdbcTemplate.queryForObject(HORIZON_SQL,
+                (resultSet, rowNum) -> new long[]{resultSet.getLong(1), resultSet.getLong(2)});
+            lastXmin = horizon[0];
+            long lastPosition = unsettled.isEmpty() ? watermark : unsettled.peekLast().scannedUpTo();
+            if (scannedUpTo > lastPosition) {
+                unsettled.addLast(new ScanPosition(scannedUpTo, horizon[1]));
+            }
+            openIdCount = openIds.getLongCardinality();
+
+            if (total > 0) {
+                logger.debug("Device bitmap index applied {} registrations, watermark {}, {} open ids",
+                             total, getWatermark(), openIdCount);
+            }
+        } catch (Exception e) {
+            logger.error("Failed to refresh device bitmap index: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Apply the next batch above the scan position; ids skipped on the way become open ids
+     */
+    private int applyNextBatch() {
+        List<Object[]> rows = new ArrayList<>(Math.min(batchSize, 1024));
+        jdbcTemplate.query(INCREMENT_SQL, resultSet -> {
+            rows.add(new Object[]{resultSet.getLong(1), resultSet.getString(2), resultSet.getString(3)});
+        }, scannedUpTo, batchSize);
+        if (rows.isEmpty()) {
+            return 0;
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (Object[] row : rows) {
+                long id = (Long) row[0];
+                if (id > scannedUpTo + 1) {
+                    openIds.addRange(scannedUpTo + 1, id);
+                }
+                scannedUpTo = id;
+                apply((String) row[1], (String) row[2]);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return rows.size();
+    }
+
+    /**
+     * Look up the open ids again and apply the registrations committed under them since
+     */
+    private long recheckOpenIds() {
+        if (openIds.isEmpty()) {
+            return 0;
+        }
+        long applied = 0;
+        List<Long> scattered = new ArrayList<>();
+        LongIterator ids = openIds.clone().getLongIterator();
+        long runStart = -1;
+        long runEnd = -1;
+        while (true) {
+            boolean more = ids.hasNext();
+            long id = more ? ids.next() : -1;
+            if (more && runStart >= 0 && id == runEnd + 1) {
+                runEnd = id;
+                continue;
+            }
+            if (runStart >= 0) {
+                if (runEnd - runStart + 1 >= MIN_OPEN_RANGE) {
+                    applied += recheckRange(runStart, runEnd);
+                } else {
+                    for (long openId = runStart; openId <= runEnd; openId++) {
+                        scattered.add(openId);
+                        if (scattered.size() == batchSize) {
+                            applied += recheckIds(scattered);
+                        }
+                    }
+                }
+            }
+            if (!more) {
+                break;
+            }
+            runStart = id;
+            runEnd = id;
+        }
+        return applied + recheckIds(scattered);
+    }
+
+    private long recheckRange(long first, long last) {
+        long applied = 0;
+        long from = first;
+        while (from <= last) {
+            List<Object[]> rows = queryRows(OPEN_RANGE_SQL, from, last, batchSize);
+            applyCommitted(rows);
+            applied += rows.size();
+            if (rows.size() < batchSize) {
+                break;
+            }
+            from = (Long) rows.get(rows.size() - 1)[0] + 1;
+        }
+        return applied;
+    }
+
+    private long recheckIds(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        List<Object[]> rows = queryRows(OPEN_IDS_SQL, (Object) ids.toArray(new Long[0]));
+        ids.clear();
+        applyCommitted(rows);
+        return rows.size();
+    }
+
+    private List<Object[]> queryRows(String sql, Object... args) {
+        return jdbcTemplate.query(sql, (resultSet, rowNum) ->
+            new Object[]{resultSet.getLong(1), resultSet.getString(2), resultSet.getString(3)}, args);
+    }
+
+    /**
+     * Apply registrations found under open ids
+     */
+    private void applyCommitted(List<Object[]> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            for (Object[] row : rows) {
+                openIds.removeLong((Long) row[0]);
+                apply((String) row[1], (String) row[2]);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Move the watermark to a scan position whose open ids are final; those still open are unused
+     */
+    private void settle(long settleTo) {
+        lock.writeLock().lock();
+        try {
+            long unused = openIds.rankLong(settleTo);
+            Roaring64Bitmap settled = new Roaring64Bitmap();
+            settled.addRange(watermark + 1, settleTo + 1);
+            openIds.andNot(settled);
+            rowsAtOrBelowWatermark += settleTo - watermark - unused;
+            watermark = settleTo;
+            dirty = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        while (!unsettled.isEmpty() && unsettled.peekFirst().scannedUpTo() <= settleTo) {
+            unsettled.pollFirst();
+        }
+    }
+
+    /**
+     * Caller holds the write lock
+     */
+    private void apply(String userKey, String deviceType) {
+        RoaringBitmap bitmap = bitmaps.get(deviceType);
+        if (bitmap != null && bitmap.checkedAdd(userIdFor(userKey))) {
+            dirty = true;
+        }
+    }
+
+    /**
+     * Discard a restored snapshot that no longer describes the table, e.g. after rows were
+     * deleted or the table was reloaded; registrations above its watermark are applied as usual
+     */
+    private void verifyRestoredRows() {
+        verifyRestored = false;
+        long rows = jdbcTemplate.queryForObject(ROWS_AT_OR_BELOW_SQL, Long.class, getWatermark());
+        if (rows != rowsAtOrBelowWatermark) {
+            logger.warn("Device bitmap index snapshot expects {} registrations up to id {} but the table has {}, rebuilding",
+                        rowsAtOrBelowWatermark, watermark, rows);
+            lock.writeLock().lock();
+            try {
+                clear();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private int userIdFor(String userKey) {
+        Integer id = userIds.get(userKey);
+        if (id == null) {
+            id = userKeys.size();
+            userIds.put(userKey, id);
+            userKeys.add(userKey);
+            userCount = userKeys.size();
+        }
+        return id;
+    }
+
+    /**
+     * Decode the userKey dictionary of the restored snapshot
+     * Runs on the refresh thread, the only code that reads or grows the dictionary, so queries
+     * keep running on the restored bitmaps meanwhile
+     */
+    private void loadUserDictionary() {
+        SnapshotFile.MappedSection section = pendingUsers;
+        pendingUsers = null;
+        long start = System.nanoTime();
+        int expected = userCount();
+        try {
+            ByteBuffer users = section.verifiedBody();
+            byte[] key = new byte[1 << 16];
+            for (int i = 0; i < expected; i++) {
+                int length = Short.toUnsignedInt(users.getShort());
+                users.get(key, 0, length);
+                String userKey = new String(key, 0, length, StandardCharsets.UTF_8);
+                if (userIds.putIfAbsent(userKey, i) != null) {
+                    throw new IOException("Duplicate userKey in snapshot dictionary");
+                }
+                userKeys.add(userKey);
+            }
+            if (users.hasRemaining()) {
+                throw new IOException("Snapshot dictionary holds more than " + expected + " users");
+            }
+            logger.info("Device bitmap index dictionary loaded in {} ms: {} users",
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), expected);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to load device bitmap index dictionary, rebuilding: {}", e.getMessage());
+            lock.writeLock().lock();
+            try {
+                clear();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Persist the index to local disk if it changed since the last snapshot
+     * Written through memory mappings to a temporary file and atomically moved into place
+     */
+    @Scheduled(fixedDelayString = "${statistics.bitmap.snapshot-interval-ms:300000}",
+               initialDelayString = "${statistics.bitmap.snapshot-interval-ms:300000}")
+    public void snapshot() {
+        if (!enabled || !dirty) {
+            return;
+        }
+        // Compact containers under the write lock, then downgrade so queries continue while writing
+        lock.writeLock().lock();
+        try {
+            bitmaps.values().forEach(RoaringBitmap::runOptimize);
+            lock.readLock().lock();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            snapshotBytes = SnapshotFile.write(snapshotPath, SNAPSHOT_MAGIC, SNAPSHOT_VERSION,
+                                               List.of(new StateSection(), new UsersSection()));
+            dirty = false;
+            logger.info("Device bitmap index snapshot written: {} users, watermark {}, {} bytes",
+                        userCount, watermark, snapshotBytes);
+        } catch (IOException e) {
+            logger.error("Failed to write device bitmap index snapshot: {}", e.getMessage(), e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void restoreSnapshot() {
+        if (!Files.isReadable(snapshotPath)) {
+            logger.info("No device bitmap index snapshot at {}, building from scratch", snapshotPath);
+            return;
+        }
+        long start = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            SnapshotFile.Contents contents = SnapshotFile.read(snapshotPath, SNAPSHOT_MAGIC, SNAPSHOT_VERSION);
+            if (contents == null) {
+                logger.warn("Ignoring incompatible device bitmap index snapshot at {}", snapshotPath);
+                return;
+            }
+            ByteBuffer state = contents.section(STATE_SECTION).verifiedBody();
+            long restoredWatermark = state.getLong();
+            long restoredRows = state.getLong();
+            int users = state.getInt();
+            int types = state.getInt();
+            Map<String, Long> counts = new LinkedHashMap<>();
+            for (int i = 0; i < types; i++) {
+                byte[] name = new byte[Short.toUnsignedInt(state.getShort())];
+                state.get(name);
+                String deviceType = new String(name, StandardCharsets.UTF_8);
+                long cardinality = state.getLong();
+                int size = state.getInt();
+                RoaringBitmap bitmap = new RoaringBitmap();
+                bitmap.deserialize(state.slice(state.position(), size));
+                state.position(state.position() + size);
+                if (bitmap.getLongCardinality() != cardinality || (!bitmap.isEmpty() && bitmap.last() >= users)) {
+                    throw new IOException("Bitmap for " + deviceType + " does not match its recorded count");
+                }
+                bitmaps.put(deviceType, bitmap);
+                counts.put(deviceType, cardinality);
+            }
+            userCount = users;
+            watermark = restoredWatermark;
+            rowsAtOrBelowWatermark = restoredRows;
+            scannedUpTo = restoredWatermark;
+            verifyRestored = true;
+            pendingUsers = contents.section(USERS_SECTION);
+            snapshotBytes = contents.fileSize();
+            restoreNanos = System.nanoTime() - start;
+            logger.info("Device bitmap index restored in {} ms: {} users, watermark {}, users per type {}",
+                        TimeUnit.NANOSECONDS.toMillis(restoreNanos), users, watermark, counts);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to restore device bitmap index snapshot, rebuilding: {}", e.getMessage());
+            clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Drop all state so the next refresh rebuilds from the first registration
+     * Caller holds the write lock
+     */
+    private void clear() {
+        userIds.clear();
+        userKeys.clear();
+        bitmaps.clear();
+        DEVICE_TYPES.forEach(type -> bitmaps.put(type, new RoaringBitmap()));
+        userCount = 0;
+        watermark = 0;
+        rowsAtOrBelowWatermark = 0;
+        scannedUpTo = 0;
+        openIds.clear();
+        unsettled.clear();
+        pendingUsers = null;
+        dirty = true;
+    }
+
+    /**
+     * Watermark, rows up to the watermark, user count, then per device type: name, cardinality and serialized bitmap
+     * Written under the read lock
+     */
+    private final class StateSection implements SnapshotFile.Section {
+
+        @Override
+        public long size() {
+            long size = 2 * Long.BYTES + 2 * Integer.BYTES;
+            for (Map.Entry<String, RoaringBitmap> entry : bitmaps.entrySet()) {
+                size += Short.BYTES + entry.getKey().getBytes(StandardCharsets.UTF_8).length
+                    + Long.BYTES + Integer.BYTES + entry.getValue().serializedSizeInBytes();
+            }
+            return size;
+        }
+
+        @Override
+        public void writeTo(ByteBuffer buffer) {
+            buffer.putLong(watermark).putLong(rowsAtOrBelowWatermark).putInt(userCount).putInt(bitmaps.size());
+            for (Map.Entry<String, RoaringBitmap> entry : bitmaps.entrySet()) {
+                byte[] name = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                RoaringBitmap bitmap = entry.getValue();
+                int size = bitmap.serializedSizeInBytes();
+                buffer.putShort((short) name.length).put(name).putLong(bitmap.getLongCardinality()).putInt(size);
+                bitmap.serialize(buffer.slice(buffer.position(), size));
+                buffer.position(buffer.position() + size);
+            }
+        }
+    }
+
+    /**
+     * userKeys in dense ID order, each as an unsigned 16-bit length and UTF-8 bytes
+     * Written under the read lock
+     */
+    private final class UsersSection implements SnapshotFile.Section {
+
+        @Override
+        public long size() {
+            long size = (long) Short.BYTES * userKeys.size();
+            for (String userKey : userKeys) {
+                size += utf8Length(userKey);
+            }
+            return size;
+        }
+
+        @Override
+        public void writeTo(ByteBuffer buffer) {
+            for (String userKey : userKeys) {
+                byte[] bytes = userKey.getBytes(StandardCharsets.UTF_8);
+                buffer.putShort((short) bytes.length).put(bytes);
+            }
+        }
+    }
+
+    private static int utf8Length(String value) {
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                       && Character.isLowSurrogate(value.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                // Unpaired surrogates are encoded as '?'
+                length += 1;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        snapshot();
+    }
+
+    /**
+     * @param xmax first transaction id unassigned when the position was read; the position is
+     *             final once the oldest running transaction is at or above it
+     */
+    private record ScanPosition(long scannedUpTo, long xmax) {}
+}
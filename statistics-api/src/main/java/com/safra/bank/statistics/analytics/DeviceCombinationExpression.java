@@ -0,0 +1,242 @@
+package com.safra.bank.statistics.analytics;
+
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Boolean combination of device types, e.g. {@code iOS AND Watch AND NOT Android}
+ *
+ * Grammar (keywords are case-insensitive, {@code & | !} are accepted as aliases):
+ * <pre>
+ *   expression := term (OR term)*
+ *   term       := factor (AND factor)*
+ *   factor     := NOT factor | '(' expression ')' | deviceType
+ * </pre>
+ *
+ * DevSecOps Notes:
+ * - Only the allowed device type names are accepted as operands
+ * - Expression length and nesting depth are bounded
+ */
+public abstract class DeviceCombinationExpression {
+
+    public static final int MAX_LENGTH = 512;
+
+    private static final int MAX_DEPTH = 32;
+
+    private static final Set<String> DEVICE_TYPES = Set.of("iOS", "Android", "Watch", "TV");
+
+    /**
+     * Evaluate the expression to the set of matching user IDs
+     *
+     * @param deviceBitmap bitmap of user IDs per device type
+     * @param universe bitmap of every known user ID (used for negation)
+     * @return a new bitmap; inputs are never modified
+     */
+    public abstract RoaringBitmap evaluate(Function<String, RoaringBitmap> deviceBitmap, RoaringBitmap universe);
+
+    /**
+     * Parse an expression
+     *
+     * @param text expression text
+     * @return parsed expression
+     * @throws IllegalArgumentException if the expression is malformed or references unknown device types
+     */
+    public static DeviceCombinationExpression parse(String text) {
+        if (text == null || text.isBlank()) {
+            throw new IllegalArgumentException("Expression is required");
+        }
+        if (text.length() > MAX_LENGTH) {
+            throw new IllegalArgumentException("Expression exceeds " + MAX_LENGTH + " characters");
+        }
+        Parser parser = new Parser(tokenize(text));
+        DeviceCombinationExpression expression = parser.parseExpression(0);
+        if (parser.position != parser.tokens.size()) {
+            throw new IllegalArgumentException("Unexpected token: " + parser.tokens.get(parser.position));
+        }
+        return expression;
+    }
+
+    private static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '(' || c == ')' || c == '&' || c == '|' || c == '!') {
+                tokens.add(String.valueOf(c));
+                i++;
+            } else if (Character.isLetterOrDigit(c)) {
+                int start = i;
+                while (i < text.length() && Character.isLetterOrDigit(text.charAt(i))) {
+                    i++;
+                }
+                tokens.add(text.substring(start, i));
+            } else {
+                throw new IllegalArgumentException("Unexpected character: " + c);
+            }
+        }
+        return tokens;
+    }
+
+    private static final class Parser {
+
+        private final List<String> tokens;
+        private int position;
+
+        private Parser(List<String> tokens) {
+            this.tokens = tokens;
+        }
+
+        private DeviceCombinationExpression parseExpression(int depth) {
+            checkDepth(depth);
+            DeviceCombinationExpression left = parseTerm(depth);
+            while (accept("OR", "|")) {
+                left = new Or(left, parseTerm(depth));
+            }
+            return left;
+        }
+
+        private DeviceCombinationExpression parseTerm(int depth) {
+            DeviceCombinationExpression left = parseFactor(depth);
+            while (accept("AND", "&")) {
+                left = new And(left, parseFactor(depth));
+            }
+            return left;
+        }
+
+        private DeviceCombinationExpression parseFactor(int depth) {
+            checkDepth(depth);
+            if (accept("NOT", "!")) {
+                return new Not(parseFactor(depth + 1));
+            }
+            if (accept("(", "(")) {
+                DeviceCombinationExpression inner = parseExpression(depth + 1);
+                if (!accept(")", ")")) {
+                    throw new IllegalArgumentException("Missing closing parenthesis");
+                }
+                return inner;
+            }
+            if (position >= tokens.size()) {
+                throw new IllegalArgumentException("Unexpected end of expression");
+            }
+            String token = tokens.get(position++);
+            if (!DEVICE_TYPES.contains(token)) {
+                throw new IllegalArgumentException("Unknown device type: " + token);
+            }
+            return new DeviceType(token);
+        }
+
+        private boolean accept(String keyword, String symbol) {
+            if (position < tokens.size()) {
+                String token = tokens.get(position);
+                if (token.equalsIgnoreCase(keyword) || token.equals(symbol)) {
+                    position++;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void checkDepth(int depth) {
+            if (depth > MAX_DEPTH) {
+                throw new IllegalArgumentException("Expression nesting exceeds " + MAX_DEPTH);
+            }
+        }
+    }
+
+    private static final class DeviceType extends DeviceCombinationExpression {
+
+        private final String deviceType;
+
+        private DeviceType(String deviceType) {
+            this.deviceType = deviceType;
+        }
+
+        @Override
+        public RoaringBitmap evaluate(Function<String, RoaringBitmap> deviceBitmap, RoaringBitmap universe) {
+            return deviceBitmap.apply(deviceType).clone();
+        }
+
+        @Override
+        public String toString() {
+            return deviceType;
+        }
+    }
+
+    private static final class And extends DeviceCombinationExpression {
+
+        private final DeviceCombinationExpression left;
+        private final DeviceCombinationExpression right;
+
+        private And(DeviceCombinationExpression left, DeviceCombinationExpression right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public RoaringBitmap evaluate(Function<String, RoaringBitmap> deviceBitmap, RoaringBitmap universe) {
+            // "a AND NOT b" is evaluated as a difference, avoiding materializing the complement of b
+            RoaringBitmap result = left.evaluate(deviceBitmap, universe);
+            if (right instanceof Not not) {
+                result.andNot(not.operand.evaluate(deviceBitmap, universe));
+            } else {
+                result.and(right.evaluate(deviceBitmap, universe));
+            }
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return "(" + left + " AND " + right + ")";
+        }
+    }
+
+    private static final class Or extends DeviceCombinationExpression {
+
+        private final DeviceCombinationExpression left;
+        private final DeviceCombinationExpression right;
+
+        private Or(DeviceCombinationExpression left, DeviceCombinationExpression right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public RoaringBitmap evaluate(Function<String, RoaringBitmap> deviceBitmap, RoaringBitmap universe) {
+            RoaringBitmap result = left.evaluate(deviceBitmap, universe);
+            result.or(right.evaluate(deviceBitmap, universe));
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return "(" + left + " OR " + right + ")";
+        }
+    }
+
+    private static final class Not extends DeviceCombinationExpression {
+
+        private final DeviceCombinationExpression operand;
+
+        private Not(DeviceCombinationExpression operand) {
+            this.operand = operand;
+        }
+
+        @Override
+        public RoaringBitmap evaluate(Function<String, RoaringBitmap> deviceBitmap, RoaringBitmap universe) {
+            RoaringBitmap result = universe.clone();
+            result.andNot(operand.evaluate(deviceBitmap, universe));
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return "NOT " + operand;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.safra.bank.statistics.analytics;
+
+import com.safra.bank.shared.dto.LoginVolumeResponse.Bucket;
+import com.safra.bank.statistics.sharding.ShardedDeviceCounter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Login volume over time from the hourly login rollup
+ * (login_rollup, maintained by device-registration-api alongside the login_events log)
+ * Answers "logins per hour and device type over the last day" by summing rollup cells, so the
+ * cost depends on the number of hours in the range, not on the number of logins
+ *
+ * DevSecOps Features:
+ * - The truncation unit comes from {@link Interval} only; range and device type are bind parameters
+ * - The number of buckets per request is bounded (statistics.logins.max-buckets)
+ *
+ * Performance Notes:
+ * - One range scan over the primary key of a small table; login_events is never read
+ * - With sharded storage each shard sums its own rollup and the buckets are added up
+ */
+@Component
+public class LoginVolumeQuery {
+
+    /**
+     * Bucket sizes; rollup cells are hourly
+     */
+    public enum Interval {
+        HOUR("hour", ChronoUnit.HOURS, 24),
+        DAY("day", ChronoUnit.DAYS, 30);
+
+        private final String parameter;
+        private final ChronoUnit unit;
+        private final int defaultBuckets;
+
+        Interval(String parameter, ChronoUnit unit, int defaultBuckets) {
+            this.parameter = parameter;
+            this.unit = unit;
+            this.defaultBuckets = defaultBuckets;
+        }
+
+        public String parameter() {
+            return parameter;
+        }
+
+        public Duration duration() {
+            return unit.getDuration();
+        }
+
+        public LocalDateTime truncate(LocalDateTime time) {
+            return time.truncatedTo(unit);
+        }
+
+        /**
+         * @throws IllegalArgumentException if the name is not an interval
+         */
+        public static Interval fromParameter(String name) {
+            for (Interval interval : values()) {
+                if (interval.parameter.equals(name)) {
+                    return interval;
+                }
+            }
+            throw new IllegalArgumentException("Unknown interval: " + name + " (expected one of " +
+                Arrays.stream(values()).map(Interval::parameter).toList() + ")");
+        }
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ShardedDeviceCounter shardedDeviceCounter;
+
+    @Value("${statistics.logins.max-buckets:2000}")
+    private int maxBuckets;
+
+    /**
+     * Count logins per bucket and device type
+     * The range is widened to whole buckets; without bounds it covers the current bucket and
+     * the 23 hours (or 29 days) before it
+     *
+     * @param interval bucket size
+     * @param requestedFrom start of the range, or null
+     * @param requestedTo end of the range (exclusive), or null for now
+     * @param deviceType only this device type, or null for all
+     * @return every bucket of the range in time order, including empty ones, and the total
+     * @throws IllegalArgumentException if the range is empty or has more than max-buckets buckets
+     */
+    public Result query(Interval interval, LocalDateTime requestedFrom, LocalDateTime requestedTo, String deviceType) {
+        LocalDateTime end = requestedTo != null ? requestedTo : LocalDateTime.now();
+        LocalDateTime to = interval.truncate(end).equals(end) ? end : interval.truncate(end).plus(interval.duration());
+        LocalDateTime from = requestedFrom != null ? interval.truncate(requestedFrom)
+            : to.minus(interval.duration().multipliedBy(interval.defaultBuckets));
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+        if (Duration.between(from, to).dividedBy(interval.duration()) > maxBuckets) {
+            throw new IllegalArgumentException("Range exceeds " + maxBuckets + " " + interval.parameter + " buckets");
+        }
+
+        String sql = "SELECT date_trunc('" + interval.parameter + "', bucket_start), device_type, SUM(logins) " +
+                     "FROM login_rollup WHERE bucket_start >= ? AND bucket_start < ?" +
+                     (deviceType != null ? " AND device_type = ?" : "") + " GROUP BY 1, 2";
+        Object[] args = deviceType != null
+            ? new Object[]{Timestamp.valueOf(from), Timestamp.valueOf(to), deviceType}
+            : new Object[]{Timestamp.valueOf(from), Timestamp.valueOf(to)};
+
+        List<List<Row>> perShard = shardedDeviceCounter.isEnabled()
+            ? shardedDeviceCounter.scatter(shardJdbc -> queryRows(shardJdbc, sql, args))
+            : List.of(queryRows(jdbcTemplate, sql, args));
+
+        TreeMap<LocalDateTime, Map<String, Long>> merged = new TreeMap<>();
+        for (LocalDateTime start = from; start.isBefore(to); start = start.plus(interval.duration())) {
+            merged.put(start, new TreeMap<>());
+        }
+        long total = 0;
+        for (List<Row> rows : perShard) {
+            for (Row row : rows) {
+                merged.computeIfAbsent(row.bucketStart(), start -> new TreeMap<>())
+                      .merge(row.deviceType(), row.logins(), Long::sum);
+                total += row.logins();
+            }
+        }
+        List<Bucket> buckets = new ArrayList<>(merged.size());
+        merged.forEach((start, logins) -> buckets.add(new Bucket(start.toString(), logins,
+            logins.values().stream().mapToLong(Long::longValue).sum())));
+        return new Result(from, to, buckets, total);
+    }
+
+    private List<Row> queryRows(JdbcTemplate template, String sql, Object[] args) {
+        return template.query(sql, (resultSet, rowNum) -> new Row(
+            resultSet.getTimestamp(1).toLocalDateTime(), resultSet.getString(2), resultSet.getLong(3)), args);
+    }
+
+    private record Row(LocalDateTime bucketStart, String deviceType, long logins) {}
+
+    public record Result(LocalDateTime from, LocalDateTime to, List<Bucket> buckets, long total) {}
+}
@@ -0,0 +1,195 @@
+package com.safra.bank.statistics.analytics;
+
+import com.safra.bank.shared.dto.GroupedStatisticsResponse.Group;
+import com.safra.bank.statistics.sharding.ShardedDeviceCounter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Group-by registration counts from the pre-aggregated registration cube
+ * (registration_cube, maintained by device-registration-api)
+ * Answers "registrations by appVersion and region for iOS" by summing cube cells, so the cost
+ * depends on the number of distinct dimension combinations, not on the number of registrations
+ *
+ * DevSecOps Features:
+ * - Column names come from {@link Dimension} only; filter values are bind parameters
+ * - The number of returned groups is bounded (statistics.cube.max-groups)
+ *
+ * Performance Notes:
+ * - One aggregate over the primary key of a small table; no access to device_registrations
+ * - With sharded storage each shard returns its first groups in key order and the
+ *   sorted prefixes are merged, so the merged first groups are exact
+ */
+@Component
+public class RegistrationCubeQuery {
+
+    /**
+     * Dimensions a registration can be grouped or filtered by
+     */
+    public enum Dimension {
+        DEVICE_TYPE("deviceType", "device_type"),
+        APP_VERSION("appVersion", "app_version"),
+        OS_VERSION("osVersion", "os_version"),
+        REGION("region", "region");
+
+        private final String parameter;
+        private final String column;
+
+        Dimension(String parameter, String column) {
+            this.parameter = parameter;
+            this.column = column;
+        }
+
+        public String parameter() {
+            return parameter;
+        }
+
+        /**
+         * @throws IllegalArgumentException if the name is not a dimension
+         */
+        public static Dimension fromParameter(String name) {
+            for (Dimension dimension : values()) {
+                if (dimension.parameter.equals(name)) {
+                    return dimension;
+                }
+            }
+            throw new IllegalArgumentException("Unknown dimension: " + name + " (expected one of " +
+                Arrays.stream(values()).map(Dimension::parameter).toList() + ")");
+        }
+    }
+
+    // Stored value of a dimension the client did not report (RegistrationCubeCell.UNKNOWN)
+    private static final String UNKNOWN = "";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ShardedDeviceCounter shardedDeviceCounter;
+
+    @Value("${statistics.cube.max-groups:10000}")
+    private int maxGroups;
+
+    /**
+     * Count registrations grouped by the given dimensions
+     *
+     * @param groupBy dimensions to group by, in output order; empty for the total only
+     * @param filters exact-match filters (null value = registrations that did not report the dimension)
+     * @return groups in key order, the total over all matching registrations and whether groups were cut off
+     */
+    public Result query(List<Dimension> groupBy, Map<Dimension, String> filters) {
+        String sql = groupSql(groupBy, filters);
+        Object[] args = filters.values().stream().map(value -> value != null ? value : UNKNOWN).toArray();
+
+        List<List<Row>> perShard = shardedDeviceCounter.isEnabled()
+            ? shardedDeviceCounter.scatter(shardJdbc -> queryRows(shardJdbc, sql, groupBy.size(), args))
+            : List.of(queryRows(jdbcTemplate, sql, groupBy.size(), args));
+
+        // Key order merge; with one source this is a plain copy
+        TreeMap<List<String>, Long> merged = new TreeMap<>(RegistrationCubeQuery::compareKeys);
+        boolean truncated = false;
+        for (List<Row> rows : perShard) {
+            truncated |= rows.size() > maxGroups;
+            for (Row row : rows.subList(0, Math.min(rows.size(), maxGroups))) {
+                merged.merge(row.key(), row.count(), Long::sum);
+            }
+        }
+        long total = 0;
+        List<Group> groups = new ArrayList<>(Math.min(merged.size(), maxGroups));
+        for (Map.Entry<List<String>, Long> entry : merged.entrySet()) {
+            if (entry.getValue() <= 0) {
+                continue;
+            }
+            total += entry.getValue();
+            if (groups.size() == maxGroups) {
+                truncated = true;
+                continue;
+            }
+            Map<String, String> dimensions = new LinkedHashMap<>();
+            for (int i = 0; i < groupBy.size(); i++) {
+                String value = entry.getKey().get(i);
+                dimensions.put(groupBy.get(i).parameter(), UNKNOWN.equals(value) ? null : value);
+            }
+            groups.add(new Group(dimensions, entry.getValue()));
+        }
+        if (truncated) {
+            // Groups beyond the limit are missing from the sum; count the total separately
+            total = countTotal(filters, args);
+        }
+        return new Result(groups, total, truncated);
+    }
+
+    private long countTotal(Map<Dimension, String> filters, Object[] args) {
+        String sql = "SELECT COALESCE(SUM(registrations), 0) FROM registration_cube" + whereClause(filters);
+        if (!shardedDeviceCounter.isEnabled()) {
+            return jdbcTemplate.queryForObject(sql, Long.class, args);
+        }
+        long total = 0;
+        for (Long count : shardedDeviceCounter.scatter(shardJdbc -> shardJdbc.queryForObject(sql, Long.class, args))) {
+            total += count;
+        }
+        return total;
+    }
+
+    private List<Row> queryRows(JdbcTemplate template, String sql, int keyColumns, Object[] args) {
+        return template.query(sql, (resultSet, rowNum) -> {
+            List<String> key = new ArrayList<>(keyColumns);
+            for (int i = 1; i <= keyColumns; i++) {
+                key.add(resultSet.getString(i));
+            }
+            return new Row(key, resultSet.getLong(keyColumns + 1));
+        }, args);
+    }
+
+    private String groupSql(List<Dimension> groupBy, Map<Dimension, String> filters) {
+        StringBuilder sql = new StringBuilder("SELECT ");
+        for (Dimension dimension : groupBy) {
+            sql.append(dimension.column).append(", ");
+        }
+        sql.append("SUM(registrations) FROM registration_cube").append(whereClause(filters));
+        if (!groupBy.isEmpty()) {
+            StringBuilder columns = new StringBuilder();
+            StringBuilder order = new StringBuilder();
+            for (Dimension dimension : groupBy) {
+                columns.append(columns.isEmpty() ? "" : ", ").append(dimension.column);
+                // Byte order matches String.compareTo for the ASCII dimension values, for the shard merge
+                order.append(order.isEmpty() ? "" : ", ").append(dimension.column).append(" COLLATE \"C\"");
+            }
+            sql.append(" GROUP BY ").append(columns).append(" HAVING SUM(registrations) > 0")
+               .append(" ORDER BY ").append(order);
+        }
+        // One extra row tells whether the limit cut groups off
+        return sql.append(" LIMIT ").append(maxGroups + 1).toString();
+    }
+
+    private static String whereClause(Map<Dimension, String> filters) {
+        StringBuilder where = new StringBuilder();
+        for (Dimension dimension : filters.keySet()) {
+            where.append(where.isEmpty() ? " WHERE " : " AND ").append(dimension.column).append(" = ?");
+        }
+        return where.toString();
+    }
+
+    private static int compareKeys(List<String> left, List<String> right) {
+        for (int i = 0; i < left.size(); i++) {
+            int order = left.get(i).compareTo(right.get(i));
+            if (order != 0) {
+                return order;
+            }
+        }
+        return 0;
+    }
+
+    private record Row(List<String> key, long count) {}
+
+    public record Result(List<Group> groups, long total, boolean truncated) {}
+}
@@ -0,0 +1,161 @@
+package com.safra.bank.statistics.capture;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Binary layout of traffic capture files, shared by {@link TrafficCaptureWriter} and {@link TrafficReplay}
+ *
+ * File: magic (4 bytes), version (2 bytes), capture start in epoch microseconds (8 bytes), records.
+ * Record: start offset from the previous record in microseconds (zig-zag varint; concurrent requests
+ * can finish out of order), method (1 byte), URI with query (varint length + UTF-8), response status
+ * (varint), server time in microseconds (varint), flags (1 byte), request body (varint length + bytes).
+ * Files are self-contained, so rotated files can be deleted or replayed individually.
+ */
+final class CaptureFormat {
+
+    static final int MAGIC = 0x53424331; // "SBC1"
+
+    static final short VERSION = 1;
+
+    static final String FILE_PREFIX = "traffic-";
+
+    static final String FILE_SUFFIX = ".cap";
+
+    /**
+     * Methods by code; requests with other methods are not captured
+     */
+    static final List<String> METHODS = List.of("GET", "POST", "PUT", "DELETE", "PATCH");
+
+    /**
+     * The body was longer than statistics.capture.max-body-bytes and is cut off
+     */
+    static final int FLAG_BODY_TRUNCATED = 1;
+
+    /**
+     * The body was not a JSON object whose userKeys could be hashed and was not stored
+     */
+    static final int FLAG_BODY_REDACTED = 2;
+
+    private CaptureFormat() {}
+
+    /**
+     * One captured request
+     *
+     * @param startMicros request start, epoch microseconds
+     * @param durationMicros time spent in the server, including filters
+     */
+    record Record(long startMicros, String method, String uri, int status, long durationMicros, int flags,
+                  byte[] body) {
+
+        String route() {
+            int query = uri.indexOf('?');
+            return method + " " + (query < 0 ? uri : uri.substring(0, query));
+        }
+    }
+
+    static void writeHeader(DataOutputStream out, long startMicros) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeLong(startMicros);
+    }
+
+    /**
+     * @return capture start in epoch microseconds
+     * @throws IOException if the stream is not a capture file of this version
+     */
+    static long readHeader(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a traffic capture file");
+        }
+        short version = in.readShort();
+        if (version != VERSION) {
+            throw new IOException("Unsupported capture file version " + version);
+        }
+        return in.readLong();
+    }
+
+    static void writeRecord(OutputStream out, long previousMicros, Record record) throws IOException {
+        long delta = record.startMicros() - previousMicros;
+        writeVarLong(out, (delta << 1) ^ (delta >> 63));
+        out.write(METHODS.indexOf(record.method()));
+        byte[] uri = record.uri().getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, uri.length);
+        out.write(uri);
+        writeVarLong(out, record.status());
+        writeVarLong(out, record.durationMicros());
+        out.write(record.flags());
+        writeVarLong(out, record.body().length);
+        out.write(record.body());
+    }
+
+    /**
+     * @return the next record, or null at the end of the file (including a record cut off by a crash)
+     */
+    static Record readRecord(DataInputStream in, long previousMicros) throws IOException {
+        try {
+            long zigzag = readVarLong(in);
+            if (zigzag < 0) {
+                return null;
+            }
+            long start = previousMicros + ((zigzag >>> 1) ^ -(zigzag & 1));
+            int method = in.readUnsignedByte();
+            if (method >= METHODS.size()) {
+                throw new IOException("Corrupt capture record (method " + method + ")");
+            }
+            String uri = new String(readBytes(in), StandardCharsets.UTF_8);
+            int status = (int) readVarLong(in);
+            long duration = readVarLong(in);
+            int flags = in.readUnsignedByte();
+            byte[] body = readBytes(in);
+            return new Record(start, METHODS.get(method), uri, status, duration, flags, body);
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        long length = readVarLong(in);
+        if (length < 0 || length > 16 * 1024 * 1024) {
+            throw new IOException("Corrupt capture record (length " + length + ")");
+        }
+        byte[] bytes = new byte[(int) length];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    static void writeVarLong(OutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    /**
+     * @return the value, or -1 at a clean end of stream before the first byte
+     */
+    static long readVarLong(InputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                if (shift == 0) {
+                    return -1;
+                }
+                throw new EOFException();
+            }
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Corrupt capture record (varint)");
+    }
+}
@@ -0,0 +1,84 @@
+package com.safra.bank.statistics.capture;
+
+import com.safra.bank.statistics.capture.CaptureFormat.Record;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingRequestWrapper;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Arrays;
+
+/**
+ * Records /Log/** requests for offline replay (statistics.capture.enabled, off by default)
+ * Runs first, so requests rejected by the rate limit or load shedding are captured with their status
+ *
+ * DevSecOps Features:
+ * - Headers, cookies and client addresses are not captured; the userKey of bodies is hashed by
+ *   {@link TrafficCaptureWriter} before it reaches the disk
+ * - Captured bodies are limited to statistics.capture.max-body-bytes
+ * - The long-lived statistics stream is not captured
+ *
+ * Performance Notes:
+ * - Only the bytes the controller reads are kept (up to the body limit); no extra read or copy
+ *   of the request stream
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class TrafficCaptureFilter extends OncePerRequestFilter {
+
+    @Autowired
+    private TrafficCaptureWriter captureWriter;
+
+    @Value("${statistics.capture.max-body-bytes:4KB}")
+    private DataSize maxBodyBytes;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        return !captureWriter.isEnabled()
+            || !path.startsWith("/Log/")
+            || path.equals("/Log/auth/statistics/stream")
+            || !CaptureFormat.METHODS.contains(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        long startMicros = currentMicros();
+        long startNanos = System.nanoTime();
+        int limit = (int) maxBodyBytes.toBytes();
+        ContentCachingRequestWrapper wrapper = new ContentCachingRequestWrapper(request, limit + 1);
+        boolean failed = true;
+        try {
+            filterChain.doFilter(wrapper, response);
+            failed = false;
+        } finally {
+            byte[] body = wrapper.getContentAsByteArray();
+            int flags = 0;
+            if (body.length > limit) {
+                body = Arrays.copyOf(body, limit);
+                flags |= CaptureFormat.FLAG_BODY_TRUNCATED;
+            }
+            String query = request.getQueryString();
+            captureWriter.record(new Record(startMicros, request.getMethod(),
+                query != null ? request.getRequestURI() + "?" + query : request.getRequestURI(),
+                // An exception escaping the chain becomes a 500 in the container
+                failed ? 500 : response.getStatus(), (System.nanoTime() - startNanos) / 1000, flags, body));
+        }
+    }
+
+    private static long currentMicros() {
+        Instant now = Instant.now();
+        return now.getEpochSecond() * 1_000_000 + now.getNano() / 1000;
+    }
+}
@@ -0,0 +1,345 @@
+package com.safra.bank.statistics.capture;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.safra.bank.statistics.capture.CaptureFormat.Record;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Writes requests recorded by {@link TrafficCaptureFilter} to rotating capture files
+ * (statistics.capture.directory, format in {@link CaptureFormat}) for replay with {@link TrafficReplay}
+ *
+ * DevSecOps Features:
+ * - Every userKey of JSON object bodies is replaced by a keyed hash (HMAC-SHA256) before anything is
+ *   written; the same user maps to the same hash within a capture, so per-user behaviour (rate limits,
+ *   coalescing, caches) replays faithfully. Bodies that are not JSON objects are not stored
+ * - Without statistics.capture.hash-key a random key is generated per process, so hashes cannot be
+ *   linked across captures or reversed by hashing known user keys
+ * - Disk use is bounded by max-file-size times max-files; the oldest file is deleted on rotation
+ *
+ * Performance Notes:
+ * - The request thread only enqueues; hashing, encoding and file I/O run on the scheduler
+ * - The queue is bounded; when it is full further requests are not captured (counted as dropped)
+ */
+@Component
+public class TrafficCaptureWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(TrafficCaptureWriter.class);
+
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${statistics.capture.enabled:false}")
+    private boolean enabled;
+
+    @Value("${statistics.capture.directory:/tmp/statistics-api/capture}")
+    private String directory;
+
+    @Value("${statistics.capture.max-file-size:64MB}")
+    private DataSize maxFileSize;
+
+    @Value("${statistics.capture.max-files:10}")
+    private int maxFiles;
+
+    @Value("${statistics.capture.max-pending:100000}")
+    private int maxPending;
+
+    @Value("${statistics.capture.hash-key:}")
+    private String hashKey;
+
+    private final ConcurrentLinkedQueue<Record> pending = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger pendingCount = new AtomicInteger();
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    private SecretKeySpec userKeyHashKey;
+
+    private Path directoryPath;
+
+    // Guarded by writeLock
+    private DataOutputStream out;
+
+    private Path currentFile;
+
+    private long currentBytes;
+
+    private long previousMicros;
+
+    private Counter recorded;
+
+    private Counter dropped;
+
+    private Counter redacted;
+
+    private Counter bytesWritten;
+
+    @PostConstruct
+    void init() throws IOException {
+        recorded = Counter.builder("statistics.capture.requests")
+            .description("Requests written to traffic capture files")
+            .tag("result", "recorded")
+            .register(meterRegistry);
+        dropped = Counter.builder("statistics.capture.requests")
+            .description("Requests not captured because the capture queue was full or the file failed")
+            .tag("result", "dropped")
+            .register(meterRegistry);
+        redacted = Counter.builder("statistics.capture.requests")
+            .description("Requests captured without their body because the userKey could not be hashed")
+            .tag("result", "redacted")
+            .register(meterRegistry);
+        bytesWritten = Counter.builder("statistics.capture.bytes")
+            .description("Bytes written to traffic capture files")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+        Gauge.builder("statistics.capture.pending", pendingCount, AtomicInteger::get)
+            .description("Captured requests waiting to be written")
+            .register(meterRegistry);
+
+        byte[] key = hashKey.isEmpty() ? new byte[32] : hashKey.getBytes(StandardCharsets.UTF_8);
+        if (hashKey.isEmpty()) {
+            new SecureRandom().nextBytes(key);
+        }
+        userKeyHashKey = new SecretKeySpec(key, "HmacSHA256");
+        if (enabled) {
+            directoryPath = Paths.get(directory);
+            Files.createDirectories(directoryPath);
+            logger.info("Capturing traffic to {} ({} per file, {} files)", directoryPath, maxFileSize, maxFiles);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queue a completed request; never blocks
+     */
+    void record(Record record) {
+        if (pendingCount.incrementAndGet() > maxPending) {
+            pendingCount.decrementAndGet();
+            dropped.increment();
+            return;
+        }
+        pending.add(record);
+    }
+
+    @Scheduled(fixedDelayString = "${statistics.capture.flush-interval-ms:200}")
+    public void flush() {
+        if (!enabled || pendingCount.get() == 0) {
+            return;
+        }
+        writeLock.lock();
+        try {
+            List<Record> batch = new ArrayList<>(pendingCount.get());
+            Record record;
+            while ((record = pending.poll()) != null) {
+                pendingCount.decrementAndGet();
+                batch.add(record);
+            }
+            // Queued in completion order; stored in start order as far as one batch allows
+            batch.sort(Comparator.comparingLong(Record::startMicros));
+            write(batch);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void write(List<Record> batch) {
+        int written = 0;
+        try {
+            for (Record record : batch) {
+                if (out == null || currentBytes >= maxFileSize.toBytes()) {
+                    rotate(record.startMicros());
+                }
+                Record stored = anonymize(record);
+                CountingOutputStream counting = new CountingOutputStream(out);
+                CaptureFormat.writeRecord(counting, previousMicros, stored);
+                previousMicros = stored.startMicros();
+                currentBytes += counting.count;
+                bytesWritten.increment(counting.count);
+                written++;
+            }
+            out.flush();
+            recorded.increment(written);
+        } catch (IOException e) {
+            dropped.increment(batch.size() - written);
+            logger.warn("Could not write traffic capture {}: {}", currentFile, e.getMessage());
+            closeQuietly();
+        }
+    }
+
+    private void rotate(long startMicros) throws IOException {
+        closeQuietly();
+        Path file = directoryPath.resolve(CaptureFormat.FILE_PREFIX
+            + LocalDateTime.now().format(FILE_TIMESTAMP) + CaptureFormat.FILE_SUFFIX);
+        out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 64 * 1024));
+        CaptureFormat.writeHeader(out, startMicros);
+        currentFile = file;
+        currentBytes = out.size();
+        previousMicros = startMicros;
+
+        try (Stream<Path> files = Files.list(directoryPath)) {
+            List<Path> captures = files
+                .filter(path -> path.getFileName().toString().startsWith(CaptureFormat.FILE_PREFIX)
+                             && path.getFileName().toString().endsWith(CaptureFormat.FILE_SUFFIX))
+                .sorted()
+                .toList();
+            for (int i = 0; i < captures.size() - maxFiles; i++) {
+                Files.deleteIfExists(captures.get(i));
+                logger.info("Deleted traffic capture {} (more than {} files)", captures.get(i).getFileName(), maxFiles);
+            }
+        }
+    }
+
+    /**
+     * Replace every userKey of a JSON object body, at any depth, by its keyed hash
+     * Any other body (arrays, scalars, unparseable or truncated input, a userKey that is not a scalar)
+     * is dropped, so no user key reaches the capture file in plain text
+     */
+    private Record anonymize(Record record) {
+        if (record.body().length == 0) {
+            return record;
+        }
+        try {
+            if ((record.flags() & CaptureFormat.FLAG_BODY_TRUNCATED) != 0) {
+                throw new IOException("truncated body");
+            }
+            JsonNode body = objectMapper.readTree(record.body());
+            if (!(body instanceof ObjectNode object)) {
+                throw new IOException("not a JSON object");
+            }
+            if (!hashUserKeys(object)) {
+                return record;
+            }
+            return new Record(record.startMicros(), record.method(), record.uri(), record.status(),
+                record.durationMicros(), record.flags(), objectMapper.writeValueAsBytes(object));
+        } catch (IOException e) {
+            redacted.increment();
+            return new Record(record.startMicros(), record.method(), record.uri(), record.status(),
+                record.durationMicros(), record.flags() | CaptureFormat.FLAG_BODY_REDACTED, new byte[0]);
+        }
+    }
+
+    /**
+     * @return whether a userKey was replaced
+     */
+    private boolean hashUserKeys(JsonNode node) throws IOException {
+        boolean changed = false;
+        if (node instanceof ObjectNode object) {
+            JsonNode userKey = object.get("userKey");
+            if (userKey != null && !userKey.isNull()) {
+                if (userKey.isContainerNode()) {
+                    throw new IOException("userKey is not a scalar");
+                }
+                object.put("userKey", hashUserKey(userKey.asText()));
+                changed = true;
+            }
+        }
+        for (JsonNode child : node) {
+            if (child.isContainerNode()) {
+                changed |= hashUserKeys(child);
+            }
+        }
+        return changed;
+    }
+
+    private String hashUserKey(String userKey) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(userKeyHashKey);
+            byte[] hash = mac.doFinal(userKey.getBytes(StandardCharsets.UTF_8));
+            return "cap-" + HexFormat.of().formatHex(hash, 0, 16);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 unavailable", e);
+        }
+    }
+
+    private void closeQuietly() {
+        if (out != null) {
+            try {
+                out.close();
+            } catch (IOException e) {
+                logger.debug("Could not close traffic capture {}: {}", currentFile, e.getMessage());
+            }
+            out = null;
+        }
+    }
+
+    /**
+     * Write what is queued and close the current file
+     */
+    @PreDestroy
+    public void close() {
+        flush();
+        writeLock.lock();
+        try {
+            closeQuietly();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+
+        private final OutputStream delegate;
+
+        private long count;
+
+        CountingOutputStream(OutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            delegate.write(b, off, len);
+            count += len;
+        }
+    }
+}
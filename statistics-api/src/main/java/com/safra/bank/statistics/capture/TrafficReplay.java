@@ -0,0 +1,381 @@
+package com.safra.bank.statistics.capture;
+
+import com.safra.bank.statistics.capture.CaptureFormat.Record;
+import org.HdrHistogram.Histogram;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+/**
+ * Replays traffic capture files (see {@link TrafficCaptureWriter}) against one or more statistics-api
+ * instances and reports latency and errors per route, with deltas between the targets
+ * Runs without a Spring context or database, from the application jar:
+ * <pre>
+ * java -cp statistics-api.jar -Dloader.main=com.safra.bank.statistics.capture.TrafficReplay \
+ *   org.springframework.boot.loader.launch.PropertiesLauncher \
+ *   --input=/tmp/statistics-api/capture --target=http://localhost:8080,http://localhost:9080 --speed=1
+ * </pre>
+ *
+ * Options:
+ * --input     capture file or directory of capture files (replayed in file name order)
+ * --target    comma-separated base URLs, replayed one after the other
+ * --speed     1 replays at the captured pace, 2 twice as fast, max as fast as --concurrency allows
+ * --concurrency  requests in flight per target (default 256)
+ * --timeout   per-request timeout (default PT10S)
+ * --limit     replay at most this many requests
+ * --report    write the per-route summary of the last target as TSV
+ * --baseline  compare against a TSV report of an earlier run (e.g. of the previous build)
+ *
+ * Requests whose body was not captured (could not be hashed or was truncated) are skipped.
+ * Targets should run with statistics.ratelimit.enabled=false, since every replayed request comes from
+ * one client address, and without capture, which would rotate the files being replayed
+ */
+public final class TrafficReplay {
+
+    private static final int MAX_ROUTES = 100;
+
+    private static final String OTHER_ROUTES = "<other routes>";
+
+    private TrafficReplay() {}
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        if (!options.containsKey("input") || !options.containsKey("target")) {
+            System.err.println("Usage: TrafficReplay --input=<file|dir> --target=<url>[,<url>] [--speed=1|<factor>|max] "
+                + "[--concurrency=256] [--timeout=PT10S] [--limit=<n>] [--report=<tsv>] [--baseline=<tsv>]");
+            System.exit(2);
+        }
+        List<Path> files = captureFiles(Paths.get(options.get("input")));
+        String speedOption = options.getOrDefault("speed", "1");
+        double speed = speedOption.equals("max") ? 0 : Double.parseDouble(speedOption);
+        if (speed < 0) {
+            throw new IllegalArgumentException("--speed must be positive or max");
+        }
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "256"));
+        Duration timeout = Duration.parse(options.getOrDefault("timeout", "PT10S"));
+        long limit = Long.parseLong(options.getOrDefault("limit", Long.toString(Long.MAX_VALUE)));
+
+        Map<String, Map<String, Summary>> runs = new LinkedHashMap<>();
+        if (options.containsKey("baseline")) {
+            runs.put("baseline " + options.get("baseline"), readReport(Paths.get(options.get("baseline"))));
+        }
+        Map<String, Summary> last = null;
+        for (String target : options.get("target").split(",")) {
+            if (target.isBlank()) {
+                continue;
+            }
+            Replayer replayer = new Replayer(target.trim(), speed, concurrency, timeout, limit);
+            replayer.run(files);
+            if (last == null) {
+                // Server time of the captured requests, for reference
+                print(System.out, "captured", replayer.captured);
+            }
+            last = replayer.summaries();
+            runs.put(target.trim(), last);
+            print(System.out, target.trim(), last);
+        }
+        if (last != null && options.containsKey("report")) {
+            writeReport(Paths.get(options.get("report")), last);
+            System.out.println("Report written to " + options.get("report"));
+        }
+        if (runs.size() > 1) {
+            List<String> names = new ArrayList<>(runs.keySet());
+            for (int i = 1; i < names.size(); i++) {
+                printDelta(System.out, names.get(0), runs.get(names.get(0)), names.get(i), runs.get(names.get(i)));
+            }
+        }
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new TreeMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            } else {
+                throw new IllegalArgumentException("Unexpected argument: " + arg);
+            }
+        }
+        return options;
+    }
+
+    private static List<Path> captureFiles(Path input) throws IOException {
+        if (!Files.isDirectory(input)) {
+            return List.of(input);
+        }
+        try (Stream<Path> files = Files.list(input)) {
+            List<Path> captures = files
+                .filter(path -> path.getFileName().toString().startsWith(CaptureFormat.FILE_PREFIX)
+                             && path.getFileName().toString().endsWith(CaptureFormat.FILE_SUFFIX))
+                .sorted()
+                .toList();
+            if (captures.isEmpty()) {
+                throw new IOException("No capture files in " + input);
+            }
+            return captures;
+        }
+    }
+
+    /**
+     * Records of one file in start order; files are read one at a time to bound memory
+     */
+    private static List<Record> readFile(Path file) throws IOException {
+        List<Record> records = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 64 * 1024))) {
+            long previous = CaptureFormat.readHeader(in);
+            Record record;
+            while ((record = CaptureFormat.readRecord(in, previous)) != null) {
+                records.add(record);
+                previous = record.startMicros();
+            }
+        } catch (NoSuchFileException e) {
+            throw new IOException("Capture file " + file + " was deleted during the replay; "
+                + "replay a copy, or disable capture on the targets", e);
+        }
+        records.sort(Comparator.comparingLong(Record::startMicros));
+        return records;
+    }
+
+    /**
+     * Replays the capture against one target
+     */
+    private static final class Replayer {
+
+        private final String target;
+        private final double speed;
+        private final int concurrency;
+        private final Duration timeout;
+        private final long limit;
+        private final HttpClient client;
+
+        private final Map<String, RouteStats> routes = new ConcurrentHashMap<>();
+        private final Map<String, Summary> captured = new TreeMap<>();
+        private final AtomicLong skipped = new AtomicLong();
+        private long maxBehindMicros;
+
+        Replayer(String target, double speed, int concurrency, Duration timeout, long limit) {
+            this.target = target.endsWith("/") ? target.substring(0, target.length() - 1) : target;
+            this.speed = speed;
+            this.concurrency = concurrency;
+            this.timeout = timeout;
+            this.limit = limit;
+            this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(2))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        }
+
+        void run(List<Path> files) throws IOException, InterruptedException {
+            Map<String, RouteStats> capturedStats = new TreeMap<>();
+            Semaphore inFlight = new Semaphore(concurrency);
+            long sent = 0;
+            long firstMicros = -1;
+            long wallStart = System.nanoTime();
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                replay:
+                for (Path file : files) {
+                    for (Record record : readFile(file)) {
+                        if (sent >= limit) {
+                            break replay;
+                        }
+                        if ((record.flags() & CaptureFormat.FLAG_BODY_REDACTED) != 0) {
+                            skipped.incrementAndGet();
+                            continue;
+                        }
+                        if (firstMicros < 0) {
+                            firstMicros = record.startMicros();
+                        }
+                        if (speed > 0) {
+                            long due = wallStart + (long) ((record.startMicros() - firstMicros) * 1000 / speed);
+                            long wait = due - System.nanoTime();
+                            if (wait > 0) {
+                                LockSupport.parkNanos(wait);
+                            } else {
+                                maxBehindMicros = Math.max(maxBehindMicros, -wait / 1000);
+                            }
+                        }
+                        statsFor(capturedStats, record.route()).record(record.durationMicros(), record.status(), record.status());
+                        inFlight.acquire();
+                        executor.execute(() -> {
+                            try {
+                                send(record);
+                            } finally {
+                                inFlight.release();
+                            }
+                        });
+                        sent++;
+                    }
+                }
+            }
+            double seconds = (System.nanoTime() - wallStart) / 1e9;
+            capturedStats.forEach((route, stats) -> captured.put(route, stats.summary(route)));
+            System.out.printf(Locale.ROOT, "%nReplayed %d requests from %d file(s) against %s in %.1f s (%.1f req/s, speed %s, "
+                    + "up to %.1f ms behind schedule, %d skipped without body)%n",
+                sent, files.size(), target, seconds, sent / seconds, speed > 0 ? Double.toString(speed) : "max",
+                maxBehindMicros / 1000.0, skipped.get());
+        }
+
+        private void send(Record record) {
+            HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(target + record.uri())).timeout(timeout);
+            if (record.body().length > 0) {
+                request.header("Content-Type", "application/json")
+                       .method(record.method(), HttpRequest.BodyPublishers.ofByteArray(record.body()));
+            } else {
+                request.method(record.method(), HttpRequest.BodyPublishers.noBody());
+            }
+            long start = System.nanoTime();
+            int status;
+            try {
+                status = client.send(request.build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+            } catch (IOException e) {
+                status = 0;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            statsFor(routes, record.route()).record((System.nanoTime() - start) / 1000, status, record.status());
+        }
+
+        Map<String, Summary> summaries() {
+            Map<String, Summary> summaries = new TreeMap<>();
+            routes.forEach((route, stats) -> summaries.put(route, stats.summary(route)));
+            return summaries;
+        }
+    }
+
+    private static RouteStats statsFor(Map<String, RouteStats> routes, String route) {
+        RouteStats stats = routes.get(route);
+        if (stats != null) {
+            return stats;
+        }
+        return routes.computeIfAbsent(routes.size() < MAX_ROUTES ? route : OTHER_ROUTES, key -> new RouteStats());
+    }
+
+    /**
+     * Response times and outcomes of one route; status 0 is a connection error or timeout
+     */
+    private static final class RouteStats {
+
+        private final Histogram latency = new Histogram(TimeUnit.MINUTES.toMicros(5), 2);
+        private long requests;
+        private long errors;
+        private long rejected;
+        private long mismatches;
+
+        synchronized void record(long micros, int status, int capturedStatus) {
+            // Connection errors and timeouts would distort the response time distribution
+            if (status != 0) {
+                latency.recordValue(Math.min(Math.max(micros, 0), latency.getHighestTrackableValue()));
+            }
+            requests++;
+            if (status == 0 || status >= 500 && status != 503) {
+                errors++;
+            } else if (status == 429 || status == 503) {
+                rejected++;
+            }
+            if (status != capturedStatus) {
+                mismatches++;
+            }
+        }
+
+        synchronized Summary summary(String route) {
+            return new Summary(route, requests, errors, rejected, mismatches,
+                latency.getValueAtPercentile(50), latency.getValueAtPercentile(90),
+                latency.getValueAtPercentile(99), latency.getMaxValue());
+        }
+    }
+
+    /**
+     * Per-route result; latencies in microseconds
+     *
+     * @param errors 5xx (except 503), connection errors and timeouts
+     * @param rejected 429 and 503 (rate limit and load shedding)
+     * @param mismatches responses whose status differs from the captured one
+     */
+    private record Summary(String route, long requests, long errors, long rejected, long mismatches,
+                           long p50, long p90, long p99, long max) {}
+
+    private static void print(PrintStream out, String name, Map<String, Summary> summaries) {
+        out.println();
+        out.println(name);
+        out.printf(Locale.ROOT, "  %-40s %9s %7s %8s %8s %9s %9s %9s %9s%n",
+            "route", "requests", "errors", "rejected", "mismatch", "p50 ms", "p90 ms", "p99 ms", "max ms");
+        for (Summary s : summaries.values()) {
+            out.printf(Locale.ROOT, "  %-40s %9d %7d %8d %8d %9.2f %9.2f %9.2f %9.2f%n",
+                s.route(), s.requests(), s.errors(), s.rejected(), s.mismatches(),
+                s.p50() / 1000.0, s.p90() / 1000.0, s.p99() / 1000.0, s.max() / 1000.0);
+        }
+    }
+
+    private static void printDelta(PrintStream out, String baseName, Map<String, Summary> base,
+                                   String name, Map<String, Summary> run) {
+        out.println();
+        out.println(name + " vs " + baseName);
+        out.printf(Locale.ROOT, "  %-40s %9s %9s %9s %9s %11s %11s%n",
+            "route", "errors", "rejected", "p50", "p99", "p50 ms", "p99 ms");
+        for (Summary s : run.values()) {
+            Summary b = base.get(s.route());
+            if (b == null) {
+                out.printf(Locale.ROOT, "  %-40s (not in %s)%n", s.route(), baseName);
+                continue;
+            }
+            out.printf(Locale.ROOT, "  %-40s %+9d %+9d %8s%% %8s%% %+11.2f %+11.2f%n",
+                s.route(), s.errors() - b.errors(), s.rejected() - b.rejected(),
+                percentChange(b.p50(), s.p50()), percentChange(b.p99(), s.p99()),
+                (s.p50() - b.p50()) / 1000.0, (s.p99() - b.p99()) / 1000.0);
+        }
+    }
+
+    private static String percentChange(long base, long value) {
+        return base == 0 ? "n/a" : String.format(Locale.ROOT, "%+.1f", (value - base) * 100.0 / base);
+    }
+
+    private static void writeReport(Path file, Map<String, Summary> summaries) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add("route\trequests\terrors\trejected\tmismatches\tp50_us\tp90_us\tp99_us\tmax_us");
+        for (Summary s : summaries.values()) {
+            lines.add(String.join("\t", s.route(), Long.toString(s.requests()), Long.toString(s.errors()),
+                Long.toString(s.rejected()), Long.toString(s.mismatches()), Long.toString(s.p50()),
+                Long.toString(s.p90()), Long.toString(s.p99()), Long.toString(s.max())));
+        }
+        Files.write(file, lines);
+    }
+
+    private static Map<String, Summary> readReport(Path file) throws IOException {
+        Map<String, Summary> summaries = new TreeMap<>();
+        List<String> lines = Files.readAllLines(file);
+        for (String line : lines.subList(1, lines.size())) {
+            String[] f = line.split("\t");
+            summaries.put(f[0], new Summary(f[0], Long.parseLong(f[1]), Long.parseLong(f[2]), Long.parseLong(f[3]),
+                Long.parseLong(f[4]), Long.parseLong(f[5]), Long.parseLong(f[6]), Long.parseLong(f[7]),
+                Long.parseLong(f[8])));
+        }
+        return summaries;
+    }
+}
@@ -0,0 +1,346 @@
+package com.safra.bank.statistics.client;
+
+import com.safra.bank.shared.dto.DeviceRegistrationRequest;
+import com.safra.bank.shared.dto.DeviceRegistrationResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Client for POST /Device/register on device-registration-api
+ * Spreads registrations over the instances in {@link RegistrationEndpoints}; optionally sends a
+ * hedged copy to a second instance when the first has not answered within the recent p95 latency
+ *
+ * DevSecOps Features:
+ * - Marks calls with X-Internal-Service so device-registration-api can tell internal traffic apart
+ * - Client errors (4xx other than 429) are final and never repeated
+ * - A 503 with Retry-After is load shedding by device-registration-api; when every attempt was
+ *   shed the caller gets a 503 response to pass on instead of a generic failure
+ * - Hedges and retries are limited by a {@link RetryBudget}, so a slow or failing backend
+ *   receives at most ratio x load extra requests
+ *
+ * Performance Notes:
+ * - Registration is an idempotent upsert on (userKey, deviceType), so a hedge may run next to
+ *   the original; the first successful answer wins and the slower attempt finishes unobserved
+ * - Every attempt of one registration carries the same request id and login time, which
+ *   device-registration-api uses to append the login to login_events only once
+ * - The hedge delay follows the p95 (configurable) of recent attempt latencies, clamped to
+ *   [min-delay, max-delay], so only about the slowest 5% of requests are hedged
+ * - With hedging, attempts run on a cached thread pool while the caller waits for the first answer;
+ *   without hedging the call stays on the caller thread
+ * - A request that failed on every attempt with a connection error, 5xx, 429 or shed 503 is retried
+ *   once on another instance if the budget allows
+ */
+@Component
+public class DeviceRegistrationClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeviceRegistrationClient.class);
+
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    /**
+     * Why an attempt was made
+     */
+    enum Kind {
+        PRIMARY, HEDGE, RETRY
+    }
+
+    @Autowired
+    private RestTemplate restTemplate;
+
+    @Autowired
+    private RegistrationEndpoints registrationEndpoints;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${device.registration.api.hedging.enabled:false}")
+    private boolean hedgingEnabled;
+
+    @Value("${device.registration.api.hedging.percentile:95}")
+    private double hedgePercentile;
+
+    @Value("${device.registration.api.hedging.initial-delay:50ms}")
+    private Duration initialHedgeDelay;
+
+    @Value("${device.registration.api.hedging.min-delay:5ms}")
+    private Duration minHedgeDelay;
+
+    @Value("${device.registration.api.hedging.max-delay:1s}")
+    private Duration maxHedgeDelay;
+
+    // Attempts needed in a window before its percentile replaces the current delay
+    @Value("${device.registration.api.hedging.min-samples:100}")
+    private int minSamples;
+
+    @Value("${device.registration.api.retry-budget.ratio:0.1}")
+    private double budgetRatio;
+
+    @Value("${device.registration.api.retry-budget.min-per-second:5}")
+    private int budgetMinPerSecond;
+
+    @Value("${device.registration.api.retry-budget.max-tokens:100}")
+    private int budgetMaxTokens;
+
+    private RetryBudget retryBudget;
+
+    private ExecutorService attemptExecutor;
+
+    private final Recorder latencyRecorder = new Recorder(HIGHEST_TRACKABLE_NANOS, 2);
+
+    private Histogram latencyInterval;
+
+    private volatile long hedgeDelayNanos;
+
+    private final Map<Kind, Map<Outcome, Counter>> attempts = new EnumMap<>(Kind.class);
+
+    private Counter hedgesWon;
+
+    private Counter budgetExhausted;
+
+    @PostConstruct
+    void init() {
+        retryBudget = new RetryBudget(budgetRatio, budgetMinPerSecond, budgetMaxTokens);
+        hedgeDelayNanos = clampDelay(initialHedgeDelay.toNanos());
+        if (hedgingEnabled) {
+            // Platform threads: the blocking HTTP client would pin virtual threads to their carriers
+            AtomicInteger threadIndex = new AtomicInteger();
+            attemptExecutor = Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "registration-attempt-" + threadIndex.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        for (Kind kind : Kind.values()) {
+            Map<Outcome, Counter> byOutcome = new EnumMap<>(Outcome.class);
+            for (Outcome outcome : Outcome.values()) {
+                byOutcome.put(outcome, Counter.builder("statistics.registration.attempts")
+                    .description("Calls to device-registration-api by reason and outcome")
+                    .tag("kind", kind.name().toLowerCase(Locale.ROOT))
+                    .tag("outcome", outcome.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry));
+            }
+            attempts.put(kind, byOutcome);
+        }
+        hedgesWon = Counter.builder("statistics.registration.hedges.won")
+            .description("Registrations answered by the hedged attempt before the original")
+            .register(meterRegistry);
+        budgetExhausted = Counter.builder("statistics.registration.budget.exhausted")
+            .description("Hedges or retries skipped because the retry budget was empty")
+            .register(meterRegistry);
+        Gauge.builder("statistics.registration.hedge.delay", this, client -> client.hedgeDelayNanos / 1_000_000.0)
+            .description("Current hedge delay in milliseconds")
+            .register(meterRegistry);
+        Gauge.builder("statistics.registration.retry.budget", retryBudget, RetryBudget::available)
+            .description("Earned hedges/retries currently available")
+            .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (attemptExecutor != null) {
+            attemptExecutor.shutdown();
+        }
+    }
+
+    /**
+     * Register a device with device-registration-api
+     *
+     * @param request the device registration request; a request id and login time are assigned
+     *                when it has none
+     * @return the first successful response, a 503 response if the last attempt was shed,
+     *         or null if every attempt failed
+     */
+    public DeviceRegistrationResponse register(DeviceRegistrationRequest request) {
+        if (request.getRequestId() == null) {
+            request.setRequestId(UUID.randomUUID().toString());
+            request.setLoginTime(LocalDateTime.now());
+        }
+        retryBudget.deposit();
+        // Null when interrupted
+        Attempt result = hedgingEnabled ? registerHedged(request) : registerSequential(request);
+        if (result == null) {
+            return null;
+        }
+        return switch (result.outcome()) {
+            case SUCCESS -> result.response();
+            case SHED -> DeviceRegistrationResponse.serviceUnavailable();
+            default -> null;
+        };
+    }
+
+    /**
+     * Close the latency window and derive the hedge delay from it
+     * Windows with too few attempts keep the previous delay
+     */
+    @Scheduled(fixedDelayString = "${device.registration.api.hedging.window-ms:10000}")
+    public synchronized void updateHedgeDelay() {
+        latencyInterval = latencyInterval == null
+            ? latencyRecorder.getIntervalHistogram() : latencyRecorder.getIntervalHistogram(latencyInterval);
+        if (latencyInterval.getTotalCount() >= minSamples) {
+            hedgeDelayNanos = clampDelay(latencyInterval.getValueAtPercentile(hedgePercentile));
+        }
+    }
+
+    private Attempt registerSequential(DeviceRegistrationRequest request) {
+        Attempt attempt = send(registrationEndpoints.acquire(null), request, Kind.PRIMARY);
+        if (attempt.outcome().isRetryable() && withdraw()) {
+            attempt = send(registrationEndpoints.acquire(attempt.endpoint()), request, Kind.RETRY);
+        }
+        return attempt;
+    }
+
+    private Attempt registerHedged(DeviceRegistrationRequest request) {
+        // Capacity for both attempts, so a late attempt never blocks on offer after the caller left
+        BlockingQueue<Attempt> completed = new ArrayBlockingQueue<>(2);
+        RegistrationEndpoint primary = submit(null, request, Kind.PRIMARY, completed);
+        int outstanding = 1;
+        boolean extraAttemptUsed = false;
+        try {
+            while (true) {
+                Attempt attempt = extraAttemptUsed
+                    ? completed.take() : completed.poll(hedgeDelayNanos, TimeUnit.NANOSECONDS);
+                if (attempt == null) {
+                    // The original is slower than the hedge delay
+                    extraAttemptUsed = true;
+                    if (withdraw()) {
+                        submit(primary, request, Kind.HEDGE, completed);
+                        outstanding++;
+                    }
+                    continue;
+                }
+                outstanding--;
+                if (attempt.outcome() == Outcome.SUCCESS) {
+                    if (attempt.kind() == Kind.HEDGE) {
+                        hedgesWon.increment();
+                    }
+                    return attempt;
+                }
+                if (outstanding > 0) {
+                    continue;
+                }
+                if (!extraAttemptUsed && attempt.outcome().isRetryable() && withdraw()) {
+                    // Failed fast: retry on another instance instead of hedging
+                    extraAttemptUsed = true;
+                    submit(attempt.endpoint(), request, Kind.RETRY, completed);
+                    outstanding++;
+                    continue;
+                }
+                return attempt;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private RegistrationEndpoint submit(RegistrationEndpoint exclude, DeviceRegistrationRequest request, Kind kind,
+                                        BlockingQueue<Attempt> completed) {
+        RegistrationEndpoint endpoint = registrationEndpoints.acquire(exclude);
+        attemptExecutor.execute(() -> completed.offer(send(endpoint, request, kind)));
+        return endpoint;
+    }
+
+    /**
+     * One call to one instance; the instance must have been acquired for this call
+     */
+    private Attempt send(RegistrationEndpoint endpoint, DeviceRegistrationRequest request, Kind kind) {
+        String url = endpoint.baseUrl() + "/Device/register";
+
+        // Set headers for secure communication
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set("X-Internal-Service", "statistics-api");
+
+        HttpEntity<DeviceRegistrationRequest> entity = new HttpEntity<>(request, headers);
+
+        logger.debug("Calling DeviceRegistrationAPI at: {} ({})", url, kind);
+        long start = System.nanoTime();
+        DeviceRegistrationResponse response = null;
+        Outcome outcome;
+        // 429 and shed 503 mean busy, not broken: they are retried but do not count towards ejection
+        boolean instanceFailed = false;
+        try {
+            response = restTemplate.postForEntity(url, entity, DeviceRegistrationResponse.class).getBody();
+            outcome = Outcome.SUCCESS;
+        } catch (HttpStatusCodeException e) {
+            logger.error("Failed to call DeviceRegistrationAPI at {}: {}", endpoint, e.getMessage());
+            int status = e.getStatusCode().value();
+            if (status == HttpStatus.SERVICE_UNAVAILABLE.value()
+                    && e.getResponseHeaders() != null && e.getResponseHeaders().containsKey(HttpHeaders.RETRY_AFTER)) {
+                outcome = Outcome.SHED;
+            } else {
+                instanceFailed = e.getStatusCode().is5xxServerError();
+                outcome = instanceFailed || status == HttpStatus.TOO_MANY_REQUESTS.value()
+                    ? Outcome.RETRYABLE : Outcome.REJECTED;
+            }
+        } catch (RestClientException e) {
+            logger.error("Failed to call DeviceRegistrationAPI at {}: {}", endpoint, e.getMessage());
+            instanceFailed = true;
+            outcome = Outcome.RETRYABLE;
+        }
+        registrationEndpoints.release(endpoint, instanceFailed);
+        if (outcome == Outcome.SUCCESS) {
+            latencyRecorder.recordValue(Math.min(System.nanoTime() - start, HIGHEST_TRACKABLE_NANOS));
+        }
+        attempts.get(kind).get(outcome).increment();
+        return new Attempt(endpoint, kind, outcome, response);
+    }
+
+    private boolean withdraw() {
+        if (retryBudget.tryWithdraw(System.nanoTime())) {
+            return true;
+        }
+        budgetExhausted.increment();
+        return false;
+    }
+
+    private long clampDelay(long nanos) {
+        return Math.max(minHedgeDelay.toNanos(), Math.min(nanos, maxHedgeDelay.toNanos()));
+    }
+
+    /**
+     * Attempt outcomes: success, final rejection (4xx), retryable failure (no answer, 5xx, 429)
+     * or shed by admission control (503 with Retry-After, also retryable)
+     */
+    enum Outcome {
+        SUCCESS, REJECTED, RETRYABLE, SHED;
+
+        boolean isRetryable() {
+            return this == RETRYABLE || this == SHED;
+        }
+    }
+
+    private record Attempt(RegistrationEndpoint endpoint, Kind kind, Outcome outcome,
+                           DeviceRegistrationResponse response) {}
+}
@@ -0,0 +1,64 @@
+package com.safra.bank.statistics.client;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One device-registration-api instance as seen by {@link RegistrationEndpoints}
+ * Tracks the requests currently outstanding on the instance and passive failure ejection
+ *
+ * Performance Notes:
+ * - Outstanding requests include hedges and requests whose caller already returned, so an
+ *   instance that is still working through abandoned requests is not chosen as idle
+ */
+final class RegistrationEndpoint {
+
+    private final String baseUrl;
+
+    private final AtomicInteger outstanding = new AtomicInteger();
+
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+    // System.nanoTime() until which the instance is skipped; 0 = not ejected
+    private volatile long ejectedUntilNanos;
+
+    RegistrationEndpoint(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    String baseUrl() {
+        return baseUrl;
+    }
+
+    int outstanding() {
+        return outstanding.get();
+    }
+
+    void start() {
+        outstanding.incrementAndGet();
+    }
+
+    /**
+     * @param failed the instance did not answer or answered with a server error
+     * @param maxFailures consecutive failures before the instance is ejected
+     * @param ejectionNanos how long an ejected instance is skipped
+     */
+    void finish(boolean failed, int maxFailures, long ejectionNanos) {
+        outstanding.decrementAndGet();
+        if (!failed) {
+            consecutiveFailures.set(0);
+        } else if (consecutiveFailures.incrementAndGet() >= maxFailures) {
+            consecutiveFailures.set(0);
+            ejectedUntilNanos = System.nanoTime() + ejectionNanos;
+        }
+    }
+
+    boolean isEjected(long nowNanos) {
+        long until = ejectedUntilNanos;
+        return until != 0 && nowNanos - until < 0;
+    }
+
+    @Override
+    public String toString() {
+        return baseUrl;
+    }
+}
@@ -0,0 +1,236 @@
+package com.safra.bank.statistics.client;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Set of device-registration-api instances the Statistics API spreads registrations over
+ * Instances come from a static list, or from resolving the configured URL's host to all of
+ * its addresses (a headless Kubernetes Service) and refreshing periodically
+ *
+ * DevSecOps Features:
+ * - Instances are only taken from configuration or the configured host's DNS records
+ * - An instance that fails repeatedly is skipped for a while (passive ejection)
+ *
+ * Performance Notes:
+ * - Power-of-two-choices (default): two random instances are compared and the one with fewer
+ *   outstanding requests wins, which steers load away from a slow instance without the herding
+ *   of always picking the global minimum
+ * - Least-outstanding scans every instance; round-robin matches a plain Service and is kept as baseline
+ * - Selection is lock-free; instances that survive a DNS refresh keep their outstanding counts
+ */
+@Component
+public class RegistrationEndpoints {
+
+    private static final Logger logger = LoggerFactory.getLogger(RegistrationEndpoints.class);
+
+    /**
+     * Instance selection strategies
+     */
+    public enum Strategy {
+        P2C, LEAST_OUTSTANDING, ROUND_ROBIN
+    }
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${device.registration.api.url:http://localhost:8081}")
+    private String deviceRegistrationApiUrl;
+
+    // Comma separated base URLs; empty uses device.registration.api.url
+    @Value("${device.registration.api.load-balancing.endpoints:}")
+    private String staticEndpoints;
+
+    @Value("${device.registration.api.load-balancing.dns-discovery:false}")
+    private boolean dnsDiscovery;
+
+    @Value("${device.registration.api.load-balancing.strategy:p2c}")
+    private String strategyName;
+
+    @Value("${device.registration.api.load-balancing.max-failures:3}")
+    private int maxFailures;
+
+    @Value("${device.registration.api.load-balancing.ejection-time:5s}")
+    private Duration ejectionTime;
+
+    private Strategy strategy;
+
+    private long ejectionNanos;
+
+    private volatile List<RegistrationEndpoint> endpoints = List.of();
+
+    private final AtomicInteger roundRobin = new AtomicInteger();
+
+    @PostConstruct
+    void init() {
+        strategy = Strategy.valueOf(strategyName.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+        ejectionNanos = ejectionTime.toNanos();
+        if (!staticEndpoints.isBlank()) {
+            endpoints = Arrays.stream(staticEndpoints.split(","))
+                .map(String::trim)
+                .filter(url -> !url.isEmpty())
+                .map(RegistrationEndpoints::stripTrailingSlash)
+                .distinct()
+                .map(RegistrationEndpoint::new)
+                .toList();
+        } else {
+            endpoints = List.of(new RegistrationEndpoint(stripTrailingSlash(deviceRegistrationApiUrl)));
+            if (dnsDiscovery) {
+                refresh();
+            }
+        }
+        Gauge.builder("statistics.registration.endpoints", this, RegistrationEndpoints::available)
+            .description("device-registration-api instances currently eligible for registrations")
+            .register(meterRegistry);
+        logger.info("Registrations are balanced over {} ({} selection, DNS discovery {})",
+                    endpoints, strategy, dnsDiscovery && staticEndpoints.isBlank() ? "on" : "off");
+    }
+
+    /**
+     * Re-resolve the configured host and replace the instance set when its addresses changed
+     * A failed or empty lookup keeps the previous instances
+     */
+    @Scheduled(fixedDelayString = "${device.registration.api.load-balancing.dns-refresh-interval-ms:10000}")
+    public void refresh() {
+        if (!dnsDiscovery || !staticEndpoints.isBlank()) {
+            return;
+        }
+        URI uri = URI.create(deviceRegistrationApiUrl);
+        InetAddress[] addresses;
+        try {
+            addresses = InetAddress.getAllByName(uri.getHost());
+        } catch (UnknownHostException e) {
+            logger.warn("Could not resolve device-registration-api host {}: {}", uri.getHost(), e.getMessage());
+            return;
+        }
+        int port = uri.getPort() != -1 ? uri.getPort() : "https".equals(uri.getScheme()) ? 443 : 80;
+        Map<String, RegistrationEndpoint> current = new HashMap<>();
+        for (RegistrationEndpoint endpoint : endpoints) {
+            current.put(endpoint.baseUrl(), endpoint);
+        }
+        List<RegistrationEndpoint> resolved = new ArrayList<>(addresses.length);
+        for (InetAddress address : addresses) {
+            String host = address instanceof Inet6Address
+                ? "[" + address.getHostAddress() + "]" : address.getHostAddress();
+            String baseUrl = uri.getScheme() + "://" + host + ":" + port;
+            resolved.add(current.getOrDefault(baseUrl, new RegistrationEndpoint(baseUrl)));
+        }
+        resolved.sort((left, right) -> left.baseUrl().compareTo(right.baseUrl()));
+        if (!resolved.isEmpty() && !resolved.equals(endpoints)) {
+            logger.info("device-registration-api instances: {}", resolved);
+            endpoints = List.copyOf(resolved);
+        }
+    }
+
+    /**
+     * Choose an instance for the next attempt and count it as outstanding
+     * Ejected instances are skipped unless every instance is ejected
+     *
+     * @param exclude instance already used by this request (a hedge prefers another one), or null
+     * @return the chosen instance; release it with {@link #release}
+     */
+    RegistrationEndpoint acquire(RegistrationEndpoint exclude) {
+        List<RegistrationEndpoint> all = endpoints;
+        List<RegistrationEndpoint> candidates = eligible(all, exclude);
+        RegistrationEndpoint chosen = switch (strategy) {
+            case P2C -> powerOfTwoChoices(candidates);
+            case LEAST_OUTSTANDING -> leastOutstanding(candidates);
+            case ROUND_ROBIN -> candidates.get(Math.floorMod(roundRobin.getAndIncrement(), candidates.size()));
+        };
+        chosen.start();
+        return chosen;
+    }
+
+    /**
+     * @param endpoint instance returned by {@link #acquire}
+     * @param failed no answer or a server error; repeated failures eject the instance
+     */
+    void release(RegistrationEndpoint endpoint, boolean failed) {
+        endpoint.finish(failed, maxFailures, ejectionNanos);
+    }
+
+    private List<RegistrationEndpoint> eligible(List<RegistrationEndpoint> all, RegistrationEndpoint exclude) {
+        if (all.size() == 1) {
+            return all;
+        }
+        long now = System.nanoTime();
+        List<RegistrationEndpoint> candidates = new ArrayList<>(all.size());
+        for (RegistrationEndpoint endpoint : all) {
+            if (endpoint != exclude && !endpoint.isEjected(now)) {
+                candidates.add(endpoint);
+            }
+        }
+        if (candidates.isEmpty() && exclude != null && !exclude.isEjected(now)) {
+            // Every other instance is ejected: repeat on the same one
+            candidates.add(exclude);
+        }
+        // Everything is ejected: any instance is better than none
+        return candidates.isEmpty() ? all : candidates;
+    }
+
+    private static RegistrationEndpoint powerOfTwoChoices(List<RegistrationEndpoint> candidates) {
+        int size = candidates.size();
+        if (size == 1) {
+            return candidates.get(0);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(size);
+        int second = random.nextInt(size - 1);
+        if (second >= first) {
+            second++;
+        }
+        RegistrationEndpoint a = candidates.get(first);
+        RegistrationEndpoint b = candidates.get(second);
+        return b.outstanding() < a.outstanding() ? b : a;
+    }
+
+    private static RegistrationEndpoint leastOutstanding(List<RegistrationEndpoint> candidates) {
+        // Random start so ties do not all land on the first instance
+        int size = candidates.size();
+        int start = ThreadLocalRandom.current().nextInt(size);
+        RegistrationEndpoint best = candidates.get(start);
+        for (int i = 1; i < size; i++) {
+            RegistrationEndpoint endpoint = candidates.get((start + i) % size);
+            if (endpoint.outstanding() < best.outstanding()) {
+                best = endpoint;
+            }
+        }
+        return best;
+    }
+
+    private int available() {
+        long now = System.nanoTime();
+        int count = 0;
+        for (RegistrationEndpoint endpoint : endpoints) {
+            if (!endpoint.isEjected(now)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static String stripTrailingSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+}
@@ -0,0 +1,92 @@
+package com.safra.bank.statistics.client;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Budget for extra registration attempts (hedges and retries)
+ * Every primary request earns {@code ratio} of an attempt, capped at {@code maxTokens}; on top of
+ * that {@code minPerSecond} attempts per second are always allowed so low traffic can still hedge
+ *
+ * Performance Notes:
+ * - Extra attempts are bounded to about ratio x primary load (+ the floor), so hedging cannot
+ *   multiply traffic when device-registration-api is slow because it is overloaded
+ * - Lock-free: one atomic add per primary request, one CAS per extra attempt; the floor is a
+ *   single-key GCRA like {@link com.safra.bank.statistics.ratelimit.TokenBucketRateLimiter}
+ */
+public class RetryBudget {
+
+    // Balance unit: 1/1000 of an attempt
+    private static final long UNIT = 1000;
+
+    private final long depositPerRequest;
+
+    private final long maxBalance;
+
+    private final AtomicLong balance = new AtomicLong();
+
+    private final long floorIntervalNanos;
+
+    private final long floorCapacityNanos;
+
+    // Theoretical arrival time of the floor's GCRA
+    private final AtomicLong floorArrival = new AtomicLong(System.nanoTime());
+
+    /**
+     * @param ratio extra attempts earned per primary request (e.g. 0.1 = 10%)
+     * @param minPerSecond extra attempts per second allowed regardless of the earned balance (0 = none)
+     * @param maxTokens upper bound on the earned balance
+     */
+    public RetryBudget(double ratio, int minPerSecond, int maxTokens) {
+        if (ratio < 0 || minPerSecond < 0 || maxTokens < 1) {
+            throw new IllegalArgumentException("Ratio and floor must not be negative, max tokens must be positive");
+        }
+        this.depositPerRequest = Math.round(ratio * UNIT);
+        this.maxBalance = maxTokens * UNIT;
+        this.floorIntervalNanos = minPerSecond > 0 ? 1_000_000_000L / minPerSecond : 0;
+        this.floorCapacityNanos = floorIntervalNanos * minPerSecond;
+    }
+
+    /**
+     * Credit one primary request
+     */
+    public void deposit() {
+        if (depositPerRequest > 0 && balance.get() < maxBalance) {
+            balance.accumulateAndGet(depositPerRequest, (current, add) -> Math.min(maxBalance, current + add));
+        }
+    }
+
+    /**
+     * Take one extra attempt from the budget
+     *
+     * @param nowNanos current {@link System#nanoTime()}
+     * @return true if the attempt may be made
+     */
+    public boolean tryWithdraw(long nowNanos) {
+        long current;
+        while ((current = balance.get()) >= UNIT) {
+            if (balance.compareAndSet(current, current - UNIT)) {
+                return true;
+            }
+        }
+        if (floorIntervalNanos == 0) {
+            return false;
+        }
+        while (true) {
+            long arrival = floorArrival.get();
+            long next = Math.max(arrival, nowNanos) + floorIntervalNanos;
+            if (next - nowNanos > floorCapacityNanos) {
+                return false;
+            }
+            if (floorArrival.compareAndSet(arrival, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @return earned extra attempts currently available (excluding the floor)
+     */
+    public double available() {
+        return (double) balance.get() / UNIT;
+    }
+}
@@ -0,0 +1,113 @@
+package com.safra.bank.statistics.concurrent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls with the same key into a single execution
+ * The first caller (leader) runs the call; callers arriving while it is in flight
+ * wait for and share the leader's result instead of repeating the work
+ *
+ * Performance Notes:
+ * - Only in-flight calls are tracked; entries are removed as soon as the leader finishes,
+ *   so results are never served after the call completes
+ * - The in-flight map is bounded; beyond the limit callers run uncoalesced rather than queue
+ *
+ * @param <K> call key
+ * @param <V> call result
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final int maxInFlight;
+
+    private final Counter executed;
+
+    private final Counter coalesced;
+
+    private final Counter bypassed;
+
+    /**
+     * @param name metric name prefix, e.g. "statistics.login.singleflight"
+     * @param maxInFlight maximum number of distinct keys tracked at once
+     * @param meterRegistry registry for executed/coalesced/bypassed counters and the in-flight gauge
+     */
+    public SingleFlight(String name, int maxInFlight, MeterRegistry meterRegistry) {
+        this.maxInFlight = maxInFlight;
+        this.executed = Counter.builder(name + ".calls")
+            .description("Calls executed by a single-flight leader")
+            .tag("result", "executed")
+            .register(meterRegistry);
+        this.coalesced = Counter.builder(name + ".calls")
+            .description("Calls that shared an in-flight leader's result")
+            .tag("result", "coalesced")
+            .register(meterRegistry);
+        this.bypassed = Counter.builder(name + ".calls")
+            .description("Calls executed without coalescing because the in-flight map was full")
+            .tag("result", "bypassed")
+            .register(meterRegistry);
+        Gauge.builder(name + ".in.flight", inFlight, ConcurrentHashMap::size)
+            .description("Distinct keys currently in flight")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Execute the call, or join an identical call already in flight
+     *
+     * @param key identity of the call
+     * @param call work to run if no identical call is in flight
+     * @return the call result, shared with every coalesced caller
+     */
+    public V execute(K key, Supplier<V> call) {
+        CompletableFuture<V> existing = inFlight.get(key);
+        if (existing != null) {
+            coalesced.increment();
+            return await(existing);
+        }
+        if (inFlight.size() >= maxInFlight) {
+            bypassed.increment();
+            return call.get();
+        }
+
+        CompletableFuture<V> leader = new CompletableFuture<>();
+        existing = inFlight.putIfAbsent(key, leader);
+        if (existing != null) {
+            coalesced.increment();
+            return await(existing);
+        }
+
+        executed.increment();
+        try {
+            V result = call.get();
+            leader.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            leader.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, leader);
+        }
+    }
+
+    private V await(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            // Rethrow the leader's exception unchanged so callers handle it as their own
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
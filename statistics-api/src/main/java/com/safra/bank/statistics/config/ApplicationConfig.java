@@ -3,6 +3,7 @@ package com.safra.bank.statistics.config;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.client.RestTemplate;
 
 import java.time.Duration;
@@ -15,8 +16,10 @@ import java.time.Duration;
  * - RestTemplate with timeouts to prevent hanging connections
  * - Connection pooling for performance
  * - Secure HTTP client configuration
+ * - Scheduling for background refresh tasks (live statistics stream)
  */
 @Configuration
+@EnableScheduling
 public class ApplicationConfig {
 
     /**
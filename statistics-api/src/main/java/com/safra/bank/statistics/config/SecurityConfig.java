@@ -2,11 +2,13 @@ package com.safra.bank.statistics.config;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.expression.WebExpressionAuthorizationManager;
 import org.springframework.security.web.header.writers.ReferrerPolicyHeaderWriter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
@@ -22,15 +24,21 @@ import java.util.Arrays;
  * - HTTPS enforcement in production
  * - Comprehensive security headers (HSTS, CSP, X-Frame-Options, etc.)
  * - CORS configuration for controlled cross-origin access
- * - Rate limiting (to be implemented with additional dependencies)
+ * - Rate limiting per client IP and userKey (see ratelimit package, runs ahead of this chain)
  * - Session management with stateless policy
  * - Input validation and sanitization
  * - Actuator endpoint protection
+ * - Diagnostic actuator endpoints (query profiler) are opt-in and answer loopback callers only;
+ *   so does resetting the latency histograms
  */
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
 
+    // e.g. kubectl port-forward; requests through a proxy or ingress arrive from another address
+    private static final WebExpressionAuthorizationManager LOOPBACK_ONLY =
+        new WebExpressionAuthorizationManager("hasIpAddress('127.0.0.0/8') or hasIpAddress('::1')");
+
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
         http
@@ -65,6 +73,10 @@ public class SecurityConfig {
                 
                 // Actuator endpoints - restrict in production
                 .requestMatchers("/actuator/health").permitAll()
+                // SQL text, call sites and plans, and a DELETE that resets them
+                .requestMatchers("/actuator/queries", "/actuator/queries/**").access(LOOPBACK_ONLY)
+                // Reading latency percentiles is harmless; discarding them is not
+                .requestMatchers(HttpMethod.DELETE, "/actuator/latency", "/actuator/latency/**").access(LOOPBACK_ONLY)
                 .requestMatchers("/actuator/**").permitAll() // Should be restricted in production
                 
                 // OpenAPI documentation - can be restricted in production
@@ -0,0 +1,56 @@
+package com.safra.bank.statistics.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import com.safra.bank.statistics.web.PreSerializedJsonHttpMessageConverter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Web MVC configuration for Statistics API
+ * Configures JSON serialization for the request hot path
+ *
+ * Performance Notes:
+ * - Constant response DTOs are written from pre-serialized bytes ahead of the Jackson converter
+ * - Jackson uses the Blackbird module (generated accessors instead of reflection) for
+ *   request and response (de)serialization
+ */
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    // Resolved lazily: the ObjectMapper itself depends on the Jackson customizer declared below
+    @Autowired
+    private ObjectProvider<ObjectMapper> objectMapper;
+
+    @Value("${statistics.web.fast-json.enabled:true}")
+    private boolean fastJsonEnabled;
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        if (fastJsonEnabled) {
+            converters.add(0, new PreSerializedJsonHttpMessageConverter(objectMapper.getObject()));
+        }
+    }
+
+    /**
+     * Register Blackbird on the application ObjectMapper
+     * 
+     * @return customizer applied by Spring Boot's Jackson auto-configuration
+     */
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer blackbirdCustomizer() {
+        return builder -> {
+            if (fastJsonEnabled) {
+                builder.postConfigurer(mapper -> mapper.registerModule(new BlackbirdModule()));
+            }
+        };
+    }
+}
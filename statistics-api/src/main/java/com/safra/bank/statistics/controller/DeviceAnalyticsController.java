@@ -0,0 +1,241 @@
+package com.safra.bank.statistics.controller;
+
+import com.safra.bank.shared.dto.DeviceCombinationResponse;
+import com.safra.bank.shared.dto.GroupedStatisticsResponse;
+import com.safra.bank.shared.dto.LoginRequest;
+import com.safra.bank.shared.dto.LoginVolumeResponse;
+import com.safra.bank.statistics.analytics.DeviceBitmapIndex;
+import com.safra.bank.statistics.analytics.DeviceCombinationExpression;
+import com.safra.bank.statistics.analytics.LoginVolumeQuery;
+import com.safra.bank.statistics.analytics.LoginVolumeQuery.Interval;
+import com.safra.bank.statistics.analytics.RegistrationCubeQuery;
+import com.safra.bank.statistics.analytics.RegistrationCubeQuery.Dimension;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * REST Controller for device analytics
+ * Answers questions like "users with iOS AND Watch but NOT Android" from bitmap indexes,
+ * registration counts grouped by device type, app version, OS version and region
+ * from the pre-aggregated registration cube, and login volume over time from the login rollup
+ *
+ * DevSecOps Features:
+ * - Expression grammar restricted to device type names and boolean operators
+ * - Bounded expression length and nesting
+ * - Group-by dimensions and filter values validated against fixed names and patterns
+ * - Time ranges are bounded to a maximum number of buckets
+ * - Returns cardinalities only; no user identifiers are exposed
+ */
+@RestController
+@RequestMapping("/Log")
+@Validated
+@Tag(name = "Statistics API", description = "Public API for device statistics and user login events")
+public class DeviceAnalyticsController {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeviceAnalyticsController.class);
+
+    private static final Pattern DEVICE_TYPE = Pattern.compile("^(iOS|Android|Watch|TV)$");
+
+    private static final Pattern DIMENSION_VALUE = Pattern.compile(LoginRequest.DIMENSION_PATTERN);
+
+    @Autowired
+    private DeviceBitmapIndex deviceBitmapIndex;
+
+    @Autowired
+    private RegistrationCubeQuery registrationCubeQuery;
+
+    @Autowired
+    private LoginVolumeQuery loginVolumeQuery;
+
+    /**
+     * Count users matching a boolean combination of device types
+     * Endpoint: GET /Log/auth/statistics/combinations
+     *
+     * @param expression boolean expression, e.g. "iOS AND Watch AND NOT Android"
+     * @return DeviceCombinationResponse with matching user count and index watermark
+     */
+    @GetMapping("/auth/statistics/combinations")
+    @Operation(
+        summary = "Count users by device combination",
+        description = "Evaluates a boolean combination of device types (AND, OR, NOT, parentheses) " +
+                      "and returns the number of matching users"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Combination evaluated successfully"),
+        @ApiResponse(responseCode = "400", description = "Invalid expression"),
+        @ApiResponse(responseCode = "503", description = "Bitmap index disabled, or unavailable with sharded storage")
+    })
+    public ResponseEntity<DeviceCombinationResponse> countDeviceCombination(
+            @Parameter(description = "Boolean expression over device types (iOS, Android, Watch, TV)", required = true)
+            @RequestParam("expression") String expression) {
+
+        logger.info("Received device combination request");
+
+        if (!deviceBitmapIndex.isEnabled()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(DeviceCombinationResponse.error(expression));
+        }
+
+        DeviceCombinationExpression parsed;
+        try {
+            parsed = DeviceCombinationExpression.parse(expression);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid device combination expression: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(DeviceCombinationResponse.error(expression));
+        }
+
+        try {
+            long watermark = deviceBitmapIndex.getWatermark();
+            long count = deviceBitmapIndex.count(parsed);
+            return ResponseEntity.ok(DeviceCombinationResponse.success(expression, count, watermark));
+        } catch (Exception e) {
+            logger.error("Unexpected error evaluating device combination: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError().body(DeviceCombinationResponse.error(expression));
+        }
+    }
+
+    /**
+     * Count registrations grouped by any subset of the statistics dimensions
+     * Endpoint: GET /Log/auth/statistics/groups
+     *
+     * @param groupBy comma-separated dimensions, e.g. "appVersion,region"; omitted for the total only
+     * @return GroupedStatisticsResponse with one count per combination of the grouped dimensions
+     */
+    @GetMapping("/auth/statistics/groups")
+    @Operation(
+        summary = "Count registrations grouped by dimensions",
+        description = "Groups registration counts by any subset of deviceType, appVersion, osVersion and region, " +
+                      "optionally filtered by exact dimension values; answered from a pre-aggregated cube"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Groups counted successfully"),
+        @ApiResponse(responseCode = "400", description = "Unknown dimension or invalid filter value"),
+        @ApiResponse(responseCode = "503", description = "Database overloaded, retry after the given delay")
+    })
+    public ResponseEntity<GroupedStatisticsResponse> countGroupedRegistrations(
+            @Parameter(description = "Comma-separated dimensions: deviceType, appVersion, osVersion, region")
+            @RequestParam(value = "groupBy", required = false) String groupBy,
+            @Parameter(description = "Only this device type (iOS, Android, Watch, TV)")
+            @RequestParam(value = "deviceType", required = false) String deviceType,
+            @Parameter(description = "Only this app version")
+            @RequestParam(value = "appVersion", required = false) String appVersion,
+            @Parameter(description = "Only this OS version")
+            @RequestParam(value = "osVersion", required = false) String osVersion,
+            @Parameter(description = "Only this region")
+            @RequestParam(value = "region", required = false) String region) {
+
+        logger.info("Received grouped statistics request");
+
+        List<Dimension> dimensions = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        Map<Dimension, String> filters = new EnumMap<>(Dimension.class);
+        try {
+            if (groupBy != null && !groupBy.isBlank()) {
+                for (String name : groupBy.split(",")) {
+                    Dimension dimension = Dimension.fromParameter(name.trim());
+                    if (dimensions.contains(dimension)) {
+                        throw new IllegalArgumentException("Duplicate dimension: " + dimension.parameter());
+                    }
+                    dimensions.add(dimension);
+                    names.add(dimension.parameter());
+                }
+            }
+            addFilter(filters, Dimension.DEVICE_TYPE, deviceType, DEVICE_TYPE);
+            addFilter(filters, Dimension.APP_VERSION, appVersion, DIMENSION_VALUE);
+            addFilter(filters, Dimension.OS_VERSION, osVersion, DIMENSION_VALUE);
+            addFilter(filters, Dimension.REGION, region, DIMENSION_VALUE);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid grouped statistics request: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(GroupedStatisticsResponse.error(names));
+        }
+
+        try {
+            RegistrationCubeQuery.Result result = registrationCubeQuery.query(dimensions, filters);
+            return ResponseEntity.ok(GroupedStatisticsResponse.success(
+                names, result.groups(), result.total(), result.truncated()));
+        } catch (Exception e) {
+            logger.error("Unexpected error counting grouped registrations: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError().body(GroupedStatisticsResponse.error(names));
+        }
+    }
+
+    /**
+     * Count logins per time bucket and device type
+     * Endpoint: GET /Log/auth/statistics/logins
+     *
+     * @param interval bucket size, "hour" or "day"
+     * @return LoginVolumeResponse with one entry per bucket of the range
+     */
+    @GetMapping("/auth/statistics/logins")
+    @Operation(
+        summary = "Count logins over time",
+        description = "Returns the number of logins per hour or day and device type, including repeated logins " +
+                      "of registered devices; answered from hourly rollups of the login event log"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Logins counted successfully"),
+        @ApiResponse(responseCode = "400", description = "Invalid interval, range or device type"),
+        @ApiResponse(responseCode = "503", description = "Database overloaded, retry after the given delay")
+    })
+    public ResponseEntity<LoginVolumeResponse> countLogins(
+            @Parameter(description = "Bucket size: hour (default) or day")
+            @RequestParam(value = "interval", required = false, defaultValue = "hour") String interval,
+            @Parameter(description = "Start of the range, ISO-8601 local date-time (default: 24 hours or 30 days before to)")
+            @RequestParam(value = "from", required = false) String from,
+            @Parameter(description = "End of the range, exclusive, ISO-8601 local date-time (default: now)")
+            @RequestParam(value = "to", required = false) String to,
+            @Parameter(description = "Only this device type (iOS, Android, Watch, TV)")
+            @RequestParam(value = "deviceType", required = false) String deviceType) {
+
+        logger.info("Received login volume request");
+
+        LoginVolumeQuery.Result result;
+        try {
+            Interval parsed = Interval.fromParameter(interval);
+            if (deviceType != null && !DEVICE_TYPE.matcher(deviceType).matches()) {
+                throw new IllegalArgumentException("Invalid deviceType filter");
+            }
+            result = loginVolumeQuery.query(parsed, parseTime(from), parseTime(to), deviceType);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            logger.warn("Invalid login volume request: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(LoginVolumeResponse.error(interval));
+        } catch (Exception e) {
+            logger.error("Unexpected error counting logins: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError().body(LoginVolumeResponse.error(interval));
+        }
+        return ResponseEntity.ok(LoginVolumeResponse.success(
+            interval, result.from().toString(), result.to().toString(), result.buckets(), result.total()));
+    }
+
+    private static LocalDateTime parseTime(String value) {
+        return value == null || value.isBlank() ? null : LocalDateTime.parse(value);
+    }
+
+    private static void addFilter(Map<Dimension, String> filters, Dimension dimension, String value, Pattern pattern) {
+        if (value == null) {
+            return;
+        }
+        if (!pattern.matcher(value).matches()) {
+            throw new IllegalArgumentException("Invalid " + dimension.parameter() + " filter");
+        }
+        filters.put(dimension, value);
+    }
+}
@@ -6,7 +6,9 @@ package com.safra.bank.statistics.controller;
 import com.safra.bank.shared.dto.LoginRequest;
 import com.safra.bank.shared.dto.LoginResponse;
 import com.safra.bank.shared.dto.StatisticsResponse;
+import com.safra.bank.statistics.ratelimit.ClientRateLimiter;
 import com.safra.bank.statistics.service.StatisticsService;
+import com.safra.bank.statistics.service.StatisticsStreamService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -17,9 +19,13 @@ import jakarta.validation.constraints.Pattern;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 /**
  * REST Controller for Statistics API endpoints
@@ -30,7 +36,8 @@ import org.springframework.web.bind.annotation.*;
  * - Detailed API documentation with OpenAPI/Swagger
  * - Security logging for audit trails
  * - Proper HTTP status code handling
- * - Rate limiting and security headers (configured in security config)
+ * - Rate limiting per client IP (RateLimitFilter) and per userKey
+ * - Security headers (configured in security config)
  */
 @RestController
 @RequestMapping("/Log")
@@ -43,6 +50,12 @@ public class LogController {
     @Autowired
     private StatisticsService statisticsService;
 
+    @Autowired
+    private StatisticsStreamService statisticsStreamService;
+
+    @Autowired
+    private ClientRateLimiter clientRateLimiter;
+
     /**
      * Store information about user login event
      * Endpoint: POST /Log/auth
@@ -58,13 +71,24 @@ public class LogController {
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Login processed successfully"),
         @ApiResponse(responseCode = "400", description = "Invalid request data"),
-        @ApiResponse(responseCode = "500", description = "Internal server error")
+        @ApiResponse(responseCode = "429", description = "Too many requests"),
+        @ApiResponse(responseCode = "500", description = "Internal server error"),
+        @ApiResponse(responseCode = "503", description = "Device registration overloaded, retry after the given delay")
     })
     public ResponseEntity<LoginResponse> processLogin(
             @Valid @RequestBody LoginRequest loginRequest) {
         
         logger.info("Received login request for device type: {}", loginRequest.getDeviceType());
         
+        // Per-user limit is applied before the downstream registration call
+        long retryAfterSeconds = clientRateLimiter.acquireForUser(loginRequest.getUserKey());
+        if (retryAfterSeconds > 0) {
+            logger.warn("Login rate limit exceeded for device type: {}", loginRequest.getDeviceType());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds))
+                .body(LoginResponse.tooManyRequests());
+        }
+        
         try {
             LoginResponse response = statisticsService.processLogin(loginRequest);
             
@@ -73,6 +97,10 @@ public class LogController {
                 return ResponseEntity.ok(response);
             } else if (response.getStatusCode() == 400) {
                 return ResponseEntity.badRequest().body(response);
+            } else if (response.getStatusCode() == 503) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(response);
             } else {
                 return ResponseEntity.internalServerError().body(response);
             }
@@ -99,7 +127,8 @@ public class LogController {
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Statistics retrieved successfully"),
         @ApiResponse(responseCode = "400", description = "Invalid device type"),
-        @ApiResponse(responseCode = "500", description = "Internal server error")
+        @ApiResponse(responseCode = "500", description = "Internal server error"),
+        @ApiResponse(responseCode = "503", description = "Database overloaded, retry after the given delay")
     })
     public ResponseEntity<StatisticsResponse> getDeviceStatistics(
             @Parameter(description = "Device type (iOS, Android, Watch, TV)", required = true)
@@ -121,4 +150,29 @@ public class LogController {
                 .body(StatisticsResponse.error(deviceType));
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Stream live device statistics
+     * Endpoint: GET /Log/auth/statistics/stream
+     * 
+     * @return Server-Sent Events stream with one "statistics" event per changed device type count
+     */
+    @GetMapping(value = "/auth/statistics/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(
+        summary = "Stream live device statistics", 
+        description = "Server-Sent Events stream pushing the count for each device type whenever it changes"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Stream opened successfully"),
+        @ApiResponse(responseCode = "503", description = "Subscriber limit reached")
+    })
+    public ResponseEntity<SseEmitter> streamDeviceStatistics() {
+        logger.info("Received live statistics subscription");
+        
+        SseEmitter emitter = statisticsStreamService.subscribe();
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok(emitter);
+    }
+}
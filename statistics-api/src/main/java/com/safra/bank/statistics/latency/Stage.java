@@ -0,0 +1,9 @@
+package com.safra.bank.statistics.latency;
+
+/**
+ * Hot-path stages of the Statistics API recorded by the stage latency recorder
+ * Reported as validation, downstream_call and db_count
+ */
+public enum Stage {
+    VALIDATION, DOWNSTREAM_CALL, DB_COUNT
+}
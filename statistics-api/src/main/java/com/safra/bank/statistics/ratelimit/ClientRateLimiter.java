@@ -0,0 +1,134 @@
+package com.safra.bank.statistics.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-process rate limits for the public /Log API
+ * Holds one token bucket limiter keyed by client IP and one keyed by userKey,
+ * complementing the per-instance nginx limit_req zones
+ *
+ * DevSecOps Features:
+ * - Abusive clients are rejected before a downstream call or database query is made
+ * - Bounded memory: idle keys are evicted on a schedule; clients beyond the key limit share an overflow bucket
+ * - Rejections are counted per key type; keys are never logged
+ */
+@Component
+public class ClientRateLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClientRateLimiter.class);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${statistics.ratelimit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${statistics.ratelimit.ip.rate-per-second:20}")
+    private double ipRatePerSecond;
+
+    @Value("${statistics.ratelimit.ip.burst:40}")
+    private int ipBurst;
+
+    @Value("${statistics.ratelimit.user.rate-per-second:2}")
+    private double userRatePerSecond;
+
+    @Value("${statistics.ratelimit.user.burst:5}")
+    private int userBurst;
+
+    @Value("${statistics.ratelimit.max-keys:100000}")
+    private int maxKeys;
+
+    @Value("${statistics.ratelimit.stripes:64}")
+    private int stripes;
+
+    private TokenBucketRateLimiter ipLimiter;
+
+    private TokenBucketRateLimiter userLimiter;
+
+    private Counter ipRejected;
+
+    private Counter userRejected;
+
+    @PostConstruct
+    void init() {
+        ipLimiter = new TokenBucketRateLimiter(ipRatePerSecond, ipBurst, maxKeys, stripes);
+        userLimiter = new TokenBucketRateLimiter(userRatePerSecond, userBurst, maxKeys, stripes);
+
+        ipRejected = Counter.builder("statistics.ratelimit.rejected")
+            .description("Requests rejected by the in-process rate limiter")
+            .tag("key", "ip")
+            .register(meterRegistry);
+        userRejected = Counter.builder("statistics.ratelimit.rejected")
+            .description("Requests rejected by the in-process rate limiter")
+            .tag("key", "user")
+            .register(meterRegistry);
+        Gauge.builder("statistics.ratelimit.keys", ipLimiter, TokenBucketRateLimiter::size)
+            .description("Keys tracked by the in-process rate limiter")
+            .tag("key", "ip")
+            .register(meterRegistry);
+        Gauge.builder("statistics.ratelimit.keys", userLimiter, TokenBucketRateLimiter::size)
+            .description("Keys tracked by the in-process rate limiter")
+            .tag("key", "user")
+            .register(meterRegistry);
+
+        logger.info("Rate limiting {}: {}/s (burst {}) per IP, {}/s (burst {}) per user",
+            enabled ? "enabled" : "disabled", ipRatePerSecond, ipBurst, userRatePerSecond, userBurst);
+    }
+
+    /**
+     * Take a token for a client IP address
+     *
+     * @param clientIp client address
+     * @return 0 if allowed, otherwise seconds the client should wait before retrying
+     */
+    public long acquireForClient(String clientIp) {
+        return acquire(ipLimiter, ipRejected, clientIp);
+    }
+
+    /**
+     * Take a token for a user key
+     *
+     * @param userKey user identifier
+     * @return 0 if allowed, otherwise seconds the client should wait before retrying
+     */
+    public long acquireForUser(String userKey) {
+        return acquire(userLimiter, userRejected, userKey);
+    }
+
+    private long acquire(TokenBucketRateLimiter limiter, Counter rejected, String key) {
+        if (!enabled || key == null) {
+            return 0;
+        }
+        long waitNanos = limiter.tryAcquire(key, System.nanoTime());
+        if (waitNanos == TokenBucketRateLimiter.ALLOWED) {
+            return 0;
+        }
+        rejected.increment();
+        // Retry-After is expressed in whole seconds; round up so clients never retry too early
+        return Math.max(1, (waitNanos + 999_999_999L) / 1_000_000_000L);
+    }
+
+    /**
+     * Drop keys whose buckets have refilled, keeping memory proportional to active clients
+     */
+    @Scheduled(fixedDelayString = "${statistics.ratelimit.sweep-interval-ms:10000}")
+    public void evictIdleKeys() {
+        if (!enabled) {
+            return;
+        }
+        long now = System.nanoTime();
+        int evicted = ipLimiter.evictIdle(now) + userLimiter.evictIdle(now);
+        if (evicted > 0) {
+            logger.debug("Rate limiter evicted {} idle keys", evicted);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.safra.bank.statistics.ratelimit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safra.bank.shared.dto.LoginResponse;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Per-client-IP rate limit for /Log/**
+ * Registered ahead of the Spring Security filter chain so rejected requests
+ * never reach request parsing, controllers, downstream calls or the database
+ *
+ * DevSecOps Features:
+ * - Client address taken from a trusted proxy header only when configured
+ * - 429 Too Many Requests with Retry-After
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final String RATE_LIMITED_PATH = "/Log/";
+
+    @Autowired
+    private ClientRateLimiter clientRateLimiter;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Header set by the trusted reverse proxy (e.g. X-Real-IP behind nginx); empty uses the socket address
+    @Value("${statistics.ratelimit.client-ip-header:}")
+    private String clientIpHeader;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith(RATE_LIMITED_PATH);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        long retryAfterSeconds = clientRateLimiter.acquireForClient(clientIp(request));
+        if (retryAfterSeconds > 0) {
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            objectMapper.writeValue(response.getOutputStream(), LoginResponse.tooManyRequests());
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private String clientIp(HttpServletRequest request) {
+        if (!clientIpHeader.isEmpty()) {
+            String forwarded = request.getHeader(clientIpHeader);
+            if (forwarded != null && !forwarded.isBlank()) {
+                return forwarded.trim();
+            }
+        }
+        return request.getRemoteAddr();
+    }
+}
@@ -0,0 +1,134 @@
+package com.safra.bank.statistics.ratelimit;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free per-key token bucket
+ * Implemented as a generic cell rate algorithm (GCRA): each key stores a single
+ * "theoretical arrival time" in an AtomicLong that is advanced with compare-and-set,
+ * which is equivalent to a token bucket of {@code burst} tokens refilled at {@code ratePerSecond}
+ *
+ * Performance Notes:
+ * - One hash lookup and one CAS per decision; no locks and no allocation for known keys
+ * - Keys are spread over independent stripes so eviction never scans or blocks the whole map
+ * - A key whose bucket is full again carries no state and can be dropped without changing decisions,
+ *   so idle keys are evicted exactly by the caller's periodic sweep, never on the request path
+ * - Memory is bounded by {@code maxKeys}: while a stripe is full, new keys in it share one overflow
+ *   bucket until the next sweep frees room, so an unseen client is still limited rather than let through
+ */
+public class TokenBucketRateLimiter {
+
+    /** Returned by {@link #tryAcquire} when the request is allowed */
+    public static final long ALLOWED = 0L;
+
+    private final long emissionIntervalNanos;
+
+    private final long capacityNanos;
+
+    private final int maxKeysPerStripe;
+
+    private final ConcurrentHashMap<String, AtomicLong>[] stripes;
+
+    private final AtomicLong[] overflow;
+
+    private final int stripeMask;
+
+    /**
+     * @param ratePerSecond sustained requests per second per key
+     * @param burst maximum requests allowed back-to-back per key
+     * @param maxKeys upper bound on tracked keys (across all stripes)
+     * @param stripes number of stripes, rounded up to a power of two
+     */
+    @SuppressWarnings("unchecked")
+    public TokenBucketRateLimiter(double ratePerSecond, int burst, int maxKeys, int stripes) {
+        if (ratePerSecond <= 0 || burst < 1 || maxKeys < 1 || stripes < 1) {
+            throw new IllegalArgumentException("Rate, burst, max keys and stripes must be positive");
+        }
+        int stripeCount = stripes == 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        this.emissionIntervalNanos = Math.max(1L, (long) (1_000_000_000L / ratePerSecond));
+        this.capacityNanos = emissionIntervalNanos * burst;
+        this.maxKeysPerStripe = Math.max(1, maxKeys / stripeCount);
+        this.stripes = new ConcurrentHashMap[stripeCount];
+        this.overflow = new AtomicLong[stripeCount];
+        this.stripeMask = stripeCount - 1;
+        for (int i = 0; i < stripeCount; i++) {
+            this.stripes[i] = new ConcurrentHashMap<>(Math.min(maxKeysPerStripe, 1024));
+            this.overflow[i] = new AtomicLong(Long.MIN_VALUE);
+        }
+    }
+
+    /**
+     * Try to take one token for a key
+     *
+     * @param key client identifier (IP address, user key)
+     * @param nowNanos current {@link System#nanoTime()}
+     * @return {@link #ALLOWED}, or the nanoseconds until a token becomes available
+     */
+    public long tryAcquire(String key, long nowNanos) {
+        int index = stripeIndex(key);
+        ConcurrentHashMap<String, AtomicLong> stripe = stripes[index];
+        AtomicLong arrival = stripe.get(key);
+        if (arrival == null) {
+            if (stripe.size() >= maxKeysPerStripe) {
+                // Stripe full until the next sweep: untracked keys share one bucket instead of going unlimited
+                arrival = overflow[index];
+            } else {
+                arrival = stripe.computeIfAbsent(key, k -> new AtomicLong(nowNanos));
+            }
+        }
+
+        while (true) {
+            long current = arrival.get();
+            long next = Math.max(current, nowNanos) + emissionIntervalNanos;
+            long excess = next - nowNanos - capacityNanos;
+            if (excess > 0) {
+                return excess;
+            }
+            if (arrival.compareAndSet(current, next)) {
+                return ALLOWED;
+            }
+        }
+    }
+
+    /**
+     * Drop keys whose bucket has fully refilled
+     *
+     * @param nowNanos current {@link System#nanoTime()}
+     * @return number of evicted keys
+     */
+    public int evictIdle(long nowNanos) {
+        int evicted = 0;
+        for (ConcurrentHashMap<String, AtomicLong> stripe : stripes) {
+            evicted += evictIdle(stripe, nowNanos);
+        }
+        return evicted;
+    }
+
+    public int size() {
+        int size = 0;
+        for (ConcurrentHashMap<String, AtomicLong> stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    private int evictIdle(ConcurrentHashMap<String, AtomicLong> stripe, long nowNanos) {
+        int evicted = 0;
+        Iterator<Map.Entry<String, AtomicLong>> iterator = stripe.entrySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().getValue().get() <= nowNanos) {
+                iterator.remove();
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    private int stripeIndex(String key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & stripeMask;
+    }
+}
@@ -6,6 +6,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 /**
  * Repository interface for DeviceRegistration entity operations
  * Used by StatisticsAPI for querying device statistics
@@ -29,12 +31,11 @@ public interface DeviceRegistrationRepository extends JpaRepository<DeviceRegist
     Long countByDeviceType(@Param("deviceType") String deviceType);
 
     /**
-     * Check if a user has already registered a specific device type
-     * Used for preventing duplicate registrations
-     * 
-     * @param userKey the user identifier
-     * @param deviceType the device type
-     * @return true if registration exists, false otherwise
+     * Count registered devices for every device type in a single query
+     * Used by the live statistics stream so one query serves all subscribers
+     *
+     * @return rows of [deviceType, count]
      */
-    boolean existsByUserKeyAndDeviceType(String userKey, String deviceType);
-}
\ No newline at end of file
+    @Query("SELECT d.deviceType, COUNT(d) FROM DeviceRegistration d GROUP BY d.deviceType")
+    List<Object[]> countGroupedByDeviceType();
+}
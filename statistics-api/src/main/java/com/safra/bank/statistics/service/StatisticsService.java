@@ -1,15 +1,24 @@
 package com.safra.bank.statistics.service;
 
 import com.safra.bank.shared.dto.*;
+import com.safra.bank.shared.latency.StageLatencyRecorder;
+import com.safra.bank.shared.latency.StageLatencyRecorder.Outcome;
+import com.safra.bank.statistics.client.DeviceRegistrationClient;
+import com.safra.bank.statistics.concurrent.SingleFlight;
+import com.safra.bank.statistics.latency.Stage;
 import com.safra.bank.statistics.repository.DeviceRegistrationRepository;
+import com.safra.bank.statistics.sharding.ShardedDeviceCounter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.*;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestClientException;
-import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Service layer for Statistics API business logic
@@ -21,6 +30,16 @@ import org.springframework.web.client.RestTemplate;
  * - Secure communication with internal APIs
  * - Exception handling with proper error responses
  * - No sensitive data exposure in logs
+ *
+ * Performance Notes:
+ * - Concurrent identical logins (same userKey, deviceType and dimensions, e.g. client retries)
+ *   share one in-flight downstream registration and its result
+ * - Concurrent identical statistics reads share one count query, and results are
+ *   micro-cached per device type so read bursts issue at most one query per type per window
+ * - With sharded storage the count query is scatter-gathered across all shards in parallel
+ * - Validation, downstream call and count query latencies are recorded per device type and outcome
+ * - Registrations are load balanced over device-registration-api instances, optionally with
+ *   budgeted hedging (see DeviceRegistrationClient)
  */
 @Service
 public class StatisticsService {
@@ -31,10 +50,44 @@ public class StatisticsService {
     private DeviceRegistrationRepository deviceRegistrationRepository;
 
     @Autowired
-    private RestTemplate restTemplate;
+    private ShardedDeviceCounter shardedDeviceCounter;
+
+    @Autowired
+    private DeviceRegistrationClient deviceRegistrationClient;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private StageLatencyRecorder<Stage> stageLatency;
+
+    @Value("${statistics.login.coalescing.enabled:true}")
+    private boolean loginCoalescingEnabled;
+
+    @Value("${statistics.login.coalescing.max-in-flight:10000}")
+    private int loginCoalescingMaxInFlight;
+
+    // Zero disables the micro-cache; concurrent reads are still coalesced
+    @Value("${statistics.read.micro-cache-ttl:250ms}")
+    private Duration countMicroCacheTtl;
 
-    @Value("${device.registration.api.url:http://localhost:8081}")
-    private String deviceRegistrationApiUrl;
+    private SingleFlight<String, LoginResponse> loginFlight;
+
+    private SingleFlight<String, Long> countFlight;
+
+    private final ConcurrentHashMap<String, CachedCount> countCache = new ConcurrentHashMap<>();
+
+    private Counter countCacheHits;
+
+    @PostConstruct
+    void init() {
+        loginFlight = new SingleFlight<>("statistics.login.singleflight", loginCoalescingMaxInFlight, meterRegistry);
+        // Keys are validated device types, so the in-flight map never holds more than a handful of entries
+        countFlight = new SingleFlight<>("statistics.read.singleflight", 64, meterRegistry);
+        countCacheHits = Counter.builder("statistics.read.microcache.hits")
+            .description("Statistics reads answered from the per-device-type micro-cache")
+            .register(meterRegistry);
+    }
 
     /**
      * Process user login event and register device
@@ -46,35 +99,33 @@ public class StatisticsService {
     public LoginResponse processLogin(LoginRequest loginRequest) {
         try {
             logger.info("Processing login for device type: {}", loginRequest.getDeviceType());
+            long validationStart = System.nanoTime();
             
             // Input validation (additional layer beyond controller validation)
             if (loginRequest.getUserKey() == null || loginRequest.getUserKey().trim().isEmpty()) {
                 logger.warn("Login attempt with empty user key");
+                stageLatency.record(Stage.VALIDATION, loginRequest.getDeviceType(), Outcome.REJECTED,
+                    System.nanoTime() - validationStart);
                 return LoginResponse.badRequest();
             }
             
             if (loginRequest.getDeviceType() == null || 
                 !isValidDeviceType(loginRequest.getDeviceType())) {
                 logger.warn("Login attempt with invalid device type: {}", loginRequest.getDeviceType());
+                stageLatency.record(Stage.VALIDATION, loginRequest.getDeviceType(), Outcome.REJECTED,
+                    System.nanoTime() - validationStart);
                 return LoginResponse.badRequest();
             }
+            stageLatency.record(Stage.VALIDATION, loginRequest.getDeviceType(), Outcome.SUCCESS,
+                System.nanoTime() - validationStart);
 
-            // Create device registration request
-            DeviceRegistrationRequest registrationRequest = new DeviceRegistrationRequest(
-                loginRequest.getUserKey(),
-                loginRequest.getDeviceType()
-            );
-
-            // Call DeviceRegistrationAPI
-            DeviceRegistrationResponse registrationResponse = callDeviceRegistrationAPI(registrationRequest);
-            
-            if (registrationResponse != null && registrationResponse.getStatusCode() == 200) {
-                logger.info("Successfully processed login for device type: {}", loginRequest.getDeviceType());
-                return LoginResponse.success();
-            } else {
-                logger.error("Failed to register device. Response: {}", registrationResponse);
-                return LoginResponse.badRequest();
+            if (!loginCoalescingEnabled) {
+                return registerLogin(loginRequest);
             }
+            // Duplicate in-flight logins join the leader's downstream registration
+            String key = loginRequest.getUserKey() + '\u0000' + loginRequest.getDeviceType() + '\u0000' +
+                loginRequest.getAppVersion() + '\u0000' + loginRequest.getOsVersion() + '\u0000' + loginRequest.getRegion();
+            return loginFlight.execute(key, () -> registerLogin(loginRequest));
             
         } catch (Exception e) {
             logger.error("Error processing login: {}", e.getMessage(), e);
@@ -82,6 +133,45 @@ public class StatisticsService {
         }
     }
 
+    /**
+     * Register the login's device with DeviceRegistrationAPI
+     * 
+     * @param loginRequest validated login request
+     * @return LoginResponse indicating success or failure
+     */
+    private LoginResponse registerLogin(LoginRequest loginRequest) {
+        // Create device registration request
+        DeviceRegistrationRequest registrationRequest = new DeviceRegistrationRequest(
+            loginRequest.getUserKey(),
+            loginRequest.getDeviceType(),
+            loginRequest.getAppVersion(),
+            loginRequest.getOsVersion(),
+            loginRequest.getRegion()
+        );
+
+        // Call DeviceRegistrationAPI
+        long callStart = System.nanoTime();
+        DeviceRegistrationResponse registrationResponse = deviceRegistrationClient.register(registrationRequest);
+        stageLatency.record(Stage.DOWNSTREAM_CALL, loginRequest.getDeviceType(),
+            registrationResponse == null ? Outcome.ERROR
+                : registrationResponse.getStatusCode() != null && registrationResponse.getStatusCode() == 200
+                    ? Outcome.SUCCESS : Outcome.REJECTED,
+            System.nanoTime() - callStart);
+        
+        if (registrationResponse != null && registrationResponse.getStatusCode() == 200) {
+            logger.info("Successfully processed login for device type: {}", loginRequest.getDeviceType());
+            return LoginResponse.success();
+        } else if (registrationResponse != null && registrationResponse.getStatusCode() == 503) {
+            // DeviceRegistrationAPI is shedding load; pass the 503 on so the client backs off
+            logger.warn("DeviceRegistrationAPI is overloaded, login for device type {} not registered",
+                loginRequest.getDeviceType());
+            return LoginResponse.serviceUnavailable();
+        } else {
+            logger.error("Failed to register device. Response: {}", registrationResponse);
+            return LoginResponse.badRequest();
+        }
+    }
+
     /**
      * Retrieve device statistics for a specific device type
      * 
@@ -93,17 +183,21 @@ public class StatisticsService {
             logger.info("Retrieving statistics for device type: {}", deviceType);
 
             // Check if device type is valid
+            long validationStart = System.nanoTime();
             if (deviceType == null || !isValidDeviceType(deviceType)) {
                 logger.warn("Statistics request with invalid device type: {}", deviceType);
+                stageLatency.record(Stage.VALIDATION, deviceType, Outcome.REJECTED, System.nanoTime() - validationStart);
                 // Return count -1 for invalid device types as per task requirements
                 return StatisticsResponse.error(deviceType);
             }
 
-            // Query database for device count
-            Long count = deviceRegistrationRepository.countByDeviceType(deviceType);
+            stageLatency.record(Stage.VALIDATION, deviceType, Outcome.SUCCESS, System.nanoTime() - validationStart);
+
+            // Query database for device count (coalesced and micro-cached)
+            long count = countByDeviceType(deviceType);
 
             logger.info("Found {} registrations for device type: {}", count, deviceType);
-            return StatisticsResponse.success(deviceType, count.intValue());
+            return StatisticsResponse.success(deviceType, (int) count);
 
         } catch (Exception e) {
             logger.error("Error retrieving statistics for device type {}: {}", deviceType, e.getMessage(), e);
@@ -112,34 +206,38 @@ public class StatisticsService {
     }
 
     /**
-     * Call the internal DeviceRegistrationAPI to register a device
-     * Uses secure HTTP communication with proper headers
+     * Count registrations for a device type
+     * Served from the micro-cache when fresh; otherwise concurrent callers share one query
      * 
-     * @param request the device registration request
-     * @return DeviceRegistrationResponse or null if call fails
+     * @param deviceType validated device type
+     * @return registration count
      */
-    private DeviceRegistrationResponse callDeviceRegistrationAPI(DeviceRegistrationRequest request) {
-        try {
-            String url = deviceRegistrationApiUrl + "/Device/register";
-            
-            // Set headers for secure communication
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set("X-Internal-Service", "statistics-api");
-            
-            HttpEntity<DeviceRegistrationRequest> entity = new HttpEntity<>(request, headers);
-            
-            logger.debug("Calling DeviceRegistrationAPI at: {}", url);
-            
-            ResponseEntity<DeviceRegistrationResponse> response = restTemplate.postForEntity(
-                url, entity, DeviceRegistrationResponse.class);
-            
-            return response.getBody();
-            
-        } catch (RestClientException e) {
-            logger.error("Failed to call DeviceRegistrationAPI: {}", e.getMessage());
-            return null;
+    private long countByDeviceType(String deviceType) {
+        long ttlNanos = countMicroCacheTtl.toNanos();
+        if (ttlNanos > 0) {
+            CachedCount cached = countCache.get(deviceType);
+            if (cached != null && System.nanoTime() - cached.expiresAtNanos() < 0) {
+                countCacheHits.increment();
+                return cached.count();
+            }
         }
+        return countFlight.execute(deviceType, () -> {
+            long queryStart = System.nanoTime();
+            long count;
+            try {
+                count = shardedDeviceCounter.isEnabled()
+                    ? shardedDeviceCounter.countByDeviceType(deviceType)
+                    : deviceRegistrationRepository.countByDeviceType(deviceType);
+            } catch (RuntimeException e) {
+                stageLatency.record(Stage.DB_COUNT, deviceType, Outcome.ERROR, System.nanoTime() - queryStart);
+                throw e;
+            }
+            stageLatency.record(Stage.DB_COUNT, deviceType, Outcome.SUCCESS, System.nanoTime() - queryStart);
+            if (ttlNanos > 0) {
+                countCache.put(deviceType, new CachedCount(count, System.nanoTime() + ttlNanos));
+            }
+            return count;
+        });
     }
 
     /**
@@ -156,4 +254,6 @@ public class StatisticsService {
                 deviceType.equals("Watch") || 
                 deviceType.equals("TV"));
     }
-}
\ No newline at end of file
+
+    private record CachedCount(long count, long expiresAtNanos) {}
+}
@@ -0,0 +1,340 @@
+package com.safra.bank.statistics.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safra.bank.shared.dto.StatisticsResponse;
+import com.safra.bank.statistics.repository.DeviceRegistrationRepository;
+import com.safra.bank.statistics.sharding.ShardedDeviceCounter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Live device statistics stream (Server-Sent Events)
+ * Fans out device type counts from a single in-process source to many subscribers
+ *
+ * Performance Notes:
+ * - One grouped count query per interval (per shard, in parallel, with sharded storage),
+ *   independent of the number of subscribers
+ * - Events are published only for device types whose count changed, at most once per interval
+ * - Each payload is serialized once and shared by all subscribers
+ * - Per-subscriber updates are conflated (latest count wins) while a send is in progress;
+ *   subscribers that stay behind for too many intervals are dropped
+ * - A send blocks while the client does not read; a subscriber whose send takes longer than
+ *   send-timeout is dropped, and the sender pool grows to sender-threads so the blocked
+ *   threads (released by the container's write timeout) do not hold up other subscribers
+ * - A dropped emitter is completed by the thread sending to it, never by the publishing thread,
+ *   which would otherwise wait on the emitter's write lock behind the blocked send
+ */
+@Service
+public class StatisticsStreamService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StatisticsStreamService.class);
+
+    private static final List<String> DEVICE_TYPES = List.of("iOS", "Android", "Watch", "TV");
+
+    private static final String EVENT_NAME = "statistics";
+
+    private static final String HEARTBEAT_KEY = "";
+
+    @Autowired
+    private DeviceRegistrationRepository deviceRegistrationRepository;
+
+    @Autowired
+    private ShardedDeviceCounter shardedDeviceCounter;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${statistics.stream.max-subscribers:5000}")
+    private int maxSubscribers;
+
+    @Value("${statistics.stream.emitter-timeout-ms:1800000}")
+    private long emitterTimeoutMs;
+
+    @Value("${statistics.stream.sender-threads:32}")
+    private int senderThreads;
+
+    @Value("${statistics.stream.send-timeout-ms:5000}")
+    private long sendTimeoutMs;
+
+    @Value("${statistics.stream.max-missed-intervals:10}")
+    private int maxMissedIntervals;
+
+    @Value("${statistics.stream.heartbeat-ms:15000}")
+    private long heartbeatMs;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    // Last published payload per device type; shared by all subscribers
+    private final Map<String, String> currentPayloads = new ConcurrentHashMap<>();
+
+    private final Map<String, Integer> currentCounts = new HashMap<>();
+
+    private ExecutorService senderExecutor;
+
+    private Counter droppedSubscribers;
+
+    private volatile long lastPublishMillis;
+
+    @PostConstruct
+    void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        // Threads are started on demand and retire when idle
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(senderThreads, senderThreads,
+            60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "statistics-stream-" + threadIndex.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        executor.allowCoreThreadTimeOut(true);
+        senderExecutor = executor;
+        Gauge.builder("statistics.stream.subscribers", subscribers, Set::size)
+            .description("Active live statistics subscribers")
+            .register(meterRegistry);
+        droppedSubscribers = Counter.builder("statistics.stream.dropped")
+            .description("Subscribers dropped for falling behind or failing")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Register a new subscriber
+     * The subscriber immediately receives the latest known count for every device type
+     *
+     * @return emitter for the subscriber, or null if the subscriber limit is reached
+     */
+    public SseEmitter subscribe() {
+        if (subscribers.size() >= maxSubscribers) {
+            logger.warn("Live statistics subscriber limit reached: {}", maxSubscribers);
+            return null;
+        }
+
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(error -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+
+        logger.debug("Live statistics subscriber added, total: {}", subscribers.size());
+        enqueue(subscriber, currentPayloads);
+        return emitter;
+    }
+
+    /**
+     * Poll counts once per interval and publish changed device types
+     * Skips the query entirely while nobody is subscribed
+     */
+    @Scheduled(fixedDelayString = "${statistics.stream.interval-ms:1000}")
+    public void publishChanges() {
+        if (subscribers.isEmpty()) {
+            synchronized (currentCounts) {
+                currentCounts.clear();
+                currentPayloads.clear();
+            }
+            return;
+        }
+        dropStalledSubscribers();
+
+        Map<String, String> changed = new HashMap<>();
+        try {
+            Map<String, Integer> counts = new HashMap<>();
+            DEVICE_TYPES.forEach(type -> counts.put(type, 0));
+            if (shardedDeviceCounter.isEnabled()) {
+                shardedDeviceCounter.countGroupedByDeviceType()
+                    .forEach((deviceType, count) -> counts.put(deviceType, count.intValue()));
+            } else {
+                for (Object[] row : deviceRegistrationRepository.countGroupedByDeviceType()) {
+                    counts.put((String) row[0], ((Number) row[1]).intValue());
+                }
+            }
+
+            synchronized (currentCounts) {
+                for (String deviceType : DEVICE_TYPES) {
+                    Integer count = counts.get(deviceType);
+                    if (!count.equals(currentCounts.get(deviceType))) {
+                        String payload = objectMapper.writeValueAsString(
+                            StatisticsResponse.success(deviceType, count));
+                        currentCounts.put(deviceType, count);
+                        currentPayloads.put(deviceType, payload);
+                        changed.put(deviceType, payload);
+                    }
+                }
+            }
+        } catch (JsonProcessingException e) {
+            logger.error("Failed to serialize live statistics: {}", e.getMessage(), e);
+            return;
+        } catch (Exception e) {
+            logger.error("Failed to refresh live statistics: {}", e.getMessage(), e);
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        if (changed.isEmpty()) {
+            if (now - lastPublishMillis < heartbeatMs) {
+                return;
+            }
+            changed.put(HEARTBEAT_KEY, HEARTBEAT_KEY);
+        }
+        lastPublishMillis = now;
+
+        for (Subscriber subscriber : subscribers) {
+            enqueue(subscriber, changed);
+        }
+    }
+
+    /**
+     * Merge updates into the subscriber's pending set and schedule a send
+     * If a send is still running the updates are conflated; repeated conflation drops the subscriber
+     */
+    private void enqueue(Subscriber subscriber, Map<String, String> updates) {
+        if (updates.isEmpty()) {
+            return;
+        }
+        subscriber.pending.putAll(updates);
+        if (subscriber.sending.compareAndSet(false, true)) {
+            senderExecutor.execute(() -> drain(subscriber));
+        } else if (subscriber.missedIntervals.incrementAndGet() > maxMissedIntervals) {
+            drop(subscriber, "slow consumer");
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        do {
+            try {
+                Iterator<Map.Entry<String, String>> iterator = subscriber.pending.entrySet().iterator();
+                while (iterator.hasNext() && !subscriber.dropped) {
+                    Map.Entry<String, String> entry = iterator.next();
+                    String payload = subscriber.pending.remove(entry.getKey());
+                    if (payload == null) {
+                        continue;
+                    }
+                    subscriber.sendStartedNanos = System.nanoTime();
+                    try {
+                        if (HEARTBEAT_KEY.equals(entry.getKey())) {
+                            subscriber.emitter.send(SseEmitter.event().comment("heartbeat"));
+                        } else {
+                            subscriber.emitter.send(SseEmitter.event().name(EVENT_NAME).data(payload));
+                        }
+                    } finally {
+                        subscriber.sendStartedNanos = 0;
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                drop(subscriber, "send failed");
+                complete(subscriber, "failed");
+                return;
+            }
+            subscriber.missedIntervals.set(0);
+            subscriber.sending.set(false);
+            // Checked after clearing sending: a drop that still saw this send running left the emitter to us
+            if (subscriber.dropped) {
+                complete(subscriber, "dropped");
+                return;
+            }
+        } while (!subscriber.pending.isEmpty() && subscriber.sending.compareAndSet(false, true));
+    }
+
+    /**
+     * Drop subscribers whose current send has been blocked longer than the send timeout
+     */
+    private void dropStalledSubscribers() {
+        long now = System.nanoTime();
+        long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+        for (Subscriber subscriber : subscribers) {
+            long started = subscriber.sendStartedNanos;
+            if (started != 0 && now - started > timeoutNanos) {
+                drop(subscriber, "send timed out");
+            }
+        }
+    }
+
+    private void drop(Subscriber subscriber, String reason) {
+        if (subscribers.remove(subscriber)) {
+            droppedSubscribers.increment();
+            logger.debug("Dropping live statistics subscriber: {}", reason);
+            subscriber.pending.clear();
+            subscriber.dropped = true;
+            // A running send holds the emitter's write lock (possibly until the write times out);
+            // its sender completes the emitter when the send returns
+            if (!subscriber.sending.get()) {
+                complete(subscriber, "dropped");
+            }
+        }
+    }
+
+    /**
+     * Complete the subscriber's emitter once; the dropping thread and the sender may both get here
+     */
+    private void complete(Subscriber subscriber, String state) {
+        if (!subscriber.completed.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            subscriber.emitter.complete();
+        } catch (Exception e) {
+            logger.debug("Error completing {} subscriber: {}", state, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        for (Subscriber subscriber : subscribers) {
+            // Emitters with a send in progress are left to the container, which closes their connections
+            if (subscriber.sendStartedNanos == 0) {
+                complete(subscriber, "shutdown");
+            }
+        }
+        subscribers.clear();
+        senderExecutor.shutdownNow();
+    }
+
+    private static final class Subscriber {
+
+        private final SseEmitter emitter;
+
+        // Pending payload per device type; a newer count replaces an unsent older one
+        private final Map<String, String> pending = new ConcurrentHashMap<>();
+
+        private final AtomicBoolean sending = new AtomicBoolean();
+
+        private final AtomicInteger missedIntervals = new AtomicInteger();
+
+        // Start of the send in progress, 0 while idle
+        private volatile long sendStartedNanos;
+
+        private volatile boolean dropped;
+
+        private final AtomicBoolean completed = new AtomicBoolean();
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+    }
+}
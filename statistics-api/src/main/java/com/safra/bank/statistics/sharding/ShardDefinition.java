@@ -0,0 +1,79 @@
+package com.safra.bank.statistics.sharding;
+
+/**
+ * Connection settings of one registration storage shard
+ * Bound from statistics.sharding.shards[n]; unset credentials fall back to spring.datasource,
+ * unset pool sizes to statistics.sharding.*
+ */
+public class ShardDefinition {
+
+    // Same shard numbers as device.sharding.shards in device-registration-api
+    private Integer id;
+
+    private String url;
+
+    private String username;
+
+    private String password;
+
+    private Integer maximumPoolSize;
+
+    private Integer minimumIdle;
+
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public void setUrl(String url) {
+        this.url = url;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
+    public Integer getMaximumPoolSize() {
+        return maximumPoolSize;
+    }
+
+    public void setMaximumPoolSize(Integer maximumPoolSize) {
+        this.maximumPoolSize = maximumPoolSize;
+    }
+
+    public Integer getMinimumIdle() {
+        return minimumIdle;
+    }
+
+    public void setMinimumIdle(Integer minimumIdle) {
+        this.minimumIdle = minimumIdle;
+    }
+
+    @Override
+    public String toString() {
+        // Credentials are deliberately omitted
+        return "ShardDefinition{" +
+                "id=" + id +
+                ", url='" + url + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,259 @@
+package com.safra.bank.statistics.sharding;
+
+import com.safra.bank.shared.jdbc.HikariPoolOwner;
+import com.safra.bank.shared.jdbc.QueryProfiler;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Device counts over sharded registration storage
+ * Each count query is sent to every shard in parallel and the per-shard results are summed;
+ * enabled with statistics.sharding.enabled=true, otherwise counts come from spring.datasource
+ *
+ * Performance Notes:
+ * - Latency is that of the slowest shard rather than the sum over shards
+ * - Small read-only Hikari pool per shard; the fan-out executor is bounded
+ * - A count is only returned when every shard answered within the query timeout;
+ *   partial sums are never reported
+ */
+@Component
+public class ShardedDeviceCounter implements HikariPoolOwner {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardedDeviceCounter.class);
+
+    private static final String COUNT_SQL =
+        "SELECT COUNT(*) FROM device_registrations WHERE device_type = ?";
+
+    private static final String GROUPED_COUNT_SQL =
+        "SELECT device_type, COUNT(*) FROM device_registrations GROUP BY device_type";
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private QueryProfiler queryProfiler;
+
+    @Value("${statistics.sharding.enabled:false}")
+    private boolean enabled;
+
+    @Value("${statistics.sharding.query-timeout:2s}")
+    private Duration queryTimeout;
+
+    @Value("${statistics.sharding.query-threads:16}")
+    private int queryThreads;
+
+    @Value("${statistics.sharding.maximum-pool-size:5}")
+    private int maximumPoolSize;
+
+    @Value("${statistics.sharding.minimum-idle:1}")
+    private int minimumIdle;
+
+    @Value("${spring.datasource.username:}")
+    private String defaultUsername;
+
+    @Value("${spring.datasource.password:}")
+    private String defaultPassword;
+
+    private final List<Shard> shards = new ArrayList<>();
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    void init() {
+        if (!enabled) {
+            return;
+        }
+        List<ShardDefinition> definitions = Binder.get(environment)
+            .bind("statistics.sharding.shards", Bindable.listOf(ShardDefinition.class))
+            .orElse(List.of());
+        if (definitions.isEmpty()) {
+            throw new IllegalStateException("statistics.sharding.enabled=true but no statistics.sharding.shards are configured");
+        }
+        for (ShardDefinition definition : definitions) {
+            if (definition.getId() == null || definition.getUrl() == null || definition.getUrl().isBlank()) {
+                throw new IllegalStateException("Shard id and url are required: " + definition);
+            }
+            shards.add(new Shard(definition.getId(), createPool(definition)));
+        }
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(queryThreads, runnable -> {
+            Thread thread = new Thread(runnable, "statistics-shard-query-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        logger.info("Scatter-gather counts over {} registration shards", shards.size());
+    }
+
+    /**
+     * @return true if counts are gathered from several shards
+     */
+    public boolean isEnabled() {
+        return !shards.isEmpty();
+    }
+
+    /**
+     * @return the shard connection pools (empty when not sharded)
+     */
+    @Override
+    public List<HikariDataSource> getPools() {
+        return shards.stream().map(Shard::pool).toList();
+    }
+
+    /**
+     * Count registrations of a device type across all shards
+     *
+     * @param deviceType validated device type
+     * @return sum of the per-shard counts
+     */
+    public long countByDeviceType(String deviceType) {
+        long total = 0;
+        for (Long count : scatter(jdbcTemplate -> jdbcTemplate.queryForObject(COUNT_SQL, Long.class, deviceType))) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * Count registrations of every device type across all shards
+     *
+     * @return device type to summed count; types without registrations are absent
+     */
+    public Map<String, Long> countGroupedByDeviceType() {
+        Map<String, Long> totals = new HashMap<>();
+        for (Map<String, Long> counts : scatter(jdbcTemplate -> {
+            Map<String, Long> counts = new HashMap<>();
+            jdbcTemplate.query(GROUPED_COUNT_SQL, resultSet -> {
+                counts.put(resultSet.getString(1), resultSet.getLong(2));
+            });
+            return counts;
+        })) {
+            counts.forEach((deviceType, count) -> totals.merge(deviceType, count, Long::sum));
+        }
+        return totals;
+    }
+
+    /**
+     * Run the query on every shard in parallel and wait for all results
+     *
+     * @return one result per shard
+     * @throws IllegalStateException if a shard fails or does not answer within the query timeout
+     */
+    public <T> List<T> scatter(Function<JdbcTemplate, T> query) {
+        List<CompletableFuture<T>> futures = new ArrayList<>(shards.size());
+        for (Shard shard : shards) {
+            futures.add(CompletableFuture.supplyAsync(() -> shard.timer().record(() -> query.apply(shard.jdbcTemplate())), executor));
+        }
+
+        long deadline = System.nanoTime() + queryTimeout.toNanos();
+        List<T> results = new ArrayList<>(shards.size());
+        try {
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    results.add(futures.get(i).get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS));
+                } catch (TimeoutException e) {
+                    throw new IllegalStateException("Shard " + shards.get(i).id() + " did not answer within " + queryTimeout);
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Shard " + shards.get(i).id() + " query failed: " +
+                        e.getCause().getMessage(), e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for shard counts", e);
+        } finally {
+            // No-op for completed queries; abandons the rest once the result is decided
+            futures.forEach(future -> future.cancel(true));
+        }
+        return results;
+    }
+
+    private HikariDataSource createPool(ShardDefinition definition) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setPoolName("statistics-shard-" + definition.getId());
+        pool.setJdbcUrl(definition.getUrl());
+        pool.setUsername(definition.getUsername() != null ? definition.getUsername() : defaultUsername);
+        pool.setPassword(definition.getPassword() != null ? definition.getPassword() : defaultPassword);
+        pool.setMaximumPoolSize(definition.getMaximumPoolSize() != null ? definition.getMaximumPoolSize() : maximumPoolSize);
+        pool.setMinimumIdle(definition.getMinimumIdle() != null ? definition.getMinimumIdle() : minimumIdle);
+        pool.setConnectionTimeout(Math.max(250, queryTimeout.toMillis()));
+        pool.setReadOnly(true);
+        pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        return pool;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        shards.forEach(shard -> shard.pool().close());
+    }
+
+    private final class Shard {
+
+        private final int id;
+        private final HikariDataSource pool;
+        private final JdbcTemplate jdbcTemplate;
+        private final Timer timer;
+
+        Shard(int id, HikariDataSource pool) {
+            this.id = id;
+            this.pool = pool;
+            this.jdbcTemplate = new JdbcTemplate(queryProfiler.wrap(pool, pool.getPoolName()));
+            // Server-side limit matching the gather timeout, so abandoned queries do not linger
+            this.jdbcTemplate.setQueryTimeout((int) Math.max(1, queryTimeout.toSeconds()));
+            this.timer = Timer.builder("statistics.sharding.query")
+                .description("Per-shard count query latency")
+                .tag("shard", Integer.toString(id))
+                .register(meterRegistry);
+        }
+
+        int id() {
+            return id;
+        }
+
+        HikariDataSource pool() {
+            return pool;
+        }
+
+        JdbcTemplate jdbcTemplate() {
+            return jdbcTemplate;
+        }
+
+        Timer timer() {
+            return timer;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.safra.bank.statistics.warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safra.bank.shared.dto.LoginRequest;
+import com.safra.bank.shared.dto.LoginResponse;
+import com.safra.bank.shared.jdbc.HikariPools;
+import com.safra.bank.shared.jdbc.QueryProfiler;
+import com.safra.bank.shared.latency.StageLatencyRecorder;
+import com.safra.bank.statistics.analytics.DeviceBitmapIndex;
+import com.safra.bank.statistics.controller.DeviceAnalyticsController;
+import com.safra.bank.statistics.controller.LogController;
+import com.safra.bank.statistics.ratelimit.ClientRateLimiter;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Warm-up phase run before the service reports ready
+ * Spring Boot publishes ReadinessState.ACCEPTING_TRAFFIC only after the application runners have
+ * returned, so /actuator/health/readiness reports OUT_OF_SERVICE (and Kubernetes keeps the pod out
+ * of the Service endpoints) until warm-up has finished
+ *
+ * DevSecOps Features:
+ * - Nothing is persisted: the login handler is not called, because every login that passes
+ *   validation registers its device downstream; its rate limiter and request/response
+ *   (de)serialization are exercised directly instead
+ * - Failures are logged and never keep the service from becoming ready
+ *
+ * Performance Notes:
+ * - Every connection pool (and shard pool) is filled to maximum-pool-size instead of minimum-idle
+ * - The device bitmap index is not caught up here: it serves from its restored snapshot and its scheduled
+ *   refresh applies newer registrations in the background, so readiness does not depend on data volume
+ * - The statistics read handlers of LogController and DeviceAnalyticsController are called in-process, and
+ *   requests and responses go through the application ObjectMapper, so the JIT compiles the request path
+ *   and Jackson builds its serializers before the first real request
+ * - Bounded by statistics.warmup.iterations and statistics.warmup.max-duration
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class WarmupRunner implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(WarmupRunner.class);
+
+    private static final List<String> DEVICE_TYPES = List.of("iOS", "Android", "Watch", "TV");
+
+    private static final List<String> GROUP_BY = List.of("deviceType", "appVersion", "osVersion,region", "");
+
+    private static final int ANALYTICS_EVERY = 10;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Autowired
+    private LogController logController;
+
+    @Autowired
+    private DeviceAnalyticsController deviceAnalyticsController;
+
+    @Autowired
+    private DeviceBitmapIndex deviceBitmapIndex;
+
+    @Autowired
+    private ClientRateLimiter clientRateLimiter;
+
+    @Autowired
+    private StageLatencyRecorder<?> stageLatency;
+
+    @Autowired
+    private QueryProfiler queryProfiler;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${statistics.warmup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${statistics.warmup.iterations:2000}")
+    private int iterations;
+
+    @Value("${statistics.warmup.max-duration:20s}")
+    private Duration maxDuration;
+
+    private volatile long durationNanos;
+
+    private volatile int completedIterations;
+
+    private volatile long firstIterationsNanos;
+
+    private volatile long lastIterationsNanos;
+
+    private volatile int pooledConnections;
+
+    @PostConstruct
+    void init() {
+        TimeGauge.builder("statistics.warmup.duration", this, TimeUnit.NANOSECONDS, runner -> runner.durationNanos)
+            .description("Time spent in the warm-up phase before readiness")
+            .register(meterRegistry);
+        Gauge.builder("statistics.warmup.iterations", this, runner -> runner.completedIterations)
+            .description("Synthetic request rounds run during warm-up")
+            .register(meterRegistry);
+        TimeGauge.builder("statistics.warmup.iteration.latency", this, TimeUnit.NANOSECONDS, runner -> runner.firstIterationsNanos)
+            .description("Mean latency of a synthetic request round during warm-up")
+            .tag("phase", "first")
+            .register(meterRegistry);
+        TimeGauge.builder("statistics.warmup.iteration.latency", this, TimeUnit.NANOSECONDS, runner -> runner.lastIterationsNanos)
+            .description("Mean latency of a synthetic request round during warm-up")
+            .tag("phase", "last")
+            .register(meterRegistry);
+        Gauge.builder("statistics.warmup.connections", this, runner -> runner.pooledConnections)
+            .description("Pooled database connections opened during warm-up")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        long deadline = start + maxDuration.toNanos();
+        try {
+            fillPools();
+            exerciseHandlers(deadline);
+        } catch (Exception e) {
+            logger.warn("Warm-up stopped early: {}", e.getMessage(), e);
+        } finally {
+            // Report live traffic only
+            stageLatency.reset();
+            queryProfiler.reset();
+            durationNanos = System.nanoTime() - start;
+        }
+        logger.info("Warm-up finished in {} ms: {} connections, {} rounds, " +
+                    "mean round {} us (first 10%) -> {} us (last 10%)",
+                    TimeUnit.NANOSECONDS.toMillis(durationNanos), pooledConnections, completedIterations,
+                    TimeUnit.NANOSECONDS.toMicros(firstIterationsNanos), TimeUnit.NANOSECONDS.toMicros(lastIterationsNanos));
+    }
+
+    private void fillPools() {
+        int connections = 0;
+        for (HikariDataSource pool : HikariPools.find(applicationContext)) {
+            connections += HikariPools.fill(pool);
+        }
+        pooledConnections = connections;
+    }
+
+    private void exerciseHandlers(long deadline) throws Exception {
+        String prefix = "warmup-" + UUID.randomUUID() + "-";
+        long[] rounds = new long[Math.max(iterations, 0)];
+        int round = 0;
+        for (; round < rounds.length && System.nanoTime() - deadline < 0; round++) {
+            long roundStart = System.nanoTime();
+            String deviceType = DEVICE_TYPES.get(round % DEVICE_TYPES.size());
+
+            LoginRequest login = objectMapper.readValue(objectMapper.writeValueAsBytes(
+                new LoginRequest(prefix + round, deviceType, "1.0." + (round % 10), "17." + (round % 4), "BR")),
+                LoginRequest.class);
+            clientRateLimiter.acquireForUser(login.getUserKey());
+            objectMapper.writeValueAsBytes(LoginResponse.success());
+            serialize(logController.getDeviceStatistics(deviceType));
+
+            if (round % ANALYTICS_EVERY == 0) {
+                String groupBy = GROUP_BY.get(round / ANALYTICS_EVERY % GROUP_BY.size());
+                serialize(deviceAnalyticsController.countGroupedRegistrations(
+                    groupBy.isEmpty() ? null : groupBy, round % 2 == 0 ? deviceType : null, null, null, null));
+                if (deviceBitmapIndex.isEnabled()) {
+                    serialize(deviceAnalyticsController.countDeviceCombination(deviceType + " AND NOT Watch"));
+                }
+            }
+            rounds[round] = System.nanoTime() - roundStart;
+        }
+        completedIterations = round;
+        int tenth = Math.max(1, round / 10);
+        if (round > 0) {
+            firstIterationsNanos = mean(rounds, 0, Math.min(tenth, round));
+            lastIterationsNanos = mean(rounds, Math.max(0, round - tenth), round);
+        }
+    }
+
+    private void serialize(ResponseEntity<?> response) throws Exception {
+        if (response != null && response.getBody() != null) {
+            objectMapper.writeValueAsBytes(response.getBody());
+        }
+    }
+
+    private static long mean(long[] values, int from, int to) {
+        long sum = 0;
+        for (int i = from; i < to; i++) {
+            sum += values[i];
+        }
+        return sum / (to - from);
+    }
+}
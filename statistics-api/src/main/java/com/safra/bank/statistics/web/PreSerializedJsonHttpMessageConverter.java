@@ -0,0 +1,166 @@
+package com.safra.bank.statistics.web;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safra.bank.shared.dto.LoginResponse;
+import com.safra.bank.shared.dto.StatisticsResponse;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JSON writer for the fixed response DTOs of the Statistics API
+ * Registered ahead of the Jackson converter; anything it does not recognize falls back to Jackson
+ *
+ * Performance Notes:
+ * - Constant LoginResponse payloads (success, bad_request, ...) are serialized once at startup
+ *   and written as cached byte arrays
+ * - StatisticsResponse for a known device type is written as a cached prefix plus the count digits,
+ *   without reflection or intermediate buffers
+ * - Content-Length is computed up front, so responses are not chunked
+ */
+public class PreSerializedJsonHttpMessageConverter extends AbstractHttpMessageConverter<Object> {
+
+    private static final List<String> DEVICE_TYPES = List.of("iOS", "Android", "Watch", "TV");
+
+    private final ObjectMapper objectMapper;
+
+    // Keyed by status code; the message is compared before a cached payload is used
+    private final Map<Integer, CachedLoginResponse> loginResponses = new HashMap<>();
+
+    // {"deviceType":"<type>","count": per device type
+    private final Map<String, byte[]> statisticsPrefixes = new HashMap<>();
+
+    public PreSerializedJsonHttpMessageConverter(ObjectMapper objectMapper) {
+        super(MediaType.APPLICATION_JSON);
+        this.objectMapper = objectMapper;
+        try {
+            for (LoginResponse response : List.of(LoginResponse.success(), LoginResponse.badRequest(),
+                    LoginResponse.internalError(), LoginResponse.tooManyRequests(), LoginResponse.serviceUnavailable())) {
+                loginResponses.put(response.getStatusCode(),
+                    new CachedLoginResponse(response.getMessage(), objectMapper.writeValueAsBytes(response)));
+            }
+            for (String deviceType : DEVICE_TYPES) {
+                // Serialize through Jackson once so property names and order match the fallback path
+                String json = objectMapper.writeValueAsString(new StatisticsResponse(deviceType, 0));
+                if (!json.endsWith(":0}")) {
+                    throw new IllegalStateException("Unexpected StatisticsResponse layout: " + json);
+                }
+                String prefix = json.substring(0, json.lastIndexOf(':') + 1);
+                statisticsPrefixes.put(deviceType, prefix.getBytes(StandardCharsets.UTF_8));
+            }
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to pre-serialize constant responses", e);
+        }
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return clazz == LoginResponse.class || clazz == StatisticsResponse.class;
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Write-only converter", inputMessage);
+    }
+
+    @Override
+    protected Long getContentLength(Object value, MediaType contentType) {
+        byte[] cached = cachedLoginResponse(value);
+        if (cached != null) {
+            return (long) cached.length;
+        }
+        byte[] prefix = statisticsPrefix(value);
+        if (prefix != null) {
+            return (long) prefix.length + digits(((StatisticsResponse) value).getCount()) + 1;
+        }
+        return null;
+    }
+
+    @Override
+    protected void writeInternal(Object value, HttpOutputMessage outputMessage) throws IOException {
+        OutputStream body = outputMessage.getBody();
+
+        byte[] cached = cachedLoginResponse(value);
+        if (cached != null) {
+            body.write(cached);
+            return;
+        }
+
+        byte[] prefix = statisticsPrefix(value);
+        if (prefix != null) {
+            body.write(prefix);
+            writeDigits(body, ((StatisticsResponse) value).getCount());
+            body.write('}');
+            return;
+        }
+
+        // Non-constant payloads (e.g. error responses echoing an invalid device type)
+        body.write(objectMapper.writeValueAsBytes(value));
+    }
+
+    private byte[] cachedLoginResponse(Object value) {
+        if (value instanceof LoginResponse response && response.getStatusCode() != null) {
+            CachedLoginResponse cached = loginResponses.get(response.getStatusCode());
+            if (cached != null && cached.message().equals(response.getMessage())) {
+                return cached.json();
+            }
+        }
+        return null;
+    }
+
+    private byte[] statisticsPrefix(Object value) {
+        if (value instanceof StatisticsResponse response && response.getCount() != null
+                && response.getDeviceType() != null) {
+            return statisticsPrefixes.get(response.getDeviceType());
+        }
+        return null;
+    }
+
+    private static int digits(int value) {
+        if (value < 0) {
+            return value == Integer.MIN_VALUE ? 11 : 1 + digits(-value);
+        }
+        int digits = 1;
+        while (value >= 10) {
+            value /= 10;
+            digits++;
+        }
+        return digits;
+    }
+
+    private static void writeDigits(OutputStream body, int value) throws IOException {
+        if (value == Integer.MIN_VALUE) {
+            body.write("-2147483648".getBytes(StandardCharsets.US_ASCII));
+            return;
+        }
+        if (value < 0) {
+            body.write('-');
+            value = -value;
+        }
+        int divisor = 1;
+        while (value / divisor >= 10) {
+            divisor *= 10;
+        }
+        while (divisor > 0) {
+            body.write('0' + value / divisor % 10);
+            divisor /= 10;
+        }
+    }
+
+    private record CachedLoginResponse(String message, byte[] json) {}
+}
@@ -0,0 +1,110 @@
+package com.safra.bank.statistics.analytics;
+
+import com.safra.bank.shared.dto.DeviceCombinationResponse;
+import com.safra.bank.statistics.controller.DeviceAnalyticsController;
+import org.junit.jupiter.api.Test;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DeviceCombinationExpressionTest {
+
+    private final Map<String, RoaringBitmap> devices = Map.of(
+        "iOS", RoaringBitmap.bitmapOf(1, 2),
+        "Android", RoaringBitmap.bitmapOf(2, 3),
+        "Watch", RoaringBitmap.bitmapOf(3, 4),
+        "TV", new RoaringBitmap());
+
+    private final RoaringBitmap universe = RoaringBitmap.bitmapOf(1, 2, 3, 4, 5);
+
+    @Test
+    void andBindsTighterThanOrAndNotTighterThanAnd() {
+        assertThat(DeviceCombinationExpression.parse("iOS OR Android AND Watch"))
+            .hasToString("(iOS OR (Android AND Watch))");
+        assertThat(evaluate("iOS OR Android AND Watch")).containsExactly(1, 2, 3);
+
+        assertThat(DeviceCombinationExpression.parse("NOT iOS AND Watch"))
+            .hasToString("(NOT iOS AND Watch)");
+        assertThat(evaluate("NOT iOS AND Watch")).containsExactly(3, 4);
+        assertThat(evaluate("Watch AND NOT iOS")).containsExactly(3, 4);
+        assertThat(evaluate("NOT NOT iOS")).containsExactly(1, 2);
+    }
+
+    @Test
+    void parenthesesOverridePrecedence() {
+        assertThat(DeviceCombinationExpression.parse("(iOS OR Android) AND Watch"))
+            .hasToString("((iOS OR Android) AND Watch)");
+        assertThat(evaluate("(iOS OR Android) AND Watch")).containsExactly(3);
+        assertThat(evaluate("NOT (iOS OR Android)")).containsExactly(4, 5);
+        assertThat(evaluate("((TV))")).isEmpty();
+    }
+
+    @Test
+    void acceptsCaseInsensitiveKeywordsAndSymbolAliases() {
+        assertThat(evaluate("iOS and not Android")).containsExactly(1);
+        assertThat(evaluate("iOS & !Android | TV")).containsExactly(1);
+        assertThat(evaluate("iOS|Watch")).containsExactly(1, 2, 3, 4);
+    }
+
+    @Test
+    void leavesTheIndexBitmapsUnchanged() {
+        evaluate("iOS AND NOT Android OR NOT Watch");
+
+        assertThat(devices.get("iOS").toArray()).containsExactly(1, 2);
+        assertThat(devices.get("Android").toArray()).containsExactly(2, 3);
+        assertThat(devices.get("Watch").toArray()).containsExactly(3, 4);
+        assertThat(universe.toArray()).containsExactly(1, 2, 3, 4, 5);
+    }
+
+    @Test
+    void rejectsUnknownDeviceTypes() {
+        assertThatThrownBy(() -> DeviceCombinationExpression.parse("iOS AND Tablet"))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Unknown device type");
+        // Device types are matched exactly, unlike keywords
+        assertThatThrownBy(() -> DeviceCombinationExpression.parse("ios"))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Unknown device type");
+    }
+
+    @Test
+    void rejectsMalformedExpressions() {
+        for (String expression : new String[] {
+                null, "", "   ", "iOS AND", "AND iOS", "NOT", "(iOS", "iOS)", "()", "iOS Android",
+                "iOS; DROP TABLE device_registrations", "iOS OR 'Watch'",
+                "iOS OR ".repeat(80) + "TV", "NOT ".repeat(40) + "iOS", "(".repeat(40) + "iOS" + ")".repeat(40)}) {
+            assertThatThrownBy(() -> DeviceCombinationExpression.parse(expression))
+                .as("%s", expression)
+                .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Test
+    void controllerAnswers400ForMalformedExpressions() {
+        DeviceBitmapIndex deviceBitmapIndex = mock(DeviceBitmapIndex.class);
+        when(deviceBitmapIndex.isEnabled()).thenReturn(true);
+        DeviceAnalyticsController controller = new DeviceAnalyticsController();
+        ReflectionTestUtils.setField(controller, "deviceBitmapIndex", deviceBitmapIndex);
+
+        for (String expression : new String[] {"iOS AND", "iOS AND Tablet", "iOS <> Android"}) {
+            ResponseEntity<DeviceCombinationResponse> response = controller.countDeviceCombination(expression);
+            assertThat(response.getStatusCode()).as("%s", expression).isEqualTo(HttpStatus.BAD_REQUEST);
+        }
+        verify(deviceBitmapIndex, never()).count(any());
+    }
+
+    private int[] evaluate(String expression) {
+        return DeviceCombinationExpression.parse(expression).evaluate(devices::get, universe).toArray();
+    }
+}
@@ -0,0 +1,232 @@
+package com.safra.bank.statistics.client;
+
+import com.safra.bank.shared.dto.DeviceRegistrationRequest;
+import com.safra.bank.shared.dto.DeviceRegistrationResponse;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DeviceRegistrationClientTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private StubRegistrationServer first;
+
+    private StubRegistrationServer second;
+
+    private DeviceRegistrationClient client;
+
+    @BeforeEach
+    void startStubs() throws IOException {
+        first = new StubRegistrationServer();
+        second = new StubRegistrationServer();
+    }
+
+    @AfterEach
+    void stopStubs() {
+        if (client != null) {
+            client.shutdown();
+        }
+        first.close();
+        second.close();
+    }
+
+    @Test
+    void successCarriesOneRequestIdAcrossAttempts() {
+        first.respond(500);
+        second.respond(200);
+        client = client(false, 1.0, 0, first, second);
+
+        DeviceRegistrationRequest request = request();
+        DeviceRegistrationResponse response = client.register(request);
+
+        assertThat(response).isNotNull();
+        assertThat(response.getStatusCode()).isEqualTo(200);
+        assertThat(request.getRequestId()).isNotNull();
+        assertThat(first.requests()).isEqualTo(1);
+        assertThat(second.requests()).isEqualTo(1);
+        assertThat(first.bodies().get(0)).contains(request.getRequestId());
+        assertThat(second.bodies().get(0)).contains(request.getRequestId());
+        assertThat(attempts("primary", "retryable")).isEqualTo(1);
+        assertThat(attempts("retry", "success")).isEqualTo(1);
+    }
+
+    @Test
+    void shedOnEveryAttemptReturnsServiceUnavailable() {
+        first.shed();
+        second.shed();
+        client = client(false, 1.0, 0, first, second);
+
+        DeviceRegistrationResponse response = client.register(request());
+
+        assertThat(response).isNotNull();
+        assertThat(response.getStatusCode()).isEqualTo(503);
+        assertThat(first.requests() + second.requests()).isEqualTo(2);
+        assertThat(attempts("primary", "shed")).isEqualTo(1);
+        assertThat(attempts("retry", "shed")).isEqualTo(1);
+
+        // Shedding is load, not failure: neither instance is ejected
+        for (int i = 0; i < 5; i++) {
+            client.register(request());
+        }
+        assertThat(meterRegistry.get("statistics.registration.endpoints").gauge().value()).isEqualTo(2);
+    }
+
+    @Test
+    void serverErrorsEjectTheInstance() {
+        first.respond(500);
+        second.respond(200);
+        client = client(false, 1.0, 0, first, second);
+
+        for (int i = 0; i < 20; i++) {
+            assertThat(client.register(request())).isNotNull();
+        }
+
+        // Three consecutive failures eject the first instance for the ejection time
+        assertThat(first.requests()).isEqualTo(3);
+        assertThat(second.requests()).isEqualTo(20);
+        assertThat(meterRegistry.get("statistics.registration.endpoints").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void clientErrorsAreNotRetried() {
+        first.respond(400);
+        second.respond(400);
+        client = client(false, 1.0, 0, first, second);
+
+        assertThat(client.register(request())).isNull();
+        assertThat(first.requests() + second.requests()).isEqualTo(1);
+        assertThat(attempts("primary", "rejected")).isEqualTo(1);
+    }
+
+    @Test
+    void retriesStopWhenTheBudgetIsSpent() {
+        first.respond(500);
+        second.respond(500);
+        // 0.5 attempts earned per request, no floor
+        client = client(false, 0.5, 0, first, second);
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(client.register(request())).isNull();
+        }
+
+        // Every second request has earned a full retry
+        assertThat(attempts("primary", "retryable")).isEqualTo(10);
+        assertThat(attempts("retry", "retryable")).isEqualTo(5);
+        assertThat(meterRegistry.get("statistics.registration.budget.exhausted").counter().count()).isEqualTo(5);
+        assertThat(first.requests() + second.requests()).isEqualTo(15);
+    }
+
+    @Test
+    void hedgeAnswersWhenThePrimaryIsSlow() {
+        first.delay(1000);
+        client = client(true, 1.0, 0, first, second);
+
+        long start = System.nanoTime();
+        DeviceRegistrationResponse response = client.register(request());
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertThat(response).isNotNull();
+        assertThat(response.getStatusCode()).isEqualTo(200);
+        assertThat(elapsedMillis).isLessThan(800);
+        assertThat(first.requests()).isEqualTo(1);
+        assertThat(second.requests()).isEqualTo(1);
+        assertThat(meterRegistry.get("statistics.registration.hedges.won").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void noHedgeWithoutBudget() {
+        first.delay(300);
+        client = client(true, 0, 0, first, second);
+
+        DeviceRegistrationResponse response = client.register(request());
+
+        assertThat(response).isNotNull();
+        assertThat(first.requests()).isEqualTo(1);
+        assertThat(second.requests()).isZero();
+        assertThat(meterRegistry.get("statistics.registration.budget.exhausted").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void hedgeDelayFollowsRecentLatency() {
+        first.delay(40);
+        client = client(false, 1.0, 0, first);
+        ReflectionTestUtils.setField(client, "minSamples", 10);
+
+        // Too few samples: the initial delay is kept
+        for (int i = 0; i < 5; i++) {
+            client.register(request());
+        }
+        client.updateHedgeDelay();
+        assertThat(hedgeDelayMillis()).isEqualTo(20.0);
+
+        for (int i = 0; i < 10; i++) {
+            client.register(request());
+        }
+        client.updateHedgeDelay();
+        assertThat(hedgeDelayMillis()).isBetween(40.0, 300.0);
+
+        // Clamped to max-delay
+        ReflectionTestUtils.setField(client, "maxHedgeDelay", Duration.ofMillis(30));
+        for (int i = 0; i < 10; i++) {
+            client.register(request());
+        }
+        client.updateHedgeDelay();
+        assertThat(hedgeDelayMillis()).isEqualTo(30.0);
+    }
+
+    private DeviceRegistrationClient client(boolean hedging, double budgetRatio, int budgetMinPerSecond,
+                                            StubRegistrationServer... servers) {
+        RegistrationEndpoints endpoints = new RegistrationEndpoints();
+        ReflectionTestUtils.setField(endpoints, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(endpoints, "deviceRegistrationApiUrl", servers[0].baseUrl());
+        ReflectionTestUtils.setField(endpoints, "staticEndpoints",
+            String.join(",", Arrays.stream(servers).map(StubRegistrationServer::baseUrl).toList()));
+        // Round robin: the first attempt of a fresh client goes to the first server
+        ReflectionTestUtils.setField(endpoints, "strategyName", "round-robin");
+        ReflectionTestUtils.setField(endpoints, "maxFailures", 3);
+        ReflectionTestUtils.setField(endpoints, "ejectionTime", Duration.ofMinutes(1));
+        endpoints.init();
+
+        DeviceRegistrationClient registrationClient = new DeviceRegistrationClient();
+        ReflectionTestUtils.setField(registrationClient, "restTemplate", new RestTemplate());
+        ReflectionTestUtils.setField(registrationClient, "registrationEndpoints", endpoints);
+        ReflectionTestUtils.setField(registrationClient, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(registrationClient, "hedgingEnabled", hedging);
+        ReflectionTestUtils.setField(registrationClient, "hedgePercentile", 95.0);
+        ReflectionTestUtils.setField(registrationClient, "initialHedgeDelay", Duration.ofMillis(20));
+        ReflectionTestUtils.setField(registrationClient, "minHedgeDelay", Duration.ofMillis(1));
+        ReflectionTestUtils.setField(registrationClient, "maxHedgeDelay", Duration.ofSeconds(1));
+        ReflectionTestUtils.setField(registrationClient, "minSamples", 100);
+        ReflectionTestUtils.setField(registrationClient, "budgetRatio", budgetRatio);
+        ReflectionTestUtils.setField(registrationClient, "budgetMinPerSecond", budgetMinPerSecond);
+        ReflectionTestUtils.setField(registrationClient, "budgetMaxTokens", 100);
+        registrationClient.init();
+        return registrationClient;
+    }
+
+    private static DeviceRegistrationRequest request() {
+        return new DeviceRegistrationRequest("stub-user", "iOS");
+    }
+
+    private double attempts(String kind, String outcome) {
+        return meterRegistry.get("statistics.registration.attempts")
+            .tags(List.of(Tag.of("kind", kind), Tag.of("outcome", outcome)))
+            .counter().count();
+    }
+
+    private double hedgeDelayMillis() {
+        return meterRegistry.get("statistics.registration.hedge.delay").gauge().value();
+    }
+}
@@ -0,0 +1,152 @@
+package com.safra.bank.statistics.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RegistrationEndpointsTest {
+
+    private static final String A = "http://10.0.0.1:8081";
+
+    private static final String B = "http://10.0.0.2:8081";
+
+    private static final String C = "http://10.0.0.3:8081";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void powerOfTwoChoicesAvoidsTheBusiestInstance() {
+        RegistrationEndpoints endpoints = endpoints("p2c", Duration.ofSeconds(5), A, B, C);
+        RegistrationEndpoint busy = endpointAt(endpoints, A);
+        for (int i = 0; i < 10; i++) {
+            busy.start();
+        }
+
+        Map<String, Integer> chosen = new HashMap<>();
+        for (int i = 0; i < 3000; i++) {
+            RegistrationEndpoint endpoint = endpoints.acquire(null);
+            chosen.merge(endpoint.baseUrl(), 1, Integer::sum);
+            endpoints.release(endpoint, false);
+        }
+
+        // Any pair that includes the busy instance has an idler alternative
+        assertThat(chosen).doesNotContainKey(A);
+        assertThat(chosen.get(B)).isBetween(1200, 1800);
+        assertThat(chosen.get(C)).isBetween(1200, 1800);
+    }
+
+    @Test
+    void powerOfTwoChoicesSpreadsOutstandingRequests() {
+        RegistrationEndpoints endpoints = endpoints("p2c", Duration.ofSeconds(5), A, B, C);
+
+        for (int i = 0; i < 30; i++) {
+            endpoints.acquire(null);
+        }
+
+        // Never released: the comparison keeps the outstanding counts close together
+        for (String url : List.of(A, B, C)) {
+            assertThat(endpointAt(endpoints, url).outstanding()).isBetween(7, 13);
+        }
+    }
+
+    @Test
+    void hedgePrefersAnotherInstance() {
+        RegistrationEndpoints endpoints = endpoints("p2c", Duration.ofSeconds(5), A, B);
+        RegistrationEndpoint primary = endpointAt(endpoints, A);
+
+        for (int i = 0; i < 100; i++) {
+            RegistrationEndpoint hedge = endpoints.acquire(primary);
+            assertThat(hedge.baseUrl()).isEqualTo(B);
+            endpoints.release(hedge, false);
+        }
+    }
+
+    @Test
+    void ejectsAnInstanceAfterConsecutiveFailures() throws InterruptedException {
+        RegistrationEndpoints endpoints = endpoints("round-robin", Duration.ofMillis(200), A, B);
+        RegistrationEndpoint failing = endpointAt(endpoints, A);
+
+        // Two failures and a success do not eject
+        failing.start();
+        endpoints.release(failing, true);
+        failing.start();
+        endpoints.release(failing, true);
+        failing.start();
+        endpoints.release(failing, false);
+        assertThat(failing.isEjected(System.nanoTime())).isFalse();
+
+        for (int i = 0; i < 3; i++) {
+            failing.start();
+            endpoints.release(failing, true);
+        }
+        assertThat(failing.isEjected(System.nanoTime())).isTrue();
+        for (int i = 0; i < 20; i++) {
+            RegistrationEndpoint endpoint = endpoints.acquire(null);
+            assertThat(endpoint.baseUrl()).isEqualTo(B);
+            endpoints.release(endpoint, false);
+        }
+
+        Thread.sleep(250);
+        Map<String, Integer> chosen = new HashMap<>();
+        for (int i = 0; i < 20; i++) {
+            RegistrationEndpoint endpoint = endpoints.acquire(null);
+            chosen.merge(endpoint.baseUrl(), 1, Integer::sum);
+            endpoints.release(endpoint, false);
+        }
+        assertThat(chosen).containsEntry(A, 10).containsEntry(B, 10);
+    }
+
+    @Test
+    void usesEjectedInstancesWhenNoneIsLeft() {
+        RegistrationEndpoints endpoints = endpoints("p2c", Duration.ofSeconds(5), A, B);
+        for (String url : List.of(A, B)) {
+            RegistrationEndpoint endpoint = endpointAt(endpoints, url);
+            for (int i = 0; i < 3; i++) {
+                endpoint.start();
+                endpoints.release(endpoint, true);
+            }
+        }
+
+        RegistrationEndpoint endpoint = endpoints.acquire(null);
+        assertThat(endpoint.baseUrl()).isIn(A, B);
+        assertThat(meterRegistry.get("statistics.registration.endpoints").gauge().value()).isZero();
+    }
+
+    @Test
+    void busyAnswersDoNotEject() {
+        RegistrationEndpoints endpoints = endpoints("p2c", Duration.ofSeconds(5), A, B);
+        RegistrationEndpoint endpoint = endpointAt(endpoints, A);
+        for (int i = 0; i < 10; i++) {
+            endpoint.start();
+            endpoints.release(endpoint, false);
+        }
+
+        assertThat(endpoint.isEjected(System.nanoTime())).isFalse();
+        assertThat(endpoint.outstanding()).isZero();
+    }
+
+    private RegistrationEndpoints endpoints(String strategy, Duration ejectionTime, String... urls) {
+        RegistrationEndpoints endpoints = new RegistrationEndpoints();
+        ReflectionTestUtils.setField(endpoints, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(endpoints, "deviceRegistrationApiUrl", urls[0]);
+        ReflectionTestUtils.setField(endpoints, "staticEndpoints", String.join(",", urls));
+        ReflectionTestUtils.setField(endpoints, "strategyName", strategy);
+        ReflectionTestUtils.setField(endpoints, "maxFailures", 3);
+        ReflectionTestUtils.setField(endpoints, "ejectionTime", ejectionTime);
+        endpoints.init();
+        return endpoints;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static RegistrationEndpoint endpointAt(RegistrationEndpoints endpoints, String url) {
+        List<RegistrationEndpoint> all = (List<RegistrationEndpoint>) ReflectionTestUtils.getField(endpoints, "endpoints");
+        return all.stream().filter(endpoint -> endpoint.baseUrl().equals(url)).findFirst().orElseThrow();
+    }
+}
@@ -0,0 +1,81 @@
+package com.safra.bank.statistics.client;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RetryBudgetTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    void earnsRatioOfAnAttemptPerRequest() {
+        RetryBudget budget = new RetryBudget(0.1, 0, 100);
+        long now = System.nanoTime();
+
+        assertThat(budget.tryWithdraw(now)).isFalse();
+        for (int i = 0; i < 25; i++) {
+            budget.deposit();
+        }
+
+        assertThat(budget.available()).isEqualTo(2.5);
+        assertThat(budget.tryWithdraw(now)).isTrue();
+        assertThat(budget.tryWithdraw(now)).isTrue();
+        assertThat(budget.tryWithdraw(now)).isFalse();
+        assertThat(budget.available()).isEqualTo(0.5);
+    }
+
+    @Test
+    void capsTheEarnedBalance() {
+        RetryBudget budget = new RetryBudget(1.0, 0, 3);
+        long now = System.nanoTime();
+        for (int i = 0; i < 1000; i++) {
+            budget.deposit();
+        }
+
+        assertThat(budget.available()).isEqualTo(3.0);
+        int withdrawn = 0;
+        while (budget.tryWithdraw(now)) {
+            withdrawn++;
+        }
+        assertThat(withdrawn).isEqualTo(3);
+    }
+
+    @Test
+    void floorAllowsMinPerSecondWithoutTraffic() {
+        RetryBudget budget = new RetryBudget(0, 5, 100);
+        long now = System.nanoTime();
+
+        int allowed = 0;
+        while (budget.tryWithdraw(now)) {
+            allowed++;
+        }
+        assertThat(allowed).isEqualTo(5);
+
+        // One more attempt per 200 ms
+        assertThat(budget.tryWithdraw(now + SECOND / 5 - 1_000_000)).isFalse();
+        assertThat(budget.tryWithdraw(now + SECOND / 5)).isTrue();
+        assertThat(budget.tryWithdraw(now + SECOND / 5)).isFalse();
+    }
+
+    @Test
+    void spendsEarnedBalanceBeforeTheFloor() {
+        RetryBudget budget = new RetryBudget(0.5, 1, 100);
+        long now = System.nanoTime();
+        budget.deposit();
+        budget.deposit();
+
+        assertThat(budget.tryWithdraw(now)).isTrue();
+        assertThat(budget.available()).isZero();
+        assertThat(budget.tryWithdraw(now)).isTrue();
+        assertThat(budget.tryWithdraw(now)).isFalse();
+    }
+
+    @Test
+    void rejectsInvalidSettings() {
+        assertThatThrownBy(() -> new RetryBudget(-0.1, 0, 10)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new RetryBudget(0.1, -1, 10)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new RetryBudget(0.1, 0, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
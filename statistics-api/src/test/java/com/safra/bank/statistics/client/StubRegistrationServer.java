@@ -0,0 +1,96 @@
+package com.safra.bank.statistics.client;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local stand-in for one device-registration-api instance
+ * Answers POST /Device/register with the configured status, delay and Retry-After header
+ * and records the request bodies it received
+ */
+final class StubRegistrationServer implements AutoCloseable {
+
+    private final HttpServer server;
+
+    private final AtomicInteger requests = new AtomicInteger();
+
+    private final List<String> bodies = new CopyOnWriteArrayList<>();
+
+    private volatile int status = 200;
+
+    private volatile long delayMillis;
+
+    private volatile String retryAfter;
+
+    StubRegistrationServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/Device/register", this::handle);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    StubRegistrationServer respond(int status) {
+        this.status = status;
+        this.retryAfter = null;
+        return this;
+    }
+
+    StubRegistrationServer shed() {
+        this.status = 503;
+        this.retryAfter = "1";
+        return this;
+    }
+
+    StubRegistrationServer delay(long millis) {
+        this.delayMillis = millis;
+        return this;
+    }
+
+    int requests() {
+        return requests.get();
+    }
+
+    List<String> bodies() {
+        return bodies;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        bodies.add(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+        if (delayMillis > 0) {
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        byte[] body = ("{\"statusCode\":" + status + "}").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        if (retryAfter != null) {
+            exchange.getResponseHeaders().set("Retry-After", retryAfter);
+        }
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
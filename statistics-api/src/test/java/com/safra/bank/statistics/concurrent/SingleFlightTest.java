@@ -0,0 +1,143 @@
+package com.safra.bank.statistics.concurrent;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+class SingleFlightTest {
+
+    private static final String NAME = "test.singleflight";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void stopExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void joinersShareTheLeadersResult() throws Exception {
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>(NAME, 10, meterRegistry);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+
+        Future<Integer> leader = executor.submit(() -> singleFlight.execute("key", () -> {
+            calls.incrementAndGet();
+            await(release);
+            return 42;
+        }));
+        awaitUntil(() -> inFlight() == 1);
+        Future<Integer> joiner = executor.submit(() -> singleFlight.execute("key", () -> {
+            calls.incrementAndGet();
+            return -1;
+        }));
+        awaitUntil(() -> calls("coalesced") == 1);
+        release.countDown();
+
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo(42);
+        assertThat(joiner.get(5, TimeUnit.SECONDS)).isEqualTo(42);
+        assertThat(calls).hasValue(1);
+        assertThat(calls("executed")).isEqualTo(1);
+    }
+
+    @Test
+    void leaderExceptionPropagatesToJoinersUnchanged() throws Exception {
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>(NAME, 10, meterRegistry);
+        CountDownLatch release = new CountDownLatch(1);
+        IllegalStateException failure = new IllegalStateException("downstream unavailable");
+
+        Future<Throwable> leader = executor.submit(() -> catchThrowable(() -> singleFlight.execute("key", () -> {
+            await(release);
+            throw failure;
+        })));
+        awaitUntil(() -> inFlight() == 1);
+        Future<Throwable> joiner = executor.submit(() -> catchThrowable(() -> singleFlight.execute("key", () -> 1)));
+        awaitUntil(() -> calls("coalesced") == 1);
+        release.countDown();
+
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isSameAs(failure);
+        assertThat(joiner.get(5, TimeUnit.SECONDS)).isSameAs(failure);
+    }
+
+    @Test
+    void removesTheKeyOnceTheCallCompletes() {
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>(NAME, 10, meterRegistry);
+
+        assertThat(singleFlight.execute("key", () -> 1)).isEqualTo(1);
+        assertThat(inFlight()).isZero();
+        // A completed result is never served again: the next call runs
+        assertThat(singleFlight.execute("key", () -> 2)).isEqualTo(2);
+        assertThatThrownBy(() -> singleFlight.execute("key", () -> {
+            throw new IllegalArgumentException("rejected");
+        })).isInstanceOf(IllegalArgumentException.class);
+        assertThat(inFlight()).isZero();
+        assertThat(singleFlight.execute("key", () -> 3)).isEqualTo(3);
+
+        assertThat(calls("executed")).isEqualTo(4);
+        assertThat(calls("coalesced")).isZero();
+    }
+
+    @Test
+    void bypassesCoalescingAtMaxInFlight() throws Exception {
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>(NAME, 1, meterRegistry);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<Integer> leader = executor.submit(() -> singleFlight.execute("first", () -> {
+            await(release);
+            return 1;
+        }));
+        awaitUntil(() -> inFlight() == 1);
+
+        // Map full: another key runs on the caller's thread without being tracked
+        assertThat(singleFlight.execute("second", () -> 2)).isEqualTo(2);
+        assertThat(singleFlight.execute("second", () -> 3)).isEqualTo(3);
+        assertThat(calls("bypassed")).isEqualTo(2);
+        assertThat(inFlight()).isEqualTo(1);
+
+        release.countDown();
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+        assertThat(inFlight()).isZero();
+        assertThat(calls("executed")).isEqualTo(1);
+    }
+
+    private double calls(String result) {
+        return meterRegistry.get(NAME + ".calls").tag("result", result).counter().count();
+    }
+
+    private double inFlight() {
+        return meterRegistry.get(NAME + ".in.flight").gauge().value();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            if (!latch.await(5, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Not released");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met in time").isLessThan(deadline);
+            Thread.sleep(1);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.safra.bank.statistics.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TokenBucketRateLimiterTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    private static final long NOW = 1_000 * SECOND;
+
+    @Test
+    void allowsTheBurstBackToBack() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(2, 5, 100, 1);
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(limiter.tryAcquire("client", NOW)).isEqualTo(TokenBucketRateLimiter.ALLOWED);
+        }
+        assertThat(limiter.tryAcquire("client", NOW)).isPositive();
+        // Buckets are per key
+        assertThat(limiter.tryAcquire("other", NOW)).isEqualTo(TokenBucketRateLimiter.ALLOWED);
+    }
+
+    @Test
+    void refillsAtTheConfiguredRate() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(2, 2, 100, 1);
+        limiter.tryAcquire("client", NOW);
+        limiter.tryAcquire("client", NOW);
+        assertThat(limiter.tryAcquire("client", NOW)).isPositive();
+
+        // One token per 500 ms
+        assertThat(limiter.tryAcquire("client", NOW + SECOND / 2 - 1)).isPositive();
+        assertThat(limiter.tryAcquire("client", NOW + SECOND / 2)).isEqualTo(TokenBucketRateLimiter.ALLOWED);
+        assertThat(limiter.tryAcquire("client", NOW + SECOND / 2)).isPositive();
+
+        // Idle time refills no more than the burst
+        long later = NOW + 60 * SECOND;
+        assertThat(limiter.tryAcquire("client", later)).isEqualTo(TokenBucketRateLimiter.ALLOWED);
+        assertThat(limiter.tryAcquire("client", later)).isEqualTo(TokenBucketRateLimiter.ALLOWED);
+        assertThat(limiter.tryAcquire("client", later)).isPositive();
+    }
+
+    @Test
+    void rejectionReportsTheWaitForTheNextToken() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(4, 1, 100, 1);
+        assertThat(limiter.tryAcquire("client", NOW)).isEqualTo(TokenBucketRateLimiter.ALLOWED);
+
+        assertThat(limiter.tryAcquire("client", NOW)).isEqualTo(SECOND / 4);
+        assertThat(limiter.tryAcquire("client", NOW + SECOND / 10)).isEqualTo(SECOND / 4 - SECOND / 10);
+        // Rejections take no token, so waiting exactly the reported time succeeds
+        assertThat(limiter.tryAcquire("client", NOW + SECOND / 4)).isEqualTo(TokenBucketRateLimiter.ALLOWED);
+    }
+
+    @Test
+    void retryAfterRoundsTheWaitUpToWholeSeconds() {
+        ClientRateLimiter clientRateLimiter = new ClientRateLimiter();
+        ReflectionTestUtils.setField(clientRateLimiter, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(clientRateLimiter, "enabled", true);
+        ReflectionTestUtils.setField(clientRateLimiter, "ipRatePerSecond", 4.0);
+        ReflectionTestUtils.setField(clientRateLimiter, "ipBurst", 1);
+        ReflectionTestUtils.setField(clientRateLimiter, "userRatePerSecond", 0.5);
+        ReflectionTestUtils.setField(clientRateLimiter, "userBurst", 1);
+        ReflectionTestUtils.setField(clientRateLimiter, "maxKeys", 100);
+        ReflectionTestUtils.setField(clientRateLimiter, "stripes", 1);
+        ReflectionTestUtils.invokeMethod(clientRateLimiter, "init");
+
+        assertThat(clientRateLimiter.acquireForClient("10.0.0.1")).isZero();
+        // 250 ms wait: never 0, which would tell the client to retry at once
+        assertThat(clientRateLimiter.acquireForClient("10.0.0.1")).isEqualTo(1);
+        assertThat(clientRateLimiter.acquireForUser("alice")).isZero();
+        // Just under 2 s wait
+        assertThat(clientRateLimiter.acquireForUser("alice")).isEqualTo(2);
+    }
+
+    @Test
+    void evictsOnlyKeysWhoseBucketIsFull() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1, 3, 100, 4);
+        limiter.tryAcquire("idle", NOW);
+        limiter.tryAcquire("busy", NOW);
+        limiter.tryAcquire("busy", NOW + 2 * SECOND);
+        limiter.tryAcquire("busy", NOW + 2 * SECOND);
+        assertThat(limiter.size()).isEqualTo(2);
+
+        // "idle" is full again after 1 s, "busy" only after 4 s
+        assertThat(limiter.evictIdle(NOW + 3 * SECOND - 1)).isEqualTo(1);
+        assertThat(limiter.size()).isEqualTo(1);
+        assertThat(limiter.evictIdle(NOW + 4 * SECOND)).isEqualTo(1);
+        assertThat(limiter.size()).isZero();
+
+        // An evicted key starts again with a full bucket
+        for (int i = 0; i < 3; i++) {
+            assertThat(limiter.tryAcquire("busy", NOW + 4 * SECOND)).isEqualTo(TokenBucketRateLimiter.ALLOWED);
+        }
+    }
+
+    @Test
+    void untrackedKeysShareABucketWhileTheStripeIsFull() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1, 1, 1, 1);
+        assertThat(limiter.tryAcquire("tracked", NOW)).isEqualTo(TokenBucketRateLimiter.ALLOWED);
+
+        assertThat(limiter.tryAcquire("first", NOW)).isEqualTo(TokenBucketRateLimiter.ALLOWED);
+        assertThat(limiter.tryAcquire("second", NOW)).isPositive();
+        assertThat(limiter.size()).isEqualTo(1);
+
+        assertThat(limiter.evictIdle(NOW + SECOND)).isEqualTo(1);
+        assertThat(limiter.tryAcquire("second", NOW + SECOND)).isEqualTo(TokenBucketRateLimiter.ALLOWED);
+        assertThat(limiter.size()).isEqualTo(1);
+    }
+
+    @Test
+    void rejectsInvalidSettings() {
+        assertThatThrownBy(() -> new TokenBucketRateLimiter(0, 1, 1, 1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new TokenBucketRateLimiter(1, 0, 1, 1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new TokenBucketRateLimiter(1, 1, 0, 1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new TokenBucketRateLimiter(1, 1, 1, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}